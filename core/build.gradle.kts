@@ -28,7 +28,9 @@ dependencies {
 }
 
 tasks.test {
-    useJUnitPlatform()
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
 
     testLogging {
         events("passed", "skipped", "failed")
@@ -63,12 +65,24 @@ tasks.register("testCrypto", Test::class) {
 }
 
 tasks.register("testDatabase", Test::class) {
-    useJUnitPlatform()
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
     filter {
         includeTestsMatching("com.passman.core.db.*")
     }
 }
 
+// Persistence benchmarks, run once per SQLite tuning profile
+tasks.register("benchmark", Test::class) {
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    testLogging {
+        showStandardStreams = true
+    }
+}
+
 // Code coverage (optional - for future integration)
 // Uncomment when you want to add JaCoCo code coverage
 /*
@@ -1,8 +1,14 @@
 package com.passman.core.crypto;
 
 import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.IvParameterSpec;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
 import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.Base64;
@@ -92,4 +98,43 @@ public class AESCipher {
 
         return cipher.doFinal(encrypted);
     }
-}
\ No newline at end of file
+
+    /**
+     * Streaming counterpart of encryptBytes: writes the IV, then encrypts everything written
+     * to the returned stream. Closing it writes the final padded block and closes out.
+     */
+    public OutputStream encryptingStream(OutputStream out, SecretKey key) throws Exception {
+        byte[] iv = new byte[IV_LENGTH];
+        secureRandom.nextBytes(iv);
+
+        Cipher cipher = Cipher.getInstance(ALGORITHM);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+
+        out.write(iv);
+        return new CipherOutputStream(out, cipher);
+    }
+
+    /**
+     * Streaming counterpart of decryptBytes for data in the IV + ciphertext layout
+     */
+    public InputStream decryptingStream(InputStream in, SecretKey key) throws Exception {
+        byte[] iv = in.readNBytes(IV_LENGTH);
+        if (iv.length != IV_LENGTH) {
+            throw new EOFException("Encrypted stream is shorter than its IV");
+        }
+
+        Cipher cipher = Cipher.getInstance(ALGORITHM);
+        cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(iv));
+
+        return new CipherInputStream(in, cipher);
+    }
+
+    /**
+     * Random-access counterpart of decryptingStream: a channel over plaintext bytes
+     * [rangeStart, rangeStart + rangeLength) of the data whose IV starts at offset in the channel
+     */
+    public SeekableByteChannel decryptingChannel(SeekableByteChannel in, long offset, long plaintextSize,
+                                                 long rangeStart, long rangeLength, SecretKey key) throws Exception {
+        return new SeekableDecryptingChannel(in, offset, plaintextSize, rangeStart, rangeLength, key);
+    }
+}
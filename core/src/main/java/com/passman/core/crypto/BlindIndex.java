@@ -0,0 +1,95 @@
+package com.passman.core.crypto;
+
+import com.passman.core.utils.FtsQueryUtil;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Keyed blind index for searching encrypted text without decrypting it.
+ * Words are hashed with an HMAC key derived from the master key, so stored
+ * hashes cannot be linked back to words without that key. Thread-safe, so one
+ * instance can serve a whole session.
+ */
+public class BlindIndex {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte[] NOTE_CONTENT_CONTEXT =
+            "passman-note-content-index-v1".getBytes(StandardCharsets.UTF_8);
+
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MAX_PREFIX_LENGTH = 12;
+
+    private final Mac mac;
+
+    public BlindIndex(SecretKey masterKey) throws Exception {
+        Mac kdf = Mac.getInstance(ALGORITHM);
+        kdf.init(new SecretKeySpec(masterKey.getEncoded(), ALGORITHM));
+        byte[] indexKey = kdf.doFinal(NOTE_CONTENT_CONTEXT);
+
+        mac = Mac.getInstance(ALGORITHM);
+        mac.init(new SecretKeySpec(indexKey, ALGORITHM));
+        Arrays.fill(indexKey, (byte) 0);
+    }
+
+    /**
+     * Hash every distinct word of the text and its prefixes (3 to 12 characters),
+     * so a stored note can be found by whole words or by word beginnings.
+     */
+    public Set<Long> indexTokens(String text) {
+        Set<Long> hashes = new LinkedHashSet<>();
+        Set<String> words = new LinkedHashSet<>();
+        for (String token : FtsQueryUtil.tokenize(text)) {
+            String word = normalize(token);
+            if (word.length() >= MIN_TOKEN_LENGTH) {
+                words.add(word);
+            }
+        }
+
+        for (String word : words) {
+            if (word.length() < MIN_PREFIX_LENGTH) {
+                hashes.add(hash(word));
+                continue;
+            }
+            int maxLength = Math.min(word.length(), MAX_PREFIX_LENGTH);
+            for (int length = MIN_PREFIX_LENGTH; length <= maxLength; length++) {
+                hashes.add(hash(word.substring(0, length)));
+            }
+        }
+
+        return hashes;
+    }
+
+    /**
+     * Hash the terms of a search query. A note matches when it has every returned hash.
+     * Terms longer than 12 characters are matched by their 12 character prefix.
+     */
+    public Set<Long> queryTokens(String query) {
+        Set<Long> hashes = new LinkedHashSet<>();
+        for (String token : FtsQueryUtil.tokenize(query)) {
+            String word = normalize(token);
+            if (word.length() >= MIN_TOKEN_LENGTH) {
+                hashes.add(hash(word.substring(0, Math.min(word.length(), MAX_PREFIX_LENGTH))));
+            }
+        }
+        return hashes;
+    }
+
+    private synchronized long hash(String token) {
+        byte[] digest = mac.doFinal(token.getBytes(StandardCharsets.UTF_8));
+        return ByteBuffer.wrap(digest).getLong();
+    }
+
+    private static String normalize(String token) {
+        String decomposed = Normalizer.normalize(token, Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,153 @@
+package com.passman.core.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.security.GeneralSecurityException;
+
+/**
+ * Read-only channel over a range of the plaintext of data in AESCipher's IV + CBC layout.
+ *
+ * In CBC every ciphertext block decrypts on its own given the block before it (or the IV for
+ * the first block), so a read at any position decrypts only the blocks it covers; nothing
+ * before them is read. The final padded block is cut off by the known plaintext size.
+ * Ranged reads cannot check the checksum of the whole file.
+ */
+public class SeekableDecryptingChannel implements SeekableByteChannel {
+
+    private static final String ALGORITHM = "AES/CBC/NoPadding";
+    private static final int BLOCK_SIZE = 16;
+    private static final int MAX_READ_BLOCKS = 4096;
+
+    private final SeekableByteChannel source;
+    private final long sourceOffset;
+    private final long rangeStart;
+    private final long rangeLength;
+    private final SecretKey key;
+    private final Cipher cipher;
+    private long position;
+    private boolean open = true;
+
+    /**
+     * @param source        channel holding the encrypted data; closed with this channel
+     * @param sourceOffset  where the IV starts in source
+     * @param plaintextSize size of the whole plaintext
+     * @param rangeStart    plaintext offset that position 0 of this channel maps to
+     * @param rangeLength   bytes readable from rangeStart; cut to the end of the plaintext
+     */
+    public SeekableDecryptingChannel(SeekableByteChannel source, long sourceOffset, long plaintextSize,
+                                     long rangeStart, long rangeLength, SecretKey key) throws GeneralSecurityException {
+        if (rangeStart < 0 || rangeLength < 0) {
+            throw new IllegalArgumentException("Range must not be negative");
+        }
+        this.source = source;
+        this.sourceOffset = sourceOffset;
+        this.rangeStart = Math.min(rangeStart, plaintextSize);
+        this.rangeLength = Math.min(rangeLength, plaintextSize - this.rangeStart);
+        this.key = key;
+        this.cipher = Cipher.getInstance(ALGORITHM);
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= rangeLength) {
+            return -1;
+        }
+        int wanted = (int) Math.min(dst.remaining(), rangeLength - position);
+        if (wanted == 0) {
+            return 0;
+        }
+
+        long plainOffset = rangeStart + position;
+        long firstBlock = plainOffset / BLOCK_SIZE;
+        long lastBlock = (plainOffset + wanted - 1) / BLOCK_SIZE;
+        lastBlock = Math.min(lastBlock, firstBlock + MAX_READ_BLOCKS - 1);
+
+        // The block before the first one is its IV; block -1 is the IV at the start of the data
+        byte[] iv = readFully(sourceOffset + firstBlock * BLOCK_SIZE, BLOCK_SIZE);
+        byte[] ciphertext = readFully(sourceOffset + (firstBlock + 1) * BLOCK_SIZE,
+                (int) (lastBlock - firstBlock + 1) * BLOCK_SIZE);
+
+        byte[] plaintext;
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(iv));
+            plaintext = cipher.doFinal(ciphertext);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to decrypt range", e);
+        }
+
+        int skip = (int) (plainOffset - firstBlock * BLOCK_SIZE);
+        int count = Math.min(wanted, plaintext.length - skip);
+        dst.put(plaintext, skip, count);
+        position += count;
+        return count;
+    }
+
+    private byte[] readFully(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        source.position(offset);
+        while (buffer.hasRemaining()) {
+            if (source.read(buffer) < 0) {
+                throw new IOException("Encrypted data ends before offset " + (offset + length));
+            }
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Position must not be negative");
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return rangeLength;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (open) {
+            open = false;
+            source.close();
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package com.passman.core.db;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Row-level change journal (V9) used for differential backups.
+ *
+ * Triggers append (table, row id) to change_journal on every change. exportChangesSince
+ * writes the current state of every row changed after a version (or a tombstone for
+ * deleted rows) as a compact binary stream; replayChanges applies such a stream.
+ */
+public class ChangeJournal {
+
+    private static final byte[] MAGIC = "PMDELTA1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte RECORD_END = 0;
+    private static final byte RECORD_UPSERT = 1;
+    private static final byte RECORD_DELETE = 2;
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_INTEGER = 1;
+    private static final byte VALUE_REAL = 2;
+    private static final byte VALUE_TEXT = 3;
+    private static final byte VALUE_BLOB = 4;
+
+    /** Tables with journal triggers; anything else in a change stream is rejected */
+    public static final Set<String> JOURNALED_TABLES = Set.of(
+            "users", "credentials", "file_vaults", "encrypted_files", "audit_log", "missions",
+            "user_missions", "secure_notes", "note_attachments", "identity_cards", "expiry_alerts",
+            "file_blobs");
+
+    private final DatabaseManager dbManager;
+
+    public ChangeJournal(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    /**
+     * Journal position: epoch identifies the history, version is the last change recorded,
+     * prunedVersion the last change no longer kept.
+     */
+    public static class JournalState {
+        public final String epoch;
+        public final long version;
+        public final long prunedVersion;
+
+        public JournalState(String epoch, long version, long prunedVersion) {
+            this.epoch = epoch;
+            this.version = version;
+            this.prunedVersion = prunedVersion;
+        }
+
+        /**
+         * Whether every change after the given version of this epoch is still journaled
+         */
+        public boolean covers(String otherEpoch, long sinceVersion) {
+            return epoch.equals(otherEpoch) && sinceVersion >= prunedVersion && sinceVersion <= version;
+        }
+    }
+
+    /**
+     * Rows touched by a replay, by table
+     */
+    public static class ReplayResult {
+        private final Map<String, Set<Long>> upserted = new HashMap<>();
+        private final Map<String, Set<Long>> deleted = new HashMap<>();
+        private int rowCount;
+
+        public Set<Long> getUpserted(String table) {
+            return upserted.getOrDefault(table, Set.of());
+        }
+
+        public Set<Long> getDeleted(String table) {
+            return deleted.getOrDefault(table, Set.of());
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+    }
+
+    public JournalState getState() throws SQLException {
+        return getState(dbManager.getConnection());
+    }
+
+    /**
+     * Journal state of any connection, e.g. one opened on a backup snapshot
+     */
+    public JournalState getState(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("""
+                 SELECT s.epoch, s.pruned_version,
+                        COALESCE((SELECT MAX(version) FROM change_journal), s.pruned_version)
+                 FROM change_journal_state s WHERE s.id = 1
+                 """)) {
+            if (!rs.next()) {
+                throw new SQLException("Change journal is not initialized");
+            }
+            return new JournalState(rs.getString(1), rs.getLong(3), rs.getLong(2));
+        }
+    }
+
+    /**
+     * Write every row changed after sinceVersion to out. Runs in one read transaction on
+     * its own connection, so the rows and the returned state are consistent and writers
+     * are not blocked.
+     */
+    public JournalState exportChangesSince(long sinceVersion, OutputStream out) throws SQLException, IOException {
+        try (Connection conn = dbManager.openConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                JournalState state = getState(conn);
+                writeChanges(conn, sinceVersion, state.version, new DataOutputStream(out));
+                conn.commit();
+                return state;
+            } catch (SQLException | IOException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private void writeChanges(Connection conn, long sinceVersion, long toVersion, DataOutputStream out)
+            throws SQLException, IOException {
+        out.write(MAGIC);
+
+        // One record per changed row, in the order of its last change
+        String sql = """
+            SELECT table_name, row_id, MAX(version) AS last_version
+            FROM change_journal
+            WHERE version > ? AND version <= ?
+            GROUP BY table_name, row_id
+            ORDER BY last_version
+            """;
+
+        Map<String, PreparedStatement> rowQueries = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, sinceVersion);
+            stmt.setLong(2, toVersion);
+
+            try (ResultSet changes = stmt.executeQuery()) {
+                while (changes.next()) {
+                    String table = requireJournaled(changes.getString("table_name"));
+                    long rowId = changes.getLong("row_id");
+
+                    PreparedStatement rowQuery = rowQueries.get(table);
+                    if (rowQuery == null) {
+                        rowQuery = conn.prepareStatement("SELECT * FROM " + table + " WHERE id = ?");
+                        rowQueries.put(table, rowQuery);
+                    }
+                    rowQuery.setLong(1, rowId);
+
+                    try (ResultSet row = rowQuery.executeQuery()) {
+                        if (row.next()) {
+                            writeUpsert(out, table, rowId, row);
+                        } else {
+                            out.writeByte(RECORD_DELETE);
+                            out.writeUTF(table);
+                            out.writeLong(rowId);
+                        }
+                    }
+                }
+            }
+        } finally {
+            for (PreparedStatement rowQuery : rowQueries.values()) {
+                rowQuery.close();
+            }
+        }
+
+        out.writeByte(RECORD_END);
+        out.flush();
+    }
+
+    private void writeUpsert(DataOutputStream out, String table, long rowId, ResultSet row)
+            throws SQLException, IOException {
+        ResultSetMetaData meta = row.getMetaData();
+        int columnCount = meta.getColumnCount();
+
+        out.writeByte(RECORD_UPSERT);
+        out.writeUTF(table);
+        out.writeLong(rowId);
+        out.writeInt(columnCount);
+
+        for (int i = 1; i <= columnCount; i++) {
+            out.writeUTF(meta.getColumnName(i));
+            Object value = row.getObject(i);
+
+            if (value == null) {
+                out.writeByte(VALUE_NULL);
+            } else if (value instanceof Integer || value instanceof Long) {
+                out.writeByte(VALUE_INTEGER);
+                out.writeLong(((Number) value).longValue());
+            } else if (value instanceof Number) {
+                out.writeByte(VALUE_REAL);
+                out.writeDouble(((Number) value).doubleValue());
+            } else if (value instanceof byte[] bytes) {
+                out.writeByte(VALUE_BLOB);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            } else {
+                // Length-prefixed UTF-8: writeUTF is limited to 64 KB
+                byte[] text = value.toString().getBytes(StandardCharsets.UTF_8);
+                out.writeByte(VALUE_TEXT);
+                out.writeInt(text.length);
+                out.write(text);
+            }
+        }
+    }
+
+    /**
+     * Apply a change stream in one transaction. Foreign keys are off during the replay:
+     * cascaded deletes were journaled as changes of their own and are in the stream.
+     * Columns the current schema does not have are skipped.
+     */
+    public ReplayResult replayChanges(InputStream in) throws SQLException, IOException {
+        return replayChanges(dbManager.getConnection(), in);
+    }
+
+    /**
+     * Apply a change stream to another database, e.g. one extracted from a backup
+     */
+    public ReplayResult replayChanges(Connection conn, InputStream in) throws SQLException, IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] magic = data.readNBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a PassMan change stream");
+        }
+
+        ReplayResult result = new ReplayResult();
+        Map<String, Set<String>> schemaColumns = new HashMap<>();
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA foreign_keys = OFF;");
+        }
+        try {
+            conn.setAutoCommit(false);
+            try {
+                byte type;
+                while ((type = data.readByte()) != RECORD_END) {
+                    String table = requireJournaled(data.readUTF());
+                    long rowId = data.readLong();
+
+                    if (type == RECORD_DELETE) {
+                        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM " + table + " WHERE id = ?")) {
+                            pstmt.setLong(1, rowId);
+                            pstmt.executeUpdate();
+                        }
+                        result.deleted.computeIfAbsent(table, t -> new HashSet<>()).add(rowId);
+                    } else if (type == RECORD_UPSERT) {
+                        Set<String> columns = schemaColumns.get(table);
+                        if (columns == null) {
+                            columns = readColumns(conn, table);
+                            schemaColumns.put(table, columns);
+                        }
+                        upsertRow(conn, table, readRow(data), columns);
+                        result.upserted.computeIfAbsent(table, t -> new HashSet<>()).add(rowId);
+                    } else {
+                        throw new IOException("Corrupt change stream: unknown record type " + type);
+                    }
+                    result.rowCount++;
+                }
+                conn.commit();
+            } catch (SQLException | IOException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } finally {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA foreign_keys = ON;");
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Copy the rows whose keyColumn is one of keys from another database into this one,
+     * inserting or updating them the same way a replay does. Runs in the caller's transaction.
+     */
+    public ReplayResult copyRows(Connection source, String table, String keyColumn, Collection<Long> keys)
+            throws SQLException, IOException {
+        requireJournaled(table);
+        Connection conn = dbManager.getConnection();
+        Set<String> columns = readColumns(conn, table);
+        if (!columns.contains(keyColumn)) {
+            throw new SQLException("Unknown column " + keyColumn + " in " + table);
+        }
+
+        ReplayResult result = new ReplayResult();
+        try (PreparedStatement query = source.prepareStatement("SELECT * FROM " + table + " WHERE " + keyColumn + " = ?")) {
+            for (Long key : keys) {
+                query.setLong(1, key);
+                try (ResultSet rs = query.executeQuery()) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    while (rs.next()) {
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        for (int i = 1; i <= meta.getColumnCount(); i++) {
+                            row.put(meta.getColumnName(i), rs.getObject(i));
+                        }
+                        upsertRow(conn, table, row, columns);
+                        result.upserted.computeIfAbsent(table, t -> new HashSet<>()).add(rs.getLong("id"));
+                        result.rowCount++;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Object> readRow(DataInputStream data) throws IOException {
+        int columnCount = data.readInt();
+        Map<String, Object> row = new LinkedHashMap<>();
+
+        for (int i = 0; i < columnCount; i++) {
+            String column = data.readUTF();
+            byte valueType = data.readByte();
+            Object value = switch (valueType) {
+                case VALUE_NULL -> null;
+                case VALUE_INTEGER -> data.readLong();
+                case VALUE_REAL -> data.readDouble();
+                case VALUE_TEXT -> new String(readBytes(data), StandardCharsets.UTF_8);
+                case VALUE_BLOB -> readBytes(data);
+                default -> throw new IOException("Corrupt change stream: unknown value type " + valueType);
+            };
+            row.put(column, value);
+        }
+        return row;
+    }
+
+    private byte[] readBytes(DataInputStream data) throws IOException {
+        byte[] bytes = new byte[data.readInt()];
+        data.readFully(bytes);
+        return bytes;
+    }
+
+    private void upsertRow(Connection conn, String table, Map<String, Object> row, Set<String> schemaColumns)
+            throws SQLException {
+        List<String> columns = new ArrayList<>();
+        for (String column : row.keySet()) {
+            if (schemaColumns.contains(column)) {
+                columns.add(column);
+            }
+        }
+
+        // UPDATE for existing rows keeps the FTS and tag triggers consistent (REPLACE would not)
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (")
+                .append(String.join(", ", columns)).append(") VALUES (")
+                .append(String.join(", ", Collections.nCopies(columns.size(), "?")))
+                .append(") ON CONFLICT(id) DO ");
+        List<String> assignments = new ArrayList<>();
+        for (String column : columns) {
+            if (!column.equals("id")) {
+                assignments.add(column + " = excluded." + column);
+            }
+        }
+        sql.append(assignments.isEmpty() ? "NOTHING" : "UPDATE SET " + String.join(", ", assignments));
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < columns.size(); i++) {
+                pstmt.setObject(i + 1, row.get(columns.get(i)));
+            }
+            pstmt.executeUpdate();
+        }
+    }
+
+    private Set<String> readColumns(Connection conn, String table) throws SQLException {
+        Set<String> columns = new LinkedHashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                columns.add(rs.getString("name"));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Drop entries up to a version, once a full backup no longer needs them
+     */
+    public void prune(long upToVersion) throws SQLException {
+        Connection conn = dbManager.getConnection();
+        try (PreparedStatement delete = conn.prepareStatement("DELETE FROM change_journal WHERE version <= ?");
+             PreparedStatement update = conn.prepareStatement(
+                     "UPDATE change_journal_state SET pruned_version = MAX(pruned_version, ?) WHERE id = 1")) {
+            delete.setLong(1, upToVersion);
+            delete.executeUpdate();
+            update.setLong(1, upToVersion);
+            update.executeUpdate();
+        }
+    }
+
+    /**
+     * Start a new history (after a restore); existing backups can no longer be a delta base
+     */
+    public void startNewEpoch() throws SQLException {
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM change_journal");
+            stmt.execute("UPDATE change_journal_state SET epoch = lower(hex(randomblob(16))), " +
+                    "pruned_version = COALESCE((SELECT seq FROM sqlite_sequence WHERE name = 'change_journal'), 0) " +
+                    "WHERE id = 1");
+        }
+    }
+
+    private static String requireJournaled(String table) throws IOException {
+        if (!JOURNALED_TABLES.contains(table)) {
+            throw new IOException("Table is not journaled: " + table);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,380 @@
+package com.passman.core.db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background database maintenance that runs while the app is idle.
+ *
+ * Free pages are reclaimed with incremental_vacuum in small steps instead of a full
+ * VACUUM, statistics are refreshed with ANALYZE / PRAGMA optimize and the WAL is
+ * checkpointed. Each step is its own short transaction on a separate connection,
+ * so the UI and the WriteQueue only ever wait for one step. A pass stops as soon as
+ * the user becomes active again or cancel() is called.
+ */
+public class DatabaseMaintenanceScheduler {
+
+    private static final long TICK_SECONDS = 30;
+    private static final long IDLE_THRESHOLD_MS = 60_000;
+    private static final long OPTIMIZE_INTERVAL_MS = 60 * 60_000;
+    private static final long CHECKPOINT_INTERVAL_MS = 5 * 60_000;
+    private static final int VACUUM_STEP_PAGES = 128;
+    private static final long STEP_PAUSE_MS = 50;
+
+    // PRAGMA auto_vacuum values
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+    private static final String[] AUTO_VACUUM_MODES = {"NONE", "FULL", "INCREMENTAL"};
+
+    private static volatile DatabaseMaintenanceScheduler instance;
+
+    private final DatabaseManager dbManager;
+    private ScheduledExecutorService executor;
+
+    private volatile long lastActivityMillis = System.currentTimeMillis();
+    private volatile long lastSeenCommitCount;
+    private volatile boolean cancelRequested;
+    private volatile Statement activeStatement;
+
+    // Written only by the maintenance thread
+    private volatile String currentTask = "Idle";
+    private volatile boolean running;
+    private volatile LocalDateTime lastRunAt;
+    private volatile LocalDateTime lastOptimizeAt;
+    private volatile LocalDateTime lastCheckpointAt;
+    private volatile String autoVacuumMode = "-";
+    private volatile long freePages;
+    private volatile long pagesReclaimed;
+    private volatile int lastCheckpointFrames;
+    private volatile boolean lastPassCancelled;
+    private volatile String lastError;
+
+    private DatabaseMaintenanceScheduler(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    public static DatabaseMaintenanceScheduler getInstance() {
+        if (instance == null) {
+            synchronized (DatabaseMaintenanceScheduler.class) {
+                if (instance == null) {
+                    instance = new DatabaseMaintenanceScheduler(DatabaseManager.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start checking for idle periods in the background
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = createExecutor();
+        executor.scheduleWithFixedDelay(this::idleTick, TICK_SECONDS, TICK_SECONDS, TimeUnit.SECONDS);
+        System.out.println("✅ Database maintenance scheduler started");
+    }
+
+    public synchronized boolean isStarted() {
+        return executor != null;
+    }
+
+    /**
+     * Cancel the running pass and stop the scheduler
+     */
+    public void stop() {
+        ScheduledExecutorService toStop;
+        synchronized (this) {
+            toStop = executor;
+            executor = null;
+        }
+        if (toStop == null) {
+            return;
+        }
+
+        cancel();
+        toStop.shutdownNow();
+        try {
+            toStop.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("✅ Database maintenance scheduler stopped");
+    }
+
+    /**
+     * Run a full maintenance pass now, without waiting for the app to become idle
+     */
+    public CompletableFuture<MaintenanceStatus> runNow() {
+        ScheduledExecutorService target;
+        synchronized (this) {
+            if (executor == null) {
+                executor = createExecutor();
+            }
+            target = executor;
+        }
+
+        CompletableFuture<MaintenanceStatus> future = new CompletableFuture<>();
+        target.execute(() -> {
+            runPass(true);
+            if (lastError != null) {
+                future.completeExceptionally(new SQLException(lastError));
+            } else {
+                future.complete(getStatus());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Stop the running pass after its current step (or interrupt a running VACUUM)
+     */
+    public void cancel() {
+        cancelRequested = true;
+        Statement stmt = activeStatement;
+        if (stmt != null) {
+            try {
+                stmt.cancel();
+            } catch (SQLException e) {
+                System.err.println("⚠️ Failed to interrupt maintenance statement: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Record user activity; idle-time maintenance yields to the user
+     */
+    public void recordActivity() {
+        lastActivityMillis = System.currentTimeMillis();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public MaintenanceStatus getStatus() {
+        MaintenanceStatus status = new MaintenanceStatus();
+        status.running = running;
+        status.currentTask = currentTask;
+        status.lastRunAt = lastRunAt;
+        status.lastOptimizeAt = lastOptimizeAt;
+        status.lastCheckpointAt = lastCheckpointAt;
+        status.autoVacuumMode = autoVacuumMode;
+        status.freePages = freePages;
+        status.pagesReclaimed = pagesReclaimed;
+        status.lastCheckpointFrames = lastCheckpointFrames;
+        status.lastPassCancelled = lastPassCancelled;
+        status.lastError = lastError;
+        return status;
+    }
+
+    private ScheduledExecutorService createExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "passman-db-maintenance");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    private void idleTick() {
+        // Writes committed by the WriteQueue count as activity too
+        long commitCount = WriteQueue.getInstance().getCommitCount();
+        if (commitCount != lastSeenCommitCount) {
+            lastSeenCommitCount = commitCount;
+            recordActivity();
+        }
+
+        if (isIdle()) {
+            runPass(false);
+        }
+    }
+
+    private boolean isIdle() {
+        return System.currentTimeMillis() - lastActivityMillis >= IDLE_THRESHOLD_MS;
+    }
+
+    private boolean shouldContinue(boolean forced) {
+        return !cancelRequested && !Thread.currentThread().isInterrupted() && (forced || isIdle());
+    }
+
+    private void runPass(boolean forced) {
+        cancelRequested = false;
+        running = true;
+        lastError = null;
+
+        try (Connection conn = dbManager.openConnection()) {
+            if (shouldContinue(forced)) {
+                ensureIncrementalAutoVacuum(conn);
+            }
+            if (shouldContinue(forced)) {
+                reclaimFreePages(conn, forced);
+            }
+            if (shouldContinue(forced) && (forced || isDue(lastOptimizeAt, OPTIMIZE_INTERVAL_MS))) {
+                optimize(conn);
+            }
+            if (shouldContinue(forced) && (forced || isDue(lastCheckpointAt, CHECKPOINT_INTERVAL_MS))) {
+                checkpoint(conn, forced);
+            }
+
+            lastPassCancelled = cancelRequested;
+            lastRunAt = LocalDateTime.now();
+        } catch (SQLException e) {
+            if (cancelRequested) {
+                lastPassCancelled = true;
+                System.out.println("ℹ️ Database maintenance cancelled");
+            } else {
+                lastError = e.getMessage();
+                System.err.println("❌ Database maintenance failed: " + e.getMessage());
+            }
+        } finally {
+            currentTask = "Idle";
+            running = false;
+        }
+    }
+
+    private boolean isDue(LocalDateTime lastRun, long intervalMillis) {
+        return lastRun == null
+                || lastRun.plusNanos(intervalMillis * 1_000_000L).isBefore(LocalDateTime.now());
+    }
+
+    /**
+     * auto_vacuum can only change through a full VACUUM, so existing databases are
+     * rebuilt once; afterwards free pages are reclaimed incrementally.
+     */
+    private void ensureIncrementalAutoVacuum(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            int mode = queryInt(stmt, "PRAGMA auto_vacuum");
+            if (mode != AUTO_VACUUM_INCREMENTAL) {
+                currentTask = "Switching to incremental auto-vacuum";
+                System.out.println("🔄 Switching database to incremental auto-vacuum");
+
+                stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+                activeStatement = stmt;
+                try {
+                    stmt.execute("VACUUM");
+                } finally {
+                    activeStatement = null;
+                }
+                mode = queryInt(stmt, "PRAGMA auto_vacuum");
+            }
+            autoVacuumMode = mode >= 0 && mode < AUTO_VACUUM_MODES.length ? AUTO_VACUUM_MODES[mode] : "-";
+        }
+    }
+
+    private void reclaimFreePages(Connection conn, boolean forced) throws SQLException {
+        currentTask = "Reclaiming free pages";
+
+        try (Statement stmt = conn.createStatement()) {
+            long free = queryInt(stmt, "PRAGMA freelist_count");
+            while (free > 0 && shouldContinue(forced)) {
+                // incremental_vacuum frees one page per sqlite3_step. execute() steps once and
+                // leaves the statement in progress, which blocks the commit; executeUpdate()
+                // steps it to completion and resets it
+                conn.setAutoCommit(false);
+                try {
+                    try (Statement vacuum = conn.createStatement()) {
+                        vacuum.executeUpdate("PRAGMA incremental_vacuum(" + Math.min(VACUUM_STEP_PAGES, free) + ")");
+                    }
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+
+                long remaining = queryInt(stmt, "PRAGMA freelist_count");
+                pagesReclaimed += free - remaining;
+                if (remaining >= free) {
+                    break; // No progress (e.g. auto_vacuum is not incremental)
+                }
+                free = remaining;
+                freePages = free;
+
+                // Leave room for other connections between steps
+                try {
+                    Thread.sleep(STEP_PAUSE_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            freePages = free;
+        }
+    }
+
+    private void optimize(Connection conn) throws SQLException {
+        currentTask = "Updating query planner statistics";
+
+        try (Statement stmt = conn.createStatement()) {
+            // Full ANALYZE once; afterwards optimize only re-analyzes tables that need it
+            boolean analyzed;
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'sqlite_stat1'")) {
+                analyzed = rs.next();
+            }
+            stmt.execute(analyzed ? "PRAGMA optimize" : "ANALYZE");
+        }
+        lastOptimizeAt = LocalDateTime.now();
+    }
+
+    /**
+     * PASSIVE never blocks other connections; a manual run truncates the WAL file too
+     */
+    private void checkpoint(Connection conn, boolean forced) throws SQLException {
+        currentTask = "Checkpointing write-ahead log";
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "PRAGMA wal_checkpoint(" + (forced ? "TRUNCATE" : "PASSIVE") + ")")) {
+            if (rs.next()) {
+                lastCheckpointFrames = rs.getInt(3);
+            }
+        }
+        lastCheckpointAt = LocalDateTime.now();
+    }
+
+    private int queryInt(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    public static class MaintenanceStatus {
+        public boolean running;
+        public String currentTask;
+        public LocalDateTime lastRunAt;
+        public LocalDateTime lastOptimizeAt;
+        public LocalDateTime lastCheckpointAt;
+        public String autoVacuumMode;
+        public long freePages;
+        public long pagesReclaimed;
+        public int lastCheckpointFrames;
+        public boolean lastPassCancelled;
+        public String lastError;
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Maintenance Status:\n" +
+                            "  Current Task: %s\n" +
+                            "  Last Run: %s%s\n" +
+                            "  Auto-Vacuum: %s\n" +
+                            "  Free Pages: %d (%d reclaimed)\n" +
+                            "  Last Checkpoint: %s (%d frames)",
+                    currentTask,
+                    lastRunAt != null ? lastRunAt : "never",
+                    lastPassCancelled ? " (cancelled)" : "",
+                    autoVacuumMode, freePages, pagesReclaimed,
+                    lastCheckpointAt != null ? lastCheckpointAt : "never", lastCheckpointFrames
+            );
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package com.passman.core.db;
 
+import com.passman.core.utils.UrlUtil;
+
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.InputStreamReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
@@ -17,8 +23,19 @@ import java.util.List;
  */
 public class DatabaseManager {
     private static volatile DatabaseManager instance;
+    // data_migrations name of the one-time credential URL key backfill
+    private static final String URL_KEYS_BACKFILL = "credential_url_keys";
     private Connection connection;
+    private Connection sharedConnection;
     private String databasePath;
+    private volatile DatabaseTuningProfile tuningProfile = DatabaseTuningProfile.DEFAULT;
+
+    // Set for managers over a file other than the live database (see openFile)
+    private boolean detached;
+    private volatile boolean queryOnly;
+
+    // Connection bound to the current thread (the WriteQueue writer), used instead of the shared one
+    private final ThreadLocal<Connection> threadConnection = new ThreadLocal<>();
 
     private DatabaseManager() {}
 
@@ -34,22 +51,62 @@ public class DatabaseManager {
     }
 
     public void initialize() throws SQLException {
-        try {
+        // A manager from openFile reopens its own file, e.g. after a restore replaced it
+        if (!detached) {
             databasePath = getDatabasePathForOS();
+        }
+        open();
+    }
+
+    /**
+     * A manager over a database file other than the live one, e.g. a backup extracted to a
+     * temporary file. Migrations bring files from older versions up to the current schema.
+     * It is independent of the singleton and the WriteQueue; the caller closes it.
+     */
+    public static DatabaseManager openFile(Path databaseFile) throws SQLException {
+        DatabaseManager manager = new DatabaseManager();
+        manager.detached = true;
+        manager.databasePath = databaseFile.toAbsolutePath().toString();
+        manager.open();
+        return manager;
+    }
+
+    /**
+     * Reject every write on this manager's connections from now on (PRAGMA query_only)
+     */
+    public void setQueryOnly() throws SQLException {
+        queryOnly = true;
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA query_only = ON;");
+        }
+    }
 
+    public boolean isQueryOnly() {
+        return queryOnly;
+    }
+
+    private void open() throws SQLException {
+        try {
             File dbFile = new File(databasePath);
             dbFile.getParentFile().mkdirs();
 
             String url = "jdbc:sqlite:" + databasePath;
             connection = DriverManager.getConnection(url);
             connection.setAutoCommit(true);
+            sharedConnection = createNonClosingConnection(connection);
 
             try (Statement stmt = connection.createStatement()) {
                 stmt.execute("PRAGMA foreign_keys = ON;");
-                stmt.execute("PRAGMA journal_mode = WAL;");
+                // Takes effect for new databases; DatabaseMaintenanceScheduler converts existing ones
+                stmt.execute("PRAGMA auto_vacuum = INCREMENTAL;");
+                if (!detached) {
+                    stmt.execute("PRAGMA journal_mode = WAL;");
+                }
             }
+            tuningProfile.apply(connection);
 
             runMigrations();
+            backfillCredentialUrlKeys();
             initializeDefaultData();
 
             System.out.println("✅ Database initialized at: " + databasePath);
@@ -92,6 +149,17 @@ public class DatabaseManager {
         migrations.add("/db/migrations/V2__AddPasswordAge.sql");
         migrations.add("/db/migrations/V3__AddVaultSeparatePasswords.sql");
         migrations. add("/db/migrations/V4__AddIdentityCardsAndNotes.sql");
+        migrations.add("/db/migrations/V5__AddFullTextSearch.sql");
+        migrations.add("/db/migrations/V6__AddNoteContentIndex.sql");
+        migrations.add("/db/migrations/V7__AddTagStore.sql");
+        migrations.add("/db/migrations/V8__AddCredentialUrlKeys.sql");
+        migrations.add("/db/migrations/V9__AddChangeJournal.sql");
+        migrations.add("/db/migrations/V10__AddBackupSchedule.sql");
+        migrations.add("/db/migrations/V11__AddFileBlobs.sql");
+        migrations.add("/db/migrations/V12__AddBlobHealth.sql");
+        migrations.add("/db/migrations/V13__AddPackFiles.sql");
+        migrations.add("/db/migrations/V14__AddVaultStorage.sql");
+        migrations.add("/db/migrations/V15__AddDataMigrations.sql");
         return migrations;
     }
 
@@ -112,8 +180,12 @@ public class DatabaseManager {
 
                 sql.append(line).append(" ");
 
+                // Trigger bodies contain inner statements, so only END; terminates them
+                boolean inTrigger = sql.toString().toUpperCase().startsWith("CREATE TRIGGER");
+                boolean statementEnd = inTrigger ? line.toUpperCase().endsWith("END;") : line.endsWith(";");
+
                 // Execute when we find a semicolon
-                if (line.endsWith(";")) {
+                if (statementEnd) {
                     String sqlStatement = sql.toString().trim();
 
                     if (! sqlStatement.isEmpty()) {
@@ -140,6 +212,64 @@ public class DatabaseManager {
         }
     }
 
+    /**
+     * Compute url_host/url_domain for credentials saved before V8. Needs the public
+     * suffix rules, so it runs in Java, once per database: completion is recorded in
+     * data_migrations together with the updated rows.
+     */
+    private void backfillCredentialUrlKeys() throws SQLException {
+        if (isDataMigrationDone(URL_KEYS_BACKFILL)) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>();
+        List<String> urls = new ArrayList<>();
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, url FROM credentials WHERE url_host IS NULL")) {
+            while (rs.next()) {
+                ids.add(rs.getLong("id"));
+                urls.add(rs.getString("url"));
+            }
+        }
+
+        connection.setAutoCommit(false);
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "UPDATE credentials SET url_host = ?, url_domain = ? WHERE id = ?");
+             PreparedStatement done = connection.prepareStatement(
+                "INSERT OR IGNORE INTO data_migrations (name) VALUES (?)")) {
+            for (int i = 0; i < ids.size(); i++) {
+                String host = UrlUtil.extractHost(urls.get(i));
+                stmt.setString(1, host != null ? host : "");
+                stmt.setString(2, host != null ? UrlUtil.registrableDomain(host) : "");
+                stmt.setLong(3, ids.get(i));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            done.setString(1, URL_KEYS_BACKFILL);
+            done.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+
+        if (!ids.isEmpty()) {
+            System.out.println("✅ Backfilled URL keys for " + ids.size() + " credentials");
+        }
+    }
+
+    private boolean isDataMigrationDone(String name) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT 1 FROM data_migrations WHERE name = ?")) {
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
     private void initializeDefaultData() throws SQLException {
         initializeDefaultVaults();
         initializeDefaultMissions();
@@ -190,11 +320,85 @@ public class DatabaseManager {
         }
     }
 
+    /**
+     * Returns the shared connection. Callers may close it (try-with-resources);
+     * close() is ignored so the connection stays open and migrations run once.
+     * A thread with a bound connection (see bindConnection) gets that one instead.
+     */
     public Connection getConnection() throws SQLException {
+        Connection bound = threadConnection.get();
+        if (bound != null) {
+            return bound;
+        }
         if (connection == null || connection.isClosed()) {
+            if (detached) {
+                throw new SQLException("Database is closed: " + databasePath);
+            }
             initialize();
         }
-        return connection;
+        return sharedConnection;
+    }
+
+    /**
+     * Open an additional connection to the same database (e.g. for the writer thread).
+     * Migrations are not run; the caller owns and closes the connection.
+     */
+    public Connection openConnection() throws SQLException {
+        getConnection();
+
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + databasePath);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA foreign_keys = ON;");
+            if (queryOnly) {
+                stmt.execute("PRAGMA query_only = ON;");
+            }
+        }
+        tuningProfile.apply(conn);
+        return conn;
+    }
+
+    /**
+     * Select the tuning profile for all connections. Applied to the main connection
+     * immediately when it is open; the WriteQueue picks it up before its next batch.
+     */
+    public void setTuningProfile(DatabaseTuningProfile profile) throws SQLException {
+        tuningProfile = profile != null ? profile : DatabaseTuningProfile.DEFAULT;
+        if (connection != null && !connection.isClosed()) {
+            tuningProfile.apply(connection);
+            System.out.println("✅ Database tuning profile: " + tuningProfile.getDisplayName());
+        }
+    }
+
+    public DatabaseTuningProfile getTuningProfile() {
+        return tuningProfile;
+    }
+
+    /**
+     * Route getConnection() on the calling thread to the given connection,
+     * so repositories used from that thread share its transaction.
+     */
+    public void bindConnection(Connection conn) {
+        threadConnection.set(createNonClosingConnection(conn));
+    }
+
+    public void unbindConnection() {
+        threadConnection.remove();
+    }
+
+    private Connection createNonClosingConnection(Connection target) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
     }
 
     public String getDatabasePath() {
@@ -216,6 +420,29 @@ public class DatabaseManager {
         connection.setAutoCommit(true);
     }
 
+    /**
+     * Savepoints nest inside an open transaction (e.g. a WriteQueue group commit)
+     * and act as a transaction of their own in auto-commit mode.
+     */
+    public void savepoint(String name) throws SQLException {
+        try (Statement stmt = getConnection().createStatement()) {
+            stmt.execute("SAVEPOINT " + name);
+        }
+    }
+
+    public void releaseSavepoint(String name) throws SQLException {
+        try (Statement stmt = getConnection().createStatement()) {
+            stmt.execute("RELEASE SAVEPOINT " + name);
+        }
+    }
+
+    public void rollbackToSavepoint(String name) throws SQLException {
+        try (Statement stmt = getConnection().createStatement()) {
+            stmt.execute("ROLLBACK TO SAVEPOINT " + name);
+            stmt.execute("RELEASE SAVEPOINT " + name);
+        }
+    }
+
     public void rollback() throws SQLException {
         if (connection != null && !connection.isClosed() && ! connection.getAutoCommit()) {
             try {
@@ -239,8 +466,13 @@ public class DatabaseManager {
             rs = stmt.executeQuery("SELECT COUNT(*) FROM identity_cards");
             if (rs.next()) stats.identityCardsCount = rs.getInt(1);
 
-            rs = stmt.executeQuery("SELECT COUNT(*) FROM encrypted_files");
-            if (rs.next()) stats.encryptedFilesCount = rs.getInt(1);
+            // Per-vault totals kept by triggers, so this does not scan encrypted_files
+            rs = stmt.executeQuery(
+                    "SELECT COALESCE(SUM(file_count), 0), COALESCE(SUM(original_bytes), 0) FROM vault_storage");
+            if (rs.next()) {
+                stats.encryptedFilesCount = rs.getInt(1);
+                stats.encryptedFilesMB = rs.getLong(2) / (1024.0 * 1024.0);
+            }
 
             rs = stmt.executeQuery("SELECT COUNT(*) FROM backups");
             if (rs.next()) stats.backupsCount = rs.getInt(1);
@@ -249,19 +481,82 @@ public class DatabaseManager {
             if (dbFile.exists()) {
                 stats. databaseSizeMB = dbFile.length() / (1024.0 * 1024.0);
             }
+
+            // Cache and WAL statistics
+            stats.tuningProfile = tuningProfile.getDisplayName();
+            stats.synchronous = SYNCHRONOUS_MODES[queryInt(stmt, "PRAGMA synchronous") & 3];
+            stats.journalMode = queryString(stmt, "PRAGMA journal_mode");
+            stats.pageSize = queryInt(stmt, "PRAGMA page_size");
+            stats.pageCount = queryInt(stmt, "PRAGMA page_count");
+            stats.freelistCount = queryInt(stmt, "PRAGMA freelist_count");
+
+            // Negative cache_size is in KiB, positive is in pages
+            int cacheSize = queryInt(stmt, "PRAGMA cache_size");
+            stats.cacheSizeKB = cacheSize < 0 ? -cacheSize : (long) cacheSize * stats.pageSize / 1024;
+            stats.mmapSizeMB = queryLong(stmt, "PRAGMA mmap_size") / (1024.0 * 1024.0);
+            long databaseBytes = (long) stats.pageSize * stats.pageCount;
+            stats.cacheCoveragePercent = databaseBytes > 0
+                    ? Math.min(100.0, stats.cacheSizeKB * 1024.0 * 100.0 / databaseBytes)
+                    : 100.0;
+
+            File walFile = new File(databasePath + "-wal");
+            if (walFile.exists()) {
+                stats.walSizeMB = walFile.length() / (1024.0 * 1024.0);
+            }
+            stats.walAutocheckpointPages = queryInt(stmt, "PRAGMA wal_autocheckpoint");
         }
 
+        WriteQueue writeQueue = WriteQueue.getInstance();
+        stats.writeQueueCommits = writeQueue.getCommitCount();
+        stats.writeQueueCoalesced = writeQueue.getCoalescedCount();
+
         return stats;
     }
 
+    private static final String[] SYNCHRONOUS_MODES = {"OFF", "NORMAL", "FULL", "EXTRA"};
+
+    private int queryInt(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private long queryLong(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private String queryString(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getString(1) : "";
+        }
+    }
+
     public static class DatabaseStatistics {
         public int credentialCount;
         public int notesCount;
         public int identityCardsCount;
         public int encryptedFilesCount;
+        public double encryptedFilesMB;
         public int backupsCount;
         public double databaseSizeMB;
 
+        // Tuning, page cache and WAL
+        public String tuningProfile;
+        public String synchronous;
+        public String journalMode;
+        public int pageSize;
+        public int pageCount;
+        public int freelistCount;
+        public long cacheSizeKB;
+        public double cacheCoveragePercent;
+        public double mmapSizeMB;
+        public double walSizeMB;
+        public int walAutocheckpointPages;
+        public long writeQueueCommits;
+        public long writeQueueCoalesced;
+
         @Override
         public String toString() {
             return String.format(
@@ -269,11 +564,21 @@ public class DatabaseManager {
                             "  Credentials: %d\n" +
                             "  Secure Notes: %d\n" +
                             "  Identity Cards: %d\n" +
-                            "  Encrypted Files: %d\n" +
+                            "  Encrypted Files: %d (%.2f MB)\n" +
                             "  Backups: %d\n" +
-                            "  Database Size:  %.2f MB",
+                            "  Database Size:  %.2f MB\n" +
+                            "  Tuning Profile: %s (synchronous=%s, journal=%s)\n" +
+                            "  Pages: %d x %d bytes (%d free)\n" +
+                            "  Page Cache: %d KB (%.0f%% of database), mmap %.0f MB\n" +
+                            "  WAL: %.2f MB, checkpoint every %d pages\n" +
+                            "  Write Queue: %d commits, %d coalesced",
                     credentialCount, notesCount, identityCardsCount,
-                    encryptedFilesCount, backupsCount, databaseSizeMB
+                    encryptedFilesCount, encryptedFilesMB, backupsCount, databaseSizeMB,
+                    tuningProfile, synchronous, journalMode,
+                    pageCount, pageSize, freelistCount,
+                    cacheSizeKB, cacheCoveragePercent, mmapSizeMB,
+                    walSizeMB, walAutocheckpointPages,
+                    writeQueueCommits, writeQueueCoalesced
             );
         }
     }
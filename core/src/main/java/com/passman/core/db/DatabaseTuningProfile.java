@@ -0,0 +1,93 @@
+package com.passman.core.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Named SQLite tuning profiles applied to every connection.
+ *
+ * synchronous decides how often SQLite waits for fsync (NORMAL in WAL mode only syncs
+ * at checkpoints, FULL syncs every commit, EXTRA also syncs the directory). A larger
+ * wal_autocheckpoint batches checkpoint I/O; cache_size, mmap_size and temp_store trade
+ * memory for fewer reads.
+ */
+public enum DatabaseTuningProfile {
+    LAPTOP_BATTERY("laptop-battery", "Laptop (battery saver)",
+            "Fewer disk syncs and checkpoints; the last commits may be lost on power failure",
+            "NORMAL", 8 * 1024, 0, "DEFAULT", 4000, 5000),
+    WORKSTATION("workstation", "Workstation",
+            "Syncs every commit; large page cache and memory-mapped reads",
+            "FULL", 64 * 1024, 256L * 1024 * 1024, "MEMORY", 1000, 5000),
+    MAX_DURABILITY("max-durability", "Maximum durability",
+            "Syncs every commit and directory change; small WAL for quick recovery",
+            "EXTRA", 16 * 1024, 0, "FILE", 250, 10000);
+
+    private final String key;
+    private final String displayName;
+    private final String description;
+    private final String synchronous;
+    private final int cacheSizeKib;
+    private final long mmapSizeBytes;
+    private final String tempStore;
+    private final int walAutocheckpointPages;
+    private final int busyTimeoutMs;
+
+    DatabaseTuningProfile(String key, String displayName, String description, String synchronous,
+                          int cacheSizeKib, long mmapSizeBytes, String tempStore,
+                          int walAutocheckpointPages, int busyTimeoutMs) {
+        this.key = key;
+        this.displayName = displayName;
+        this.description = description;
+        this.synchronous = synchronous;
+        this.cacheSizeKib = cacheSizeKib;
+        this.mmapSizeBytes = mmapSizeBytes;
+        this.tempStore = tempStore;
+        this.walAutocheckpointPages = walAutocheckpointPages;
+        this.busyTimeoutMs = busyTimeoutMs;
+    }
+
+    public static final DatabaseTuningProfile DEFAULT = WORKSTATION;
+
+    /**
+     * Profile for a stored key such as "laptop-battery"; unknown keys give the default profile
+     */
+    public static DatabaseTuningProfile fromKey(String key) {
+        for (DatabaseTuningProfile profile : values()) {
+            if (profile.key.equals(key)) {
+                return profile;
+            }
+        }
+        return DEFAULT;
+    }
+
+    /**
+     * Apply the profile's pragmas. synchronous cannot change inside a transaction,
+     * so call this between transactions.
+     */
+    public void apply(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA synchronous = " + synchronous + ";");
+            stmt.execute("PRAGMA cache_size = -" + cacheSizeKib + ";");
+            stmt.execute("PRAGMA mmap_size = " + mmapSizeBytes + ";");
+            stmt.execute("PRAGMA temp_store = " + tempStore + ";");
+            stmt.execute("PRAGMA wal_autocheckpoint = " + walAutocheckpointPages + ";");
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMs + ";");
+        }
+    }
+
+    public String getKey() { return key; }
+    public String getDisplayName() { return displayName; }
+    public String getDescription() { return description; }
+    public String getSynchronous() { return synchronous; }
+    public int getCacheSizeKib() { return cacheSizeKib; }
+    public long getMmapSizeBytes() { return mmapSizeBytes; }
+    public String getTempStore() { return tempStore; }
+    public int getWalAutocheckpointPages() { return walAutocheckpointPages; }
+    public int getBusyTimeoutMs() { return busyTimeoutMs; }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
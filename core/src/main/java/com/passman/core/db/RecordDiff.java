@@ -0,0 +1,264 @@
+package com.passman.core.db;
+
+import com.passman.core.model.EntityType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Record-level comparison of two databases, e.g. a backup and the live vault.
+ *
+ * Each table is read once from both sides in id order and the two streams are merge-joined:
+ * an id on one side only is an added or removed entry, and a row on both sides is modified
+ * when the SHA-256 of its column values differs. Encrypted columns are compared as stored,
+ * so nothing is decrypted, and memory use does not grow with the number of rows.
+ */
+public class RecordDiff {
+
+    public enum ChangeType {
+        ADDED, REMOVED, MODIFIED
+    }
+
+    // Compared table and title column per entry type
+    private static final Map<EntityType, String[]> TABLES = new LinkedHashMap<>();
+    static {
+        TABLES.put(EntityType.CREDENTIAL, new String[]{"credentials", "title"});
+        TABLES.put(EntityType.NOTE, new String[]{"secure_notes", "title"});
+        TABLES.put(EntityType.IDENTITY_CARD, new String[]{"identity_cards", "card_name"});
+        TABLES.put(EntityType.VAULT_FILE, new String[]{"encrypted_files", "original_file_name"});
+    }
+
+    // Bookkeeping that changes without the entry itself changing
+    private static final Set<String> IGNORED_COLUMNS = Set.of("last_accessed", "content_indexed");
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_INTEGER = 1;
+    private static final byte VALUE_REAL = 2;
+    private static final byte VALUE_TEXT = 3;
+    private static final byte VALUE_BLOB = 4;
+
+    public static class Change {
+        public EntityType type;
+        public long id;
+        public String title;
+        public ChangeType changeType;
+        public List<String> changedColumns = new ArrayList<>();
+
+        @Override
+        public String toString() {
+            String prefix = switch (changeType) {
+                case ADDED -> "+ ";
+                case REMOVED -> "- ";
+                case MODIFIED -> "~ ";
+            };
+            return prefix + title + (changedColumns.isEmpty() ? "" : " (" + String.join(", ", changedColumns) + ")");
+        }
+    }
+
+    public static class Result {
+        public final Map<EntityType, List<Change>> changes = new EnumMap<>(EntityType.class);
+        public long rowsCompared;
+
+        public List<Change> getChanges(EntityType type) {
+            return changes.getOrDefault(type, List.of());
+        }
+
+        public int count(ChangeType changeType) {
+            int count = 0;
+            for (List<Change> list : changes.values()) {
+                for (Change change : list) {
+                    if (change.changeType == changeType) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        public boolean isEmpty() {
+            return changes.values().stream().allMatch(List::isEmpty);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d added, %d removed, %d modified (%d rows compared)",
+                    count(ChangeType.ADDED), count(ChangeType.REMOVED), count(ChangeType.MODIFIED), rowsCompared);
+        }
+    }
+
+    private RecordDiff() {}
+
+    /**
+     * Changes from "before" to "after": ADDED entries exist only in after, REMOVED only in before.
+     * Tables missing on either side are skipped; only columns both sides have are compared.
+     */
+    public static Result compare(Connection before, Connection after) throws SQLException {
+        MessageDigest digest = newDigest();
+        Result result = new Result();
+
+        for (Map.Entry<EntityType, String[]> table : TABLES.entrySet()) {
+            List<String> columns = commonColumns(before, after, table.getValue()[0]);
+            if (columns.isEmpty()) {
+                continue;
+            }
+            List<Change> changes = new ArrayList<>();
+            result.rowsCompared += compareTable(before, after, table.getKey(), table.getValue()[0],
+                    table.getValue()[1], columns, digest, changes);
+            result.changes.put(table.getKey(), changes);
+        }
+        return result;
+    }
+
+    private static long compareTable(Connection before, Connection after, EntityType type, String table,
+                                     String titleColumn, List<String> columns, MessageDigest digest,
+                                     List<Change> changes) throws SQLException {
+        String sql = "SELECT " + String.join(", ", columns) + " FROM " + table + " ORDER BY id";
+        int titleIndex = columns.indexOf(titleColumn) + 1;
+        long rows = 0;
+
+        try (Statement leftStmt = before.createStatement();
+             ResultSet left = leftStmt.executeQuery(sql);
+             Statement rightStmt = after.createStatement();
+             ResultSet right = rightStmt.executeQuery(sql)) {
+
+            boolean hasLeft = left.next();
+            boolean hasRight = right.next();
+            while (hasLeft || hasRight) {
+                long leftId = hasLeft ? left.getLong(1) : 0;
+                long rightId = hasRight ? right.getLong(1) : 0;
+
+                if (hasLeft && (!hasRight || leftId < rightId)) {
+                    changes.add(change(type, ChangeType.REMOVED, left, titleIndex));
+                    hasLeft = left.next();
+                } else if (!hasLeft || rightId < leftId) {
+                    changes.add(change(type, ChangeType.ADDED, right, titleIndex));
+                    hasRight = right.next();
+                } else {
+                    if (!Arrays.equals(rowHash(left, columns.size(), digest), rowHash(right, columns.size(), digest))) {
+                        Change change = change(type, ChangeType.MODIFIED, right, titleIndex);
+                        change.changedColumns = changedColumns(left, right, columns);
+                        changes.add(change);
+                    }
+                    hasLeft = left.next();
+                    hasRight = right.next();
+                }
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static Change change(EntityType type, ChangeType changeType, ResultSet rs, int titleIndex)
+            throws SQLException {
+        Change change = new Change();
+        change.type = type;
+        change.changeType = changeType;
+        change.id = rs.getLong(1);
+        String title = titleIndex > 0 ? rs.getString(titleIndex) : null;
+        change.title = title != null ? title : "#" + change.id;
+        return change;
+    }
+
+    /**
+     * SHA-256 over each column's type tag, length and value, so adjacent values cannot run together
+     */
+    static byte[] rowHash(ResultSet rs, int columnCount, MessageDigest digest) throws SQLException {
+        digest.reset();
+        ByteBuffer number = ByteBuffer.allocate(Long.BYTES);
+
+        for (int i = 1; i <= columnCount; i++) {
+            Object value = normalize(rs.getObject(i));
+            if (value == null) {
+                digest.update(VALUE_NULL);
+            } else if (value instanceof Long longValue) {
+                digest.update(VALUE_INTEGER);
+                digest.update(number.clear().putLong(longValue).array());
+            } else if (value instanceof Double doubleValue) {
+                digest.update(VALUE_REAL);
+                digest.update(number.clear().putDouble(doubleValue).array());
+            } else {
+                byte[] bytes = value instanceof byte[] blob ? blob : value.toString().getBytes(StandardCharsets.UTF_8);
+                digest.update(value instanceof byte[] ? VALUE_BLOB : VALUE_TEXT);
+                digest.update(number.clear().putLong(bytes.length).array());
+                digest.update(bytes);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static List<String> changedColumns(ResultSet left, ResultSet right, List<String> columns)
+            throws SQLException {
+        List<String> changed = new ArrayList<>();
+        for (int i = 1; i <= columns.size(); i++) {
+            if (!Objects.deepEquals(normalize(left.getObject(i)), normalize(right.getObject(i)))) {
+                changed.add(columns.get(i - 1));
+            }
+        }
+        return changed;
+    }
+
+    // The driver returns Integer or Long depending on the value's size
+    private static Object normalize(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float floatValue) {
+            return floatValue.doubleValue();
+        }
+        return value;
+    }
+
+    /**
+     * Columns of the table present on both sides, id first; empty if either side lacks the table
+     */
+    private static List<String> commonColumns(Connection before, Connection after, String table)
+            throws SQLException {
+        List<String> beforeColumns = tableColumns(before, table);
+        List<String> afterColumns = tableColumns(after, table);
+        if (!beforeColumns.contains("id") || !afterColumns.contains("id")) {
+            return List.of();
+        }
+
+        List<String> columns = new ArrayList<>();
+        columns.add("id");
+        for (String column : beforeColumns) {
+            if (!column.equals("id") && afterColumns.contains(column) && !IGNORED_COLUMNS.contains(column)) {
+                columns.add(column);
+            }
+        }
+        return columns;
+    }
+
+    private static List<String> tableColumns(Connection conn, String table) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                columns.add(rs.getString("name"));
+            }
+        }
+        return columns;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.passman.core.db;
+
+import com.passman.core.model.EntityType;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Single-writer write-behind queue for all persistence.
+ *
+ * Writes run on one background thread with its own connection, so the UI thread
+ * never waits on disk. Writes that arrive within a short window are committed
+ * together in one transaction, each inside its own savepoint so one failing write
+ * does not undo the others. A pending write is replaced by a newer write with the
+ * same key (last write wins) and both futures complete when the newer one commits.
+ * Side effects that must only follow a committed write, such as search index
+ * updates, are registered with afterCommit.
+ */
+public class WriteQueue {
+
+    private static final long COALESCE_WINDOW_MS = 25;
+    private static final int MAX_BATCH_SIZE = 512;
+    private static final String SAVEPOINT = "write_queue_command";
+
+    private static volatile WriteQueue instance;
+
+    // Actions registered by the write running on the writer thread
+    private static final ThreadLocal<List<Runnable>> commitActions = new ThreadLocal<>();
+
+    private final DatabaseManager dbManager;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Map<Object, PendingWrite> pending = new LinkedHashMap<>();
+
+    private Thread writerThread;
+    private boolean running;
+
+    // Tuning profile currently applied to the writer connection (writer thread only)
+    private DatabaseTuningProfile appliedProfile;
+
+    // Counters for diagnostics
+    private long submittedCount;
+    private long coalescedCount;
+    private volatile long commitCount;
+
+    /**
+     * A unit of work run on the writer thread; repositories used inside it
+     * share the writer's connection and transaction.
+     */
+    @FunctionalInterface
+    public interface WriteCommand {
+        void execute() throws Exception;
+    }
+
+    private static class PendingWrite {
+        private WriteCommand command;
+        private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        private List<Runnable> onCommit = List.of();
+
+        PendingWrite(WriteCommand command) {
+            this.command = command;
+        }
+    }
+
+    private WriteQueue(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    public static WriteQueue getInstance() {
+        if (instance == null) {
+            synchronized (WriteQueue.class) {
+                if (instance == null) {
+                    instance = new WriteQueue(DatabaseManager.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Coalescing key for an entity write: the type and id for stored entities, or the
+     * entity object itself for new ones, so repeated saves of a new entity insert it once.
+     */
+    public static Object keyFor(EntityType type, Long id, Object entity) {
+        return id != null ? type.name() + ":" + id : entity;
+    }
+
+    /**
+     * Run an action once the current write is committed. Inside a queued write it runs after
+     * the batch's transaction commits, before the write's future completes, and is dropped if
+     * the write or the batch is rolled back. Outside the queue writes are auto-committed, so
+     * it runs right away.
+     */
+    public static void afterCommit(Runnable action) {
+        List<Runnable> actions = commitActions.get();
+        if (actions != null) {
+            actions.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Queue a write that is never coalesced
+     */
+    public CompletableFuture<Void> submit(WriteCommand command) {
+        return submit(new Object(), command);
+    }
+
+    /**
+     * Queue a write; a pending write with the same key is replaced by this one
+     */
+    public CompletableFuture<Void> submit(Object key, WriteCommand command) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+
+        lock.lock();
+        try {
+            ensureStarted();
+            submittedCount++;
+
+            PendingWrite existing = pending.get(key);
+            if (existing != null) {
+                existing.command = command;
+                existing.futures.add(future);
+                coalescedCount++;
+            } else {
+                PendingWrite write = new PendingWrite(command);
+                write.futures.add(future);
+                pending.put(key, write);
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return future;
+    }
+
+    /**
+     * Future that completes once every write queued so far has been committed
+     */
+    public CompletableFuture<Void> flush() {
+        lock.lock();
+        try {
+            if (!running && pending.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return submit(() -> { });
+    }
+
+    /**
+     * Commit all queued writes, then stop the writer thread and close its connection
+     */
+    public void shutdown() {
+        Thread thread;
+        lock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            thread = writerThread;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("✅ Write queue stopped");
+    }
+
+    private void ensureStarted() {
+        if (!running) {
+            running = true;
+            writerThread = new Thread(this::runWriter, "passman-db-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+    }
+
+    private void runWriter() {
+        Connection conn;
+        try {
+            appliedProfile = dbManager.getTuningProfile();
+            conn = dbManager.openConnection();
+            dbManager.bindConnection(conn);
+        } catch (SQLException e) {
+            System.err.println("❌ Write queue could not open a connection: " + e.getMessage());
+            failAll(e);
+            return;
+        }
+
+        try {
+            List<PendingWrite> batch;
+            while (!(batch = nextBatch()).isEmpty()) {
+                commitBatch(conn, batch);
+            }
+        } finally {
+            dbManager.unbindConnection();
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.err.println("⚠️ Failed to close writer connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Wait for work, let the coalescing window pass, then take up to MAX_BATCH_SIZE writes.
+     * Returns an empty batch once the queue is shut down and drained.
+     */
+    private List<PendingWrite> nextBatch() {
+        lock.lock();
+        try {
+            while (pending.isEmpty() && running) {
+                notEmpty.awaitUninterruptibly();
+            }
+            if (pending.isEmpty()) {
+                return List.of();
+            }
+
+            if (running) {
+                long deadline = System.nanoTime() + COALESCE_WINDOW_MS * 1_000_000L;
+                long remaining;
+                while (running && (remaining = deadline - System.nanoTime()) > 0) {
+                    try {
+                        notEmpty.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+
+            List<PendingWrite> batch = new ArrayList<>();
+            Iterator<PendingWrite> iterator = pending.values().iterator();
+            while (iterator.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void commitBatch(Connection conn, List<PendingWrite> batch) {
+        List<Exception> errors = new ArrayList<>();
+
+        try {
+            // Pick up a profile change between transactions, where synchronous may be changed
+            DatabaseTuningProfile profile = dbManager.getTuningProfile();
+            if (profile != appliedProfile) {
+                profile.apply(conn);
+                appliedProfile = profile;
+            }
+
+            conn.setAutoCommit(false);
+
+            for (PendingWrite write : batch) {
+                dbManager.savepoint(SAVEPOINT);
+                List<Runnable> actions = new ArrayList<>();
+                commitActions.set(actions);
+                try {
+                    write.command.execute();
+                    dbManager.releaseSavepoint(SAVEPOINT);
+                    write.onCommit = actions;
+                    errors.add(null);
+                } catch (Exception e) {
+                    dbManager.rollbackToSavepoint(SAVEPOINT);
+                    errors.add(e);
+                } finally {
+                    commitActions.remove();
+                }
+            }
+
+            conn.commit();
+            commitCount++;
+        } catch (SQLException e) {
+            System.err.println("❌ Write queue commit failed: " + e.getMessage());
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            restoreAutoCommit(conn);
+            for (PendingWrite write : batch) {
+                complete(write, e);
+            }
+            return;
+        }
+
+        restoreAutoCommit(conn);
+        for (int i = 0; i < batch.size(); i++) {
+            if (errors.get(i) == null) {
+                runCommitActions(batch.get(i));
+            }
+            complete(batch.get(i), errors.get(i));
+        }
+    }
+
+    private void runCommitActions(PendingWrite write) {
+        for (Runnable action : write.onCommit) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                // The write itself is committed; its future still succeeds
+                System.err.println("⚠️ After-commit action failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void restoreAutoCommit(Connection conn) {
+        try {
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            System.err.println("⚠️ Failed to restore auto-commit: " + e.getMessage());
+        }
+    }
+
+    private void complete(PendingWrite write, Exception error) {
+        for (CompletableFuture<Void> future : write.futures) {
+            if (error == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+
+    private void failAll(Exception error) {
+        lock.lock();
+        try {
+            for (PendingWrite write : pending.values()) {
+                complete(write, error);
+            }
+            pending.clear();
+            running = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSubmittedCount() {
+        lock.lock();
+        try {
+            return submittedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCoalescedCount() {
+        lock.lock();
+        try {
+            return coalescedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCommitCount() {
+        return commitCount;
+    }
+}
@@ -16,6 +16,12 @@ public class Backup {
     private LocalDateTime createdAt;
     private String description;
 
+    // Differential backups store only rows changed since their parent backup
+    private BackupKind backupKind;
+    private Long parentBackupId;
+    private String journalEpoch;
+    private long journalVersion;
+
     public enum BackupType {
         MANUAL, AUTOMATIC, SCHEDULED
     }
@@ -24,9 +30,14 @@ public class Backup {
         IN_PROGRESS, COMPLETED, FAILED, CORRUPTED
     }
 
+    public enum BackupKind {
+        FULL, DIFFERENTIAL, SNAPSHOT
+    }
+
     public Backup() {
         this.createdAt = LocalDateTime. now();
         this.status = BackupStatus. IN_PROGRESS;
+        this.backupKind = BackupKind.FULL;
     }
 
     // Getters and Setters
@@ -56,4 +67,18 @@ public class Backup {
 
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
+
+    public BackupKind getBackupKind() { return backupKind; }
+    public void setBackupKind(BackupKind backupKind) { this.backupKind = backupKind; }
+
+    public Long getParentBackupId() { return parentBackupId; }
+    public void setParentBackupId(Long parentBackupId) { this.parentBackupId = parentBackupId; }
+
+    public String getJournalEpoch() { return journalEpoch; }
+    public void setJournalEpoch(String journalEpoch) { this.journalEpoch = journalEpoch; }
+
+    public long getJournalVersion() { return journalVersion; }
+    public void setJournalVersion(long journalVersion) { this.journalVersion = journalVersion; }
+
+    public boolean isDifferential() { return backupKind == BackupKind.DIFFERENTIAL; }
 }
\ No newline at end of file
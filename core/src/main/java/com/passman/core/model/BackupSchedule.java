@@ -0,0 +1,67 @@
+package com.passman.core.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Settings and last run of the background backup scheduler
+ */
+public class BackupSchedule {
+    private boolean enabled;
+    private String cronExpression;
+    private int idleMinutes;
+    private int minIntervalHours;
+    private Backup.BackupKind backupKind;
+    private long maxBytesPerSecond;
+    private int keepDaily;
+    private int keepWeekly;
+    private int keepMonthly;
+    private LocalDateTime lastRunAt;
+    private String lastResult;
+    private LocalDateTime updatedAt;
+
+    public BackupSchedule() {
+        this.cronExpression = "0 3 * * *";
+        this.minIntervalHours = 4;
+        this.backupKind = Backup.BackupKind.DIFFERENTIAL;
+        this.keepDaily = 7;
+        this.keepWeekly = 4;
+        this.keepMonthly = 12;
+    }
+
+    // Getters and Setters
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public String getCronExpression() { return cronExpression; }
+    public void setCronExpression(String cronExpression) { this.cronExpression = cronExpression; }
+
+    public int getIdleMinutes() { return idleMinutes; }
+    public void setIdleMinutes(int idleMinutes) { this.idleMinutes = idleMinutes; }
+
+    public int getMinIntervalHours() { return minIntervalHours; }
+    public void setMinIntervalHours(int minIntervalHours) { this.minIntervalHours = minIntervalHours; }
+
+    public Backup.BackupKind getBackupKind() { return backupKind; }
+    public void setBackupKind(Backup.BackupKind backupKind) { this.backupKind = backupKind; }
+
+    public long getMaxBytesPerSecond() { return maxBytesPerSecond; }
+    public void setMaxBytesPerSecond(long maxBytesPerSecond) { this.maxBytesPerSecond = maxBytesPerSecond; }
+
+    public int getKeepDaily() { return keepDaily; }
+    public void setKeepDaily(int keepDaily) { this.keepDaily = keepDaily; }
+
+    public int getKeepWeekly() { return keepWeekly; }
+    public void setKeepWeekly(int keepWeekly) { this.keepWeekly = keepWeekly; }
+
+    public int getKeepMonthly() { return keepMonthly; }
+    public void setKeepMonthly(int keepMonthly) { this.keepMonthly = keepMonthly; }
+
+    public LocalDateTime getLastRunAt() { return lastRunAt; }
+    public void setLastRunAt(LocalDateTime lastRunAt) { this.lastRunAt = lastRunAt; }
+
+    public String getLastResult() { return lastResult; }
+    public void setLastResult(String lastResult) { this.lastResult = lastResult; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
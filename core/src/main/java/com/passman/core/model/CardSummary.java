@@ -0,0 +1,81 @@
+package com.passman.core.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Lightweight identity card projection for list views (no encrypted data or photo)
+ */
+public class CardSummary {
+    private Long id;
+    private IdentityCard.CardType cardType;
+    private String cardName;
+    private String cardNumberLast4;
+    private String issuingCountry;
+    private LocalDate expiryDate;
+    private boolean hasPhoto;
+    private boolean isExpired;
+    private String tags;
+    private String colorCode;
+    private LocalDateTime createdAt;
+    private LocalDateTime lastModified;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public IdentityCard.CardType getCardType() { return cardType; }
+    public void setCardType(IdentityCard.CardType cardType) { this.cardType = cardType; }
+
+    public String getCardName() { return cardName; }
+    public void setCardName(String cardName) { this.cardName = cardName; }
+
+    public String getCardNumberLast4() { return cardNumberLast4; }
+    public void setCardNumberLast4(String cardNumberLast4) { this.cardNumberLast4 = cardNumberLast4; }
+
+    public String getIssuingCountry() { return issuingCountry; }
+    public void setIssuingCountry(String issuingCountry) { this.issuingCountry = issuingCountry; }
+
+    public LocalDate getExpiryDate() { return expiryDate; }
+    public void setExpiryDate(LocalDate expiryDate) { this.expiryDate = expiryDate; }
+
+    public boolean isHasPhoto() { return hasPhoto; }
+    public void setHasPhoto(boolean hasPhoto) { this.hasPhoto = hasPhoto; }
+
+    public boolean isExpired() { return isExpired; }
+    public void setExpired(boolean expired) { isExpired = expired; }
+
+    public String getTags() { return tags; }
+    public void setTags(String tags) { this.tags = tags; }
+
+    public String getColorCode() { return colorCode; }
+    public void setColorCode(String colorCode) { this.colorCode = colorCode; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getLastModified() { return lastModified; }
+    public void setLastModified(LocalDateTime lastModified) { this.lastModified = lastModified; }
+
+    /**
+     * Get days until expiry
+     */
+    public long getDaysUntilExpiry() {
+        if (expiryDate == null) return -1;
+        return ChronoUnit.DAYS.between(LocalDate.now(), expiryDate);
+    }
+
+    /**
+     * Get expiry status with color coding
+     */
+    public String getExpiryStatus() {
+        if (expiryDate == null) return "No Expiry";
+        if (isExpired) return "Expired";
+
+        long days = getDaysUntilExpiry();
+        if (days <= 30) return "Expires Soon";
+        if (days <= 90) return "Expiring";
+        return "Valid";
+    }
+}
@@ -30,6 +30,27 @@ public class Credential {
         this.isBreached = false;
     }
 
+    /**
+     * Copy of another credential, e.g. a snapshot to save while the original stays open in the editor
+     */
+    public Credential(Credential other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.username = other.username;
+        this.email = other.email;
+        this.url = other.url;
+        this.encryptedPassword = other.encryptedPassword;
+        this.encryptionIV = other.encryptionIV;
+        this.notes = other.notes;
+        this.tags = other.tags;
+        this.isFavorite = other.isFavorite;
+        this.createdAt = other.createdAt;
+        this.lastModified = other.lastModified;
+        this.passwordChangedAt = other.passwordChangedAt;
+        this.passwordStrengthScore = other.passwordStrengthScore;
+        this.isBreached = other.isBreached;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -0,0 +1,58 @@
+package com.passman.core.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight credential projection for list views (no encrypted password)
+ */
+public class CredentialSummary {
+    private Long id;
+    private String title;
+    private String username;
+    private String url;
+    private String tags;
+    private boolean isFavorite;
+    private LocalDateTime createdAt;
+    private LocalDateTime lastModified;
+    private LocalDateTime passwordChangedAt;
+    private Integer passwordStrengthScore;
+    private boolean isBreached;
+
+    public CredentialSummary() {
+        this.passwordStrengthScore = 0;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    public String getTags() { return tags; }
+    public void setTags(String tags) { this.tags = tags; }
+
+    public boolean isFavorite() { return isFavorite; }
+    public void setFavorite(boolean favorite) { isFavorite = favorite; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getLastModified() { return lastModified; }
+    public void setLastModified(LocalDateTime lastModified) { this.lastModified = lastModified; }
+
+    public LocalDateTime getPasswordChangedAt() { return passwordChangedAt; }
+    public void setPasswordChangedAt(LocalDateTime passwordChangedAt) { this.passwordChangedAt = passwordChangedAt; }
+
+    public Integer getPasswordStrengthScore() { return passwordStrengthScore; }
+    public void setPasswordStrengthScore(Integer passwordStrengthScore) { this.passwordStrengthScore = passwordStrengthScore; }
+
+    public boolean isBreached() { return isBreached; }
+    public void setBreached(boolean breached) { isBreached = breached; }
+}
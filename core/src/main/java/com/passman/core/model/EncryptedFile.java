@@ -15,6 +15,7 @@ public class EncryptedFile {
     private String mimeType;
     private byte[] encryptionIV;
     private String checksum;
+    private String contentId;
     private LocalDateTime uploadedAt;
     private LocalDateTime lastAccessed;
 
@@ -50,6 +51,9 @@ public class EncryptedFile {
     public String getChecksum() { return checksum; }
     public void setChecksum(String checksum) { this.checksum = checksum; }
 
+    public String getContentId() { return contentId; }
+    public void setContentId(String contentId) { this.contentId = contentId; }
+
     public LocalDateTime getUploadedAt() { return uploadedAt; }
     public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
 
@@ -0,0 +1,22 @@
+package com.passman.core.model;
+
+/**
+ * Kinds of vault entries that can be searched, tagged and diffed across the app
+ */
+public enum EntityType {
+    CREDENTIAL("Credential", "🔑"),
+    NOTE("Secure Note", "📝"),
+    IDENTITY_CARD("Identity Card", "🆔"),
+    VAULT_FILE("Vault File", "📁");
+
+    private final String displayName;
+    private final String icon;
+
+    EntityType(String displayName, String icon) {
+        this.displayName = displayName;
+        this.icon = icon;
+    }
+
+    public String getDisplayName() { return displayName; }
+    public String getIcon() { return icon; }
+}
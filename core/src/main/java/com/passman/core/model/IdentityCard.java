@@ -65,6 +65,31 @@ public class IdentityCard {
         this.cardData = new HashMap<>();
     }
 
+    /**
+     * Copy of another card, e.g. a snapshot to save while the original stays shown
+     */
+    public IdentityCard(IdentityCard other) {
+        this.id = other.id;
+        this.cardType = other.cardType;
+        this.cardName = other.cardName;
+        this.encryptedData = other.encryptedData;
+        this.encryptionIV = other.encryptionIV;
+        this.cardNumberLast4 = other.cardNumberLast4;
+        this.issuingCountry = other.issuingCountry;
+        this.issuingAuthority = other.issuingAuthority;
+        this.issueDate = other.issueDate;
+        this.expiryDate = other.expiryDate;
+        this.hasPhoto = other.hasPhoto;
+        this.encryptedPhoto = other.encryptedPhoto;
+        this.photoEncryptionIV = other.photoEncryptionIV;
+        this.isExpired = other.isExpired;
+        this.tags = other.tags;
+        this.colorCode = other.colorCode;
+        this.createdAt = other.createdAt;
+        this.lastModified = other.lastModified;
+        this.cardData = other.cardData != null ? new HashMap<>(other.cardData) : null;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -13,6 +13,7 @@ public class NoteAttachment {
     private long fileSize;
     private String mimeType;
     private String checksum;
+    private String contentId;
     private LocalDateTime uploadedAt;
 
     public NoteAttachment() {
@@ -41,6 +42,9 @@ public class NoteAttachment {
     public String getChecksum() { return checksum; }
     public void setChecksum(String checksum) { this.checksum = checksum; }
 
+    public String getContentId() { return contentId; }
+    public void setContentId(String contentId) { this.contentId = contentId; }
+
     public LocalDateTime getUploadedAt() { return uploadedAt; }
     public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
 
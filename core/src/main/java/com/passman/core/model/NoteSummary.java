@@ -0,0 +1,46 @@
+package com.passman.core.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight secure note projection for list views (no encrypted content)
+ */
+public class NoteSummary {
+    private Long id;
+    private String title;
+    private SecureNote.NoteCategory category;
+    private String tags;
+    private boolean isFavorite;
+    private boolean hasAttachments;
+    private String colorCode;
+    private LocalDateTime createdAt;
+    private LocalDateTime lastModified;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public SecureNote.NoteCategory getCategory() { return category; }
+    public void setCategory(SecureNote.NoteCategory category) { this.category = category; }
+
+    public String getTags() { return tags; }
+    public void setTags(String tags) { this.tags = tags; }
+
+    public boolean isFavorite() { return isFavorite; }
+    public void setFavorite(boolean favorite) { isFavorite = favorite; }
+
+    public boolean isHasAttachments() { return hasAttachments; }
+    public void setHasAttachments(boolean hasAttachments) { this.hasAttachments = hasAttachments; }
+
+    public String getColorCode() { return colorCode; }
+    public void setColorCode(String colorCode) { this.colorCode = colorCode; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getLastModified() { return lastModified; }
+    public void setLastModified(LocalDateTime lastModified) { this.lastModified = lastModified; }
+}
@@ -51,6 +51,25 @@ public class SecureNote {
         this.attachments = new ArrayList<>();
     }
 
+    /**
+     * Copy of another note, e.g. a snapshot to save while the original stays open in the editor
+     */
+    public SecureNote(SecureNote other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.encryptedContent = other.encryptedContent;
+        this.encryptionIV = other.encryptionIV;
+        this.category = other.category;
+        this.tags = other.tags;
+        this.isFavorite = other.isFavorite;
+        this.hasAttachments = other.hasAttachments;
+        this.colorCode = other.colorCode;
+        this.createdAt = other.createdAt;
+        this.lastModified = other.lastModified;
+        this.content = other.content;
+        this.attachments = other.attachments != null ? new ArrayList<>(other.attachments) : null;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
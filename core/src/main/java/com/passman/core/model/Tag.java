@@ -0,0 +1,46 @@
+package com.passman.core.model;
+
+/**
+ * Normalized tag with materialized usage counts per entity type
+ */
+public class Tag {
+    private Long id;
+    private String name;
+    private int credentialCount;
+    private int noteCount;
+    private int cardCount;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public int getCredentialCount() { return credentialCount; }
+    public void setCredentialCount(int credentialCount) { this.credentialCount = credentialCount; }
+
+    public int getNoteCount() { return noteCount; }
+    public void setNoteCount(int noteCount) { this.noteCount = noteCount; }
+
+    public int getCardCount() { return cardCount; }
+    public void setCardCount(int cardCount) { this.cardCount = cardCount; }
+
+    public int getTotalCount() {
+        return credentialCount + noteCount + cardCount;
+    }
+
+    public int getCount(EntityType type) {
+        return switch (type) {
+            case CREDENTIAL -> credentialCount;
+            case NOTE -> noteCount;
+            case IDENTITY_CARD -> cardCount;
+            default -> 0;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + getTotalCount() + ")";
+    }
+}
@@ -0,0 +1,44 @@
+package com.passman.core.model;
+
+/**
+ * File count and byte totals of a vault, with its optional storage quota
+ */
+public class VaultStorage {
+    private Long vaultId;
+    private int fileCount;
+    private long originalBytes;
+    private long encryptedBytes;
+    private Long quotaBytes;
+
+    public VaultStorage() {
+    }
+
+    public VaultStorage(Long vaultId) {
+        this.vaultId = vaultId;
+    }
+
+    /**
+     * Bytes that can still be added, or Long.MAX_VALUE without a quota
+     */
+    public long getRemainingBytes() {
+        return quotaBytes == null ? Long.MAX_VALUE : Math.max(0, quotaBytes - originalBytes);
+    }
+
+    public boolean hasQuota() { return quotaBytes != null; }
+
+    // Getters and Setters
+    public Long getVaultId() { return vaultId; }
+    public void setVaultId(Long vaultId) { this.vaultId = vaultId; }
+
+    public int getFileCount() { return fileCount; }
+    public void setFileCount(int fileCount) { this.fileCount = fileCount; }
+
+    public long getOriginalBytes() { return originalBytes; }
+    public void setOriginalBytes(long originalBytes) { this.originalBytes = originalBytes; }
+
+    public long getEncryptedBytes() { return encryptedBytes; }
+    public void setEncryptedBytes(long encryptedBytes) { this.encryptedBytes = encryptedBytes; }
+
+    public Long getQuotaBytes() { return quotaBytes; }
+    public void setQuotaBytes(Long quotaBytes) { this.quotaBytes = quotaBytes; }
+}
@@ -1,7 +1,9 @@
 package com.passman.core.repository;
 
 import com.passman.core.model.Backup;
+import com.passman.core.model.BackupSchedule;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +21,13 @@ public interface BackupRepository {
     List<Backup> findAll() throws RepositoryException;
 
     void delete(Long id) throws RepositoryException;
+
+    BackupSchedule loadSchedule() throws RepositoryException;
+
+    /**
+     * Save the schedule settings; the last run is only changed by recordScheduledRun
+     */
+    void saveSchedule(BackupSchedule schedule) throws RepositoryException;
+
+    void recordScheduledRun(LocalDateTime runAt, String result) throws RepositoryException;
 }
\ No newline at end of file
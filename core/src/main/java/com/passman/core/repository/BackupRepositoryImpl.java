@@ -2,6 +2,7 @@ package com.passman.core.repository;
 
 import com.passman.core.db.DatabaseManager;
 import com.passman.core.model.Backup;
+import com.passman.core.model.BackupSchedule;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -24,8 +25,9 @@ public class BackupRepositoryImpl implements BackupRepository {
     public Backup save(Backup backup) throws RepositoryException {
         String sql = """
             INSERT INTO backups (backup_file_name, backup_path, file_size, checksum, 
-                                backup_type, status, description, created_at)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                                backup_type, status, description, created_at,
+                                backup_kind, parent_backup_id, journal_epoch, journal_version)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
             """;
 
         try (Connection conn = dbManager. getConnection();
@@ -39,6 +41,10 @@ public class BackupRepositoryImpl implements BackupRepository {
             stmt.setString(6, backup.getStatus().name());
             stmt.setString(7, backup.getDescription());
             stmt.setObject(8, backup.getCreatedAt());
+            stmt.setString(9, backup.getBackupKind().name());
+            stmt.setObject(10, backup.getParentBackupId());
+            stmt.setString(11, backup.getJournalEpoch());
+            stmt.setLong(12, backup.getJournalVersion());
 
             stmt.executeUpdate();
 
@@ -129,6 +135,80 @@ public class BackupRepositoryImpl implements BackupRepository {
         }
     }
 
+    @Override
+    public BackupSchedule loadSchedule() throws RepositoryException {
+        String sql = "SELECT * FROM backup_schedule WHERE id = 1";
+
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            BackupSchedule schedule = new BackupSchedule();
+            if (rs.next()) {
+                schedule.setEnabled(rs.getBoolean("enabled"));
+                schedule.setCronExpression(rs.getString("cron_expression"));
+                schedule.setIdleMinutes(rs.getInt("idle_minutes"));
+                schedule.setMinIntervalHours(rs.getInt("min_interval_hours"));
+                schedule.setBackupKind(Backup.BackupKind.valueOf(rs.getString("backup_kind")));
+                schedule.setMaxBytesPerSecond(rs.getLong("max_bytes_per_second"));
+                schedule.setKeepDaily(rs.getInt("keep_daily"));
+                schedule.setKeepWeekly(rs.getInt("keep_weekly"));
+                schedule.setKeepMonthly(rs.getInt("keep_monthly"));
+                schedule.setLastRunAt(rs.getObject("last_run_at", LocalDateTime.class));
+                schedule.setLastResult(rs.getString("last_result"));
+                schedule.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+            }
+            return schedule;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to load backup schedule", e);
+        }
+    }
+
+    @Override
+    public void saveSchedule(BackupSchedule schedule) throws RepositoryException {
+        String sql = """
+            UPDATE backup_schedule
+            SET enabled = ?, cron_expression = ?, idle_minutes = ?, min_interval_hours = ?,
+                backup_kind = ?, max_bytes_per_second = ?, keep_daily = ?, keep_weekly = ?,
+                keep_monthly = ?, updated_at = ?
+            WHERE id = 1
+            """;
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            schedule.setUpdatedAt(LocalDateTime.now());
+            stmt.setBoolean(1, schedule.isEnabled());
+            stmt.setString(2, schedule.getCronExpression());
+            stmt.setInt(3, schedule.getIdleMinutes());
+            stmt.setInt(4, schedule.getMinIntervalHours());
+            stmt.setString(5, schedule.getBackupKind().name());
+            stmt.setLong(6, schedule.getMaxBytesPerSecond());
+            stmt.setInt(7, schedule.getKeepDaily());
+            stmt.setInt(8, schedule.getKeepWeekly());
+            stmt.setInt(9, schedule.getKeepMonthly());
+            stmt.setObject(10, schedule.getUpdatedAt());
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to save backup schedule", e);
+        }
+    }
+
+    @Override
+    public void recordScheduledRun(LocalDateTime runAt, String result) throws RepositoryException {
+        String sql = "UPDATE backup_schedule SET last_run_at = ?, last_result = ? WHERE id = 1";
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setObject(1, runAt);
+            stmt.setString(2, result);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to record scheduled backup", e);
+        }
+    }
+
     private Backup mapResultSetToBackup(ResultSet rs) throws SQLException {
         Backup backup = new Backup();
         backup.setId(rs.getLong("id"));
@@ -140,6 +220,11 @@ public class BackupRepositoryImpl implements BackupRepository {
         backup.setStatus(Backup.BackupStatus.valueOf(rs.getString("status")));
         backup.setDescription(rs.getString("description"));
         backup.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        backup.setBackupKind(Backup.BackupKind.valueOf(rs.getString("backup_kind")));
+        long parentBackupId = rs.getLong("parent_backup_id");
+        backup.setParentBackupId(rs.wasNull() ? null : parentBackupId);
+        backup.setJournalEpoch(rs.getString("journal_epoch"));
+        backup.setJournalVersion(rs.getLong("journal_version"));
         return backup;
     }
 }
\ No newline at end of file
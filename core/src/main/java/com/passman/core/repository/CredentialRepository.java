@@ -1,6 +1,7 @@
 package com.passman.core.repository;
 
 import com.passman.core.model.Credential;
+import com.passman.core.model.CredentialSummary;
 
 import java.util.List;
 import java.util.Optional;
@@ -20,6 +21,20 @@ public interface CredentialRepository {
 
     List<Credential> findFavorites() throws RepositoryException;
 
+    // Summary projections for list views (no encrypted columns)
+    List<CredentialSummary> findAllSummaries() throws RepositoryException;
+
+    List<CredentialSummary> searchSummaries(String query) throws RepositoryException;
+
+    List<CredentialSummary> findSummariesByTag(String tag) throws RepositoryException;
+
+    List<CredentialSummary> findFavoriteSummaries() throws RepositoryException;
+
+    // Site lookups on the normalized url_host / url_domain columns
+    List<CredentialSummary> findSummariesByHost(String host) throws RepositoryException;
+
+    List<CredentialSummary> findSummariesForUrl(String url) throws RepositoryException;
+
     void update(Credential credential) throws RepositoryException;
 
     void delete(Long id) throws RepositoryException;
@@ -1,7 +1,13 @@
 package com.passman.core.repository;
 
 import com.passman.core.db.DatabaseManager;
+import com.passman.core.db.WriteQueue;
 import com.passman.core.model.Credential;
+import com.passman.core.model.CredentialSummary;
+import com.passman.core.model.EntityType;
+import com.passman.core.search.GlobalSearchIndex;
+import com.passman.core.utils.FtsQueryUtil;
+import com.passman.core.utils.UrlUtil;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -14,10 +20,31 @@ import java.util.Optional;
  */
 public class CredentialRepositoryImpl implements CredentialRepository {
 
+    private static final String SUMMARY_COLUMNS = """
+        id, title, username, url, tags, is_favorite, created_at, last_modified,
+        password_changed_at, password_strength_score, is_breached
+        """;
+
+    // Ranked prefix match against credentials_fts (title weighted highest)
+    private static final String FTS_MATCH = """
+         JOIN (SELECT rowid AS fts_id, bm25(credentials_fts, 10.0, 5.0, 2.0, 3.0) AS fts_rank
+               FROM credentials_fts WHERE credentials_fts MATCH ?) ON id = fts_id
+        ORDER BY fts_rank
+        """;
+
+    // Indexed tag filter through entity_tags (tag name compared case-insensitively)
+    private static final String TAG_FILTER = """
+         WHERE id IN (SELECT et.entity_id FROM entity_tags et JOIN tags t ON t.id = et.tag_id
+                      WHERE t.name = ? AND et.entity_type = 'CREDENTIAL')
+        ORDER BY last_modified DESC
+        """;
+
     private final DatabaseManager dbManager;
+    private final TagRepository tagRepository;
 
     public CredentialRepositoryImpl(DatabaseManager dbManager) {
         this.dbManager = dbManager;
+        this.tagRepository = new TagRepositoryImpl(dbManager);
     }
 
     @Override
@@ -26,8 +53,9 @@ public class CredentialRepositoryImpl implements CredentialRepository {
         INSERT INTO credentials (
             title, username, email, url, encrypted_password, 
             encryption_iv, notes, tags, is_favorite, created_at, last_modified,
-            password_changed_at, password_strength_score, is_breached
-        ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            password_changed_at, password_strength_score, is_breached,
+            url_host, url_domain
+        ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
         """;
 
         try (Connection conn = dbManager.getConnection();
@@ -47,6 +75,7 @@ public class CredentialRepositoryImpl implements CredentialRepository {
             stmt.setObject(12, credential.getPasswordChangedAt());
             stmt.setInt(13, credential.getPasswordStrengthScore());
             stmt.setBoolean(14, credential.isBreached());
+            setUrlKeys(stmt, 15, credential.getUrl());
 
             stmt.executeUpdate();
 
@@ -56,6 +85,9 @@ public class CredentialRepositoryImpl implements CredentialRepository {
                 }
             }
 
+            tagRepository.setEntityTags(EntityType.CREDENTIAL, credential.getId(), credential.getTags());
+
+            indexAfterCommit(credential);
             return credential;
         } catch (SQLException e) {
             throw new RepositoryException("Failed to save credential", e);
@@ -104,23 +136,18 @@ public class CredentialRepositoryImpl implements CredentialRepository {
 
     @Override
     public List<Credential> searchByTitle(String query) throws RepositoryException {
-        String sql = """
-            SELECT * FROM credentials 
-            WHERE LOWER(title) LIKE LOWER(?) 
-               OR LOWER(username) LIKE LOWER(?) 
-               OR LOWER(url) LIKE LOWER(?)
-            ORDER BY last_modified DESC
-            """;
-
+        String sql = "SELECT * FROM credentials" + FTS_MATCH;
         List<Credential> credentials = new ArrayList<>();
-        String searchPattern = "%" + query + "%";
+        String matchQuery = FtsQueryUtil.toPrefixQuery(query);
+
+        if (matchQuery.isEmpty()) {
+            return credentials;
+        }
 
         try (Connection conn = dbManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, searchPattern);
-            stmt.setString(2, searchPattern);
-            stmt.setString(3, searchPattern);
+            stmt.setString(1, matchQuery);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -153,6 +180,152 @@ public class CredentialRepositoryImpl implements CredentialRepository {
         }
     }
 
+    @Override
+    public List<CredentialSummary> findAllSummaries() throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM credentials ORDER BY last_modified DESC";
+        List<CredentialSummary> summaries = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                summaries.add(mapResultSetToSummary(rs));
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to fetch credential summaries", e);
+        }
+    }
+
+    @Override
+    public List<CredentialSummary> searchSummaries(String query) throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM credentials" + FTS_MATCH;
+        List<CredentialSummary> summaries = new ArrayList<>();
+        String matchQuery = FtsQueryUtil.toPrefixQuery(query);
+
+        if (matchQuery.isEmpty()) {
+            return summaries;
+        }
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, matchQuery);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToSummary(rs));
+                }
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to search credential summaries", e);
+        }
+    }
+
+    @Override
+    public List<CredentialSummary> findFavoriteSummaries() throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM credentials WHERE is_favorite = 1 ORDER BY title";
+        List<CredentialSummary> summaries = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                summaries.add(mapResultSetToSummary(rs));
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to fetch favorite summaries", e);
+        }
+    }
+
+    @Override
+    public List<CredentialSummary> findSummariesByTag(String tag) throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM credentials" + TAG_FILTER;
+        List<CredentialSummary> summaries = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, tag);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToSummary(rs));
+                }
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to find credential summaries by tag", e);
+        }
+    }
+
+    @Override
+    public List<CredentialSummary> findSummariesByHost(String host) throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM credentials WHERE url_host = ? ORDER BY title";
+        List<CredentialSummary> summaries = new ArrayList<>();
+        String normalizedHost = UrlUtil.extractHost(host);
+
+        if (normalizedHost == null) {
+            return summaries;
+        }
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, normalizedHost);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToSummary(rs));
+                }
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to find credentials by host", e);
+        }
+    }
+
+    @Override
+    public List<CredentialSummary> findSummariesForUrl(String url) throws RepositoryException {
+        // Same registrable domain (subdomains included) via idx_credentials_url_domain, exact host first
+        String sql = "SELECT " + SUMMARY_COLUMNS + """
+             FROM credentials WHERE url_domain = ?
+            ORDER BY url_host = ? DESC, title
+            """;
+        List<CredentialSummary> summaries = new ArrayList<>();
+        String host = UrlUtil.extractHost(url);
+
+        if (host == null) {
+            return summaries;
+        }
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, UrlUtil.registrableDomain(host));
+            stmt.setString(2, host);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToSummary(rs));
+                }
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to find credentials for URL", e);
+        }
+    }
+
     @Override
     public void update(Credential credential) throws RepositoryException {
         String sql = """
@@ -160,7 +333,8 @@ public class CredentialRepositoryImpl implements CredentialRepository {
         SET title = ?, username = ?, email = ?, url = ?, 
             encrypted_password = ?, encryption_iv = ?, notes = ?, 
             tags = ?, is_favorite = ?, last_modified = ?, 
-            password_changed_at = ?, password_strength_score = ?, is_breached = ?
+            password_changed_at = ?, password_strength_score = ?, is_breached = ?,
+            url_host = ?, url_domain = ?
         WHERE id = ?
         """;
 
@@ -180,9 +354,14 @@ public class CredentialRepositoryImpl implements CredentialRepository {
             stmt.setObject(11, credential.getPasswordChangedAt());
             stmt.setInt(12, credential.getPasswordStrengthScore());
             stmt.setBoolean(13, credential.isBreached());
-            stmt.setLong(14, credential.getId());
+            setUrlKeys(stmt, 14, credential.getUrl());
+            stmt.setLong(16, credential.getId());
 
             stmt.executeUpdate();
+
+            tagRepository.setEntityTags(EntityType.CREDENTIAL, credential.getId(), credential.getTags());
+
+            indexAfterCommit(credential);
         } catch (SQLException e) {
             throw new RepositoryException("Failed to update credential", e);
         }
@@ -197,6 +376,8 @@ public class CredentialRepositoryImpl implements CredentialRepository {
 
             stmt.setLong(1, id);
             stmt.executeUpdate();
+
+            WriteQueue.afterCommit(() -> GlobalSearchIndex.getInstance().remove(EntityType.CREDENTIAL, id));
         } catch (SQLException e) {
             throw new RepositoryException("Failed to delete credential", e);
         }
@@ -219,6 +400,13 @@ public class CredentialRepositoryImpl implements CredentialRepository {
         }
     }
 
+    // url_host and url_domain at parameterIndex and parameterIndex + 1 ('' when the URL has no host)
+    private void setUrlKeys(PreparedStatement stmt, int parameterIndex, String url) throws SQLException {
+        String host = UrlUtil.extractHost(url);
+        stmt.setString(parameterIndex, host != null ? host : "");
+        stmt.setString(parameterIndex + 1, host != null ? UrlUtil.registrableDomain(host) : "");
+    }
+
     private Credential mapResultSetToCredential(ResultSet rs) throws SQLException {
         Credential credential = new Credential();
         credential.setId(rs.getLong("id"));
@@ -240,4 +428,31 @@ public class CredentialRepositoryImpl implements CredentialRepository {
 
         return credential;
     }
-}
\ No newline at end of file
+
+    private CredentialSummary mapResultSetToSummary(ResultSet rs) throws SQLException {
+        CredentialSummary summary = new CredentialSummary();
+        summary.setId(rs.getLong("id"));
+        summary.setTitle(rs.getString("title"));
+        summary.setUsername(rs.getString("username"));
+        summary.setUrl(rs.getString("url"));
+        summary.setTags(rs.getString("tags"));
+        summary.setFavorite(rs.getBoolean("is_favorite"));
+        summary.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        summary.setLastModified(rs.getObject("last_modified", LocalDateTime.class));
+        summary.setPasswordChangedAt(rs.getObject("password_changed_at", LocalDateTime.class));
+        summary.setPasswordStrengthScore(rs.getInt("password_strength_score"));
+        summary.setBreached(rs.getBoolean("is_breached"));
+        return summary;
+    }
+
+    /**
+     * Update the search index once the write is committed, with the values saved now
+     */
+    private void indexAfterCommit(Credential credential) {
+        Long id = credential.getId();
+        String title = credential.getTitle();
+        String username = credential.getUsername();
+        String url = credential.getUrl();
+        WriteQueue.afterCommit(() -> GlobalSearchIndex.getInstance().putCredential(id, title, username, url));
+    }
+}
@@ -0,0 +1,44 @@
+package com.passman.core.repository;
+
+import com.passman.core.model.EncryptedFile;
+import com.passman.core.model.VaultStorage;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for the metadata of files stored in vaults
+ */
+public interface EncryptedFileRepository {
+
+    EncryptedFile save(EncryptedFile file) throws RepositoryException;
+
+    /**
+     * Insert many files at once; run inside one transaction (e.g. a WriteQueue command)
+     */
+    List<EncryptedFile> saveAll(List<EncryptedFile> files) throws RepositoryException;
+
+    Optional<EncryptedFile> findById(Long id) throws RepositoryException;
+
+    List<EncryptedFile> findByVaultId(Long vaultId) throws RepositoryException;
+
+    /**
+     * One page of a vault's files, newest first
+     */
+    List<EncryptedFile> findByVaultId(Long vaultId, int offset, int limit) throws RepositoryException;
+
+    void delete(Long id) throws RepositoryException;
+
+    /**
+     * File count and byte totals of a vault, read from the vault_storage summary
+     */
+    VaultStorage getVaultStorage(Long vaultId) throws RepositoryException;
+
+    List<VaultStorage> getAllVaultStorage() throws RepositoryException;
+
+    /**
+     * Limit the original bytes a vault may hold; null removes the limit.
+     * Inserts past the quota fail with a RepositoryException.
+     */
+    void setQuota(Long vaultId, Long quotaBytes) throws RepositoryException;
+}
@@ -0,0 +1,282 @@
+package com.passman.core.repository;
+
+import com.passman.core.db.DatabaseManager;
+import com.passman.core.db.WriteQueue;
+import com.passman.core.model.EncryptedFile;
+import com.passman.core.model.EntityType;
+import com.passman.core.model.VaultStorage;
+import com.passman.core.search.GlobalSearchIndex;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * SQLite implementation of encrypted file repository
+ */
+public class EncryptedFileRepositoryImpl implements EncryptedFileRepository {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO encrypted_files (vault_id, original_file_name, encrypted_file_name, 
+                                    original_size, encrypted_size, mime_type, encryption_iv, 
+                                    checksum, uploaded_at, content_id)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String STORAGE_SQL = """
+        SELECT v.id AS vault_id, v.quota_bytes,
+               COALESCE(s.file_count, 0) AS file_count,
+               COALESCE(s.original_bytes, 0) AS original_bytes,
+               COALESCE(s.encrypted_bytes, 0) AS encrypted_bytes
+        FROM file_vaults v LEFT JOIN vault_storage s ON s.vault_id = v.id
+        """;
+
+    // Raised by trg_encrypted_files_quota_insert (V14)
+    private static final String QUOTA_EXCEEDED = "Vault storage quota exceeded";
+
+    private final DatabaseManager dbManager;
+
+    public EncryptedFileRepositoryImpl(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    @Override
+    public EncryptedFile save(EncryptedFile file) throws RepositoryException {
+        return saveAll(List.of(file)).get(0);
+    }
+
+    @Override
+    public List<EncryptedFile> saveAll(List<EncryptedFile> files) throws RepositoryException {
+        // All or nothing, so callers can release the data of every file when this fails
+        try {
+            dbManager.savepoint("save_files");
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+                for (EncryptedFile file : files) {
+                    stmt.setLong(1, file.getVaultId());
+                    stmt.setString(2, file.getOriginalFileName());
+                    stmt.setString(3, file.getEncryptedFileName());
+                    stmt.setLong(4, file.getOriginalSize());
+                    stmt.setLong(5, file.getEncryptedSize());
+                    stmt.setString(6, file.getMimeType());
+                    stmt.setBytes(7, file.getEncryptionIV());
+                    stmt.setString(8, file.getChecksum());
+                    stmt.setObject(9, file.getUploadedAt());
+                    stmt.setString(10, file.getContentId());
+
+                    stmt.executeUpdate();
+
+                    try (ResultSet rs = stmt.getGeneratedKeys()) {
+                        if (rs.next()) {
+                            file.setId(rs.getLong(1));
+                        }
+                    }
+                }
+            }
+            dbManager.releaseSavepoint("save_files");
+        } catch (SQLException e) {
+            try {
+                dbManager.rollbackToSavepoint("save_files");
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            for (EncryptedFile file : files) {
+                file.setId(null);
+            }
+            if (e.getMessage() != null && e.getMessage().contains(QUOTA_EXCEEDED)) {
+                throw new RepositoryException(QUOTA_EXCEEDED, e);
+            }
+            throw new RepositoryException("Failed to save encrypted files", e);
+        }
+
+        for (EncryptedFile file : files) {
+            Long id = file.getId();
+            String name = file.getOriginalFileName();
+            String mimeType = file.getMimeType();
+            WriteQueue.afterCommit(() -> GlobalSearchIndex.getInstance().putVaultFile(id, name, mimeType));
+        }
+        return files;
+    }
+
+    @Override
+    public Optional<EncryptedFile> findById(Long id) throws RepositoryException {
+        String sql = "SELECT * FROM encrypted_files WHERE id = ?";
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, id);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapResultSetToFile(rs));
+                }
+            }
+
+            return Optional.empty();
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to find encrypted file", e);
+        }
+    }
+
+    @Override
+    public List<EncryptedFile> findByVaultId(Long vaultId) throws RepositoryException {
+        String sql = "SELECT * FROM encrypted_files WHERE vault_id = ? ORDER BY uploaded_at DESC";
+        List<EncryptedFile> files = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, vaultId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    files.add(mapResultSetToFile(rs));
+                }
+            }
+
+            return files;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to fetch encrypted files", e);
+        }
+    }
+
+    @Override
+    public List<EncryptedFile> findByVaultId(Long vaultId, int offset, int limit) throws RepositoryException {
+        String sql = """
+            SELECT * FROM encrypted_files WHERE vault_id = ?
+            ORDER BY uploaded_at DESC, id DESC
+            LIMIT ? OFFSET ?
+            """;
+        List<EncryptedFile> files = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, vaultId);
+            stmt.setInt(2, limit);
+            stmt.setInt(3, offset);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    files.add(mapResultSetToFile(rs));
+                }
+            }
+
+            return files;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to fetch encrypted files", e);
+        }
+    }
+
+    @Override
+    public void delete(Long id) throws RepositoryException {
+        String sql = "DELETE FROM encrypted_files WHERE id = ?";
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, id);
+            stmt.executeUpdate();
+
+            WriteQueue.afterCommit(() -> GlobalSearchIndex.getInstance().remove(EntityType.VAULT_FILE, id));
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to delete encrypted file", e);
+        }
+    }
+
+    @Override
+    public VaultStorage getVaultStorage(Long vaultId) throws RepositoryException {
+        String sql = STORAGE_SQL + " WHERE v.id = ?";
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, vaultId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapResultSetToStorage(rs) : new VaultStorage(vaultId);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to fetch vault storage", e);
+        }
+    }
+
+    @Override
+    public List<VaultStorage> getAllVaultStorage() throws RepositoryException {
+        List<VaultStorage> storage = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(STORAGE_SQL + " ORDER BY v.id");
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                storage.add(mapResultSetToStorage(rs));
+            }
+            return storage;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to fetch vault storage", e);
+        }
+    }
+
+    @Override
+    public void setQuota(Long vaultId, Long quotaBytes) throws RepositoryException {
+        String sql = "UPDATE file_vaults SET quota_bytes = ? WHERE id = ?";
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setObject(1, quotaBytes);
+            stmt.setLong(2, vaultId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to set vault quota", e);
+        }
+    }
+
+    /**
+     * Recount the vault_storage summary from the files themselves. Needed after rows were
+     * written without the summary triggers seeing each change, e.g. by a change journal replay.
+     */
+    public static void recountVaultStorage(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM vault_storage");
+            stmt.executeUpdate("""
+                INSERT INTO vault_storage (vault_id, file_count, original_bytes, encrypted_bytes)
+                SELECT v.id, COUNT(f.id), COALESCE(SUM(f.original_size), 0), COALESCE(SUM(f.encrypted_size), 0)
+                FROM file_vaults v LEFT JOIN encrypted_files f ON f.vault_id = v.id
+                GROUP BY v.id
+                """);
+        }
+    }
+
+    private VaultStorage mapResultSetToStorage(ResultSet rs) throws SQLException {
+        VaultStorage storage = new VaultStorage(rs.getLong("vault_id"));
+        storage.setFileCount(rs.getInt("file_count"));
+        storage.setOriginalBytes(rs.getLong("original_bytes"));
+        storage.setEncryptedBytes(rs.getLong("encrypted_bytes"));
+        long quota = rs.getLong("quota_bytes");
+        storage.setQuotaBytes(rs.wasNull() ? null : quota);
+        return storage;
+    }
+
+    private EncryptedFile mapResultSetToFile(ResultSet rs) throws SQLException {
+        EncryptedFile file = new EncryptedFile();
+        file.setId(rs.getLong("id"));
+        file.setVaultId(rs.getLong("vault_id"));
+        file.setOriginalFileName(rs.getString("original_file_name"));
+        file.setEncryptedFileName(rs.getString("encrypted_file_name"));
+        file.setOriginalSize(rs.getLong("original_size"));
+        file.setEncryptedSize(rs.getLong("encrypted_size"));
+        file.setMimeType(rs.getString("mime_type"));
+        file.setEncryptionIV(rs.getBytes("encryption_iv"));
+        file.setChecksum(rs.getString("checksum"));
+        file.setContentId(rs.getString("content_id"));
+        file.setUploadedAt(rs.getObject("uploaded_at", LocalDateTime.class));
+        file.setLastAccessed(rs.getObject("last_accessed", LocalDateTime.class));
+        return file;
+    }
+}
@@ -1,5 +1,6 @@
 package com.passman.core.repository;
 
+import com.passman.core.model.CardSummary;
 import com.passman.core.model.IdentityCard;
 
 import java.time.LocalDate;
@@ -25,6 +26,19 @@ public interface IdentityCardsRepository {
 
     List<IdentityCard> search(String query) throws RepositoryException;
 
+    // Summary projections for list views (no encrypted data or photo BLOBs)
+    List<CardSummary> findAllSummaries() throws RepositoryException;
+
+    List<CardSummary> findSummariesByType(IdentityCard.CardType type) throws RepositoryException;
+
+    List<CardSummary> findExpiringSummariesBefore(LocalDate date) throws RepositoryException;
+
+    List<CardSummary> findExpiredSummaries() throws RepositoryException;
+
+    List<CardSummary> searchSummaries(String query) throws RepositoryException;
+
+    List<CardSummary> findSummariesByTag(String tag) throws RepositoryException;
+
     void update(IdentityCard card) throws RepositoryException;
 
     void delete(Long id) throws RepositoryException;
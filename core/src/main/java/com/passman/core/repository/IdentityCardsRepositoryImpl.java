@@ -1,7 +1,12 @@
 package com.passman.core.repository;
 
 import com.passman.core.db.DatabaseManager;
+import com.passman.core.db.WriteQueue;
+import com.passman.core.model.CardSummary;
+import com.passman.core.model.EntityType;
 import com.passman.core.model.IdentityCard;
+import com.passman.core.search.GlobalSearchIndex;
+import com.passman.core.utils.FtsQueryUtil;
 
 import java.sql.*;
 import java.time.LocalDate;
@@ -15,10 +20,31 @@ import java.util.Optional;
  */
 public class IdentityCardsRepositoryImpl implements IdentityCardsRepository {
 
+    private static final String SUMMARY_COLUMNS = """
+        id, card_type, card_name, card_number_last4, issuing_country, expiry_date,
+        has_photo, is_expired, tags, color_code, created_at, last_modified
+        """;
+
+    // Ranked prefix match against identity_cards_fts (card name weighted highest)
+    private static final String FTS_MATCH = """
+         JOIN (SELECT rowid AS fts_id, bm25(identity_cards_fts, 10.0, 5.0, 2.0, 3.0) AS fts_rank
+               FROM identity_cards_fts WHERE identity_cards_fts MATCH ?) ON id = fts_id
+        ORDER BY fts_rank
+        """;
+
+    // Indexed tag filter through entity_tags (tag name compared case-insensitively)
+    private static final String TAG_FILTER = """
+         WHERE id IN (SELECT et.entity_id FROM entity_tags et JOIN tags t ON t.id = et.tag_id
+                      WHERE t.name = ? AND et.entity_type = 'IDENTITY_CARD')
+        ORDER BY last_modified DESC
+        """;
+
     private final DatabaseManager dbManager;
+    private final TagRepository tagRepository;
 
     public IdentityCardsRepositoryImpl(DatabaseManager dbManager) {
         this.dbManager = dbManager;
+        this.tagRepository = new TagRepositoryImpl(dbManager);
     }
 
     @Override
@@ -61,6 +87,9 @@ public class IdentityCardsRepositoryImpl implements IdentityCardsRepository {
                 }
             }
 
+            tagRepository.setEntityTags(EntityType.IDENTITY_CARD, card.getId(), card.getTags());
+
+            indexAfterCommit(card);
             return card;
         } catch (SQLException e) {
             throw new RepositoryException("Failed to save identity card", e);
@@ -173,22 +202,18 @@ public class IdentityCardsRepositoryImpl implements IdentityCardsRepository {
 
     @Override
     public List<IdentityCard> search(String query) throws RepositoryException {
-        String sql = """
-            SELECT * FROM identity_cards 
-            WHERE LOWER(card_name) LIKE LOWER(?) 
-               OR LOWER(card_number_last4) LIKE LOWER(?) 
-               OR LOWER(tags) LIKE LOWER(?)
-            ORDER BY last_modified DESC
-            """;
+        String sql = "SELECT * FROM identity_cards" + FTS_MATCH;
         List<IdentityCard> cards = new ArrayList<>();
-        String searchPattern = "%" + query + "%";
+        String matchQuery = FtsQueryUtil.toPrefixQuery(query);
+
+        if (matchQuery.isEmpty()) {
+            return cards;
+        }
 
         try (Connection conn = dbManager.getConnection();
              PreparedStatement stmt = conn. prepareStatement(sql)) {
 
-            stmt.setString(1, searchPattern);
-            stmt.setString(2, searchPattern);
-            stmt.setString(3, searchPattern);
+            stmt.setString(1, matchQuery);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -202,6 +227,139 @@ public class IdentityCardsRepositoryImpl implements IdentityCardsRepository {
         }
     }
 
+    @Override
+    public List<CardSummary> findAllSummaries() throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM identity_cards ORDER BY last_modified DESC";
+        List<CardSummary> summaries = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                summaries.add(mapResultSetToSummary(rs));
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to fetch identity card summaries", e);
+        }
+    }
+
+    @Override
+    public List<CardSummary> findSummariesByType(IdentityCard.CardType type) throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM identity_cards WHERE card_type = ? ORDER BY last_modified DESC";
+        List<CardSummary> summaries = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, type.name());
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToSummary(rs));
+                }
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to find card summaries by type", e);
+        }
+    }
+
+    @Override
+    public List<CardSummary> findExpiringSummariesBefore(LocalDate date) throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS +
+                " FROM identity_cards WHERE expiry_date <= ? AND expiry_date >= ? ORDER BY expiry_date";
+        List<CardSummary> summaries = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setObject(1, date);
+            stmt.setObject(2, LocalDate.now());
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToSummary(rs));
+                }
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to find expiring card summaries", e);
+        }
+    }
+
+    @Override
+    public List<CardSummary> findExpiredSummaries() throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM identity_cards WHERE is_expired = 1 ORDER BY expiry_date DESC";
+        List<CardSummary> summaries = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                summaries.add(mapResultSetToSummary(rs));
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to fetch expired card summaries", e);
+        }
+    }
+
+    @Override
+    public List<CardSummary> searchSummaries(String query) throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM identity_cards" + FTS_MATCH;
+        List<CardSummary> summaries = new ArrayList<>();
+        String matchQuery = FtsQueryUtil.toPrefixQuery(query);
+
+        if (matchQuery.isEmpty()) {
+            return summaries;
+        }
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, matchQuery);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToSummary(rs));
+                }
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to search identity card summaries", e);
+        }
+    }
+
+    @Override
+    public List<CardSummary> findSummariesByTag(String tag) throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM identity_cards" + TAG_FILTER;
+        List<CardSummary> summaries = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, tag);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToSummary(rs));
+                }
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to find identity card summaries by tag", e);
+        }
+    }
+
     @Override
     public void update(IdentityCard card) throws RepositoryException {
         String sql = """
@@ -236,6 +394,10 @@ public class IdentityCardsRepositoryImpl implements IdentityCardsRepository {
             stmt.setLong(17, card. getId());
 
             stmt. executeUpdate();
+
+            tagRepository.setEntityTags(EntityType.IDENTITY_CARD, card.getId(), card.getTags());
+
+            indexAfterCommit(card);
         } catch (SQLException e) {
             throw new RepositoryException("Failed to update identity card", e);
         }
@@ -250,6 +412,8 @@ public class IdentityCardsRepositoryImpl implements IdentityCardsRepository {
 
             stmt.setLong(1, id);
             stmt.executeUpdate();
+
+            WriteQueue.afterCommit(() -> GlobalSearchIndex.getInstance().remove(EntityType.IDENTITY_CARD, id));
         } catch (SQLException e) {
             throw new RepositoryException("Failed to delete identity card", e);
         }
@@ -277,4 +441,32 @@ public class IdentityCardsRepositoryImpl implements IdentityCardsRepository {
         card.setLastModified(rs.getObject("last_modified", LocalDateTime.class));
         return card;
     }
-}
\ No newline at end of file
+
+    private CardSummary mapResultSetToSummary(ResultSet rs) throws SQLException {
+        CardSummary summary = new CardSummary();
+        summary.setId(rs.getLong("id"));
+        summary.setCardType(IdentityCard.CardType.valueOf(rs.getString("card_type")));
+        summary.setCardName(rs.getString("card_name"));
+        summary.setCardNumberLast4(rs.getString("card_number_last4"));
+        summary.setIssuingCountry(rs.getString("issuing_country"));
+        summary.setExpiryDate(rs.getObject("expiry_date", LocalDate.class));
+        summary.setHasPhoto(rs.getBoolean("has_photo"));
+        summary.setExpired(rs.getBoolean("is_expired"));
+        summary.setTags(rs.getString("tags"));
+        summary.setColorCode(rs.getString("color_code"));
+        summary.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        summary.setLastModified(rs.getObject("last_modified", LocalDateTime.class));
+        return summary;
+    }
+
+    /**
+     * Update the search index once the write is committed, with the values saved now
+     */
+    private void indexAfterCommit(IdentityCard card) {
+        Long id = card.getId();
+        String cardName = card.getCardName();
+        IdentityCard.CardType cardType = card.getCardType();
+        String last4 = card.getCardNumberLast4();
+        WriteQueue.afterCommit(() -> GlobalSearchIndex.getInstance().putCard(id, cardName, cardType, last4));
+    }
+}
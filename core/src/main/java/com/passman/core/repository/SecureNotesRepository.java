@@ -1,10 +1,12 @@
 package com.passman.core.repository;
 
 import com.passman.core.model.NoteAttachment;
+import com.passman.core.model.NoteSummary;
 import com.passman.core.model.SecureNote;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Repository interface for secure notes operations
@@ -23,6 +25,24 @@ public interface SecureNotesRepository {
 
     List<SecureNote> findFavorites() throws RepositoryException;
 
+    // Summary projections for list views (no encrypted content)
+    List<NoteSummary> findAllSummaries() throws RepositoryException;
+
+    List<NoteSummary> searchSummaries(String query) throws RepositoryException;
+
+    List<NoteSummary> findSummariesByTag(String tag) throws RepositoryException;
+
+    List<NoteSummary> findSummariesByCategory(SecureNote.NoteCategory category) throws RepositoryException;
+
+    List<NoteSummary> findFavoriteSummaries() throws RepositoryException;
+
+    // Blind index over encrypted content (keyed token hashes, see BlindIndex)
+    void replaceContentTokens(Long noteId, Set<Long> tokenHashes) throws RepositoryException;
+
+    List<NoteSummary> searchSummariesByContentTokens(Set<Long> tokenHashes) throws RepositoryException;
+
+    List<Long> findIdsWithoutContentIndex() throws RepositoryException;
+
     void update(SecureNote note) throws RepositoryException;
 
     void delete(Long id) throws RepositoryException;
@@ -1,24 +1,52 @@
 package com.passman.core.repository;
 
 import com.passman.core.db.DatabaseManager;
+import com.passman.core.db.WriteQueue;
+import com.passman.core.model.EntityType;
 import com.passman.core.model.NoteAttachment;
+import com.passman.core.model.NoteSummary;
 import com.passman.core.model.SecureNote;
+import com.passman.core.search.GlobalSearchIndex;
+import com.passman.core.utils.FtsQueryUtil;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * SQLite implementation of secure notes repository
  */
 public class SecureNotesRepositoryImpl implements SecureNotesRepository {
 
+    private static final String SUMMARY_COLUMNS = """
+        id, title, category, tags, is_favorite, has_attachments, color_code,
+        created_at, last_modified
+        """;
+
+    // Ranked prefix match against secure_notes_fts (title weighted highest)
+    private static final String FTS_MATCH = """
+         JOIN (SELECT rowid AS fts_id, bm25(secure_notes_fts, 10.0, 3.0) AS fts_rank
+               FROM secure_notes_fts WHERE secure_notes_fts MATCH ?) ON id = fts_id
+        ORDER BY fts_rank
+        """;
+
+    // Indexed tag filter through entity_tags (tag name compared case-insensitively)
+    private static final String TAG_FILTER = """
+         WHERE id IN (SELECT et.entity_id FROM entity_tags et JOIN tags t ON t.id = et.tag_id
+                      WHERE t.name = ? AND et.entity_type = 'NOTE')
+        ORDER BY last_modified DESC
+        """;
+
     private final DatabaseManager dbManager;
+    private final TagRepository tagRepository;
 
     public SecureNotesRepositoryImpl(DatabaseManager dbManager) {
         this.dbManager = dbManager;
+        this.tagRepository = new TagRepositoryImpl(dbManager);
     }
 
     @Override
@@ -52,6 +80,9 @@ public class SecureNotesRepositoryImpl implements SecureNotesRepository {
                 }
             }
 
+            tagRepository.setEntityTags(EntityType.NOTE, note.getId(), note.getTags());
+
+            indexAfterCommit(note);
             return note;
         } catch (SQLException e) {
             throw new RepositoryException("Failed to save note", e);
@@ -100,15 +131,18 @@ public class SecureNotesRepositoryImpl implements SecureNotesRepository {
 
     @Override
     public List<SecureNote> searchByTitle(String query) throws RepositoryException {
-        String sql = "SELECT * FROM secure_notes WHERE LOWER(title) LIKE LOWER(?) OR LOWER(tags) LIKE LOWER(?) ORDER BY last_modified DESC";
+        String sql = "SELECT * FROM secure_notes" + FTS_MATCH;
         List<SecureNote> notes = new ArrayList<>();
-        String searchPattern = "%" + query + "%";
+        String matchQuery = FtsQueryUtil.toPrefixQuery(query);
+
+        if (matchQuery.isEmpty()) {
+            return notes;
+        }
 
         try (Connection conn = dbManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, searchPattern);
-            stmt.setString(2, searchPattern);
+            stmt.setString(1, matchQuery);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs. next()) {
@@ -163,6 +197,211 @@ public class SecureNotesRepositoryImpl implements SecureNotesRepository {
         }
     }
 
+    @Override
+    public List<NoteSummary> findAllSummaries() throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM secure_notes ORDER BY last_modified DESC";
+        List<NoteSummary> summaries = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                summaries.add(mapResultSetToSummary(rs));
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to fetch note summaries", e);
+        }
+    }
+
+    @Override
+    public List<NoteSummary> searchSummaries(String query) throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM secure_notes" + FTS_MATCH;
+        List<NoteSummary> summaries = new ArrayList<>();
+        String matchQuery = FtsQueryUtil.toPrefixQuery(query);
+
+        if (matchQuery.isEmpty()) {
+            return summaries;
+        }
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, matchQuery);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToSummary(rs));
+                }
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to search note summaries", e);
+        }
+    }
+
+    @Override
+    public List<NoteSummary> findSummariesByCategory(SecureNote.NoteCategory category) throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM secure_notes WHERE category = ? ORDER BY last_modified DESC";
+        List<NoteSummary> summaries = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, category.name());
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToSummary(rs));
+                }
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to find note summaries by category", e);
+        }
+    }
+
+    @Override
+    public List<NoteSummary> findFavoriteSummaries() throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM secure_notes WHERE is_favorite = 1 ORDER BY last_modified DESC";
+        List<NoteSummary> summaries = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                summaries.add(mapResultSetToSummary(rs));
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to fetch favorite note summaries", e);
+        }
+    }
+
+    @Override
+    public void replaceContentTokens(Long noteId, Set<Long> tokenHashes) throws RepositoryException {
+        try {
+            dbManager.savepoint("note_tokens");
+            Connection conn = dbManager.getConnection();
+
+            try (PreparedStatement delete = conn.prepareStatement(
+                    "DELETE FROM note_search_tokens WHERE note_id = ?")) {
+                delete.setLong(1, noteId);
+                delete.executeUpdate();
+            }
+
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT OR IGNORE INTO note_search_tokens (token_hash, note_id) VALUES (?, ?)")) {
+                for (Long tokenHash : tokenHashes) {
+                    insert.setLong(1, tokenHash);
+                    insert.setLong(2, noteId);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+
+            try (PreparedStatement mark = conn.prepareStatement(
+                    "UPDATE secure_notes SET content_indexed = 1 WHERE id = ?")) {
+                mark.setLong(1, noteId);
+                mark.executeUpdate();
+            }
+
+            dbManager.releaseSavepoint("note_tokens");
+        } catch (SQLException e) {
+            try {
+                dbManager.rollbackToSavepoint("note_tokens");
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw new RepositoryException("Failed to index note content", e);
+        }
+    }
+
+    @Override
+    public List<NoteSummary> searchSummariesByContentTokens(Set<Long> tokenHashes) throws RepositoryException {
+        List<NoteSummary> summaries = new ArrayList<>();
+        if (tokenHashes.isEmpty()) {
+            return summaries;
+        }
+
+        // A note matches when it holds every query token
+        String placeholders = String.join(", ", Collections.nCopies(tokenHashes.size(), "?"));
+        String sql = "SELECT " + SUMMARY_COLUMNS + """
+             FROM secure_notes
+            WHERE id IN (SELECT note_id FROM note_search_tokens
+                         WHERE token_hash IN (%s)
+                         GROUP BY note_id HAVING COUNT(*) = ?)
+            ORDER BY last_modified DESC
+            """.formatted(placeholders);
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            for (Long tokenHash : tokenHashes) {
+                stmt.setLong(index++, tokenHash);
+            }
+            stmt.setInt(index, tokenHashes.size());
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToSummary(rs));
+                }
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to search note content", e);
+        }
+    }
+
+    @Override
+    public List<Long> findIdsWithoutContentIndex() throws RepositoryException {
+        String sql = "SELECT id FROM secure_notes WHERE content_indexed IS NULL OR content_indexed = 0";
+        List<Long> ids = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+
+            return ids;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to find unindexed notes", e);
+        }
+    }
+
+    @Override
+    public List<NoteSummary> findSummariesByTag(String tag) throws RepositoryException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM secure_notes" + TAG_FILTER;
+        List<NoteSummary> summaries = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, tag);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToSummary(rs));
+                }
+            }
+
+            return summaries;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to find note summaries by tag", e);
+        }
+    }
+
     @Override
     public void update(SecureNote note) throws RepositoryException {
         String sql = """
@@ -188,6 +427,10 @@ public class SecureNotesRepositoryImpl implements SecureNotesRepository {
             stmt.setLong(10, note. getId());
 
             stmt. executeUpdate();
+
+            tagRepository.setEntityTags(EntityType.NOTE, note.getId(), note.getTags());
+
+            indexAfterCommit(note);
         } catch (SQLException e) {
             throw new RepositoryException("Failed to update note", e);
         }
@@ -202,6 +445,8 @@ public class SecureNotesRepositoryImpl implements SecureNotesRepository {
 
             stmt.setLong(1, id);
             stmt.executeUpdate();
+
+            WriteQueue.afterCommit(() -> GlobalSearchIndex.getInstance().remove(EntityType.NOTE, id));
         } catch (SQLException e) {
             throw new RepositoryException("Failed to delete note", e);
         }
@@ -211,8 +456,8 @@ public class SecureNotesRepositoryImpl implements SecureNotesRepository {
     public NoteAttachment saveAttachment(NoteAttachment attachment) throws RepositoryException {
         String sql = """
             INSERT INTO note_attachments (note_id, original_file_name, encrypted_file_name, 
-                                         file_size, mime_type, checksum, uploaded_at)
-            VALUES (?, ?, ?, ?, ?, ?, ?)
+                                         file_size, mime_type, checksum, uploaded_at, content_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
             """;
 
         try (Connection conn = dbManager.getConnection();
@@ -225,6 +470,7 @@ public class SecureNotesRepositoryImpl implements SecureNotesRepository {
             stmt.setString(5, attachment.getMimeType());
             stmt.setString(6, attachment.getChecksum());
             stmt.setObject(7, attachment.getUploadedAt());
+            stmt.setString(8, attachment.getContentId());
 
             stmt.executeUpdate();
 
@@ -313,6 +559,20 @@ public class SecureNotesRepositoryImpl implements SecureNotesRepository {
         return note;
     }
 
+    private NoteSummary mapResultSetToSummary(ResultSet rs) throws SQLException {
+        NoteSummary summary = new NoteSummary();
+        summary.setId(rs.getLong("id"));
+        summary.setTitle(rs.getString("title"));
+        summary.setCategory(SecureNote.NoteCategory.valueOf(rs.getString("category")));
+        summary.setTags(rs.getString("tags"));
+        summary.setFavorite(rs.getBoolean("is_favorite"));
+        summary.setHasAttachments(rs.getBoolean("has_attachments"));
+        summary.setColorCode(rs.getString("color_code"));
+        summary.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        summary.setLastModified(rs.getObject("last_modified", LocalDateTime.class));
+        return summary;
+    }
+
     private NoteAttachment mapResultSetToAttachment(ResultSet rs) throws SQLException {
         NoteAttachment attachment = new NoteAttachment();
         attachment.setId(rs.getLong("id"));
@@ -322,7 +582,18 @@ public class SecureNotesRepositoryImpl implements SecureNotesRepository {
         attachment.setFileSize(rs.getLong("file_size"));
         attachment.setMimeType(rs.getString("mime_type"));
         attachment. setChecksum(rs.getString("checksum"));
+        attachment.setContentId(rs.getString("content_id"));
         attachment.setUploadedAt(rs.getObject("uploaded_at", LocalDateTime.class));
         return attachment;
     }
-}
\ No newline at end of file
+
+    /**
+     * Update the search index once the write is committed, with the values saved now
+     */
+    private void indexAfterCommit(SecureNote note) {
+        Long id = note.getId();
+        String title = note.getTitle();
+        String tags = note.getTags();
+        WriteQueue.afterCommit(() -> GlobalSearchIndex.getInstance().putNote(id, title, tags));
+    }
+}
@@ -0,0 +1,24 @@
+package com.passman.core.repository;
+
+import com.passman.core.model.EntityType;
+import com.passman.core.model.Tag;
+
+import java.util.List;
+
+/**
+ * Repository interface for the normalized tag store
+ */
+public interface TagRepository {
+
+    /**
+     * Replace the tags of an entity with the tags parsed from a comma separated string
+     */
+    void setEntityTags(EntityType type, Long entityId, String tags) throws RepositoryException;
+
+    List<Tag> findAll() throws RepositoryException;
+
+    List<Tag> findByType(EntityType type) throws RepositoryException;
+
+    // Autocomplete: tags starting with the prefix (case-insensitive), most used first
+    List<Tag> findByPrefix(String prefix, int limit) throws RepositoryException;
+}
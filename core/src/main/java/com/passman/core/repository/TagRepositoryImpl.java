@@ -0,0 +1,185 @@
+package com.passman.core.repository;
+
+import com.passman.core.db.DatabaseManager;
+import com.passman.core.model.EntityType;
+import com.passman.core.model.Tag;
+import com.passman.core.utils.TagUtil;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * SQLite implementation of tag repository
+ */
+public class TagRepositoryImpl implements TagRepository {
+
+    private static final String TAG_COLUMNS = "id, name, credential_count, note_count, card_count";
+
+    private final DatabaseManager dbManager;
+
+    public TagRepositoryImpl(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    @Override
+    public void setEntityTags(EntityType type, Long entityId, String tags) throws RepositoryException {
+        Map<String, String> wanted = new LinkedHashMap<>();
+        for (String name : TagUtil.parse(tags)) {
+            wanted.put(name.toLowerCase(Locale.ROOT), name);
+        }
+
+        try {
+            dbManager.savepoint("entity_tags");
+            Connection conn = dbManager.getConnection();
+
+            // Only touch links that changed, so usage counts stay stable
+            Map<String, Long> current = new LinkedHashMap<>();
+            try (PreparedStatement stmt = conn.prepareStatement("""
+                    SELECT t.id, t.name FROM entity_tags et JOIN tags t ON t.id = et.tag_id
+                    WHERE et.entity_type = ? AND et.entity_id = ?
+                    """)) {
+                stmt.setString(1, type.name());
+                stmt.setLong(2, entityId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        current.put(rs.getString("name").toLowerCase(Locale.ROOT), rs.getLong("id"));
+                    }
+                }
+            }
+
+            try (PreparedStatement unlink = conn.prepareStatement(
+                    "DELETE FROM entity_tags WHERE tag_id = ? AND entity_type = ? AND entity_id = ?")) {
+                for (Map.Entry<String, Long> entry : current.entrySet()) {
+                    if (!wanted.containsKey(entry.getKey())) {
+                        unlink.setLong(1, entry.getValue());
+                        unlink.setString(2, type.name());
+                        unlink.setLong(3, entityId);
+                        unlink.executeUpdate();
+                    }
+                }
+            }
+
+            try (PreparedStatement createTag = conn.prepareStatement(
+                         "INSERT OR IGNORE INTO tags (name) VALUES (?)");
+                 PreparedStatement link = conn.prepareStatement("""
+                         INSERT OR IGNORE INTO entity_tags (tag_id, entity_type, entity_id)
+                         SELECT id, ?, ? FROM tags WHERE name = ?
+                         """)) {
+                for (Map.Entry<String, String> entry : wanted.entrySet()) {
+                    if (!current.containsKey(entry.getKey())) {
+                        createTag.setString(1, entry.getValue());
+                        createTag.executeUpdate();
+
+                        link.setString(1, type.name());
+                        link.setLong(2, entityId);
+                        link.setString(3, entry.getValue());
+                        link.executeUpdate();
+                    }
+                }
+            }
+
+            dbManager.releaseSavepoint("entity_tags");
+        } catch (SQLException e) {
+            try {
+                dbManager.rollbackToSavepoint("entity_tags");
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw new RepositoryException("Failed to update tags", e);
+        }
+    }
+
+    @Override
+    public List<Tag> findAll() throws RepositoryException {
+        String sql = "SELECT " + TAG_COLUMNS + " FROM tags ORDER BY name";
+        List<Tag> tags = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                tags.add(mapResultSetToTag(rs));
+            }
+
+            return tags;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to fetch tags", e);
+        }
+    }
+
+    @Override
+    public List<Tag> findByType(EntityType type) throws RepositoryException {
+        String sql = "SELECT " + TAG_COLUMNS + " FROM tags WHERE " + countColumn(type) + " > 0 ORDER BY name";
+        List<Tag> tags = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                tags.add(mapResultSetToTag(rs));
+            }
+
+            return tags;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to fetch tags by type", e);
+        }
+    }
+
+    @Override
+    public List<Tag> findByPrefix(String prefix, int limit) throws RepositoryException {
+        // LIKE on the NOCASE name column is answered by a range scan of its unique index
+        String sql = "SELECT " + TAG_COLUMNS + """
+             FROM tags WHERE name LIKE ? ESCAPE '\\'
+            ORDER BY credential_count + note_count + card_count DESC, name
+            LIMIT ?
+            """;
+        List<Tag> tags = new ArrayList<>();
+        String name = TagUtil.tagFromQuery(prefix == null ? "" : prefix);
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, escapeLike(name) + "%");
+            stmt.setInt(2, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    tags.add(mapResultSetToTag(rs));
+                }
+            }
+
+            return tags;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to autocomplete tags", e);
+        }
+    }
+
+    private String countColumn(EntityType type) {
+        return switch (type) {
+            case CREDENTIAL -> "credential_count";
+            case NOTE -> "note_count";
+            case IDENTITY_CARD -> "card_count";
+            default -> throw new IllegalArgumentException("Entity type has no tags: " + type);
+        };
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private Tag mapResultSetToTag(ResultSet rs) throws SQLException {
+        Tag tag = new Tag();
+        tag.setId(rs.getLong("id"));
+        tag.setName(rs.getString("name"));
+        tag.setCredentialCount(rs.getInt("credential_count"));
+        tag.setNoteCount(rs.getInt("note_count"));
+        tag.setCardCount(rs.getInt("card_count"));
+        return tag;
+    }
+}
@@ -0,0 +1,501 @@
+package com.passman.core.search;
+
+import com.passman.core.db.DatabaseManager;
+import com.passman.core.model.CardSummary;
+import com.passman.core.model.CredentialSummary;
+import com.passman.core.model.EntityType;
+import com.passman.core.model.IdentityCard;
+import com.passman.core.model.NoteSummary;
+import com.passman.core.repository.CredentialRepositoryImpl;
+import com.passman.core.repository.IdentityCardsRepositoryImpl;
+import com.passman.core.repository.RepositoryException;
+import com.passman.core.repository.SecureNotesRepositoryImpl;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Singleton in-memory trigram index for fuzzy search across all entry types.
+ * Built at unlock, updated incrementally on repository writes and cleared on logout.
+ * Only non-secret metadata (titles, usernames, URLs, tags, file names) is indexed.
+ */
+public class GlobalSearchIndex {
+
+    private static volatile GlobalSearchIndex instance;
+
+    // Indexed text is truncated so memory stays bounded regardless of field sizes
+    static final int MAX_FIELD_LENGTH = 96;
+
+    // Removed entries are tombstoned and compacted away once they pile up
+    private static final int COMPACT_MIN_REMOVED = 1024;
+
+    // Candidates are scored best-trigram-overlap first; stop after this many
+    private static final int CANDIDATE_BUDGET = 2000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<Long, Integer> docIds = new HashMap<>();
+    private final Map<Integer, PostingList> postings = new HashMap<>();
+    private int removedCount;
+    private volatile boolean loaded;
+
+    private GlobalSearchIndex() {}
+
+    public static GlobalSearchIndex getInstance() {
+        if (instance == null) {
+            synchronized (GlobalSearchIndex.class) {
+                if (instance == null) {
+                    instance = new GlobalSearchIndex();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Load all searchable metadata from the database and replace the index contents
+     */
+    public void rebuild(DatabaseManager dbManager) throws RepositoryException {
+        List<Entry> fresh = new ArrayList<>();
+
+        for (CredentialSummary c : new CredentialRepositoryImpl(dbManager).findAllSummaries()) {
+            fresh.add(credentialEntry(c.getId(), c.getTitle(), c.getUsername(), c.getUrl()));
+        }
+        for (NoteSummary n : new SecureNotesRepositoryImpl(dbManager).findAllSummaries()) {
+            fresh.add(noteEntry(n.getId(), n.getTitle(), n.getTags()));
+        }
+        for (CardSummary c : new IdentityCardsRepositoryImpl(dbManager).findAllSummaries()) {
+            fresh.add(cardEntry(c.getId(), c.getCardName(), c.getCardType(), c.getCardNumberLast4()));
+        }
+        fresh.addAll(loadVaultFileEntries(dbManager));
+
+        lock.writeLock().lock();
+        try {
+            resetStructures();
+            for (Entry entry : fresh) {
+                addEntry(entry);
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        System.out.println("✅ Search index built: " + fresh.size() + " entries");
+    }
+
+    private List<Entry> loadVaultFileEntries(DatabaseManager dbManager) throws RepositoryException {
+        String sql = "SELECT id, original_file_name, mime_type FROM encrypted_files";
+        List<Entry> files = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                files.add(vaultFileEntry(rs.getLong("id"), rs.getString("original_file_name"), rs.getString("mime_type")));
+            }
+
+            return files;
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to load vault files for search index", e);
+        }
+    }
+
+    /**
+     * Drop all indexed data (called on logout)
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            resetStructures();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---- Incremental updates (ignored until the index has been built) ----
+
+    public void putCredential(Long id, String title, String username, String url) {
+        put(credentialEntry(id, title, username, url));
+    }
+
+    public void putNote(Long id, String title, String tags) {
+        put(noteEntry(id, title, tags));
+    }
+
+    public void putCard(Long id, String cardName, IdentityCard.CardType cardType, String last4) {
+        put(cardEntry(id, cardName, cardType, last4));
+    }
+
+    public void putVaultFile(Long id, String fileName, String mimeType) {
+        put(vaultFileEntry(id, fileName, mimeType));
+    }
+
+    public void remove(EntityType type, Long id) {
+        if (!loaded || id == null) return;
+
+        lock.writeLock().lock();
+        try {
+            removeEntry(key(type, id));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Entry entry) {
+        if (!loaded || entry.id == null) return;
+
+        lock.writeLock().lock();
+        try {
+            removeEntry(key(entry.type, entry.id));
+            addEntry(entry);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- Search ----
+
+    public List<SearchHit> search(String query, int limit) {
+        return search(query, EnumSet.allOf(EntityType.class), limit);
+    }
+
+    /**
+     * Fuzzy search: trigram candidates (tolerates typos), ranked by fzf-style subsequence scoring
+     */
+    public List<SearchHit> search(String query, Set<EntityType> types, int limit) {
+        String q = normalize(query);
+        List<SearchHit> results = new ArrayList<>();
+        if (q.isEmpty() || limit <= 0) {
+            return results;
+        }
+
+        PriorityQueue<SearchHit> top = new PriorityQueue<>(Comparator.comparingInt(SearchHit::getScore));
+
+        lock.readLock().lock();
+        try {
+            // 1-2 chars: word-prefix grams; longer: trigrams with typo tolerance
+            int[] grams = q.length() < 3 ? new int[]{prefixGram(q)} : trigrams(q);
+            int[] hits = new int[entries.size()];
+            int[] candidates = new int[16];
+            int candidateCount = 0;
+
+            for (int gram : grams) {
+                PostingList list = postings.get(gram);
+                if (list == null) continue;
+                for (int i = 0; i < list.size; i++) {
+                    int doc = list.docs[i];
+                    if (hits[doc]++ == 0) {
+                        if (candidateCount == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                        }
+                        candidates[candidateCount++] = doc;
+                    }
+                }
+            }
+
+            // Allow roughly one typo (a single edit breaks at most three trigrams)
+            int minHits = Math.max(1, grams.length - 3);
+
+            // Bucket candidates by overlap (counting sort) and score the best buckets first
+            int[] bucketStart = new int[grams.length + 2];
+            for (int i = 0; i < candidateCount; i++) {
+                bucketStart[hits[candidates[i]] + 1]++;
+            }
+            for (int h = 1; h < bucketStart.length; h++) {
+                bucketStart[h] += bucketStart[h - 1];
+            }
+            int[] ordered = new int[candidateCount];
+            int[] fill = Arrays.copyOf(bucketStart, bucketStart.length);
+            for (int i = 0; i < candidateCount; i++) {
+                int doc = candidates[i];
+                ordered[fill[hits[doc]]++] = doc;
+            }
+
+            int scored = 0;
+            for (int h = grams.length; h >= minHits && scored < CANDIDATE_BUDGET; h--) {
+                for (int i = bucketStart[h]; i < bucketStart[h + 1] && scored < CANDIDATE_BUDGET; i++) {
+                    Entry entry = entries.get(ordered[i]);
+                    if (entry != null && types.contains(entry.type)) {
+                        offer(top, entry, score(entry, q, h, grams.length), limit);
+                        scored++;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        results.addAll(top);
+        results.sort(Comparator.comparingInt(SearchHit::getScore).reversed());
+        return results;
+    }
+
+    private void offer(PriorityQueue<SearchHit> top, Entry entry, int score, int limit) {
+        if (score <= 0) return;
+        if (top.size() < limit) {
+            top.add(new SearchHit(entry.type, entry.id, entry.title, entry.subtitle, score));
+        } else if (score > top.peek().getScore()) {
+            top.poll();
+            top.add(new SearchHit(entry.type, entry.id, entry.title, entry.subtitle, score));
+        }
+    }
+
+    private int score(Entry entry, String q, int trigramHits, int trigramCount) {
+        int titleScore = fuzzyScore(entry.normTitle, q);
+        if (titleScore > 0) {
+            return 1000 + titleScore - entry.normTitle.length() / 8;
+        }
+
+        int textScore = fuzzyScore(entry.normText, q);
+        if (textScore > 0) {
+            return 500 + textScore - entry.normText.length() / 8;
+        }
+
+        // Not a subsequence (typo): rank by trigram overlap below all exact subsequence matches
+        if (trigramCount > 0) {
+            return (trigramHits * 400) / trigramCount;
+        }
+        return 0;
+    }
+
+    /**
+     * fzf-style score: forward scan finds the first match end, backward scan tightens the window,
+     * then matches are scored with bonuses for word starts and consecutive runs and penalties for gaps.
+     * Returns 0 when the query is not a subsequence of the text.
+     */
+    static int fuzzyScore(String text, String q) {
+        int qi = 0;
+        int end = -1;
+        for (int i = 0; i < text.length() && qi < q.length(); i++) {
+            if (text.charAt(i) == q.charAt(qi)) {
+                qi++;
+                if (qi == q.length()) end = i;
+            }
+        }
+        if (end < 0) return 0;
+
+        int start = end;
+        qi = q.length() - 1;
+        for (int i = end; i >= 0 && qi >= 0; i--) {
+            if (text.charAt(i) == q.charAt(qi)) {
+                start = i;
+                qi--;
+            }
+        }
+
+        int score = 0;
+        int lastMatch = -2;
+        boolean inGap = false;
+        qi = 0;
+        for (int i = start; i <= end && qi < q.length(); i++) {
+            if (text.charAt(i) == q.charAt(qi)) {
+                score += 16;
+                if (i == 0) {
+                    score += 24;
+                } else if (!Character.isLetterOrDigit(text.charAt(i - 1))) {
+                    score += 12;
+                }
+                if (lastMatch == i - 1) {
+                    score += 8;
+                }
+                lastMatch = i;
+                inGap = false;
+                qi++;
+            } else {
+                score -= inGap ? 1 : 3;
+                inGap = true;
+            }
+        }
+
+        return Math.max(1, score);
+    }
+
+    // ---- Index structures ----
+
+    private void addEntry(Entry entry) {
+        int doc = entries.size();
+        entries.add(entry);
+        docIds.put(key(entry.type, entry.id), doc);
+
+        for (int gram : indexGrams(entry.normText)) {
+            postings.computeIfAbsent(gram, g -> new PostingList()).add(doc);
+        }
+    }
+
+    private void removeEntry(long key) {
+        Integer doc = docIds.remove(key);
+        if (doc != null) {
+            entries.set(doc, null);
+            removedCount++;
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (removedCount < COMPACT_MIN_REMOVED || removedCount * 4 < entries.size()) return;
+
+        List<Entry> live = new ArrayList<>(docIds.size());
+        for (Entry entry : entries) {
+            if (entry != null) live.add(entry);
+        }
+
+        resetStructures();
+        for (Entry entry : live) {
+            addEntry(entry);
+        }
+    }
+
+    private void resetStructures() {
+        entries.clear();
+        docIds.clear();
+        postings.clear();
+        removedCount = 0;
+    }
+
+    private static long key(EntityType type, Long id) {
+        return ((long) type.ordinal() << 56) | id;
+    }
+
+    /**
+     * Distinct trigram codes of the text, padded with a leading space so word prefixes count
+     */
+    static int[] trigrams(String text) {
+        String padded = " " + text;
+        Set<Integer> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(gram(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2)));
+        }
+        return toArray(grams);
+    }
+
+    /**
+     * Trigrams plus a word-initial gram per word, so one-character queries are also indexed
+     */
+    private static int[] indexGrams(String text) {
+        Set<Integer> grams = new LinkedHashSet<>();
+        for (int gram : trigrams(text)) {
+            grams.add(gram);
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (i == 0 || text.charAt(i - 1) == ' ') {
+                grams.add(gram(' ', text.charAt(i), '\0'));
+            }
+        }
+        return toArray(grams);
+    }
+
+    private static int prefixGram(String q) {
+        return q.length() == 1 ? gram(' ', q.charAt(0), '\0') : gram(' ', q.charAt(0), q.charAt(1));
+    }
+
+    private static int gram(char a, char b, char c) {
+        return (a << 20) ^ (b << 10) ^ c;
+    }
+
+    private static int[] toArray(Set<Integer> grams) {
+        int[] result = new int[grams.size()];
+        int i = 0;
+        for (int gram : grams) {
+            result[i++] = gram;
+        }
+        return result;
+    }
+
+    static String normalize(String text) {
+        if (text == null) return "";
+
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s+", " ")
+                .trim();
+
+        return folded.length() > MAX_FIELD_LENGTH ? folded.substring(0, MAX_FIELD_LENGTH) : folded;
+    }
+
+    // ---- Entry factories ----
+
+    private static Entry credentialEntry(Long id, String title, String username, String url) {
+        return new Entry(EntityType.CREDENTIAL, id, title, join(username, url));
+    }
+
+    private static Entry noteEntry(Long id, String title, String tags) {
+        return new Entry(EntityType.NOTE, id, title, tags);
+    }
+
+    private static Entry cardEntry(Long id, String cardName, IdentityCard.CardType cardType, String last4) {
+        String typeName = cardType != null ? cardType.getDisplayName() : null;
+        return new Entry(EntityType.IDENTITY_CARD, id, cardName,
+                join(typeName, last4 != null ? "•••• " + last4 : null));
+    }
+
+    private static Entry vaultFileEntry(Long id, String fileName, String mimeType) {
+        return new Entry(EntityType.VAULT_FILE, id, fileName, mimeType);
+    }
+
+    private static String join(String a, String b) {
+        if (a == null || a.isEmpty()) return b;
+        if (b == null || b.isEmpty()) return a;
+        return a + " · " + b;
+    }
+
+    private static final class Entry {
+        final EntityType type;
+        final Long id;
+        final String title;
+        final String subtitle;
+        final String normTitle;
+        final String normText;
+
+        Entry(EntityType type, Long id, String title, String subtitle) {
+            this.type = type;
+            this.id = id;
+            this.title = truncate(title);
+            this.subtitle = truncate(subtitle);
+            this.normTitle = normalize(this.title);
+            this.normText = normalize(this.title + " " + this.subtitle);
+        }
+
+        private static String truncate(String value) {
+            if (value == null) return "";
+            return value.length() > MAX_FIELD_LENGTH ? value.substring(0, MAX_FIELD_LENGTH) : value;
+        }
+    }
+
+    /**
+     * Growable int array of doc ids (appended in increasing order)
+     */
+    private static final class PostingList {
+        int[] docs = new int[4];
+        int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.passman.core.search;
+
+import com.passman.core.model.EntityType;
+
+/**
+ * Ranked result returned by the global search index
+ */
+public class SearchHit {
+    private final EntityType type;
+    private final Long id;
+    private final String title;
+    private final String subtitle;
+    private final int score;
+
+    public SearchHit(EntityType type, Long id, String title, String subtitle, int score) {
+        this.type = type;
+        this.id = id;
+        this.title = title;
+        this.subtitle = subtitle;
+        this.score = score;
+    }
+
+    public EntityType getType() { return type; }
+    public Long getId() { return id; }
+    public String getTitle() { return title; }
+    public String getSubtitle() { return subtitle; }
+    public int getScore() { return score; }
+
+    @Override
+    public String toString() {
+        return type.getIcon() + " " + title + (subtitle == null || subtitle.isEmpty() ? "" : "  —  " + subtitle);
+    }
+}
@@ -0,0 +1,104 @@
+package com.passman.core.services;
+
+import com.passman.core.db.DatabaseManager;
+import com.passman.core.repository.CredentialRepository;
+import com.passman.core.repository.CredentialRepositoryImpl;
+import com.passman.core.repository.FileVaultRepository;
+import com.passman.core.repository.FileVaultRepositoryImpl;
+import com.passman.core.repository.IdentityCardsRepository;
+import com.passman.core.repository.IdentityCardsRepositoryImpl;
+import com.passman.core.repository.SecureNotesRepository;
+import com.passman.core.repository.SecureNotesRepositoryImpl;
+import com.passman.core.repository.TagRepository;
+import com.passman.core.repository.TagRepositoryImpl;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A backup opened read-only (see BackupService.mountBackup).
+ *
+ * The backup's database is decrypted into a temporary file next to the live database
+ * and the usual repositories are created over it, so old versions can be listed and
+ * searched like the vault itself. The connection is query-only: any write through these
+ * repositories fails. close() deletes the temporary copy.
+ */
+public class BackupMount implements AutoCloseable {
+
+    private static final String[] SIDECAR_SUFFIXES = {"-journal", "-wal", "-shm"};
+
+    private final File backupFile;
+    private final DatabaseManager dbManager;
+    private final Path databaseFile;
+    private final CredentialRepository credentialRepository;
+    private final SecureNotesRepository secureNotesRepository;
+    private final IdentityCardsRepository identityCardsRepository;
+    private final FileVaultRepository fileVaultRepository;
+    private final TagRepository tagRepository;
+    private boolean closed;
+
+    BackupMount(File backupFile, DatabaseManager dbManager, Path databaseFile) {
+        this.backupFile = backupFile;
+        this.dbManager = dbManager;
+        this.databaseFile = databaseFile;
+        this.credentialRepository = new CredentialRepositoryImpl(dbManager);
+        this.secureNotesRepository = new SecureNotesRepositoryImpl(dbManager);
+        this.identityCardsRepository = new IdentityCardsRepositoryImpl(dbManager);
+        this.fileVaultRepository = new FileVaultRepositoryImpl(dbManager);
+        this.tagRepository = new TagRepositoryImpl(dbManager);
+    }
+
+    public File getBackupFile() { return backupFile; }
+
+    public DatabaseManager getDatabaseManager() { return dbManager; }
+
+    public CredentialRepository getCredentialRepository() { return credentialRepository; }
+
+    public SecureNotesRepository getSecureNotesRepository() { return secureNotesRepository; }
+
+    public IdentityCardsRepository getIdentityCardsRepository() { return identityCardsRepository; }
+
+    public FileVaultRepository getFileVaultRepository() { return fileVaultRepository; }
+
+    public TagRepository getTagRepository() { return tagRepository; }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        discard(dbManager, databaseFile);
+        System.out.println("✅ Closed backup " + backupFile.getName());
+    }
+
+    /**
+     * Close the connection and delete the temporary database with its journal files
+     */
+    static void discard(DatabaseManager dbManager, Path databaseFile) {
+        if (dbManager != null) {
+            try {
+                dbManager.close();
+            } catch (Exception e) {
+                System.err.println("⚠️ Failed to close mounted backup: " + e.getMessage());
+            }
+        }
+        if (databaseFile == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(databaseFile);
+            for (String suffix : SIDECAR_SUFFIXES) {
+                Files.deleteIfExists(databaseFile.resolveSibling(databaseFile.getFileName() + suffix));
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to delete temporary file " + databaseFile + ": " + e.getMessage());
+        }
+    }
+}
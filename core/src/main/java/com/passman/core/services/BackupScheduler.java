@@ -0,0 +1,469 @@
+package com.passman.core.services;
+
+import com.passman.core.db.ChangeJournal;
+import com.passman.core.db.DatabaseManager;
+import com.passman.core.db.WriteQueue;
+import com.passman.core.model.Backup;
+import com.passman.core.model.BackupSchedule;
+import com.passman.core.repository.BackupRepository;
+import com.passman.core.repository.BackupRepositoryImpl;
+import com.passman.core.repository.RepositoryException;
+import com.passman.core.storage.IoThrottle;
+import com.passman.core.utils.CronExpression;
+
+import javax.crypto.SecretKey;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Creates backups in the background on a cron schedule and after idle periods.
+ *
+ * Settings and the last run are kept in the backup_schedule table, so a run missed
+ * while the app was closed happens after the next start. A due run waits until the
+ * user has been idle for a minute (at most MAX_DEFER_MS), is skipped when nothing
+ * changed since the newest backup, and writes no faster than the configured bandwidth.
+ * A differential schedule takes a full backup instead once its base is a week old, so
+ * the journal and the differentials stay small and older bases can be retired.
+ * Afterwards scheduled and automatic backups are thinned out grandfather-father-son
+ * style; manual backups are never deleted.
+ *
+ * All backup work, including manual backups and restores passed to execute(), runs on
+ * one low-priority thread, so backups never overlap each other.
+ */
+public class BackupScheduler {
+
+    private static final long TICK_SECONDS = 60;
+    private static final long IDLE_THRESHOLD_MS = 60_000;
+    private static final long MAX_DEFER_MS = 30 * 60_000;
+    private static final long FULL_BACKUP_INTERVAL_DAYS = 7;
+
+    private static volatile BackupScheduler instance;
+
+    private final BackupRepository backupRepository;
+    private final ChangeJournal changeJournal;
+    private ScheduledExecutorService executor;
+
+    private volatile BackupService backupService;
+    private volatile Supplier<SecretKey> keySupplier;
+    private volatile boolean stopping;
+
+    private volatile long lastActivityMillis = System.currentTimeMillis();
+    private volatile long lastSeenCommitCount;
+
+    // Written only by the backup thread
+    private volatile LocalDateTime pendingSince;
+    private volatile String currentTask = "Idle";
+    private volatile boolean running;
+    private volatile String lastError;
+
+    private BackupScheduler(DatabaseManager dbManager) {
+        this.backupRepository = new BackupRepositoryImpl(dbManager);
+        this.changeJournal = new ChangeJournal(dbManager);
+    }
+
+    // For tests: runs are started with runBackup, there is no schedule thread
+    BackupScheduler(DatabaseManager dbManager, BackupService backupService, Supplier<SecretKey> keySupplier) {
+        this(dbManager);
+        this.backupService = backupService;
+        this.keySupplier = keySupplier;
+    }
+
+    public static BackupScheduler getInstance() {
+        if (instance == null) {
+            synchronized (BackupScheduler.class) {
+                if (instance == null) {
+                    instance = new BackupScheduler(DatabaseManager.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start checking the schedule. Backups are only created while the key supplier
+     * returns a key (i.e. while the vault is unlocked).
+     */
+    public synchronized void start(BackupService backupService, Supplier<SecretKey> keySupplier) {
+        this.backupService = backupService;
+        this.keySupplier = keySupplier;
+        if (executor != null) {
+            return;
+        }
+        stopping = false;
+        executor = createExecutor();
+        executor.scheduleWithFixedDelay(this::tick, TICK_SECONDS, TICK_SECONDS, TimeUnit.SECONDS);
+        System.out.println("✅ Backup scheduler started");
+    }
+
+    /**
+     * Stop the scheduler; a backup in progress is interrupted and retried after the next start
+     */
+    public void stop() {
+        ScheduledExecutorService toStop;
+        synchronized (this) {
+            toStop = executor;
+            executor = null;
+        }
+        if (toStop == null) {
+            return;
+        }
+
+        stopping = true;
+        toStop.shutdownNow();
+        try {
+            toStop.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("✅ Backup scheduler stopped");
+    }
+
+    /**
+     * The backup service shared by scheduled and manual backups, or null before start()
+     */
+    public BackupService getBackupService() {
+        return backupService;
+    }
+
+    /**
+     * Run backup work (e.g. a manual backup or restore) on the backup thread,
+     * after any backup that is already running
+     */
+    public void execute(Runnable work) {
+        executor().execute(work);
+    }
+
+    /**
+     * Record user activity; due backups wait until the user pauses
+     */
+    public void recordActivity() {
+        lastActivityMillis = System.currentTimeMillis();
+    }
+
+    public BackupSchedule getSchedule() throws RepositoryException {
+        return backupRepository.loadSchedule();
+    }
+
+    /**
+     * Save new settings; the cron schedule starts counting from now
+     *
+     * @throws IllegalArgumentException if the cron expression is not valid
+     */
+    public void saveSchedule(BackupSchedule schedule) throws RepositoryException {
+        CronExpression.parse(schedule.getCronExpression());
+        if (schedule.getKeepDaily() < 0 || schedule.getKeepWeekly() < 0 || schedule.getKeepMonthly() < 0
+                || schedule.getIdleMinutes() < 0 || schedule.getMinIntervalHours() < 0
+                || schedule.getMaxBytesPerSecond() < 0) {
+            throw new IllegalArgumentException("Schedule values must not be negative");
+        }
+        backupRepository.saveSchedule(schedule);
+        pendingSince = null;
+    }
+
+    public ScheduleStatus getStatus() {
+        ScheduleStatus status = new ScheduleStatus();
+        status.running = running;
+        status.currentTask = currentTask;
+        status.lastError = lastError;
+        try {
+            BackupSchedule schedule = backupRepository.loadSchedule();
+            status.enabled = schedule.isEnabled();
+            status.cronExpression = schedule.getCronExpression();
+            status.lastRunAt = schedule.getLastRunAt();
+            status.lastResult = schedule.getLastResult();
+            if (schedule.isEnabled() && CronExpression.isValid(schedule.getCronExpression())) {
+                status.nextRunAt = CronExpression.parse(schedule.getCronExpression()).next(cronAnchor(schedule));
+            }
+        } catch (RepositoryException e) {
+            status.lastError = e.getMessage();
+        }
+        return status;
+    }
+
+    private synchronized ScheduledExecutorService executor() {
+        if (executor == null) {
+            executor = createExecutor();
+        }
+        return executor;
+    }
+
+    private ScheduledExecutorService createExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "passman-backup");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    private void tick() {
+        // Writes committed by the WriteQueue count as activity too
+        long commitCount = WriteQueue.getInstance().getCommitCount();
+        if (commitCount != lastSeenCommitCount) {
+            lastSeenCommitCount = commitCount;
+            recordActivity();
+        }
+
+        try {
+            BackupSchedule schedule = backupRepository.loadSchedule();
+            if (!schedule.isEnabled() || backupService == null) {
+                pendingSince = null;
+                return;
+            }
+
+            Backup.BackupType trigger = dueTrigger(schedule, LocalDateTime.now());
+            if (trigger != null) {
+                runBackup(schedule, trigger);
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Backup schedule check failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * SCHEDULED when a cron run is due and the user is idle (or it waited long enough),
+     * AUTOMATIC after an idle period, or null
+     */
+    private Backup.BackupType dueTrigger(BackupSchedule schedule, LocalDateTime now) {
+        if (CronExpression.isValid(schedule.getCronExpression())) {
+            LocalDateTime due = CronExpression.parse(schedule.getCronExpression()).next(cronAnchor(schedule));
+            if (due != null && !due.isAfter(now)) {
+                if (pendingSince == null) {
+                    pendingSince = now;
+                    currentTask = "Waiting for an idle moment";
+                }
+                if (idleMillis() >= IDLE_THRESHOLD_MS
+                        || !pendingSince.plusNanos(MAX_DEFER_MS * 1_000_000L).isAfter(now)) {
+                    return Backup.BackupType.SCHEDULED;
+                }
+                return null;
+            }
+        }
+
+        LocalDateTime lastRun = schedule.getLastRunAt();
+        if (schedule.getIdleMinutes() > 0 && idleMillis() >= schedule.getIdleMinutes() * 60_000L
+                && (lastRun == null || !lastRun.plusHours(schedule.getMinIntervalHours()).isAfter(now))) {
+            return Backup.BackupType.AUTOMATIC;
+        }
+        return null;
+    }
+
+    /**
+     * The cron schedule counts from the last run, or from the last settings change
+     */
+    private LocalDateTime cronAnchor(BackupSchedule schedule) {
+        LocalDateTime lastRun = schedule.getLastRunAt();
+        LocalDateTime updated = schedule.getUpdatedAt();
+        if (lastRun == null) {
+            return updated != null ? updated : LocalDateTime.now();
+        }
+        return updated != null && updated.isAfter(lastRun) ? updated : lastRun;
+    }
+
+    private long idleMillis() {
+        return System.currentTimeMillis() - lastActivityMillis;
+    }
+
+    void runBackup(BackupSchedule schedule, Backup.BackupType type) {
+        lastError = null;
+        SecretKey masterKey = keySupplier != null ? keySupplier.get() : null;
+        if (masterKey == null || backupService == null) {
+            currentTask = "Waiting for the vault to be unlocked";
+            return;
+        }
+
+        running = true;
+        currentTask = "Creating backup";
+        LocalDateTime startedAt = LocalDateTime.now();
+        String result;
+        try {
+            if (isUnchanged(schedule.getBackupKind())) {
+                result = "Skipped: no changes since the last backup";
+                System.out.println("ℹ️ Scheduled backup skipped, nothing changed");
+            } else {
+                IoThrottle throttle = schedule.getMaxBytesPerSecond() > 0
+                        ? new IoThrottle(schedule.getMaxBytesPerSecond())
+                        : null;
+                String description = type == Backup.BackupType.AUTOMATIC ? "Automatic backup (idle)" : "Scheduled backup";
+                Backup.BackupKind kind = kindToCreate(schedule.getBackupKind(), startedAt);
+                Backup backup = backupService.createBackup(kind, type, masterKey, description, throttle);
+                result = "Created " + backup.getBackupFileName();
+                System.out.println("✅ " + description + " created: " + backup.getBackupFileName());
+
+                currentTask = "Applying retention policy";
+                int removed = applyRetention(schedule);
+                if (removed > 0) {
+                    result += ", removed " + removed + " old backup" + (removed == 1 ? "" : "s");
+                    System.out.println("🗑️ Retention policy removed " + removed + " old backups");
+                }
+            }
+        } catch (Exception e) {
+            if (stopping) {
+                // Interrupted by shutdown: leave last_run_at alone so it runs again after the next start
+                System.out.println("ℹ️ Scheduled backup interrupted by shutdown");
+                return;
+            }
+            result = "Failed: " + e.getMessage();
+            lastError = e.getMessage();
+            System.err.println("❌ Scheduled backup failed: " + e.getMessage());
+        } finally {
+            running = false;
+            currentTask = "Idle";
+            pendingSince = null;
+        }
+
+        // A failed run is recorded too, so it is not retried on every tick
+        try {
+            backupRepository.recordScheduledRun(startedAt, result);
+        } catch (RepositoryException e) {
+            System.err.println("⚠️ Failed to record scheduled backup: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The configured kind, except that a differential becomes a full backup once the base
+     * of the differentials is FULL_BACKUP_INTERVAL_DAYS old. Without the new base the
+     * chain never resets: retention keeps the old base forever and the journal keeps growing.
+     */
+    private Backup.BackupKind kindToCreate(Backup.BackupKind kind, LocalDateTime now) throws RepositoryException {
+        if (kind != Backup.BackupKind.DIFFERENTIAL) {
+            return kind;
+        }
+        for (Backup backup : backupRepository.findAll()) {
+            if (backup.isDifferential() || backup.getStatus() != Backup.BackupStatus.COMPLETED) {
+                continue;
+            }
+            return backup.getCreatedAt().plusDays(FULL_BACKUP_INTERVAL_DAYS).isAfter(now)
+                    ? Backup.BackupKind.DIFFERENTIAL
+                    : Backup.BackupKind.FULL;
+        }
+        // No base yet: the backup service takes a full backup itself
+        return kind;
+    }
+
+    /**
+     * Whether the newest backup that covers this kind already reflects the current journal
+     */
+    private boolean isUnchanged(Backup.BackupKind kind) throws Exception {
+        ChangeJournal.JournalState state = changeJournal.getState();
+
+        for (Backup backup : backupRepository.findAll()) {
+            if (backup.getStatus() != Backup.BackupStatus.COMPLETED
+                    || (kind == Backup.BackupKind.SNAPSHOT && backup.getBackupKind() != Backup.BackupKind.SNAPSHOT)) {
+                continue;
+            }
+            return Files.exists(Paths.get(backup.getBackupPath()))
+                    && state.epoch.equals(backup.getJournalEpoch())
+                    && state.version == backup.getJournalVersion();
+        }
+        return false;
+    }
+
+    /**
+     * Keep the newest scheduled or automatic backup of each of the last keep_daily days,
+     * keep_weekly weeks and keep_monthly months, plus the bases differential backups need;
+     * delete the other ones. Returns the number of backups deleted.
+     */
+    private int applyRetention(BackupSchedule schedule) throws Exception {
+        List<Backup> all = backupRepository.findAll();
+        List<Backup> candidates = new ArrayList<>();
+        Map<Long, Backup> byId = new HashMap<>();
+        for (Backup backup : all) {
+            byId.put(backup.getId(), backup);
+            if (backup.getBackupType() != Backup.BackupType.MANUAL
+                    && backup.getStatus() == Backup.BackupStatus.COMPLETED) {
+                candidates.add(backup);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        // Newest first; the newest one is always kept
+        Set<Long> keep = new HashSet<>();
+        keep.add(candidates.get(0).getId());
+        keepNewestPerPeriod(candidates, schedule.getKeepDaily(), backup -> backup.getCreatedAt().toLocalDate(), keep);
+        keepNewestPerPeriod(candidates, schedule.getKeepWeekly(), backup -> backup.getCreatedAt()
+                .get(IsoFields.WEEK_BASED_YEAR) * 100 + backup.getCreatedAt().get(IsoFields.WEEK_OF_WEEK_BASED_YEAR), keep);
+        keepNewestPerPeriod(candidates, schedule.getKeepMonthly(), backup -> YearMonth.from(backup.getCreatedAt()), keep);
+
+        // A differential backup cannot be restored without its chain; manual ones count too
+        for (Backup kept : all) {
+            if (!keep.contains(kept.getId()) && candidates.contains(kept)) {
+                continue;
+            }
+            Backup backup = kept;
+            while (backup != null && backup.getParentBackupId() != null) {
+                keep.add(backup.getParentBackupId());
+                backup = byId.get(backup.getParentBackupId());
+            }
+        }
+
+        // Differential backups go before the bases they depend on
+        List<Backup> toDelete = new ArrayList<>();
+        for (Backup backup : candidates) {
+            if (!keep.contains(backup.getId())) {
+                toDelete.add(backup);
+            }
+        }
+        toDelete.sort(Comparator.comparing(backup -> !backup.isDifferential()));
+        for (Backup backup : toDelete) {
+            backupService.deleteBackup(backup.getId());
+        }
+        return toDelete.size();
+    }
+
+    private void keepNewestPerPeriod(List<Backup> newestFirst, int periods,
+                                     Function<Backup, Object> periodOf, Set<Long> keep) {
+        Set<Object> seen = new HashSet<>();
+        for (Backup backup : newestFirst) {
+            if (seen.size() >= periods) {
+                return;
+            }
+            if (seen.add(periodOf.apply(backup))) {
+                keep.add(backup.getId());
+            }
+        }
+    }
+
+    public static class ScheduleStatus {
+        public boolean enabled;
+        public boolean running;
+        public String currentTask;
+        public String cronExpression;
+        public LocalDateTime nextRunAt;
+        public LocalDateTime lastRunAt;
+        public String lastResult;
+        public String lastError;
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Backup Schedule: %s\n" +
+                            "  Current Task: %s\n" +
+                            "  Next Run: %s\n" +
+                            "  Last Run: %s%s",
+                    enabled ? cronExpression : "disabled",
+                    currentTask,
+                    nextRunAt != null ? nextRunAt : "-",
+                    lastRunAt != null ? lastRunAt : "never",
+                    lastResult != null ? " (" + lastResult + ")" : ""
+            );
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.passman.core.services;
 
+import com.passman.core.db.RecordDiff;
 import com.passman.core.model.Backup;
+import com.passman.core.model.EntityType;
+import com.passman.core.storage.IoThrottle;
 
 import javax.crypto.SecretKey;
 import java.io.File;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,12 +21,65 @@ public interface BackupService {
     Backup createBackup(SecretKey masterKey, String description) throws BackupException;
 
     /**
-     * Restore database from backup
+     * Create encrypted backup of the rows changed since the newest full or snapshot backup;
+     * falls back to a full backup when there is no usable base
+     */
+    Backup createDifferentialBackup(SecretKey masterKey, String description) throws BackupException;
+
+    /**
+     * Create a deduplicated snapshot of the database, vault files and note attachments;
+     * data unchanged since an earlier snapshot is stored only once
+     */
+    Backup createSnapshotBackup(SecretKey masterKey, String description) throws BackupException;
+
+    /**
+     * Create a backup of the given kind, recorded with the given type; background backups
+     * pass a throttle to limit their disk bandwidth (null for no limit)
+     */
+    Backup createBackup(Backup.BackupKind kind, Backup.BackupType type, SecretKey masterKey,
+                        String description, IoThrottle throttle) throws BackupException;
+
+    /**
+     * Restore database from backup; a differential backup is restored from its
+     * full base backup plus the chain of differential backups up to it
      */
     void restoreBackup(File backupFile, SecretKey masterKey) throws BackupException;
 
     /**
-     * Verify backup integrity
+     * Open a backup read-only, with the normal repositories over its data;
+     * the live database is not touched. The caller closes the mount.
+     */
+    BackupMount mountBackup(File backupFile, SecretKey masterKey) throws BackupException;
+
+    /**
+     * What changed from the older backup to the newer one: entries added, removed and modified
+     */
+    RecordDiff.Result compareBackups(File olderBackup, File newerBackup, SecretKey masterKey) throws BackupException;
+
+    /**
+     * What changed in the vault since the backup, i.e. what restoring it would undo
+     */
+    RecordDiff.Result compareWithLive(File backupFile, SecretKey masterKey) throws BackupException;
+
+    /**
+     * Credentials, notes or identity cards stored in a backup, to pick from for restoreItems
+     */
+    List<RestorableItem> listRestorableItems(File backupFile, SecretKey masterKey, EntityType type) throws BackupException;
+
+    /**
+     * Copy individual entries from a backup into the live database, replacing their current
+     * version; everything else is left as it is. Returns the number of entries restored.
+     */
+    int restoreItems(File backupFile, SecretKey masterKey, EntityType type, Collection<Long> ids) throws BackupException;
+
+    /**
+     * restoreItems from a backup that is already open, without decrypting it again
+     */
+    int restoreItems(BackupMount mount, EntityType type, Collection<Long> ids) throws BackupException;
+
+    /**
+     * Verify backup integrity; container backups are checked block by block in parallel
+     * against their Merkle root
      */
     boolean verifyBackup(File backupFile) throws BackupException;
 
@@ -32,7 +89,7 @@ public interface BackupService {
     List<Backup> getAllBackups() throws BackupException;
 
     /**
-     * Delete backup file
+     * Delete backup file; refused while differential backups depend on it
      */
     void deleteBackup(Long backupId) throws BackupException;
 
@@ -41,6 +98,19 @@ public interface BackupService {
      */
     BackupStatistics getStatistics() throws BackupException;
 
+    class RestorableItem {
+        public EntityType type;
+        public Long id;
+        public String title;
+        public String lastModified;
+        public boolean inVault;
+
+        @Override
+        public String toString() {
+            return title + (inVault ? "" : " (deleted)");
+        }
+    }
+
     class BackupStatistics {
         public int totalBackups;
         public long totalSize;
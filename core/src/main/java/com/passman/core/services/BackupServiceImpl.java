@@ -3,45 +3,122 @@ package com.passman.core.services;
 import com.google.gson.Gson;
 import com.passman.core.crypto.AESCipher;
 import com.passman.core.crypto.CipherFactory;
+import com.passman.core.db.ChangeJournal;
+import com.passman.core.db.DatabaseMaintenanceScheduler;
 import com.passman.core.db.DatabaseManager;
+import com.passman.core.db.RecordDiff;
+import com.passman.core.db.WriteQueue;
 import com.passman.core.model.Backup;
+import com.passman.core.model.EntityType;
+import com.passman.core.model.IdentityCard;
 import com.passman.core.repository.BackupRepository;
+import com.passman.core.repository.EncryptedFileRepositoryImpl;
+import com.passman.core.repository.TagRepository;
+import com.passman.core.repository.TagRepositoryImpl;
+import com.passman.core.search.GlobalSearchIndex;
+import com.passman.core.storage.BackupContainer;
+import com.passman.core.storage.BackupContainerReader;
+import com.passman.core.storage.BackupContainerWriter;
+import com.passman.core.storage.BlobStore;
+import com.passman.core.storage.PackFileStore;
+import com.passman.core.storage.DedupBackupStore;
+import com.passman.core.storage.IntegrityScrubber;
+import com.passman.core.storage.IoThrottle;
+import com.passman.core.utils.UrlUtil;
 
 import javax.crypto.SecretKey;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file. Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.time.LocalDateTime;
 import java. time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 /**
  * Implementation of backup service with encryption
  */
 public class BackupServiceImpl implements BackupService {
 
+    private static final String BACKUP_FORMAT_VERSION = "2.0.0";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Backups are written as BackupContainer files. Zip backups from earlier versions hold
+    // AES over the deflated database, or AES over the raw database in the oldest ones
+    // (written as "passman. db" by mistake, so both names are accepted)
+    private static final String DATABASE_ENTRY = "passman.db.deflate";
+    private static final Set<String> LEGACY_DATABASE_ENTRIES = Set.of("passman.db", "passman. db");
+
+    // AES over the deflated change stream of a differential backup
+    private static final String CHANGES_ENTRY = "changes.deflate";
+
+    // Paths inside a deduplicated snapshot; file directories are relative to the storage root
+    private static final String SNAPSHOT_DATABASE_PATH = "database/passman.db";
+    private static final List<String> SNAPSHOT_FILE_DIRECTORIES =
+            List.of("encrypted_files", "note_attachments", BlobStore.DIRECTORY);
+
+    // Kept from the live database by a full restore
+    private static final List<String> BACKUP_CATALOG_TABLES = List.of("backups", "backup_schedule");
+
     private final DatabaseManager dbManager;
     private final BackupRepository backupRepository;
+    private final ChangeJournal changeJournal;
     private final AESCipher aesCipher;
     private final Path backupStoragePath;
+    private final Path storageRoot;
+    private final DedupBackupStore dedupStore;
     private final Gson gson;
 
     public BackupServiceImpl(DatabaseManager dbManager, BackupRepository backupRepository, String storagePath) {
         this.dbManager = dbManager;
         this.backupRepository = backupRepository;
+        this.changeJournal = new ChangeJournal(dbManager);
         this. aesCipher = CipherFactory.createAESCipher();
         this.backupStoragePath = Paths.get(storagePath, "backups");
+        this.storageRoot = Paths.get(storagePath).toAbsolutePath().normalize();
         this.gson = new Gson();
         initializeStorage();
+        this.dedupStore = createDedupStore();
+    }
+
+    private DedupBackupStore createDedupStore() {
+        try {
+            return new DedupBackupStore(backupStoragePath.resolve("dedup"));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to initialize backup storage", e);
+        }
     }
 
     private void initializeStorage() {
@@ -54,105 +131,991 @@ public class BackupServiceImpl implements BackupService {
 
     @Override
     public Backup createBackup(SecretKey masterKey, String description) throws BackupException {
+        return createBackup(Backup.BackupKind.FULL, Backup.BackupType.MANUAL, masterKey, description, null);
+    }
+
+    @Override
+    public Backup createDifferentialBackup(SecretKey masterKey, String description) throws BackupException {
+        return createBackup(Backup.BackupKind.DIFFERENTIAL, Backup.BackupType.MANUAL, masterKey, description, null);
+    }
+
+    @Override
+    public Backup createSnapshotBackup(SecretKey masterKey, String description) throws BackupException {
+        return createBackup(Backup.BackupKind.SNAPSHOT, Backup.BackupType.MANUAL, masterKey, description, null);
+    }
+
+    @Override
+    public Backup createBackup(Backup.BackupKind kind, Backup.BackupType type, SecretKey masterKey,
+                               String description, IoThrottle throttle) throws BackupException {
+        return switch (kind) {
+            case FULL -> writeFullBackup(type, masterKey, description, throttle);
+            case DIFFERENTIAL -> writeDifferentialBackup(type, masterKey, description, throttle);
+            case SNAPSHOT -> writeSnapshotBackup(type, masterKey, description, throttle);
+        };
+    }
+
+    private Backup writeFullBackup(Backup.BackupType type, SecretKey masterKey, String description,
+                                   IoThrottle throttle) throws BackupException {
+        Path snapshotPath = null;
         try {
-            // Generate backup filename
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String backupFileName = "passman_backup_" + timestamp + ".pmbak";
-            Path backupFilePath = backupStoragePath. resolve(backupFileName);
+            // Consistent snapshot of the live database, including pages still in the WAL
+            snapshotPath = createSnapshot();
+
+            // Journal position of the snapshot; differential backups continue from it
+            ChangeJournal.JournalState state;
+            try (Connection snapshot = DriverManager.getConnection("jdbc:sqlite:" + snapshotPath)) {
+                state = changeJournal.getState(snapshot);
+            }
 
-            // Get database file
-            File dbFile = new File(dbManager.getDatabasePath());
+            Path source = snapshotPath;
+            Backup backup = writeBackup(Backup.BackupKind.FULL, type, masterKey, description, throttle, out -> {
+                Files.copy(source, out);
+                return state;
+            });
+            backup = backupRepository.save(backup);
+
+            // This is the new base of differential backups
+            pruneJournal();
+
+            return backup;
+
+        } catch (Exception e) {
+            throw new BackupException("Failed to create backup", e);
+        } finally {
+            deleteQuietly(snapshotPath);
+        }
+    }
 
-            // Create encrypted zip backup
-            try (FileOutputStream fos = new FileOutputStream(backupFilePath.toFile());
-                 ZipOutputStream zos = new ZipOutputStream(fos)) {
+    private Backup writeDifferentialBackup(Backup.BackupType type, SecretKey masterKey, String description,
+                                           IoThrottle throttle) throws BackupException {
+        Backup base;
+        try {
+            base = findDeltaBase().orElse(null);
+        } catch (Exception e) {
+            throw new BackupException("Failed to create backup", e);
+        }
 
-                // Add database file
-                ZipEntry dbEntry = new ZipEntry("passman. db");
-                zos.putNextEntry(dbEntry);
+        if (base == null) {
+            System.out.println("ℹ️ No usable base backup, creating a full backup instead");
+            return writeFullBackup(type, masterKey, description, throttle);
+        }
 
-                byte[] dbData = Files.readAllBytes(dbFile. toPath());
-                byte[] encryptedData = aesCipher.encryptBytes(dbData, masterKey);
-                zos.write(encryptedData);
-                zos.closeEntry();
+        try {
+            Backup backup = writeBackup(Backup.BackupKind.DIFFERENTIAL, type, masterKey, description, throttle,
+                    out -> changeJournal.exportChangesSince(base.getJournalVersion(), out));
+            backup.setParentBackupId(base.getId());
 
-                // Add metadata
-                BackupMetadata metadata = new BackupMetadata();
-                metadata.timestamp = LocalDateTime.now();
-                metadata.version = "1.0.0";
-                metadata.description = description;
+            return backupRepository.save(backup);
 
-                ZipEntry metaEntry = new ZipEntry("metadata.json");
-                zos. putNextEntry(metaEntry);
-                String metaJson = gson.toJson(metadata);
-                byte[] encryptedMeta = aesCipher. encryptBytes(metaJson. getBytes(), masterKey);
-                zos.write(encryptedMeta);
-                zos. closeEntry();
+        } catch (Exception e) {
+            throw new BackupException("Failed to create backup", e);
+        }
+    }
+
+    private Backup writeSnapshotBackup(Backup.BackupType type, SecretKey masterKey, String description,
+                                       IoThrottle throttle) throws BackupException {
+        Path snapshotPath = null;
+        try {
+            snapshotPath = createSnapshot();
+
+            ChangeJournal.JournalState state;
+            try (Connection snapshot = DriverManager.getConnection("jdbc:sqlite:" + snapshotPath)) {
+                state = changeJournal.getState(snapshot);
             }
 
-            // Calculate checksum
-            byte[] backupData = Files.readAllBytes(backupFilePath);
-            String checksum = calculateSHA256(backupData);
+            Map<String, Path> files = new LinkedHashMap<>();
+            files.put(SNAPSHOT_DATABASE_PATH, snapshotPath);
+            for (String directory : SNAPSHOT_FILE_DIRECTORIES) {
+                collectFiles(directory, files);
+            }
+
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+            DedupBackupStore.SnapshotResult result =
+                    dedupStore.createSnapshot("passman_snapshot_" + timestamp, description, files, masterKey, throttle);
 
-            // Create backup metadata
             Backup backup = new Backup();
-            backup.setBackupFileName(backupFileName);
-            backup.setBackupPath(backupFilePath.toString());
-            backup.setFileSize(backupData.length);
-            backup.setChecksum(checksum);
-            backup.setBackupType(Backup.BackupType. MANUAL);
+            backup.setBackupFileName(result.manifestPath.getFileName().toString());
+            backup.setBackupPath(result.manifestPath.toString());
+            // Only the chunks this snapshot added take up new space
+            backup.setFileSize(result.newStoredBytes);
+            backup.setChecksum(calculateSHA256(result.manifestPath));
+            backup.setBackupType(type);
+            backup.setBackupKind(Backup.BackupKind.SNAPSHOT);
             backup.setStatus(Backup.BackupStatus.COMPLETED);
             backup.setDescription(description);
             backup.setCreatedAt(LocalDateTime.now());
+            backup.setJournalEpoch(state.epoch);
+            backup.setJournalVersion(state.version);
+            backup = backupRepository.save(backup);
 
-            return backupRepository.save(backup);
+            pruneJournal();
+
+            return backup;
 
         } catch (Exception e) {
             throw new BackupException("Failed to create backup", e);
+        } finally {
+            deleteQuietly(snapshotPath);
+        }
+    }
+
+    private void collectFiles(String directory, Map<String, Path> files) throws IOException {
+        Path dir = storageRoot.resolve(directory);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) walk::iterator) {
+                if (Files.isRegularFile(file)) {
+                    String relative = storageRoot.relativize(file).toString().replace(File.separatorChar, '/');
+                    files.put(relative, file);
+                }
+            }
+        }
+    }
+
+    /**
+     * The newest completed full or snapshot backup, if the journal still holds every change
+     * made since it. Every differential backup holds all changes since this base, so a
+     * restore needs only the base and one differential, and losing one differential does
+     * not affect the others.
+     */
+    private Optional<Backup> findDeltaBase() throws Exception {
+        ChangeJournal.JournalState state = changeJournal.getState();
+
+        for (Backup candidate : backupRepository.findAll()) {
+            if (candidate.isDifferential() || candidate.getStatus() != Backup.BackupStatus.COMPLETED
+                    || !Files.exists(Paths.get(candidate.getBackupPath()))) {
+                continue;
+            }
+            return state.covers(candidate.getJournalEpoch(), candidate.getJournalVersion())
+                    ? Optional.of(candidate)
+                    : Optional.empty();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Drop the journal entries the next differential backup cannot need: those up to its
+     * base, or all of them when there is no base and it would be a full backup anyway.
+     * Runs whenever the base may have changed.
+     */
+    private void pruneJournal() throws Exception {
+        Optional<Backup> base = findDeltaBase();
+        changeJournal.prune(base.isPresent() ? base.get().getJournalVersion() : changeJournal.getState().version);
+    }
+
+    /**
+     * Produces the content of a backup's data entry and the journal position it reflects
+     */
+    @FunctionalInterface
+    private interface EntryWriter {
+        ChangeJournal.JournalState write(OutputStream out) throws Exception;
+    }
+
+    /**
+     * Stream the payload into a backup container, whose blocks are deflated and encrypted
+     * on all cores. The checksum recorded is the container's Merkle root; a throttle paces
+     * the writes to the backup file. Returns the unsaved backup record.
+     */
+    private Backup writeBackup(Backup.BackupKind kind, Backup.BackupType type, SecretKey masterKey,
+                               String description, IoThrottle throttle, EntryWriter entryWriter) throws Exception {
+        // Generate backup filename; a second backup within the same second gets a counter
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        String baseName = "passman_backup_" + timestamp + (kind == Backup.BackupKind.DIFFERENTIAL ? "_diff" : "");
+        String backupFileName = baseName + ".pmbak";
+        for (int n = 2; Files.exists(backupStoragePath.resolve(backupFileName)); n++) {
+            backupFileName = baseName + "_" + n + ".pmbak";
+        }
+        Path backupFilePath = backupStoragePath. resolve(backupFileName);
+
+        ChangeJournal.JournalState state;
+        byte[] merkleRoot;
+        OutputStream fileOut = Files.newOutputStream(backupFilePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        if (throttle != null) {
+            fileOut = throttle.wrap(fileOut);
+        }
+        try (OutputStream fos = new BufferedOutputStream(fileOut, BUFFER_SIZE);
+             BackupContainerWriter container = new BackupContainerWriter(fos, masterKey)) {
+
+            state = entryWriter.write(container);
+
+            BackupMetadata metadata = new BackupMetadata();
+            metadata.timestamp = LocalDateTime.now().toString();
+            metadata.version = BACKUP_FORMAT_VERSION;
+            metadata.description = description;
+            metadata.kind = kind.name();
+            container.finish(gson.toJson(metadata).getBytes(StandardCharsets.UTF_8));
+            merkleRoot = container.getMerkleRoot();
+        } catch (Exception e) {
+            deleteQuietly(backupFilePath);
+            throw e;
+        }
+
+        String checksum = Base64.getEncoder().encodeToString(merkleRoot);
+
+        // Create backup metadata
+        Backup backup = new Backup();
+        backup.setBackupFileName(backupFileName);
+        backup.setBackupPath(backupFilePath.toString());
+        backup.setFileSize(Files.size(backupFilePath));
+        backup.setChecksum(checksum);
+        backup.setBackupType(type);
+        backup.setBackupKind(kind);
+        backup.setStatus(Backup.BackupStatus.COMPLETED);
+        backup.setDescription(description);
+        backup.setCreatedAt(LocalDateTime.now());
+        backup.setJournalEpoch(state.epoch);
+        backup.setJournalVersion(state.version);
+        return backup;
+    }
+
+    /**
+     * Write a transactionally consistent copy of the database with VACUUM INTO.
+     * It runs on its own connection inside a read transaction, so writers are never blocked.
+     * The snapshot is placed next to the database, not in the backup folder.
+     */
+    private Path createSnapshot() throws Exception {
+        Path dbDir = Paths.get(dbManager.getDatabasePath()).toAbsolutePath().getParent();
+        Path snapshotPath = dbDir.resolve("passman-snapshot-" + System.nanoTime() + ".db");
+
+        try (Connection conn = dbManager.openConnection();
+             PreparedStatement pstmt = conn.prepareStatement("VACUUM INTO ?")) {
+            pstmt.setString(1, snapshotPath.toString());
+            pstmt.execute();
+        } catch (Exception e) {
+            deleteQuietly(snapshotPath);
+            throw e;
         }
+        return snapshotPath;
     }
 
     @Override
     public void restoreBackup(File backupFile, SecretKey masterKey) throws BackupException {
+        Path restoredPath = null;
+        Path stagedFiles = null;
+        try {
+            // Full base backup first, then the differential backups on top of it
+            List<File> chain = resolveChain(backupFile);
+            verifyChain(chain);
+
+            // Build the whole restored database in a temporary file; the live one is only
+            // touched by the final swap, so a bad delta or a crash leaves it as it was
+            File base = chain.get(0);
+            restoredPath = newTempDatabasePath("passman-restore-");
+            extractBaseDatabase(base, masterKey, restoredPath);
+            checkDatabaseFile(restoredPath);
+
+            // Opening it brings a base from an older version to the current schema
+            DatabaseManager restored = DatabaseManager.openFile(restoredPath);
+            try {
+                for (File delta : chain.subList(1, chain.size())) {
+                    ChangeJournal.ReplayResult result = replayDelta(delta, masterKey, restored.getConnection());
+                    rebuildDerivedData(restored, result);
+                    System.out.println("✅ Applied " + result.getRowCount() + " changes from " + delta.getName());
+                }
+            } finally {
+                restored.close();
+            }
+            keepBackupCatalog(restoredPath);
+            checkDatabaseFile(restoredPath);
+
+            // The files of a snapshot are staged too and only moved into place with the
+            // database, so they never stop matching the database that is in use
+            if (isSnapshot(base)) {
+                stagedFiles = restoreSnapshotFiles(base.toPath(), masterKey);
+            }
+            installDatabase(restoredPath, stagedFiles);
+            SecureNotesService.invalidateContentIndex();
+
+            // Backups taken before the restore no longer describe this database's history
+            changeJournal.startNewEpoch();
+
+        } catch (BackupException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BackupException("Failed to restore backup", e);
+        } finally {
+            BackupMount.discard(null, restoredPath);
+            deleteDirectoryQuietly(stagedFiles);
+        }
+    }
+
+    @Override
+    public BackupMount mountBackup(File backupFile, SecretKey masterKey) throws BackupException {
+        Path mountPath = null;
+        DatabaseManager mounted = null;
+        boolean opened = false;
+
         try {
-            // Verify backup integrity
-            if (!verifyBackup(backupFile)) {
-                throw new BackupException("Backup file is corrupted");
+            List<File> chain = resolveChain(backupFile);
+            verifyChain(chain);
+
+            mountPath = newTempDatabasePath("passman-mount-");
+            extractBaseDatabase(chain.get(0), masterKey, mountPath);
+            checkDatabaseFile(mountPath);
+
+            // Writable only until the chain is applied and the schema is current
+            mounted = DatabaseManager.openFile(mountPath);
+            for (File delta : chain.subList(1, chain.size())) {
+                rebuildDerivedData(mounted, replayDelta(delta, masterKey, mounted.getConnection()));
             }
+            mounted.setQueryOnly();
+
+            BackupMount mount = new BackupMount(backupFile, mounted, mountPath);
+            opened = true;
+            System.out.println("✅ Opened backup " + backupFile.getName() + " read-only");
+            return mount;
 
-            // Extract and decrypt database
-            try (FileInputStream fis = new FileInputStream(backupFile);
-                 ZipInputStream zis = new ZipInputStream(fis)) {
+        } catch (BackupException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BackupException("Failed to open backup", e);
+        } finally {
+            if (!opened) {
+                BackupMount.discard(mounted, mountPath);
+            }
+        }
+    }
 
-                ZipEntry entry;
-                while ((entry = zis.getNextEntry()) != null) {
-                    if ("passman.db".equals(entry.getName())) {
-                        byte[] encryptedData = zis.readAllBytes();
-                        byte[] decryptedData = aesCipher.decryptBytes(encryptedData, masterKey);
+    @Override
+    public RecordDiff.Result compareBackups(File olderBackup, File newerBackup, SecretKey masterKey)
+            throws BackupException {
+        try (BackupMount older = mountBackup(olderBackup, masterKey);
+             BackupMount newer = mountBackup(newerBackup, masterKey);
+             Connection before = older.getDatabaseManager().openConnection();
+             Connection after = newer.getDatabaseManager().openConnection()) {
+            return RecordDiff.compare(before, after);
+        } catch (BackupException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BackupException("Failed to compare backups", e);
+        }
+    }
 
-                        // Close current database connection
-                        dbManager.close();
+    @Override
+    public RecordDiff.Result compareWithLive(File backupFile, SecretKey masterKey) throws BackupException {
+        try (BackupMount mount = mountBackup(backupFile, masterKey);
+             Connection before = mount.getDatabaseManager().openConnection();
+             Connection after = dbManager.openConnection()) {
+            // One read transaction, so every table is compared as of the same moment
+            after.setAutoCommit(false);
+            try {
+                return RecordDiff.compare(before, after);
+            } finally {
+                after.rollback();
+            }
+        } catch (BackupException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BackupException("Failed to compare backup with the vault", e);
+        }
+    }
 
-                        // Replace database file
-                        File dbFile = new File(dbManager.getDatabasePath());
-                        Files.write(dbFile.toPath(), decryptedData);
+    @Override
+    public List<RestorableItem> listRestorableItems(File backupFile, SecretKey masterKey, EntityType type)
+            throws BackupException {
+        String table = restorableTable(type);
+        String titleColumn = type == EntityType.IDENTITY_CARD ? "card_name" : "title";
+        Path extracted = null;
 
-                        // Reinitialize database
-                        dbManager.initialize();
+        try {
+            extracted = extractDatabase(backupFile, masterKey);
 
-                        break;
+            Set<Long> liveIds = new HashSet<>();
+            try (Statement stmt = dbManager.getConnection().createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id FROM " + table)) {
+                while (rs.next()) {
+                    liveIds.add(rs.getLong("id"));
+                }
+            }
+
+            List<RestorableItem> items = new ArrayList<>();
+            try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + extracted);
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id, " + titleColumn + " AS title, last_modified FROM "
+                         + table + " ORDER BY " + titleColumn + " COLLATE NOCASE")) {
+                while (rs.next()) {
+                    RestorableItem item = new RestorableItem();
+                    item.type = type;
+                    item.id = rs.getLong("id");
+                    item.title = rs.getString("title");
+                    item.lastModified = rs.getString("last_modified");
+                    item.inVault = liveIds.contains(item.id);
+                    items.add(item);
+                }
+            }
+            return items;
+
+        } catch (BackupException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BackupException("Failed to read backup", e);
+        } finally {
+            deleteQuietly(extracted);
+        }
+    }
+
+    @Override
+    public int restoreItems(File backupFile, SecretKey masterKey, EntityType type, Collection<Long> ids)
+            throws BackupException {
+        String table = restorableTable(type);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Path extracted = null;
+
+        try {
+            extracted = extractDatabase(backupFile, masterKey);
+
+            try (Connection source = DriverManager.getConnection("jdbc:sqlite:" + extracted)) {
+                return copyItems(source, backupFile, type, table, ids);
+            }
+
+        } catch (BackupException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BackupException("Failed to restore items", e);
+        } finally {
+            deleteQuietly(extracted);
+        }
+    }
+
+    @Override
+    public int restoreItems(BackupMount mount, EntityType type, Collection<Long> ids) throws BackupException {
+        String table = restorableTable(type);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        try (Connection source = mount.getDatabaseManager().openConnection()) {
+            return copyItems(source, mount.getBackupFile(), type, table, ids);
+        } catch (Exception e) {
+            throw new BackupException("Failed to restore items", e);
+        }
+    }
+
+    private int copyItems(Connection source, File backupFile, EntityType type, String table, Collection<Long> ids)
+            throws Exception {
+        int[] restored = new int[1];
+
+        // Through the write queue, so the items commit in order with other edits and are journaled
+        WriteQueue.getInstance().submit(() -> {
+            ChangeJournal.ReplayResult result = changeJournal.copyRows(source, table, "id", ids);
+            Connection conn = dbManager.getConnection();
+
+            if (type == EntityType.IDENTITY_CARD) {
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "DELETE FROM expiry_alerts WHERE identity_card_id = ?")) {
+                    for (Long id : ids) {
+                        stmt.setLong(1, id);
+                        stmt.executeUpdate();
+                    }
+                }
+                changeJournal.copyRows(source, "expiry_alerts", "identity_card_id", ids);
+            } else if (type == EntityType.NOTE) {
+                // Attachment files are not part of the rows; the flag follows the attachments still present
+                try (PreparedStatement stmt = conn.prepareStatement("""
+                        UPDATE secure_notes SET has_attachments =
+                            EXISTS (SELECT 1 FROM note_attachments WHERE note_id = secure_notes.id)
+                        WHERE id = ?
+                        """)) {
+                    for (Long id : result.getUpserted(table)) {
+                        stmt.setLong(1, id);
+                        stmt.executeUpdate();
                     }
                 }
             }
 
+            rebuildDerivedData(dbManager, result);
+            indexAfterCommit(conn, type, result.getUpserted(table));
+            restored[0] = result.getUpserted(table).size();
+        }).get();
+
+        System.out.println("✅ Restored " + restored[0] + " " + type.getDisplayName() + " entries from "
+                + backupFile.getName());
+        return restored[0];
+    }
+
+    /**
+     * Update the search index once the copied rows are committed, the way the repositories do on save
+     */
+    private void indexAfterCommit(Connection conn, EntityType type, Collection<Long> ids) throws Exception {
+        String sql = switch (type) {
+            case CREDENTIAL -> "SELECT title, username, url FROM credentials WHERE id = ?";
+            case NOTE -> "SELECT title, tags FROM secure_notes WHERE id = ?";
+            default -> "SELECT card_name, card_type, card_number_last4 FROM identity_cards WHERE id = ?";
+        };
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Long id : ids) {
+                stmt.setLong(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        continue;
+                    }
+                    GlobalSearchIndex index = GlobalSearchIndex.getInstance();
+                    if (type == EntityType.CREDENTIAL) {
+                        String title = rs.getString("title");
+                        String username = rs.getString("username");
+                        String url = rs.getString("url");
+                        WriteQueue.afterCommit(() -> index.putCredential(id, title, username, url));
+                    } else if (type == EntityType.NOTE) {
+                        String title = rs.getString("title");
+                        String tags = rs.getString("tags");
+                        WriteQueue.afterCommit(() -> index.putNote(id, title, tags));
+                    } else {
+                        String cardName = rs.getString("card_name");
+                        IdentityCard.CardType cardType = IdentityCard.CardType.valueOf(rs.getString("card_type"));
+                        String last4 = rs.getString("card_number_last4");
+                        WriteQueue.afterCommit(() -> index.putCard(id, cardName, cardType, last4));
+                    }
+                }
+            }
+        }
+    }
+
+    private String restorableTable(EntityType type) throws BackupException {
+        return switch (type) {
+            case CREDENTIAL -> "credentials";
+            case NOTE -> "secure_notes";
+            case IDENTITY_CARD -> "identity_cards";
+            default -> throw new BackupException(type.getDisplayName() + " entries cannot be restored individually");
+        };
+    }
+
+    private void verifyChain(List<File> chain) throws Exception {
+        // Container frames are checked again as they are decoded
+        for (File file : chain) {
+            if (!verifyBeforeRestore(file)) {
+                throw new BackupException("Backup file is corrupted: " + file.getName());
+            }
+        }
+    }
+
+    /**
+     * A container's index is checked against its root here and every frame is checked
+     * against the index while it is restored, so the backup is only read once.
+     * Other backups are verified in full.
+     */
+    private boolean verifyBeforeRestore(File backupFile) throws Exception {
+        if (BackupContainer.isContainer(backupFile.toPath())) {
+            try (BackupContainerReader container = new BackupContainerReader(backupFile.toPath())) {
+                if (container.getMerkleRoot() != null) {
+                    return container.indexMatchesRoot() && matchesRecordedRoot(backupFile, container.getMerkleRoot());
+                }
+            }
+        }
+        return verifyBackup(backupFile);
+    }
+
+    /**
+     * Imported backups have no record; the root in the file is then all there is to check against
+     */
+    private boolean matchesRecordedRoot(File backupFile, byte[] merkleRoot) throws Exception {
+        Optional<Backup> backupOpt = backupRepository.findByFileName(backupFile.getName());
+        return backupOpt.isEmpty()
+                || Base64.getEncoder().encodeToString(merkleRoot).equals(backupOpt.get().getChecksum());
+    }
+
+    private List<File> resolveChain(File backupFile) throws Exception {
+        LinkedList<File> chain = new LinkedList<>();
+        chain.addFirst(backupFile);
+
+        Optional<Backup> current = backupRepository.findByFileName(backupFile.getName());
+        while (current.isPresent() && current.get().isDifferential()) {
+            Long parentId = current.get().getParentBackupId();
+            current = parentId != null ? backupRepository.findById(parentId) : Optional.empty();
+            if (current.isEmpty()) {
+                throw new BackupException("Base backup of " + backupFile.getName() + " is missing");
+            }
+            chain.addFirst(new File(current.get().getBackupPath()));
+        }
+        return chain;
+    }
+
+    private boolean isSnapshot(File backupFile) {
+        return backupFile.getName().endsWith(DedupBackupStore.MANIFEST_SUFFIX);
+    }
+
+    private Path newTempDatabasePath(String prefix) {
+        Path dbPath = Paths.get(dbManager.getDatabasePath()).toAbsolutePath();
+        return dbPath.resolveSibling(prefix + System.nanoTime() + ".db");
+    }
+
+    /**
+     * The database as of a backup, in a temporary file the caller deletes: the base is
+     * extracted and the differential backups up to the given one are replayed onto it
+     */
+    private Path extractDatabase(File backupFile, SecretKey masterKey) throws Exception {
+        List<File> chain = resolveChain(backupFile);
+        verifyChain(chain);
+
+        Path extracted = newTempDatabasePath("passman-extract-");
+        try {
+            extractBaseDatabase(chain.get(0), masterKey, extracted);
+            checkDatabaseFile(extracted);
+
+            if (chain.size() > 1) {
+                try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + extracted)) {
+                    for (File delta : chain.subList(1, chain.size())) {
+                        replayDelta(delta, masterKey, conn);
+                    }
+                }
+            }
+            return extracted;
         } catch (Exception e) {
-            throw new BackupException("Failed to restore backup", e);
+            deleteQuietly(extracted);
+            throw e;
+        }
+    }
+
+    /**
+     * Stream-decrypt the database of a full or snapshot backup into target
+     */
+    private void extractBaseDatabase(File backupFile, SecretKey masterKey, Path target) throws Exception {
+        if (isSnapshot(backupFile)) {
+            dedupStore.restoreSnapshot(backupFile.toPath(), masterKey,
+                    path -> SNAPSHOT_DATABASE_PATH.equals(path) ? target : null);
+            if (!Files.exists(target)) {
+                throw new BackupException("Backup does not contain a database: " + backupFile.getName());
+            }
+            return;
+        }
+
+        if (BackupContainer.isContainer(backupFile.toPath())) {
+            try (BackupContainerReader container = new BackupContainerReader(backupFile.toPath())) {
+                BackupMetadata metadata = gson.fromJson(
+                        new String(container.readMetadata(masterKey), StandardCharsets.UTF_8), BackupMetadata.class);
+                if (Backup.BackupKind.DIFFERENTIAL.name().equals(metadata.kind)) {
+                    throw new BackupException("Backup holds only changes and needs its base backup: "
+                            + backupFile.getName());
+                }
+                try (InputStream in = container.openData(masterKey)) {
+                    Files.copy(in, target);
+                }
+            }
+            return;
+        }
+
+        // Zip backup from an earlier version
+        try (InputStream fis = new BufferedInputStream(Files.newInputStream(backupFile.toPath()), BUFFER_SIZE);
+             ZipInputStream zis = new ZipInputStream(fis)) {
+
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                boolean compressed = DATABASE_ENTRY.equals(entry.getName());
+                if (!compressed && !LEGACY_DATABASE_ENTRIES.contains(entry.getName())) {
+                    continue;
+                }
+
+                InputStream decrypted = aesCipher.decryptingStream(new NonClosingInputStream(zis), masterKey);
+                Inflater inflater = new Inflater();
+                try (InputStream in = compressed ? new InflaterInputStream(decrypted, inflater, BUFFER_SIZE) : decrypted) {
+                    Files.copy(in, target);
+                } finally {
+                    inflater.end();
+                }
+                return;
+            }
+        }
+        throw new BackupException("Backup does not contain a database: " + backupFile.getName());
+    }
+
+    /**
+     * Extract the vault files and attachments of a snapshot into a staging directory under
+     * the storage root, laid out like the storage root; installDatabase moves them into place.
+     */
+    private Path restoreSnapshotFiles(Path manifestPath, SecretKey masterKey) throws Exception {
+        Path staging = storageRoot.resolve(".restore-" + System.nanoTime());
+        try {
+            int restored = dedupStore.restoreSnapshot(manifestPath, masterKey, path -> {
+                if (SNAPSHOT_DATABASE_PATH.equals(path)) {
+                    return null;
+                }
+                Path target = staging.resolve(path).normalize();
+                for (String directory : SNAPSHOT_FILE_DIRECTORIES) {
+                    if (target.startsWith(staging.resolve(directory))) {
+                        return target;
+                    }
+                }
+                System.err.println("⚠️ Skipping unexpected snapshot entry: " + path);
+                return null;
+            });
+            System.out.println("✅ Extracted " + restored + " files from snapshot");
+            return staging;
+        } catch (Exception e) {
+            deleteDirectoryQuietly(staging);
+            throw e;
+        }
+    }
+
+    /**
+     * Put staged snapshot files in place. Files that are not part of the snapshot are left alone.
+     */
+    private void moveStagedFiles(Path staging) throws IOException {
+        // Restored pack segments replace the files the open segment channels point at
+        PackFileStore.closeAll();
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(staging)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        for (Path file : files) {
+            Path target = storageRoot.resolve(staging.relativize(file).toString());
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        System.out.println("✅ Restored " + files.size() + " files from snapshot");
+    }
+
+    /**
+     * The backup list and schedule describe the backup folder, not the vault: copy the live
+     * ones into the restored database, so backups made after the restored one stay listed
+     * and restorable. Both databases have the current schema at this point.
+     */
+    private void keepBackupCatalog(Path restoredPath) throws Exception {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + restoredPath)) {
+            try (PreparedStatement attach = conn.prepareStatement("ATTACH DATABASE ? AS live")) {
+                attach.setString(1, Paths.get(dbManager.getDatabasePath()).toAbsolutePath().toString());
+                attach.execute();
+            }
+            try (Statement stmt = conn.createStatement()) {
+                conn.setAutoCommit(false);
+                for (String table : BACKUP_CATALOG_TABLES) {
+                    List<String> columns = new ArrayList<>();
+                    try (ResultSet rs = stmt.executeQuery("PRAGMA main.table_info(" + table + ")")) {
+                        while (rs.next()) {
+                            columns.add(rs.getString("name"));
+                        }
+                    }
+                    String columnList = String.join(", ", columns);
+                    stmt.execute("DELETE FROM main." + table);
+                    stmt.execute("INSERT INTO main." + table + " (" + columnList + ") SELECT "
+                            + columnList + " FROM live." + table);
+                }
+                conn.commit();
+                conn.setAutoCommit(true);
+                stmt.execute("DETACH DATABASE live");
+            }
+        }
+    }
+
+    /**
+     * Make sure a restored database is intact and on disk before it can replace the live one
+     */
+    private void checkDatabaseFile(Path databaseFile) throws Exception {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + databaseFile);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA quick_check")) {
+            String result = rs.next() ? rs.getString(1) : "no result";
+            if (!"ok".equalsIgnoreCase(result)) {
+                throw new BackupException("Restored database failed its integrity check: " + result);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(databaseFile, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Replace the live database with a restored copy and reopen it, then move staged
+     * snapshot files (if any) into place before anything can read them.
+     * Backups and restores run one at a time on the backup scheduler's thread; the other
+     * background connections are stopped here and restarted afterwards.
+     */
+    private void installDatabase(Path restoredPath, Path stagedFiles) throws Exception {
+        Path dbPath = Paths.get(dbManager.getDatabasePath()).toAbsolutePath();
+
+        DatabaseMaintenanceScheduler maintenance = DatabaseMaintenanceScheduler.getInstance();
+        IntegrityScrubber scrubber = IntegrityScrubber.getInstance();
+        boolean maintenanceStarted = maintenance.isStarted();
+        boolean scrubberStarted = scrubber.isStarted();
+
+        try {
+            // Commit queued writes and end the passes that hold their own connections
+            WriteQueue.getInstance().shutdown();
+            maintenance.stop();
+            scrubber.stop();
+
+            // Move all committed pages into the database file and empty the WAL. This only
+            // succeeds with no other reader left, so the old WAL holds nothing once swapped out.
+            checkpointForSwap();
+            dbManager.close();
+
+            // Rename in the same directory: the database is either the old one or the new one
+            try {
+                Files.move(restoredPath, dbPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(restoredPath, dbPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            // The old database's WAL and shared-memory index must not be used with the new file
+            Files.deleteIfExists(Paths.get(dbPath + "-wal"));
+            Files.deleteIfExists(Paths.get(dbPath + "-shm"));
+
+            // Reinitialize database
+            dbManager.initialize();
+
+            if (stagedFiles != null) {
+                moveStagedFiles(stagedFiles);
+            }
+        } finally {
+            if (maintenanceStarted) {
+                maintenance.start();
+            }
+            if (scrubberStarted) {
+                scrubber.start();
+            }
+        }
+    }
+
+    private void checkpointForSwap() throws Exception {
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(TRUNCATE)")) {
+            // Columns: busy, WAL frames, frames checkpointed; busy is set while another connection reads
+            if (rs.next() && rs.getInt(1) != 0) {
+                throw new BackupException("The database is still in use; try the restore again");
+            }
+        }
+    }
+
+    private ChangeJournal.ReplayResult replayDelta(File deltaFile, SecretKey masterKey, Connection conn)
+            throws Exception {
+        if (BackupContainer.isContainer(deltaFile.toPath())) {
+            try (BackupContainerReader container = new BackupContainerReader(deltaFile.toPath());
+                 InputStream in = container.openData(masterKey)) {
+                return changeJournal.replayChanges(conn, in);
+            }
+        }
+
+        try (InputStream fis = new BufferedInputStream(Files.newInputStream(deltaFile.toPath()), BUFFER_SIZE);
+             ZipInputStream zis = new ZipInputStream(fis)) {
+
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                if (!CHANGES_ENTRY.equals(entry.getName())) {
+                    continue;
+                }
+
+                InputStream decrypted = aesCipher.decryptingStream(new NonClosingInputStream(zis), masterKey);
+                Inflater inflater = new Inflater();
+                try (InputStream in = new InflaterInputStream(decrypted, inflater, BUFFER_SIZE)) {
+                    return changeJournal.replayChanges(conn, in);
+                } finally {
+                    inflater.end();
+                }
+            }
+        }
+        throw new BackupException("Backup does not contain changes: " + deltaFile.getName());
+    }
+
+    /**
+     * Tags, the note content index and the vault storage totals are derived data and are not journaled.
+     * Tags and totals are rebuilt from the replayed rows, missing credential URL keys are computed;
+     * replayed notes are re-indexed at the next login.
+     */
+    private void rebuildDerivedData(DatabaseManager target, ChangeJournal.ReplayResult result) throws Exception {
+        TagRepository tagRepository = new TagRepositoryImpl(target);
+        syncTags(target, tagRepository, EntityType.CREDENTIAL, "credentials", result);
+        syncTags(target, tagRepository, EntityType.NOTE, "secure_notes", result);
+        syncTags(target, tagRepository, EntityType.IDENTITY_CARD, "identity_cards", result);
+
+        Set<Long> notes = new HashSet<>(result.getUpserted("secure_notes"));
+        notes.addAll(result.getDeleted("secure_notes"));
+
+        Connection conn = target.getConnection();
+        // Replayed rows are upserts, which the reference counting triggers do not see as new references
+        if (touches(result, "encrypted_files", "note_attachments", "file_blobs")) {
+            BlobStore.recountReferences(conn);
+        }
+        if (touches(result, "encrypted_files", "file_vaults")) {
+            EncryptedFileRepositoryImpl.recountVaultStorage(conn);
+        }
+        // Rows from backups taken before V8 carry no URL keys, and the one-time backfill has already run
+        if (!result.getUpserted("credentials").isEmpty()) {
+            fillMissingUrlKeys(conn, result.getUpserted("credentials"));
+        }
+        try (PreparedStatement deleteTokens = conn.prepareStatement("DELETE FROM note_search_tokens WHERE note_id = ?");
+             PreparedStatement markUnindexed = conn.prepareStatement("UPDATE secure_notes SET content_indexed = 0 WHERE id = ?")) {
+            for (Long noteId : notes) {
+                deleteTokens.setLong(1, noteId);
+                deleteTokens.executeUpdate();
+                markUnindexed.setLong(1, noteId);
+                markUnindexed.executeUpdate();
+            }
+        }
+        if (!notes.isEmpty()) {
+            SecureNotesService.invalidateContentIndex();
+        }
+    }
+
+    private void fillMissingUrlKeys(Connection conn, Collection<Long> credentialIds) throws Exception {
+        try (PreparedStatement query = conn.prepareStatement(
+                "SELECT url FROM credentials WHERE id = ? AND url_host IS NULL");
+             PreparedStatement update = conn.prepareStatement(
+                "UPDATE credentials SET url_host = ?, url_domain = ? WHERE id = ?")) {
+            for (Long id : credentialIds) {
+                query.setLong(1, id);
+                try (ResultSet rs = query.executeQuery()) {
+                    if (!rs.next()) {
+                        continue;
+                    }
+                    String host = UrlUtil.extractHost(rs.getString("url"));
+                    update.setString(1, host != null ? host : "");
+                    update.setString(2, host != null ? UrlUtil.registrableDomain(host) : "");
+                    update.setLong(3, id);
+                    update.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private boolean touches(ChangeJournal.ReplayResult result, String... tables) {
+        for (String table : tables) {
+            if (!result.getUpserted(table).isEmpty() || !result.getDeleted(table).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void syncTags(DatabaseManager target, TagRepository tagRepository, EntityType type, String table,
+                          ChangeJournal.ReplayResult result) throws Exception {
+        Connection conn = target.getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT tags FROM " + table + " WHERE id = ?")) {
+            for (Long id : result.getUpserted(table)) {
+                stmt.setLong(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        tagRepository.setEntityTags(type, id, rs.getString("tags"));
+                    }
+                }
+            }
         }
     }
 
     @Override
     public boolean verifyBackup(File backupFile) throws BackupException {
         try {
+            if (BackupContainer.isContainer(backupFile.toPath())) {
+                try (BackupContainerReader container = new BackupContainerReader(backupFile.toPath())) {
+                    if (container.getMerkleRoot() != null) {
+                        BackupContainerReader.VerificationResult result = container.verify();
+                        if (!result.isValid()) {
+                            System.err.println("❌ " + backupFile.getName() + " failed verification: " + result);
+                            return false;
+                        }
+                        return matchesRecordedRoot(backupFile, container.getMerkleRoot());
+                    }
+                }
+            }
+
             // Check if backup exists in database
             Optional<Backup> backupOpt = backupRepository.findByFileName(backupFile.getName());
             if (backupOpt.isEmpty()) {
@@ -160,8 +1123,7 @@ public class BackupServiceImpl implements BackupService {
             }
 
             // Verify checksum
-            byte[] fileData = Files.readAllBytes(backupFile.toPath());
-            String calculatedChecksum = calculateSHA256(fileData);
+            String calculatedChecksum = calculateSHA256(backupFile.toPath());
 
             return calculatedChecksum.equals(backupOpt.get().getChecksum());
 
@@ -186,13 +1148,32 @@ public class BackupServiceImpl implements BackupService {
             if (backupOpt.isPresent()) {
                 Backup backup = backupOpt. get();
 
-                // Delete file
+                // Differential backups cannot be restored without their base
+                long dependents = backupRepository.findAll().stream()
+                        .filter(other -> backupId.equals(other.getParentBackupId()))
+                        .count();
+                if (dependents > 0) {
+                    throw new BackupException(backup.getBackupFileName() + " is the base of " + dependents
+                            + " differential backup" + (dependents == 1 ? "" : "s") + "; delete those first");
+                }
+
+                // Delete file; a snapshot also releases the chunks no other snapshot uses
                 File backupFile = new File(backup. getBackupPath());
-                Files.deleteIfExists(backupFile.toPath());
+                if (backup.getBackupKind() == Backup.BackupKind.SNAPSHOT) {
+                    dedupStore.deleteSnapshot(backupFile.toPath());
+                } else {
+                    Files.deleteIfExists(backupFile.toPath());
+                }
 
                 // Delete metadata
                 backupRepository.delete(backupId);
+
+                if (!backup.isDifferential()) {
+                    pruneJournal();
+                }
             }
+        } catch (BackupException e) {
+            throw e;
         } catch (Exception e) {
             throw new BackupException("Failed to delete backup", e);
         }
@@ -219,15 +1200,57 @@ public class BackupServiceImpl implements BackupService {
         }
     }
 
-    private String calculateSHA256(byte[] data) throws Exception {
+    private String calculateSHA256(Path file) throws Exception {
         MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] hash = digest.digest(data);
-        return Base64.getEncoder().encodeToString(hash);
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to delete temporary file " + path + ": " + e.getMessage());
+        }
+    }
+
+    private void deleteDirectoryQuietly(Path directory) {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(directory)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to delete temporary directory " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private static class NonClosingInputStream extends FilterInputStream {
+        NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+        }
     }
 
     private static class BackupMetadata {
-        LocalDateTime timestamp;
+        // ISO-8601 text: Gson cannot reflect into java.time types on Java 17
+        String timestamp;
         String version;
         String description;
+        String kind;
     }
 }
\ No newline at end of file
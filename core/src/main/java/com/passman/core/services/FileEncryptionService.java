@@ -2,30 +2,39 @@ package com.passman.core.services;
 
 import com.passman.core.crypto.AESCipher;
 import com. passman.core.crypto.CipherFactory;
+import com.passman.core.db.DatabaseManager;
 import com.passman.core.model.EncryptedFile;
+import com.passman.core.storage.BlobStore;
 
 import javax.crypto.SecretKey;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.UUID;
 
 /**
- * Service for encrypting and decrypting files
+ * Service for encrypting and decrypting files.
+ * File data lives in the shared BlobStore, so the same file added twice is stored once;
+ * files added before it still use their own .enc file in the vault directory.
  */
 public class FileEncryptionService {
 
     private final AESCipher aesCipher;
     private final Path encryptedFilesPath;
+    private final BlobStore blobStore;
 
-    public FileEncryptionService(String storagePath) {
+    public FileEncryptionService(String storagePath, DatabaseManager dbManager) {
         this.aesCipher = CipherFactory.createAESCipher();
         this.encryptedFilesPath = Paths.get(storagePath, "encrypted_files");
+        this.blobStore = new BlobStore(Paths.get(storagePath, BlobStore.DIRECTORY), dbManager);
         initializeStorage();
     }
 
@@ -38,50 +47,55 @@ public class FileEncryptionService {
     }
 
     /**
-     * Encrypt a file and return metadata
+     * Encrypt a file and return metadata. If the same content was already stored with this
+     * key, nothing is encrypted or written and the metadata points at the existing blob.
+     * Call finishStore once the metadata is saved, or was not.
      */
     public EncryptedFile encryptFile(File sourceFile, Long vaultId, SecretKey key) throws Exception {
-        // Read source file
-        byte[] fileData = Files.readAllBytes(sourceFile.toPath());
-        long originalSize = fileData.length;
+        BlobStore.StoredBlob blob = blobStore.store(sourceFile.toPath(), key);
 
-        // Encrypt file data
-        byte[] encryptedData = aesCipher.encryptBytes(fileData, key);
-
-        // Extract IV from encrypted data
-        byte[] iv = new byte[16];
-        System.arraycopy(encryptedData, 0, iv, 0, 16);
-
-        // Generate unique filename
+        // The per-file name stays unique: thumbnails are named after it
         String encryptedFileName = UUID.randomUUID().toString() + ".enc";
-        Path vaultPath = encryptedFilesPath.resolve(vaultId. toString());
-        Files.createDirectories(vaultPath);
-
-        Path encryptedFilePath = vaultPath.resolve(encryptedFileName);
-        Files.write(encryptedFilePath, encryptedData);
-
-        // Calculate checksum
-        String checksum = calculateSHA256(fileData);
+        Files.createDirectories(encryptedFilesPath.resolve(vaultId. toString()));
 
         // Create metadata
         EncryptedFile encryptedFile = new EncryptedFile();
         encryptedFile.setVaultId(vaultId);
         encryptedFile.setOriginalFileName(sourceFile.getName());
         encryptedFile.setEncryptedFileName(encryptedFileName);
-        encryptedFile.setOriginalSize(originalSize);
-        encryptedFile.setEncryptedSize(encryptedData.length);
+        encryptedFile.setOriginalSize(blob.originalSize);
+        encryptedFile.setEncryptedSize(blob.storedSize);
         encryptedFile.setMimeType(Files.probeContentType(sourceFile.toPath()));
-        encryptedFile.setEncryptionIV(iv);
-        encryptedFile.setChecksum(checksum);
+        encryptedFile.setEncryptionIV(blob.iv);
+        encryptedFile.setChecksum(blob.checksum);
+        encryptedFile.setContentId(blob.contentId);
         encryptedFile.setUploadedAt(LocalDateTime.now());
 
+        if (blob.deduplicated) {
+            System.out.println("ℹ️ " + sourceFile.getName() + " is already stored, added as a reference");
+        }
         return encryptedFile;
     }
 
+    /**
+     * Let the blob of a file returned by encryptFile go with its last reference again. Call after
+     * its metadata row is committed, or before deleting the data of a file whose row was not.
+     */
+    public void finishStore(EncryptedFile encryptedFile) {
+        if (encryptedFile.getContentId() != null) {
+            blobStore.unpin(encryptedFile.getContentId());
+        }
+    }
+
     /**
      * Decrypt a file and save to destination
      */
     public File decryptFile(EncryptedFile encryptedFile, File destinationFile, SecretKey key) throws Exception {
+        if (encryptedFile.getContentId() != null) {
+            blobStore.extract(encryptedFile.getContentId(), key, destinationFile.toPath(), encryptedFile.getChecksum());
+            return destinationFile;
+        }
+
         // Read encrypted file
         Path encryptedFilePath = encryptedFilesPath.resolve(encryptedFile.getVaultId().toString())
                 .resolve(encryptedFile. getEncryptedFileName());
@@ -104,9 +118,33 @@ public class FileEncryptionService {
     }
 
     /**
-     * Delete encrypted file from storage
+     * Read-only channel over bytes [offset, offset + length) of a file's content, e.g. for a
+     * viewer seeking in a large PDF or video. Only the parts read are decrypted, and the
+     * file's checksum is not checked.
+     */
+    public SeekableByteChannel openRange(EncryptedFile encryptedFile, long offset, long length, SecretKey key)
+            throws Exception {
+        if (encryptedFile.getContentId() != null) {
+            return blobStore.openRange(encryptedFile.getContentId(), key, offset, length);
+        }
+
+        // Files stored before blobs use the same IV + ciphertext layout
+        Path encryptedFilePath = encryptedFilesPath.resolve(encryptedFile.getVaultId().toString())
+                .resolve(encryptedFile.getEncryptedFileName());
+        return aesCipher.decryptingChannel(FileChannel.open(encryptedFilePath, StandardOpenOption.READ), 0,
+                encryptedFile.getOriginalSize(), offset, length, key);
+    }
+
+    /**
+     * Delete encrypted file from storage. For a deduplicated file call this after its metadata
+     * row is deleted: the shared blob goes only with its last reference.
      */
-    public void deleteEncryptedFile(EncryptedFile encryptedFile) throws IOException {
+    public void deleteEncryptedFile(EncryptedFile encryptedFile) throws Exception {
+        if (encryptedFile.getContentId() != null) {
+            blobStore.release(encryptedFile.getContentId());
+            return;
+        }
+
         Path filePath = encryptedFilesPath.resolve(encryptedFile.getVaultId().toString())
                 .resolve(encryptedFile. getEncryptedFileName());
         Files.deleteIfExists(filePath);
@@ -0,0 +1,263 @@
+package com.passman.core.services;
+
+import com.passman.core.db.WriteQueue;
+import com.passman.core.model.EncryptedFile;
+import com.passman.core.model.VaultStorage;
+import com.passman.core.repository.EncryptedFileRepository;
+import com.passman.core.repository.RepositoryException;
+
+import javax.crypto.SecretKey;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Adds many files to a vault at once.
+ *
+ * Files are read, hashed, encrypted and written by a bounded pool of workers, so several
+ * files are in flight at any time and large batches are limited by the disk rather than one
+ * core. Their metadata is inserted through the write queue in batches, one transaction each.
+ * Cancelling stops starting new files; files already stored are kept.
+ */
+public class FileIngestService {
+
+    private static final int METADATA_BATCH_SIZE = 200;
+    private static final long PROGRESS_INTERVAL_NANOS = 100_000_000L;
+
+    private final FileEncryptionService fileEncryptionService;
+    private final ThumbnailService thumbnailService;
+    private final EncryptedFileRepository fileRepository;
+    private final int parallelism;
+
+    public FileIngestService(FileEncryptionService fileEncryptionService, ThumbnailService thumbnailService,
+                             EncryptedFileRepository fileRepository) {
+        this(fileEncryptionService, thumbnailService, fileRepository,
+                Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors())));
+    }
+
+    public FileIngestService(FileEncryptionService fileEncryptionService, ThumbnailService thumbnailService,
+                             EncryptedFileRepository fileRepository, int parallelism) {
+        this.fileEncryptionService = fileEncryptionService;
+        this.thumbnailService = thumbnailService;
+        this.fileRepository = fileRepository;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Aggregate progress of an ingest, reported at most ten times a second and once at the end
+     */
+    public static class IngestProgress {
+        public int totalFiles;
+        public long totalBytes;
+        public int completedFiles;
+        public int failedFiles;
+        public long processedBytes;
+        public long elapsedMillis;
+
+        public double getBytesPerSecond() {
+            return elapsedMillis > 0 ? processedBytes * 1000.0 / elapsedMillis : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d files, %.1f MB/s%s",
+                    completedFiles + failedFiles, totalFiles, getBytesPerSecond() / (1024 * 1024),
+                    failedFiles > 0 ? ", " + failedFiles + " failed" : "");
+        }
+    }
+
+    /**
+     * Outcome of an ingest: the files added, and why the others were not
+     */
+    public static class IngestResult {
+        public final List<EncryptedFile> files = new ArrayList<>();
+        public final List<String> failures = new ArrayList<>();
+        public IngestProgress progress;
+        public boolean cancelled;
+
+        @Override
+        public String toString() {
+            return String.format("Added %d files (%s)%s", files.size(), progress, cancelled ? ", cancelled" : "");
+        }
+    }
+
+    /**
+     * The regular files of the given files and directory trees, hidden files skipped
+     */
+    public static List<File> collectFiles(List<File> sources) throws IOException {
+        List<File> files = new ArrayList<>();
+        for (File source : sources) {
+            if (source.isDirectory()) {
+                try (Stream<Path> paths = Files.walk(source.toPath())) {
+                    paths.filter(Files::isRegularFile)
+                            .filter(path -> !path.getFileName().toString().startsWith("."))
+                            .map(Path::toFile)
+                            .forEach(files::add);
+                }
+            } else if (source.isFile()) {
+                files.add(source);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Encrypt the files into a vault. Blocks until every file is stored, failed or skipped
+     * because of cancellation, and its metadata is committed.
+     */
+    public IngestResult ingest(List<File> sources, Long vaultId, SecretKey key,
+                               Consumer<IngestProgress> onProgress, BooleanSupplier cancelled) throws Exception {
+        IngestResult result = new IngestResult();
+        IngestProgress progress = new IngestProgress();
+        result.progress = progress;
+        progress.totalFiles = sources.size();
+        for (File source : sources) {
+            progress.totalBytes += source.length();
+        }
+
+        // Fail before encrypting anything; the quota trigger still guards each insert
+        VaultStorage storage = fileRepository.getVaultStorage(vaultId);
+        if (progress.totalBytes > storage.getRemainingBytes()) {
+            throw new RepositoryException(String.format("Vault storage quota exceeded: %d MB to add, %d MB left",
+                    progress.totalBytes / (1024 * 1024), storage.getRemainingBytes() / (1024 * 1024)));
+        }
+
+        long start = System.nanoTime();
+        long lastReport = 0;
+        List<EncryptedFile> batch = new ArrayList<>();
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "passman-ingest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<EncryptedFile> completion = new ExecutorCompletionService<>(workers);
+
+        try {
+            // Keep twice the pool size in flight: enough to hide I/O waits, without queueing the whole batch
+            int next = 0;
+            int inFlight = 0;
+            while (next < sources.size() || inFlight > 0) {
+                while (next < sources.size() && inFlight < parallelism * 2 && !cancelled.getAsBoolean()) {
+                    File source = sources.get(next++);
+                    completion.submit(() -> storeFile(source, vaultId, key));
+                    inFlight++;
+                }
+                if (inFlight == 0) {
+                    break;
+                }
+
+                Future<EncryptedFile> done = completion.take();
+                inFlight--;
+                try {
+                    EncryptedFile file = done.get();
+                    batch.add(file);
+                    progress.completedFiles++;
+                    progress.processedBytes += file.getOriginalSize();
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    progress.failedFiles++;
+                    result.failures.add(cause.getMessage());
+                }
+
+                if (batch.size() >= METADATA_BATCH_SIZE) {
+                    saveBatch(batch, result, progress);
+                }
+
+                long now = System.nanoTime();
+                if (now - lastReport >= PROGRESS_INTERVAL_NANOS) {
+                    progress.elapsedMillis = (now - start) / 1_000_000;
+                    onProgress.accept(progress);
+                    lastReport = now;
+                }
+            }
+            saveBatch(batch, result, progress);
+        } finally {
+            // Only left over if the ingest failed before its last batch was saved
+            for (EncryptedFile file : batch) {
+                discard(file);
+            }
+            workers.shutdownNow();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        result.cancelled = progress.completedFiles + progress.failedFiles < progress.totalFiles;
+        progress.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        onProgress.accept(progress);
+
+        System.out.println("✅ " + result);
+        return result;
+    }
+
+    private EncryptedFile storeFile(File source, Long vaultId, SecretKey key) throws Exception {
+        EncryptedFile file;
+        try {
+            file = fileEncryptionService.encryptFile(source, vaultId, key);
+        } catch (Exception e) {
+            throw new Exception(source.getName() + ": " + e.getMessage(), e);
+        }
+
+        if (thumbnailService != null) {
+            try {
+                thumbnailService.createThumbnail(source, file, key);
+            } catch (Exception e) {
+                // The file is stored either way; it is just shown without a preview
+                System.err.println("⚠️ Failed to create thumbnail of " + source.getName() + ": " + e.getMessage());
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Insert the batch's metadata in one transaction. If that fails, the batch's data is
+     * released again so it does not linger without references.
+     */
+    private void saveBatch(List<EncryptedFile> batch, IngestResult result, IngestProgress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<EncryptedFile> files = new ArrayList<>(batch);
+        batch.clear();
+        try {
+            WriteQueue.getInstance().submit(() -> fileRepository.saveAll(files)).get();
+            for (EncryptedFile file : files) {
+                fileEncryptionService.finishStore(file);
+            }
+            result.files.addAll(files);
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("❌ Failed to save metadata of " + files.size() + " files: " + cause.getMessage());
+            for (EncryptedFile file : files) {
+                discard(file);
+                result.failures.add(file.getOriginalFileName() + ": " + cause.getMessage());
+            }
+            progress.completedFiles -= files.size();
+            progress.failedFiles += files.size();
+        }
+    }
+
+    private void discard(EncryptedFile file) {
+        try {
+            fileEncryptionService.finishStore(file);
+            fileEncryptionService.deleteEncryptedFile(file);
+            if (thumbnailService != null) {
+                thumbnailService.deleteThumbnail(file);
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to discard " + file.getOriginalFileName() + ": " + e.getMessage());
+        }
+    }
+}
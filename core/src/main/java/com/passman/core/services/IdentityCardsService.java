@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.passman.core.crypto.AESCipher;
 import com.passman.core.crypto.CipherFactory;
+import com.passman.core.model.CardSummary;
 import com.passman.core.model.IdentityCard;
 import com.passman.core.repository.IdentityCardsRepository;
 
@@ -141,23 +142,48 @@ public class IdentityCardsService {
         return cardsRepository.search(query);
     }
 
+    public List<CardSummary> getAllCardSummaries() throws Exception {
+        return cardsRepository.findAllSummaries();
+    }
+
+    public List<CardSummary> getCardSummariesByType(IdentityCard.CardType type) throws Exception {
+        return cardsRepository.findSummariesByType(type);
+    }
+
+    public List<CardSummary> getExpiringCardSummaries(int daysThreshold) throws Exception {
+        LocalDate thresholdDate = LocalDate.now().plusDays(daysThreshold);
+        return cardsRepository.findExpiringSummariesBefore(thresholdDate);
+    }
+
+    public List<CardSummary> getExpiredCardSummaries() throws Exception {
+        return cardsRepository.findExpiredSummaries();
+    }
+
+    public List<CardSummary> searchCardSummaries(String query) throws Exception {
+        return cardsRepository.searchSummaries(query);
+    }
+
+    public List<CardSummary> getCardSummariesByTag(String tag) throws Exception {
+        return cardsRepository.findSummariesByTag(tag);
+    }
+
     public void deleteCard(Long id) throws Exception {
         cardsRepository.delete(id);
     }
 
     public int checkExpiringCardsCount(int daysThreshold) throws Exception {
-        return getExpiringCards(daysThreshold).size();
+        return getExpiringCardSummaries(daysThreshold).size();
     }
 
     public CardStatistics getStatistics() throws Exception {
-        List<IdentityCard> allCards = getAllCards();
+        List<CardSummary> allCards = getAllCardSummaries();
 
         int total = allCards.size();
         int expired = 0;
         int expiringSoon = 0;
         Map<IdentityCard.CardType, Integer> byType = new HashMap<>();
 
-        for (IdentityCard card : allCards) {
+        for (CardSummary card : allCards) {
             if (card.isExpired()) {
                 expired++;
             } else if (card. getExpiryDate() != null && card.getDaysUntilExpiry() <= 30) {
@@ -2,10 +2,14 @@ package com.passman.core.services;
 
 import com.google.gson.Gson;
 import com. passman.core.crypto.AESCipher;
+import com.passman.core.crypto.BlindIndex;
 import com.passman.core.crypto.CipherFactory;
+import com.passman.core.db.DatabaseManager;
 import com.passman.core.model.NoteAttachment;
+import com.passman.core.model.NoteSummary;
 import com.passman.core.model.SecureNote;
 import com.passman.core.repository.SecureNotesRepository;
+import com.passman.core.storage.BlobStore;
 
 import javax.crypto.SecretKey;
 import java.io.File;
@@ -16,7 +20,9 @@ import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java. util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -28,12 +34,21 @@ public class SecureNotesService {
     private final SecureNotesRepository notesRepository;
     private final AESCipher aesCipher;
     private final Path attachmentStoragePath;
+    private final BlobStore blobStore;
     private final Gson gson;
 
-    public SecureNotesService(SecureNotesRepository notesRepository, String storagePath) {
+    // One blind index per unlocked session, shared by all instances. Notes saved before the
+    // content index existed are indexed on the session's first content search.
+    private static final Object SESSION_INDEX_LOCK = new Object();
+    private static SecretKey sessionKey;
+    private static BlindIndex sessionIndex;
+    private static boolean sessionIndexComplete;
+
+    public SecureNotesService(SecureNotesRepository notesRepository, String storagePath, DatabaseManager dbManager) {
         this.notesRepository = notesRepository;
         this.aesCipher = CipherFactory.createAESCipher();
         this.attachmentStoragePath = Paths.get(storagePath, "note_attachments");
+        this.blobStore = new BlobStore(Paths.get(storagePath, BlobStore.DIRECTORY), dbManager);
         this.gson = new Gson();
         initializeStorage();
     }
@@ -64,13 +79,81 @@ public class SecureNotesService {
         note.setLastModified(LocalDateTime.now());
 
         if (note.getId() == null) {
-            return notesRepository.save(note);
+            notesRepository.save(note);
         } else {
             notesRepository.update(note);
-            return note;
+        }
+
+        if (content != null) {
+            indexContent(note.getId(), content, blindIndex(masterKey));
+        }
+        return note;
+    }
+
+    private void indexContent(Long noteId, String content, BlindIndex blindIndex) throws Exception {
+        notesRepository.replaceContentTokens(noteId, blindIndex.indexTokens(content));
+    }
+
+    /**
+     * The blind index of the session's master key, created on first use
+     */
+    private static BlindIndex blindIndex(SecretKey masterKey) throws Exception {
+        synchronized (SESSION_INDEX_LOCK) {
+            if (sessionIndex == null || sessionKey != masterKey) {
+                sessionIndex = new BlindIndex(masterKey);
+                sessionKey = masterKey;
+                sessionIndexComplete = false;
+            }
+            return sessionIndex;
         }
     }
 
+    /**
+     * Index notes without content tokens again on the next content search, e.g. after a restore
+     */
+    public static void invalidateContentIndex() {
+        synchronized (SESSION_INDEX_LOCK) {
+            sessionIndexComplete = false;
+        }
+    }
+
+    /**
+     * Drop the session's blind index (called on logout)
+     */
+    public static void clearSessionIndex() {
+        synchronized (SESSION_INDEX_LOCK) {
+            sessionIndex = null;
+            sessionKey = null;
+            sessionIndexComplete = false;
+        }
+    }
+
+    /**
+     * Index the content of notes saved before the content index existed.
+     * Each such note is decrypted once; returns the number of notes indexed.
+     */
+    public int ensureContentIndex(SecretKey masterKey) throws Exception {
+        List<Long> pending = notesRepository.findIdsWithoutContentIndex();
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        BlindIndex blindIndex = blindIndex(masterKey);
+        int indexed = 0;
+        for (Long noteId : pending) {
+            Optional<SecureNote> noteOpt = notesRepository.findById(noteId);
+            if (noteOpt.isPresent()) {
+                SecureNote note = noteOpt.get();
+                decryptNote(note, masterKey);
+                indexContent(noteId, note.getContent() != null ? note.getContent() : "", blindIndex);
+                indexed++;
+            }
+        }
+
+        System.out.println("✅ Indexed content of " + indexed + " notes");
+        return indexed;
+    }
+
     public Optional<SecureNote> getNote(Long id, SecretKey masterKey) throws Exception {
         Optional<SecureNote> noteOpt = notesRepository.findById(id);
 
@@ -112,36 +195,85 @@ public class SecureNotesService {
         return notesRepository.findFavorites();
     }
 
+    public List<NoteSummary> getAllNoteSummaries() throws Exception {
+        return notesRepository.findAllSummaries();
+    }
+
+    public List<NoteSummary> searchNoteSummaries(String query) throws Exception {
+        return notesRepository.searchSummaries(query);
+    }
+
+    public List<NoteSummary> getNoteSummariesByTag(String tag) throws Exception {
+        return notesRepository.findSummariesByTag(tag);
+    }
+
+    /**
+     * Search note content through the blind index. Notes saved before the index existed are
+     * decrypted and indexed once per session, on the first search; later searches decrypt nothing.
+     */
+    public List<NoteSummary> searchNoteContentSummaries(String query, SecretKey masterKey) throws Exception {
+        BlindIndex blindIndex = blindIndex(masterKey);
+        synchronized (SESSION_INDEX_LOCK) {
+            if (!sessionIndexComplete) {
+                ensureContentIndex(masterKey);
+                sessionIndexComplete = true;
+            }
+        }
+        return notesRepository.searchSummariesByContentTokens(blindIndex.queryTokens(query));
+    }
+
+    /**
+     * Search titles and tags first, then append notes that only match by content
+     */
+    public List<NoteSummary> searchNoteSummaries(String query, SecretKey masterKey) throws Exception {
+        Map<Long, NoteSummary> results = new LinkedHashMap<>();
+        for (NoteSummary summary : notesRepository.searchSummaries(query)) {
+            results.put(summary.getId(), summary);
+        }
+        for (NoteSummary summary : searchNoteContentSummaries(query, masterKey)) {
+            results.putIfAbsent(summary.getId(), summary);
+        }
+        return List.copyOf(results.values());
+    }
+
+    public List<NoteSummary> getNoteSummariesByCategory(SecureNote.NoteCategory category) throws Exception {
+        return notesRepository.findSummariesByCategory(category);
+    }
+
+    public List<NoteSummary> getFavoriteNoteSummaries() throws Exception {
+        return notesRepository.findFavoriteSummaries();
+    }
+
     public void deleteNote(Long id) throws Exception {
         List<NoteAttachment> attachments = notesRepository.findAttachmentsByNoteId(id);
+        // Deleting the note cascades to its attachment rows
+        notesRepository.delete(id);
         for (NoteAttachment attachment : attachments) {
             deleteAttachmentFile(attachment);
         }
-        notesRepository.delete(id);
     }
 
     public NoteAttachment addAttachment(Long noteId, File file, SecretKey masterKey) throws Exception {
-        byte[] fileData = Files.readAllBytes(file.toPath());
-        byte[] encryptedData = aesCipher.encryptBytes(fileData, masterKey);
-
-        String encryptedFileName = UUID.randomUUID().toString() + ". enc";
-        Path encryptedFilePath = attachmentStoragePath.resolve(noteId. toString())
-                .resolve(encryptedFileName);
-
-        Files.createDirectories(encryptedFilePath.getParent());
-        Files.write(encryptedFilePath, encryptedData);
-
-        String checksum = calculateSHA256(fileData);
+        // Same content already attached to a note or in a master-key vault: only a new reference
+        BlobStore.StoredBlob blob = blobStore.store(file.toPath(), masterKey);
 
         NoteAttachment attachment = new NoteAttachment();
         attachment.setNoteId(noteId);
         attachment.setOriginalFileName(file.getName());
-        attachment.setEncryptedFileName(encryptedFileName);
-        attachment.setFileSize(fileData.length);
+        attachment.setEncryptedFileName(UUID.randomUUID().toString() + ".enc");
+        attachment.setFileSize(blob.originalSize);
         attachment.setMimeType(Files.probeContentType(file.toPath()));
-        attachment. setChecksum(checksum);
+        attachment. setChecksum(blob.checksum);
+        attachment.setContentId(blob.contentId);
 
-        attachment = notesRepository.saveAttachment(attachment);
+        try {
+            attachment = notesRepository.saveAttachment(attachment);
+        } catch (Exception e) {
+            blobStore.unpin(blob.contentId);
+            blobStore.release(blob.contentId);
+            throw e;
+        }
+        blobStore.unpin(blob.contentId);
 
         Optional<SecureNote> noteOpt = notesRepository.findById(noteId);
         if (noteOpt.isPresent()) {
@@ -154,6 +286,11 @@ public class SecureNotesService {
     }
 
     public File downloadAttachment(NoteAttachment attachment, File destinationFile, SecretKey masterKey) throws Exception {
+        if (attachment.getContentId() != null) {
+            blobStore.extract(attachment.getContentId(), masterKey, destinationFile.toPath(), attachment.getChecksum());
+            return destinationFile;
+        }
+
         Path encryptedFilePath = attachmentStoragePath.resolve(attachment.getNoteId().toString())
                 .resolve(attachment.getEncryptedFileName());
 
@@ -174,8 +311,8 @@ public class SecureNotesService {
 
         if (attachmentOpt. isPresent()) {
             NoteAttachment attachment = attachmentOpt.get();
-            deleteAttachmentFile(attachment);
             notesRepository.deleteAttachment(attachmentId);
+            deleteAttachmentFile(attachment);
 
             List<NoteAttachment> remaining = notesRepository.findAttachmentsByNoteId(attachment.getNoteId());
             if (remaining.size() <= 1) {
@@ -189,7 +326,15 @@ public class SecureNotesService {
         }
     }
 
-    private void deleteAttachmentFile(NoteAttachment attachment) throws IOException {
+    /**
+     * Delete an attachment's data; call after its row is gone, so a shared blob sees the reference dropped
+     */
+    private void deleteAttachmentFile(NoteAttachment attachment) throws Exception {
+        if (attachment.getContentId() != null) {
+            blobStore.release(attachment.getContentId());
+            return;
+        }
+
         Path filePath = attachmentStoragePath.resolve(attachment.getNoteId().toString())
                 .resolve(attachment.getEncryptedFileName());
         Files.deleteIfExists(filePath);
@@ -0,0 +1,199 @@
+package com.passman.core.services;
+
+import com.passman.core.crypto.AESCipher;
+import com.passman.core.crypto.CipherFactory;
+import com.passman.core.model.EncryptedFile;
+
+import javax.crypto.SecretKey;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Encrypted thumbnails for vault files.
+ *
+ * A thumbnail is made once when a file is added, from the plaintext that is being encrypted
+ * anyway, and stored encrypted with the vault key next to the file as "<name>.thumb".
+ * Browsing only ever decrypts these small files, never the originals, and keeps the
+ * decrypted thumbnails in a size-bounded LRU cache until the vault is locked.
+ */
+public class ThumbnailService {
+
+    public static final int THUMBNAIL_SIZE = 160;
+    private static final long DEFAULT_CACHE_BYTES = 32L * 1024 * 1024;
+    private static final String THUMBNAIL_EXTENSION = ".thumb";
+
+    private final AESCipher aesCipher;
+    private final Path encryptedFilesPath;
+    private final long maxCacheBytes;
+
+    // Access-ordered, so the first entry is always the least recently used
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private long cacheBytes;
+
+    public ThumbnailService(String storagePath) {
+        this(storagePath, DEFAULT_CACHE_BYTES);
+    }
+
+    public ThumbnailService(String storagePath, long maxCacheBytes) {
+        this.aesCipher = CipherFactory.createAESCipher();
+        this.encryptedFilesPath = Paths.get(storagePath, "encrypted_files");
+        this.maxCacheBytes = maxCacheBytes;
+    }
+
+    /**
+     * Create the encrypted thumbnail of a file just added to a vault.
+     * Returns false, without writing anything, when the file is not an image ImageIO can read.
+     */
+    public boolean createThumbnail(File sourceFile, EncryptedFile file, SecretKey key) throws Exception {
+        BufferedImage image = readSubsampled(sourceFile);
+        if (image == null) {
+            return false;
+        }
+
+        byte[] thumbnail = toJpeg(scale(image));
+        Files.write(getThumbnailPath(file), aesCipher.encryptBytes(thumbnail, key));
+        cachePut(file.getEncryptedFileName(), thumbnail);
+        return true;
+    }
+
+    /**
+     * Decrypted JPEG thumbnail of a file, or empty if it has none
+     */
+    public Optional<byte[]> loadThumbnail(EncryptedFile file, SecretKey key) throws Exception {
+        byte[] cached = getCachedThumbnail(file);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Path path = getThumbnailPath(file);
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+
+        byte[] thumbnail = aesCipher.decryptBytes(Files.readAllBytes(path), key);
+        cachePut(file.getEncryptedFileName(), thumbnail);
+        return Optional.of(thumbnail);
+    }
+
+    /**
+     * Thumbnail already in memory, without touching the disk; null if not cached
+     */
+    public synchronized byte[] getCachedThumbnail(EncryptedFile file) {
+        return cache.get(file.getEncryptedFileName());
+    }
+
+    public void deleteThumbnail(EncryptedFile file) throws IOException {
+        cacheRemove(file.getEncryptedFileName());
+        Files.deleteIfExists(getThumbnailPath(file));
+    }
+
+    /**
+     * Drop every decrypted thumbnail, e.g. when a vault is locked
+     */
+    public synchronized void clearCache() {
+        cache.clear();
+        cacheBytes = 0;
+    }
+
+    public synchronized long getCacheBytes() {
+        return cacheBytes;
+    }
+
+    public Path getThumbnailPath(EncryptedFile file) {
+        String name = file.getEncryptedFileName();
+        int dot = name.lastIndexOf('.');
+        return encryptedFilesPath.resolve(file.getVaultId().toString())
+                .resolve((dot > 0 ? name.substring(0, dot) : name) + THUMBNAIL_EXTENSION);
+    }
+
+    /**
+     * Decode only every n-th pixel of every n-th row, so a 24 MP photo is never held in
+     * memory at full size. The result stays at least twice the thumbnail size for a smooth final scale.
+     */
+    BufferedImage readSubsampled(File sourceFile) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(sourceFile)) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longestSide / (THUMBNAIL_SIZE * 2));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image) {
+        double ratio = Math.min(1.0, (double) THUMBNAIL_SIZE / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG has no alpha: transparent areas become white
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] toJpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "jpg", out)) {
+            throw new IOException("No JPEG writer available");
+        }
+        return out.toByteArray();
+    }
+
+    synchronized void cachePut(String name, byte[] thumbnail) {
+        byte[] previous = cache.put(name, thumbnail);
+        cacheBytes += thumbnail.length - (previous != null ? previous.length : 0);
+
+        Iterator<Map.Entry<String, byte[]>> eldest = cache.entrySet().iterator();
+        while (cacheBytes > maxCacheBytes && eldest.hasNext()) {
+            cacheBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    private synchronized void cacheRemove(String name) {
+        byte[] removed = cache.remove(name);
+        if (removed != null) {
+            cacheBytes -= removed.length;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.passman.core.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Backup container: the payload is cut into independent blocks that are each deflated
+ * and then encrypted, so blocks can be processed on all cores in both directions.
+ *
+ * Layout (big-endian):
+ *   header    MAGIC, int version, int blockSize
+ *   frames    int rawLength, int storedLength, stored bytes (IV + AES(deflate(block)))
+ *   metadata  int storedLength, stored bytes (IV + AES(metadata json))
+ *   index     int frameCount, per frame: long offset, int rawLength, int storedLength, hash;
+ *             long metadataOffset, int metadataLength, metadata hash, Merkle root
+ *   footer    long indexOffset, END_MAGIC
+ *
+ * Frame headers make the frames readable front to back; the index allows random access.
+ * Hashes are MerkleTree leaves over the stored (encrypted) bytes, so any frame can be
+ * checked on its own and without the key. Version 2 containers have no hashes.
+ */
+public final class BackupContainer {
+
+    static final byte[] MAGIC = "PMBAK2\r\n".getBytes(StandardCharsets.US_ASCII);
+    static final byte[] END_MAGIC = "PMBKEND\n".getBytes(StandardCharsets.US_ASCII);
+
+    public static final int FORMAT_VERSION = 3;
+    static final int FIRST_HASHED_VERSION = 3;
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    static final int HEADER_LENGTH = MAGIC.length + 8;
+    static final int FRAME_HEADER_LENGTH = 8;
+    static final int FOOTER_LENGTH = 8 + END_MAGIC.length;
+
+    private BackupContainer() {}
+
+    /**
+     * Position of one block in the container
+     */
+    public static class Frame {
+        public final long offset;
+        public final int rawLength;
+        public final int storedLength;
+        public final byte[] hash;
+
+        public Frame(long offset, int rawLength, int storedLength, byte[] hash) {
+            this.offset = offset;
+            this.rawLength = rawLength;
+            this.storedLength = storedLength;
+            this.hash = hash;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Frame[offset=%d, raw=%d, stored=%d]", offset, rawLength, storedLength);
+        }
+    }
+
+    /**
+     * Whether the file starts with the container magic; older backups are zip files
+     */
+    public static boolean isContainer(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        }
+    }
+
+    static ExecutorService newWorkerPool(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(workerCount(), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static int workerCount() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors());
+    }
+}
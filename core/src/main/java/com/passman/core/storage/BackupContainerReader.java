@@ -0,0 +1,381 @@
+package com.passman.core.storage;
+
+import com.passman.core.crypto.AESCipher;
+import com.passman.core.crypto.CipherFactory;
+
+import javax.crypto.SecretKey;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a backup container. The index is loaded up front; openData decrypts and inflates
+ * frames on worker threads ahead of the consumer and hands them out in order, checking
+ * each frame against its hash first.
+ *
+ * verify() hashes all frames in parallel against the index and the index against its
+ * Merkle root, reporting exactly which frames are damaged; verifyFrame checks one frame
+ * by reading only that frame.
+ */
+public class BackupContainerReader implements Closeable {
+
+    private final FileChannel channel;
+    private final AESCipher aesCipher;
+    private final int version;
+    private final int blockSize;
+    private final List<BackupContainer.Frame> frames;
+    private final long metadataOffset;
+    private final int metadataLength;
+    private final byte[] metadataHash;
+    private final byte[] merkleRoot;
+    private ExecutorService workers;
+
+    public static class VerificationResult {
+        public int framesChecked;
+        public List<Integer> corruptFrames = new ArrayList<>();
+        public boolean metadataCorrupt;
+        public boolean rootMatches;
+
+        public boolean isValid() {
+            return rootMatches && !metadataCorrupt && corruptFrames.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("VerificationResult[frames=%d, corrupt=%s, metadataCorrupt=%b, rootMatches=%b]",
+                    framesChecked, corruptFrames, metadataCorrupt, rootMatches);
+        }
+    }
+
+    public BackupContainerReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.aesCipher = CipherFactory.createAESCipher();
+
+        try {
+            long size = channel.size();
+            if (size < BackupContainer.HEADER_LENGTH + BackupContainer.FOOTER_LENGTH) {
+                throw new IOException("Backup container is truncated");
+            }
+
+            ByteBuffer header = readFully(0, BackupContainer.HEADER_LENGTH);
+            if (!Arrays.equals(take(header, BackupContainer.MAGIC.length), BackupContainer.MAGIC)) {
+                throw new IOException("Not a PassMan backup container");
+            }
+            this.version = header.getInt();
+            this.blockSize = header.getInt();
+            if (version > BackupContainer.FORMAT_VERSION) {
+                throw new IOException("Backup container version " + version + " is not supported");
+            }
+
+            ByteBuffer footer = readFully(size - BackupContainer.FOOTER_LENGTH, BackupContainer.FOOTER_LENGTH);
+            long indexOffset = footer.getLong();
+            if (!Arrays.equals(take(footer, BackupContainer.END_MAGIC.length), BackupContainer.END_MAGIC)) {
+                throw new IOException("Backup container is incomplete");
+            }
+
+            long indexEnd = size - BackupContainer.FOOTER_LENGTH;
+            if (indexOffset < BackupContainer.HEADER_LENGTH || indexOffset > indexEnd) {
+                throw new IOException("Backup container index is corrupted");
+            }
+            boolean hashed = version >= BackupContainer.FIRST_HASHED_VERSION;
+            int hashLength = hashed ? MerkleTree.HASH_LENGTH : 0;
+
+            ByteBuffer index = readFully(indexOffset, (int) (indexEnd - indexOffset));
+            int frameCount = index.getInt();
+            if (frameCount < 0 || index.remaining() != frameCount * (16L + hashLength) + 12 + 2L * hashLength) {
+                throw new IOException("Backup container index is corrupted");
+            }
+
+            List<BackupContainer.Frame> list = new ArrayList<>(frameCount);
+            for (int i = 0; i < frameCount; i++) {
+                BackupContainer.Frame frame = new BackupContainer.Frame(index.getLong(), index.getInt(),
+                        index.getInt(), hashed ? take(index, hashLength) : null);
+                if (frame.offset < BackupContainer.HEADER_LENGTH || frame.rawLength < 0 || frame.storedLength < 0
+                        || frame.offset + BackupContainer.FRAME_HEADER_LENGTH + frame.storedLength > indexOffset) {
+                    throw new IOException("Backup container index is corrupted");
+                }
+                list.add(frame);
+            }
+            this.frames = Collections.unmodifiableList(list);
+            this.metadataOffset = index.getLong();
+            this.metadataLength = index.getInt();
+            this.metadataHash = hashed ? take(index, hashLength) : null;
+            this.merkleRoot = hashed ? take(index, hashLength) : null;
+            if (metadataOffset < BackupContainer.HEADER_LENGTH || metadataLength < 0
+                    || metadataOffset + 4 + metadataLength > indexOffset) {
+                throw new IOException("Backup container index is corrupted");
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public List<BackupContainer.Frame> getFrames() {
+        return frames;
+    }
+
+    /**
+     * Root recorded in the container, or null for containers without hashes
+     */
+    public byte[] getMerkleRoot() {
+        return merkleRoot == null ? null : merkleRoot.clone();
+    }
+
+    /**
+     * Whether the frame hashes in the index produce the recorded root; reads nothing else
+     */
+    public boolean indexMatchesRoot() {
+        if (merkleRoot == null) {
+            return false;
+        }
+        List<byte[]> leaves = new ArrayList<>(frames.size() + 1);
+        for (BackupContainer.Frame frame : frames) {
+            leaves.add(frame.hash);
+        }
+        leaves.add(metadataHash);
+        return MessageDigest.isEqual(MerkleTree.root(leaves), merkleRoot);
+    }
+
+    /**
+     * Check one frame against its index hash
+     */
+    public boolean verifyFrame(BackupContainer.Frame frame) throws IOException {
+        return frame.hash != null && MessageDigest.isEqual(MerkleTree.leafHash(readStoredFrame(frame)), frame.hash);
+    }
+
+    /**
+     * Hash every frame and the metadata in parallel. Each worker reads its own frames,
+     * so verification of a large backup is limited by the disk, not by one core.
+     */
+    public VerificationResult verify() throws IOException {
+        VerificationResult result = new VerificationResult();
+        if (merkleRoot == null) {
+            throw new IOException("Backup container version " + version + " has no frame hashes");
+        }
+        result.rootMatches = indexMatchesRoot();
+
+        List<Future<Boolean>> checks = new ArrayList<>(frames.size());
+        for (BackupContainer.Frame frame : frames) {
+            checks.add(workers().submit(() -> verifyFrame(frame)));
+        }
+        byte[] storedMetadata = readFully(metadataOffset + 4, metadataLength).array();
+        result.metadataCorrupt = !MessageDigest.isEqual(MerkleTree.leafHash(storedMetadata), metadataHash);
+
+        for (int i = 0; i < checks.size(); i++) {
+            try {
+                if (!checks.get(i).get()) {
+                    result.corruptFrames.add(i);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while verifying backup", e);
+            } catch (ExecutionException e) {
+                result.corruptFrames.add(i);
+            }
+            result.framesChecked++;
+        }
+        return result;
+    }
+
+    /**
+     * Total size of the payload once decoded
+     */
+    public long getDataLength() {
+        long total = 0;
+        for (BackupContainer.Frame frame : frames) {
+            total += frame.rawLength;
+        }
+        return total;
+    }
+
+    /**
+     * The encrypted bytes of a frame, without its header
+     */
+    public byte[] readStoredFrame(BackupContainer.Frame frame) throws IOException {
+        return readFully(frame.offset + BackupContainer.FRAME_HEADER_LENGTH, frame.storedLength).array();
+    }
+
+    public byte[] readMetadata(SecretKey key) throws IOException {
+        byte[] stored = readFully(metadataOffset + 4, metadataLength).array();
+        if (metadataHash != null && !MessageDigest.isEqual(MerkleTree.leafHash(stored), metadataHash)) {
+            throw new IOException("Backup metadata is corrupted");
+        }
+        try {
+            return aesCipher.decryptBytes(stored, key);
+        } catch (Exception e) {
+            throw new IOException("Failed to decrypt backup metadata", e);
+        }
+    }
+
+    /**
+     * Decrypt and inflate one frame
+     */
+    public byte[] decodeFrame(BackupContainer.Frame frame, byte[] stored, SecretKey key) throws IOException {
+        if (frame.hash != null && !MessageDigest.isEqual(MerkleTree.leafHash(stored), frame.hash)) {
+            throw new IOException("Backup block at " + frame.offset + " is corrupted");
+        }
+
+        byte[] compressed;
+        try {
+            compressed = aesCipher.decryptBytes(stored, key);
+        } catch (Exception e) {
+            throw new IOException("Failed to decrypt backup block at " + frame.offset, e);
+        }
+
+        byte[] data = new byte[frame.rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int count = 0;
+            while (count < data.length && !inflater.finished()) {
+                int inflated = inflater.inflate(data, count, data.length - count);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                count += inflated;
+            }
+            if (count != data.length || !inflater.finished()) {
+                throw new IOException("Backup block at " + frame.offset + " has the wrong length");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Backup block at " + frame.offset + " is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+        return data;
+    }
+
+    /**
+     * The payload, decoded in parallel with a bounded read-ahead
+     */
+    public InputStream openData(SecretKey key) {
+        return new FrameInputStream(key);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+        channel.close();
+    }
+
+    private synchronized ExecutorService workers() {
+        if (workers == null) {
+            workers = BackupContainer.newWorkerPool("passman-backup-reader");
+        }
+        return workers;
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Unexpected end of backup container");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] take(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private class FrameInputStream extends InputStream {
+        private final SecretKey key;
+        private final int maxInFlight = BackupContainer.workerCount() * 2;
+        private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        private int nextFrame;
+        private byte[] current = new byte[0];
+        private int position;
+
+        FrameInputStream(SecretKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return current[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(length, current.length - position);
+            System.arraycopy(current, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            for (Future<byte[]> future : pending) {
+                future.cancel(true);
+            }
+            pending.clear();
+        }
+
+        private boolean fill() throws IOException {
+            while (position == current.length) {
+                // File reads stay on this thread; decryption and inflation run on the workers
+                while (pending.size() < maxInFlight && nextFrame < frames.size()) {
+                    BackupContainer.Frame frame = frames.get(nextFrame++);
+                    byte[] stored = readStoredFrame(frame);
+                    pending.add(workers().submit(() -> decodeFrame(frame, stored, key)));
+                }
+                if (pending.isEmpty()) {
+                    return false;
+                }
+
+                try {
+                    current = pending.poll().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while reading backup", e);
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+                }
+                position = 0;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.passman.core.storage;
+
+import com.passman.core.crypto.AESCipher;
+import com.passman.core.crypto.CipherFactory;
+
+import javax.crypto.SecretKey;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a backup container. Everything written to this stream is cut into blocks that
+ * worker threads deflate and encrypt in parallel; finished frames are written in order,
+ * with a bounded number in flight so memory stays proportional to the number of cores.
+ *
+ * Each frame is hashed on its worker as well; finish() writes the hashes and their Merkle
+ * root into the index. It must be called, or the container is incomplete and should be
+ * discarded.
+ */
+public class BackupContainerWriter extends OutputStream {
+
+    private final DataOutputStream out;
+    private final SecretKey key;
+    private final int blockSize;
+    private final int level;
+    private final AESCipher aesCipher;
+    private final ExecutorService workers;
+    private final int maxInFlight;
+
+    private final Deque<Future<EncodedFrame>> pending = new ArrayDeque<>();
+    private final List<BackupContainer.Frame> frames = new ArrayList<>();
+    private byte[] block;
+    private int blockLength;
+    private long position;
+    private byte[] merkleRoot;
+    private boolean finished;
+
+    private static class EncodedFrame {
+        final int rawLength;
+        final byte[] stored;
+        final byte[] hash;
+
+        EncodedFrame(int rawLength, byte[] stored) {
+            this.rawLength = rawLength;
+            this.stored = stored;
+            this.hash = MerkleTree.leafHash(stored);
+        }
+    }
+
+    public BackupContainerWriter(OutputStream out, SecretKey key) throws IOException {
+        this(out, key, BackupContainer.DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public BackupContainerWriter(OutputStream out, SecretKey key, int blockSize, int level) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.out = new DataOutputStream(out);
+        this.key = key;
+        this.blockSize = blockSize;
+        this.level = level;
+        this.aesCipher = CipherFactory.createAESCipher();
+        this.workers = BackupContainer.newWorkerPool("passman-backup-writer");
+        this.maxInFlight = BackupContainer.workerCount() * 2;
+        this.block = new byte[blockSize];
+
+        this.out.write(BackupContainer.MAGIC);
+        this.out.writeInt(BackupContainer.FORMAT_VERSION);
+        this.out.writeInt(blockSize);
+        this.position = BackupContainer.HEADER_LENGTH;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        block[blockLength++] = (byte) b;
+        if (blockLength == blockSize) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        while (length > 0) {
+            int count = Math.min(length, blockSize - blockLength);
+            System.arraycopy(data, offset, block, blockLength, count);
+            blockLength += count;
+            offset += count;
+            length -= count;
+            if (blockLength == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Flushes completed frames only; a partial block is never cut early
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Write the last block, the encrypted metadata, the index and the footer
+     */
+    public void finish(byte[] metadata) throws IOException {
+        if (finished) {
+            return;
+        }
+        if (blockLength > 0) {
+            submitBlock();
+        }
+        while (!pending.isEmpty()) {
+            writeFrame(pending.poll());
+        }
+
+        long metadataOffset = position;
+        byte[] storedMetadata;
+        try {
+            storedMetadata = aesCipher.encryptBytes(metadata, key);
+        } catch (Exception e) {
+            throw new IOException("Failed to encrypt backup metadata", e);
+        }
+        out.writeInt(storedMetadata.length);
+        out.write(storedMetadata);
+        position += 4 + storedMetadata.length;
+
+        List<byte[]> leaves = new ArrayList<>(frames.size() + 1);
+        long indexOffset = position;
+        out.writeInt(frames.size());
+        for (BackupContainer.Frame frame : frames) {
+            out.writeLong(frame.offset);
+            out.writeInt(frame.rawLength);
+            out.writeInt(frame.storedLength);
+            out.write(frame.hash);
+            leaves.add(frame.hash);
+        }
+        byte[] metadataHash = MerkleTree.leafHash(storedMetadata);
+        leaves.add(metadataHash);
+        merkleRoot = MerkleTree.root(leaves);
+
+        out.writeLong(metadataOffset);
+        out.writeInt(storedMetadata.length);
+        out.write(metadataHash);
+        out.write(merkleRoot);
+
+        out.writeLong(indexOffset);
+        out.write(BackupContainer.END_MAGIC);
+        out.flush();
+        finished = true;
+    }
+
+    public List<BackupContainer.Frame> getFrames() {
+        return frames;
+    }
+
+    /**
+     * Root over every frame and the metadata; available once finish() has run
+     */
+    public byte[] getMerkleRoot() {
+        return merkleRoot;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Future<EncodedFrame> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+        workers.shutdownNow();
+        out.close();
+    }
+
+    private void submitBlock() throws IOException {
+        byte[] data = block;
+        int length = blockLength;
+        block = new byte[blockSize];
+        blockLength = 0;
+
+        pending.add(workers.submit(() -> encodeFrame(data, length)));
+        while (pending.size() > maxInFlight) {
+            writeFrame(pending.poll());
+        }
+    }
+
+    private void writeFrame(Future<EncodedFrame> future) throws IOException {
+        EncodedFrame encoded;
+        try {
+            encoded = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing backup", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to encode backup block", e.getCause());
+        }
+
+        frames.add(new BackupContainer.Frame(position, encoded.rawLength, encoded.stored.length, encoded.hash));
+        out.writeInt(encoded.rawLength);
+        out.writeInt(encoded.stored.length);
+        out.write(encoded.stored);
+        position += BackupContainer.FRAME_HEADER_LENGTH + encoded.stored.length;
+    }
+
+    private EncodedFrame encodeFrame(byte[] data, int length) throws Exception {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                compressed.write(buffer, 0, count);
+            }
+            return new EncodedFrame(length, aesCipher.encryptBytes(compressed.toByteArray(), key));
+        } finally {
+            deflater.end();
+        }
+    }
+}
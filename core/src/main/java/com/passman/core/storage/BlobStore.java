@@ -0,0 +1,593 @@
+package com.passman.core.storage;
+
+import com.passman.core.crypto.AESCipher;
+import com.passman.core.crypto.CipherFactory;
+import com.passman.core.db.DatabaseManager;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Content-addressed store of encrypted file data (V11), shared by vault files and note attachments.
+ *
+ * A blob is named by the HMAC of its plaintext under a key derived from the key it is encrypted
+ * with. Storing a file whose blob already exists only hashes it: there is no encryption pass and
+ * no new data on disk, and the caller's metadata row becomes one more reference. References are
+ * counted by triggers on encrypted_files and note_attachments; release deletes a blob once its
+ * count reaches zero. A blob handed out by store is pinned until the caller's row is committed
+ * (unpin), so a concurrent release cannot delete it in between. Blobs left without references,
+ * e.g. by a crash before the row was written, are deleted by purgeUnreferenced.
+ *
+ * Blobs of files up to the pack threshold are appended to a PackFileStore segment (V13) instead
+ * of getting a file of their own; file_blobs then records the segment and offset. Space of
+ * released packed blobs is reclaimed by compactPacks, which runs in the background after releases.
+ */
+public class BlobStore {
+
+    public static final String DIRECTORY = "file_blobs";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte[] CONTENT_ID_CONTEXT =
+            "passman-blob-content-id-v1".getBytes(StandardCharsets.UTF_8);
+    private static final int IV_LENGTH = 16;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static final long DEFAULT_PACK_THRESHOLD = 64 * 1024;
+    // Segments with less than this share of live data are compacted
+    private static final double COMPACT_LIVE_RATIO = 0.5;
+    private static final int COMPACT_CHUNK = 64;
+
+    // Both services open their own store on the same directory
+    private static final Object LOCK = new Object();
+
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "passman-pack-compactor");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private static final AtomicBoolean compactionPending = new AtomicBoolean();
+
+    // Content ids returned by store whose referencing rows are not committed yet, with the
+    // number of stores waiting on each. Guarded by LOCK.
+    private static final Map<String, Integer> PENDING = new HashMap<>();
+
+    private final Path blobDir;
+    private final DatabaseManager dbManager;
+    private final AESCipher aesCipher;
+    private final PackFileStore packs;
+    private final long packThreshold;
+
+    public BlobStore(Path blobDir, DatabaseManager dbManager) {
+        this(blobDir, dbManager, DEFAULT_PACK_THRESHOLD);
+    }
+
+    /**
+     * A store packing files of up to packThreshold bytes (0 stores every blob as its own file)
+     */
+    public BlobStore(Path blobDir, DatabaseManager dbManager, long packThreshold) {
+        this.blobDir = blobDir;
+        this.dbManager = dbManager;
+        this.aesCipher = CipherFactory.createAESCipher();
+        this.packs = PackFileStore.forDirectory(blobDir.resolve(PackFileStore.DIRECTORY));
+        this.packThreshold = packThreshold;
+        try {
+            Files.createDirectories(blobDir);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to initialize blob storage", e);
+        }
+    }
+
+    /**
+     * Result of storing a file
+     */
+    public static class StoredBlob {
+        public String contentId;
+        public String checksum;
+        public long originalSize;
+        public long storedSize;
+        public byte[] iv;
+        public String storedChecksum;
+        public boolean deduplicated;
+        public boolean packed;
+
+        @Override
+        public String toString() {
+            return String.format("%s (%d bytes%s%s)", contentId, originalSize,
+                    packed ? ", packed" : "", deduplicated ? ", deduplicated" : "");
+        }
+    }
+
+    /**
+     * Store a file encrypted with key, unless a blob with the same content and key exists.
+     * The file is read once for its content id and SHA-256 checksum, and a second time only
+     * if it has to be encrypted. The blob has no reference until the caller inserts a row
+     * with its content id, so it is pinned against release until the caller calls unpin, once
+     * that row is committed or given up.
+     */
+    public StoredBlob store(Path source, SecretKey key) throws Exception {
+        StoredBlob blob = new StoredBlob();
+        Mac mac = contentMac(key);
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(source)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                mac.update(buffer, 0, read);
+                sha256.update(buffer, 0, read);
+                blob.originalSize += read;
+            }
+        }
+        blob.contentId = HexFormat.of().formatHex(mac.doFinal());
+        blob.checksum = Base64.getEncoder().encodeToString(sha256.digest());
+
+        if (reuseExisting(blob)) {
+            return blob;
+        }
+        if (blob.originalSize <= packThreshold) {
+            return storePacked(source, key, blob);
+        }
+
+        // Encrypt outside the lock so several files can be stored in parallel
+        Path target = pathFor(blob.contentId);
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(blob.contentId + "." + UUID.randomUUID() + ".tmp");
+        try {
+            // The checksum of the encrypted data lets IntegrityScrubber verify the blob without a key
+            MessageDigest storedDigest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = Files.newInputStream(source);
+                 OutputStream out = aesCipher.encryptingStream(
+                         new DigestOutputStream(Files.newOutputStream(temp), storedDigest), key)) {
+                in.transferTo(out);
+            }
+            blob.storedChecksum = Base64.getEncoder().encodeToString(storedDigest.digest());
+
+            synchronized (LOCK) {
+                // The same content may have been stored by another thread meanwhile
+                if (reuseExisting(blob)) {
+                    return blob;
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                blob.storedSize = Files.size(target);
+                blob.iv = readIv(target);
+                saveBlob(blob, null);
+                pin(blob.contentId);
+                return blob;
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Small files are encrypted in memory and appended to the active pack segment
+     */
+    private StoredBlob storePacked(Path source, SecretKey key, StoredBlob blob) throws Exception {
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream((int) blob.originalSize + 2 * IV_LENGTH);
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = aesCipher.encryptingStream(encrypted, key)) {
+            in.transferTo(out);
+        }
+        byte[] data = encrypted.toByteArray();
+        blob.storedChecksum = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(data));
+
+        synchronized (LOCK) {
+            if (reuseExisting(blob)) {
+                return blob;
+            }
+            PackFileStore.PackLocation location = packs.append(data, false);
+            blob.storedSize = data.length;
+            blob.iv = Arrays.copyOf(data, IV_LENGTH);
+            blob.packed = true;
+            saveBlob(blob, location);
+            pin(blob.contentId);
+            return blob;
+        }
+    }
+
+    private boolean reuseExisting(StoredBlob blob) throws SQLException, IOException {
+        synchronized (LOCK) {
+            BlobRow row = findBlob(blob.contentId);
+            if (row == null) {
+                return false;
+            }
+            if (row.isPacked()) {
+                if (!Files.exists(packs.segmentPath(row.packSegmentId))) {
+                    return false;
+                }
+                blob.iv = packs.read(row.packSegmentId, row.packOffset, IV_LENGTH);
+                blob.packed = true;
+            } else {
+                Path target = pathFor(blob.contentId);
+                if (!Files.exists(target)) {
+                    return false;
+                }
+                blob.iv = readIv(target);
+            }
+            blob.storedSize = row.storedSize;
+            blob.deduplicated = true;
+            // Its last reference may be deleted before the caller's row is committed
+            pin(blob.contentId);
+            return true;
+        }
+    }
+
+    private void pin(String contentId) {
+        PENDING.merge(contentId, 1, Integer::sum);
+    }
+
+    /**
+     * Drop the pin taken by store. Call once the row referencing the blob is committed, or
+     * before releasing the blob because that row could not be written.
+     */
+    public void unpin(String contentId) {
+        synchronized (LOCK) {
+            PENDING.computeIfPresent(contentId, (id, stores) -> stores > 1 ? stores - 1 : null);
+        }
+    }
+
+    /**
+     * Decrypting stream over a blob's plaintext
+     */
+    public InputStream open(String contentId, SecretKey key) throws Exception {
+        return aesCipher.decryptingStream(openEncrypted(contentId), key);
+    }
+
+    /**
+     * The encrypted data of a blob. A packed blob is read whole under the lock, so
+     * compaction cannot move it away halfway.
+     */
+    private InputStream openEncrypted(String contentId) throws SQLException, IOException {
+        synchronized (LOCK) {
+            BlobRow row = findBlob(contentId);
+            if (row != null && row.isPacked()) {
+                return new ByteArrayInputStream(packs.read(row.packSegmentId, row.packOffset, (int) row.storedSize));
+            }
+        }
+
+        Path path = pathFor(contentId);
+        if (!Files.exists(path)) {
+            throw new IOException("Blob not found: " + contentId);
+        }
+        return Files.newInputStream(path);
+    }
+
+    /**
+     * Read-only channel over plaintext bytes [offset, offset + length) of a blob. Only the
+     * cipher blocks covering what is read are decrypted, so a viewer can seek in a large
+     * file without decrypting it first. The whole-file checksum is not checked.
+     */
+    public SeekableByteChannel openRange(String contentId, SecretKey key, long offset, long length) throws Exception {
+        FileChannel channel;
+        BlobRow row;
+        synchronized (LOCK) {
+            row = findBlob(contentId);
+            if (row == null) {
+                throw new IOException("Blob not found: " + contentId);
+            }
+            // Opened under the lock: compaction deletes a segment only after moving its blobs,
+            // and an open channel keeps reading the old copy
+            Path path = row.isPacked() ? packs.segmentPath(row.packSegmentId) : pathFor(contentId);
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+        return aesCipher.decryptingChannel(channel, row.isPacked() ? row.packOffset : 0,
+                row.originalSize, offset, length, key);
+    }
+
+    /**
+     * Decrypt a blob to a file, checking it against the plaintext SHA-256 recorded when it was stored.
+     * On a mismatch the partial output is deleted and a SecurityException thrown.
+     */
+    public void extract(String contentId, SecretKey key, Path destination, String checksum) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try (InputStream in = open(contentId, key);
+             OutputStream out = Files.newOutputStream(destination)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+        }
+
+        if (!Base64.getEncoder().encodeToString(digest.digest()).equals(checksum)) {
+            Files.deleteIfExists(destination);
+            throw new SecurityException("File integrity check failed");
+        }
+    }
+
+    /**
+     * Delete a blob if nothing references it any more; call after deleting a referencing row.
+     * A blob still pinned by a store is kept. Returns whether the blob was deleted.
+     */
+    public boolean release(String contentId) throws SQLException, IOException {
+        synchronized (LOCK) {
+            if (PENDING.containsKey(contentId)) {
+                return false;
+            }
+            BlobRow row = findBlob(contentId);
+            String sql = "DELETE FROM file_blobs WHERE content_id = ? AND ref_count <= 0";
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, contentId);
+                if (stmt.executeUpdate() == 0) {
+                    return false;
+                }
+            }
+            if (row != null && row.isPacked()) {
+                // Its bytes stay in the segment until the segment is compacted
+                scheduleCompaction();
+            } else {
+                Files.deleteIfExists(pathFor(contentId));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Delete every blob without references and not pinned by a store, e.g. after a vault was
+     * deleted with its files or a crash between storing a file and committing its row.
+     * Returns the number of blobs deleted.
+     */
+    public int purgeUnreferenced() throws SQLException, IOException {
+        synchronized (LOCK) {
+            List<String> unreferenced = new ArrayList<>();
+            try (Connection conn = dbManager.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT content_id FROM file_blobs WHERE ref_count <= 0")) {
+                while (rs.next()) {
+                    unreferenced.add(rs.getString(1));
+                }
+            }
+
+            int deleted = 0;
+            for (String contentId : unreferenced) {
+                if (release(contentId)) {
+                    deleted++;
+                }
+            }
+            if (deleted > 0) {
+                System.out.println("🗑️ Deleted " + deleted + " unreferenced blobs");
+            }
+            return deleted;
+        }
+    }
+
+    /**
+     * Rewrite pack segments that are mostly dead space: their live blobs are copied to the
+     * active segment and the segment is deleted. Blobs are moved in small chunks, each under
+     * the lock, so stores and reads wait for at most one chunk. Returns the number of
+     * segments deleted.
+     */
+    public int compactPacks() throws SQLException, IOException {
+        long activeSegment = packs.getActiveSegmentId();
+        Map<Long, Long> liveBytes = liveBytesBySegment();
+
+        int deleted = 0;
+        long reclaimed = 0;
+        for (long segmentId : packs.listSegments()) {
+            long size = packs.segmentSize(segmentId);
+            long live = liveBytes.getOrDefault(segmentId, 0L);
+            if (segmentId == activeSegment || live >= size * COMPACT_LIVE_RATIO && live > 0) {
+                continue;
+            }
+
+            moveLiveBlobs(segmentId);
+            synchronized (LOCK) {
+                if (findPackedIds(segmentId, 1).isEmpty()) {
+                    packs.deleteSegment(segmentId);
+                    deleted++;
+                    reclaimed += size - live;
+                }
+            }
+        }
+
+        if (deleted > 0) {
+            System.out.println("🗑️ Compacted " + deleted + " pack segments, " + reclaimed / 1024 + " KB reclaimed");
+        }
+        return deleted;
+    }
+
+    private void moveLiveBlobs(long segmentId) throws SQLException, IOException {
+        while (true) {
+            synchronized (LOCK) {
+                List<String> contentIds = findPackedIds(segmentId, COMPACT_CHUNK);
+                if (contentIds.isEmpty()) {
+                    return;
+                }
+
+                Map<String, PackFileStore.PackLocation> moved = new LinkedHashMap<>();
+                for (String contentId : contentIds) {
+                    BlobRow row = findBlob(contentId);
+                    byte[] data = packs.read(row.packSegmentId, row.packOffset, (int) row.storedSize);
+                    moved.put(contentId, packs.append(data, false));
+                }
+                // The new copies must be on disk before the index stops pointing at the old ones
+                packs.force();
+
+                String sql = "UPDATE file_blobs SET pack_segment_id = ?, pack_offset = ? WHERE content_id = ?";
+                try (Connection conn = dbManager.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (Map.Entry<String, PackFileStore.PackLocation> entry : moved.entrySet()) {
+                        stmt.setLong(1, entry.getValue().segmentId);
+                        stmt.setLong(2, entry.getValue().offset);
+                        stmt.setString(3, entry.getKey());
+                        stmt.executeUpdate();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Compact in the background; releases while a compaction is queued share it
+     */
+    private void scheduleCompaction() {
+        if (compactionPending.compareAndSet(false, true)) {
+            COMPACTOR.execute(() -> {
+                compactionPending.set(false);
+                try {
+                    compactPacks();
+                } catch (Exception e) {
+                    System.err.println("⚠️ Pack compaction failed: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Recount references from the rows themselves. Needed after rows were written without
+     * the counting triggers running once per reference, e.g. by a change journal replay.
+     */
+    public static void recountReferences(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("""
+                UPDATE file_blobs SET ref_count =
+                    (SELECT COUNT(*) FROM encrypted_files WHERE content_id = file_blobs.content_id) +
+                    (SELECT COUNT(*) FROM note_attachments WHERE content_id = file_blobs.content_id)
+                """);
+        }
+    }
+
+    public Path pathFor(String contentId) {
+        return blobDir.resolve(contentId.substring(0, 2)).resolve(contentId + ".enc");
+    }
+
+    private Mac contentMac(SecretKey key) throws Exception {
+        Mac kdf = Mac.getInstance(ALGORITHM);
+        kdf.init(new SecretKeySpec(key.getEncoded(), ALGORITHM));
+        byte[] contentKey = kdf.doFinal(CONTENT_ID_CONTEXT);
+
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(new SecretKeySpec(contentKey, ALGORITHM));
+        Arrays.fill(contentKey, (byte) 0);
+        return mac;
+    }
+
+    /**
+     * Where a blob is stored, from its file_blobs row
+     */
+    private static class BlobRow {
+        long originalSize;
+        long storedSize;
+        Long packSegmentId;
+        long packOffset;
+
+        boolean isPacked() {
+            return packSegmentId != null;
+        }
+    }
+
+    private BlobRow findBlob(String contentId) throws SQLException {
+        String sql = "SELECT original_size, stored_size, pack_segment_id, pack_offset FROM file_blobs WHERE content_id = ?";
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, contentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                BlobRow row = new BlobRow();
+                row.originalSize = rs.getLong("original_size");
+                row.storedSize = rs.getLong("stored_size");
+                long segmentId = rs.getLong("pack_segment_id");
+                row.packSegmentId = rs.wasNull() ? null : segmentId;
+                row.packOffset = rs.getLong("pack_offset");
+                return row;
+            }
+        }
+    }
+
+    private List<String> findPackedIds(long segmentId, int limit) throws SQLException {
+        String sql = "SELECT content_id FROM file_blobs WHERE pack_segment_id = ? LIMIT ?";
+        List<String> contentIds = new ArrayList<>();
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, segmentId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    contentIds.add(rs.getString(1));
+                }
+            }
+        }
+        return contentIds;
+    }
+
+    private Map<Long, Long> liveBytesBySegment() throws SQLException {
+        Map<Long, Long> liveBytes = new HashMap<>();
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("""
+                 SELECT pack_segment_id, SUM(stored_size) FROM file_blobs
+                 WHERE pack_segment_id IS NOT NULL GROUP BY pack_segment_id
+                 """)) {
+            while (rs.next()) {
+                liveBytes.put(rs.getLong(1), rs.getLong(2));
+            }
+        }
+        return liveBytes;
+    }
+
+    private void saveBlob(StoredBlob blob, PackFileStore.PackLocation location) throws SQLException {
+        // A row left behind without its data (e.g. removed by hand) is reused as is
+        String sql = """
+            INSERT INTO file_blobs (content_id, original_size, stored_size, stored_checksum,
+                                    pack_segment_id, pack_offset)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT(content_id) DO UPDATE SET stored_size = excluded.stored_size,
+                                                  stored_checksum = excluded.stored_checksum,
+                                                  pack_segment_id = excluded.pack_segment_id,
+                                                  pack_offset = excluded.pack_offset
+            """;
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, blob.contentId);
+            stmt.setLong(2, blob.originalSize);
+            stmt.setLong(3, blob.storedSize);
+            stmt.setString(4, blob.storedChecksum);
+            stmt.setObject(5, location != null ? location.segmentId : null);
+            stmt.setObject(6, location != null ? location.offset : null);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static byte[] readIv(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return in.readNBytes(IV_LENGTH);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.passman.core.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store of (already encrypted) chunks.
+ *
+ * Each chunk is a file named by its id under a two-character fan-out directory.
+ * chunks.idx lists "id storedSize" for every chunk; it is appended to on every put,
+ * rewritten by sweep and rebuilt from the directory when missing.
+ */
+public class ChunkStore {
+
+    private static final String INDEX_FILE = "chunks.idx";
+
+    private final Path chunkDir;
+    private final Path indexFile;
+    private final Map<String, Long> index = new HashMap<>();
+    private long storedBytes;
+
+    public ChunkStore(Path chunkDir) throws IOException {
+        this.chunkDir = chunkDir;
+        this.indexFile = chunkDir.resolve(INDEX_FILE);
+        Files.createDirectories(chunkDir);
+        loadIndex();
+    }
+
+    private void loadIndex() throws IOException {
+        if (Files.exists(indexFile)) {
+            for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+                String[] parts = line.split(" ");
+                // Entries whose file is gone (e.g. removed by hand) must not be deduplicated against
+                if (parts.length == 2 && Files.exists(pathFor(parts[0]))) {
+                    addToIndex(parts[0], Long.parseLong(parts[1]));
+                }
+            }
+            return;
+        }
+
+        try (Stream<Path> files = Files.walk(chunkDir, 2)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (Files.isRegularFile(file) && isChunkId(name)) {
+                    addToIndex(name, Files.size(file));
+                }
+            }
+        }
+        rewriteIndex();
+    }
+
+    public synchronized boolean contains(String chunkId) {
+        return index.containsKey(chunkId);
+    }
+
+    /**
+     * Store a chunk unless it is already present; returns whether it was added
+     */
+    public synchronized boolean put(String chunkId, byte[] data) throws IOException {
+        if (index.containsKey(chunkId)) {
+            return false;
+        }
+
+        Path target = pathFor(chunkId);
+        Files.createDirectories(target.getParent());
+
+        Path temp = target.resolveSibling(chunkId + ".tmp");
+        Files.write(temp, data);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Files.writeString(indexFile, chunkId + " " + data.length + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        addToIndex(chunkId, data.length);
+        return true;
+    }
+
+    public byte[] read(String chunkId) throws IOException {
+        return Files.readAllBytes(pathFor(chunkId));
+    }
+
+    /**
+     * Delete every chunk not in the live set; returns the number of chunks removed
+     */
+    public synchronized int sweep(Set<String> liveChunkIds) throws IOException {
+        int removed = 0;
+        Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (!liveChunkIds.contains(entry.getKey())) {
+                Files.deleteIfExists(pathFor(entry.getKey()));
+                storedBytes -= entry.getValue();
+                iterator.remove();
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            rewriteIndex();
+        }
+        return removed;
+    }
+
+    public synchronized int getChunkCount() {
+        return index.size();
+    }
+
+    public synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    private void addToIndex(String chunkId, long size) {
+        if (index.put(chunkId, size) == null) {
+            storedBytes += size;
+        }
+    }
+
+    private void rewriteIndex() throws IOException {
+        Path temp = chunkDir.resolve(INDEX_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Long> entry : index.entrySet()) {
+                writer.write(entry.getKey() + " " + entry.getValue());
+                writer.newLine();
+            }
+        }
+        Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path pathFor(String chunkId) {
+        if (!isChunkId(chunkId)) {
+            throw new IllegalArgumentException("Invalid chunk id: " + chunkId);
+        }
+        return chunkDir.resolve(chunkId.substring(0, 2)).resolve(chunkId);
+    }
+
+    static boolean isChunkId(String name) {
+        if (name.length() != 64) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
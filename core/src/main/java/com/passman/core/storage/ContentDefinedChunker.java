@@ -0,0 +1,134 @@
+package com.passman.core.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.SplittableRandom;
+
+/**
+ * Content-defined chunking with a gear rolling hash (FastCDC).
+ *
+ * Chunk boundaries depend on the bytes around them rather than on offsets, so inserting
+ * or removing data only changes the chunks next to the edit and every other chunk is
+ * found again by the deduplicating store. Normalized chunking uses a stricter mask before
+ * the average size and a looser one after it, which keeps chunk sizes close to the average.
+ */
+public class ContentDefinedChunker {
+
+    public static final int DEFAULT_MIN_SIZE = 16 * 1024;
+    public static final int DEFAULT_AVG_SIZE = 64 * 1024;
+    public static final int DEFAULT_MAX_SIZE = 256 * 1024;
+
+    // Fixed table so boundaries are stable across runs and versions
+    private static final long[] GEAR = new long[256];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x504153534D414EL);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    private final int minSize;
+    private final int avgSize;
+    private final int maxSize;
+    private final long maskStrict;
+    private final long maskLoose;
+
+    /**
+     * Receives each chunk; the buffer is reused after the call returns
+     */
+    @FunctionalInterface
+    public interface ChunkConsumer {
+        void accept(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    public ContentDefinedChunker() {
+        this(DEFAULT_MIN_SIZE, DEFAULT_AVG_SIZE, DEFAULT_MAX_SIZE);
+    }
+
+    public ContentDefinedChunker(int minSize, int avgSize, int maxSize) {
+        if (minSize <= 0 || minSize >= avgSize || avgSize >= maxSize) {
+            throw new IllegalArgumentException("Chunk sizes must satisfy 0 < min < avg < max");
+        }
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        this.maxSize = maxSize;
+
+        int bits = 63 - Long.numberOfLeadingZeros(avgSize);
+        this.maskStrict = highBits(bits + 1);
+        this.maskLoose = highBits(bits - 1);
+    }
+
+    /**
+     * The high bits of the gear hash depend on the last 64 bytes; the low bits only on the last few
+     */
+    private static long highBits(int count) {
+        return count <= 0 ? 0 : -1L << (64 - count);
+    }
+
+    /**
+     * Split the stream into chunks. Memory use is bounded by twice the maximum chunk size.
+     */
+    public void split(InputStream in, ChunkConsumer consumer) throws IOException {
+        byte[] buffer = new byte[maxSize * 2];
+        int start = 0;
+        int end = 0;
+        boolean eof = false;
+
+        while (true) {
+            // Keep at least one maximum-size chunk buffered, so a cut at the end means end of stream
+            if (!eof && end - start < maxSize) {
+                if (start > 0) {
+                    System.arraycopy(buffer, start, buffer, 0, end - start);
+                    end -= start;
+                    start = 0;
+                }
+                while (end < buffer.length) {
+                    int read = in.read(buffer, end, buffer.length - end);
+                    if (read == -1) {
+                        eof = true;
+                        break;
+                    }
+                    end += read;
+                }
+            }
+
+            if (start == end) {
+                return;
+            }
+
+            int length = findBoundary(buffer, start, end - start);
+            consumer.accept(buffer, start, length);
+            start += length;
+        }
+    }
+
+    private int findBoundary(byte[] data, int offset, int available) {
+        if (available <= minSize) {
+            return available;
+        }
+
+        int limit = Math.min(available, maxSize);
+        int normal = Math.min(limit, avgSize);
+        long hash = 0;
+        int i = minSize;
+
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[data[offset + i] & 0xFF];
+            if ((hash & maskStrict) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < limit; i++) {
+            hash = (hash << 1) + GEAR[data[offset + i] & 0xFF];
+            if ((hash & maskLoose) == 0) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    public int getMinSize() { return minSize; }
+    public int getAvgSize() { return avgSize; }
+    public int getMaxSize() { return maxSize; }
+}
@@ -0,0 +1,338 @@
+package com.passman.core.storage;
+
+import com.google.gson.Gson;
+import com.passman.core.crypto.AESCipher;
+import com.passman.core.crypto.CipherFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Deduplicating backup repository.
+ *
+ * Files are split with content-defined chunking; each chunk is identified by a keyed
+ * hash of its plaintext (HMAC with a key derived from the master key, so ids reveal
+ * nothing without it), then compressed, encrypted and stored once in the ChunkStore.
+ * A snapshot is an encrypted manifest listing every file as chunk ids, plus a plain
+ * .refs file with just the ids so garbage collection works without the master key.
+ * Files whose size and modification time match the previous snapshot are not re-read.
+ */
+public class DedupBackupStore {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte[] CHUNK_ID_CONTEXT = "passman-backup-chunk-id-v1".getBytes(StandardCharsets.UTF_8);
+
+    public static final String MANIFEST_SUFFIX = ".manifest";
+    private static final String REFS_SUFFIX = ".refs";
+
+    private final ChunkStore chunkStore;
+    private final Path snapshotDir;
+    private final ContentDefinedChunker chunker;
+    private final AESCipher aesCipher;
+    private final Gson gson;
+
+    public DedupBackupStore(Path rootDir) throws IOException {
+        this.chunkStore = new ChunkStore(rootDir.resolve("chunks"));
+        this.snapshotDir = rootDir.resolve("snapshots");
+        this.chunker = new ContentDefinedChunker();
+        this.aesCipher = CipherFactory.createAESCipher();
+        this.gson = new Gson();
+        Files.createDirectories(snapshotDir);
+    }
+
+    public static class SnapshotResult {
+        public Path manifestPath;
+        public int fileCount;
+        public long totalBytes;
+        public int newChunks;
+        public int reusedChunks;
+        public long newStoredBytes;
+
+        @Override
+        public String toString() {
+            return String.format("%d files, %d bytes: %d new chunks (%d bytes stored), %d reused",
+                    fileCount, totalBytes, newChunks, newStoredBytes, reusedChunks);
+        }
+    }
+
+    /**
+     * Store a snapshot of the given files, keyed by their path inside the snapshot
+     */
+    public SnapshotResult createSnapshot(String name, String description,
+                                         Map<String, Path> files, SecretKey masterKey) throws Exception {
+        return createSnapshot(name, description, files, masterKey, null);
+    }
+
+    /**
+     * Store a snapshot, reading changed files no faster than the throttle allows (null for no limit)
+     */
+    public synchronized SnapshotResult createSnapshot(String name, String description, Map<String, Path> files,
+                                                      SecretKey masterKey, IoThrottle throttle) throws Exception {
+        Mac chunkIdMac = createChunkIdMac(masterKey);
+        Map<String, SnapshotManifest.Entry> previous = loadLatestEntries(masterKey);
+
+        SnapshotManifest manifest = new SnapshotManifest();
+        manifest.setCreatedAt(LocalDateTime.now().toString());
+        manifest.setDescription(description);
+
+        SnapshotResult result = new SnapshotResult();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            for (Map.Entry<String, Path> file : files.entrySet()) {
+                Path source = file.getValue();
+                SnapshotManifest.Entry entry = new SnapshotManifest.Entry(file.getKey(),
+                        Files.size(source), Files.getLastModifiedTime(source).toMillis());
+
+                SnapshotManifest.Entry unchanged = previous.get(file.getKey());
+                if (unchanged != null && unchanged.getSize() == entry.getSize()
+                        && unchanged.getLastModified() == entry.getLastModified()
+                        && allStored(unchanged.getChunks())) {
+                    entry.setChunks(new ArrayList<>(unchanged.getChunks()));
+                    result.reusedChunks += unchanged.getChunks().size();
+                } else {
+                    try (InputStream in = Files.newInputStream(source)) {
+                        chunker.split(in, (buffer, offset, length) -> {
+                            if (throttle != null) {
+                                throttle.acquire(length);
+                            }
+                            String chunkId = chunkId(chunkIdMac, buffer, offset, length);
+                            if (chunkStore.contains(chunkId)) {
+                                result.reusedChunks++;
+                            } else {
+                                byte[] stored = encryptChunk(buffer, offset, length, deflater, masterKey);
+                                chunkStore.put(chunkId, stored);
+                                result.newChunks++;
+                                result.newStoredBytes += stored.length;
+                            }
+                            entry.getChunks().add(chunkId);
+                        });
+                    }
+                }
+
+                manifest.getEntries().add(entry);
+                result.fileCount++;
+                result.totalBytes += entry.getSize();
+            }
+        } finally {
+            deflater.end();
+        }
+
+        // References first: a manifest must never exist without them, or GC would drop its chunks
+        Set<String> refs = new TreeSet<>();
+        for (SnapshotManifest.Entry entry : manifest.getEntries()) {
+            refs.addAll(entry.getChunks());
+        }
+        writeAtomically(snapshotDir.resolve(name + REFS_SUFFIX),
+                String.join("\n", refs).getBytes(StandardCharsets.UTF_8));
+
+        byte[] manifestJson = gson.toJson(manifest).getBytes(StandardCharsets.UTF_8);
+        result.manifestPath = snapshotDir.resolve(name + MANIFEST_SUFFIX);
+        writeAtomically(result.manifestPath, aesCipher.encryptBytes(manifestJson, masterKey));
+
+        System.out.println("✅ Snapshot " + name + ": " + result);
+        return result;
+    }
+
+    public SnapshotManifest readManifest(Path manifestPath, SecretKey masterKey) throws Exception {
+        byte[] json = aesCipher.decryptBytes(Files.readAllBytes(manifestPath), masterKey);
+        return gson.fromJson(new String(json, StandardCharsets.UTF_8), SnapshotManifest.class);
+    }
+
+    /**
+     * Rebuild the files of a snapshot. targetResolver maps a snapshot path to the file to
+     * write, or null to skip it. Every chunk is checked against its keyed id, and each file
+     * is written to a temporary file first and moved into place when complete.
+     */
+    public synchronized int restoreSnapshot(Path manifestPath, SecretKey masterKey,
+                                            Function<String, Path> targetResolver) throws Exception {
+        SnapshotManifest manifest = readManifest(manifestPath, masterKey);
+        Mac chunkIdMac = createChunkIdMac(masterKey);
+        int restored = 0;
+
+        for (SnapshotManifest.Entry entry : manifest.getEntries()) {
+            Path target = targetResolver.apply(entry.getPath());
+            if (target == null) {
+                continue;
+            }
+
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            Path temp = target.resolveSibling(target.getFileName() + ".restore-tmp");
+            long written = 0;
+
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    for (String chunkId : entry.getChunks()) {
+                        byte[] data = decryptChunk(chunkStore.read(chunkId), masterKey);
+                        if (!chunkId.equals(chunkId(chunkIdMac, data, 0, data.length))) {
+                            throw new IOException("Chunk " + chunkId + " of " + entry.getPath() + " is corrupted");
+                        }
+                        out.write(data);
+                        written += data.length;
+                    }
+                }
+                if (written != entry.getSize()) {
+                    throw new IOException("Restored size of " + entry.getPath() + " does not match the snapshot");
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                restored++;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Remove a snapshot and every chunk no other snapshot refers to
+     */
+    public synchronized int deleteSnapshot(Path manifestPath) throws IOException {
+        String fileName = manifestPath.getFileName().toString();
+        String name = fileName.endsWith(MANIFEST_SUFFIX)
+                ? fileName.substring(0, fileName.length() - MANIFEST_SUFFIX.length())
+                : fileName;
+
+        Files.deleteIfExists(manifestPath);
+        Files.deleteIfExists(snapshotDir.resolve(name + REFS_SUFFIX));
+        return collectGarbage();
+    }
+
+    /**
+     * Mark every chunk referenced by a snapshot, sweep the rest. Returns chunks removed.
+     */
+    public synchronized int collectGarbage() throws IOException {
+        Set<String> live = new HashSet<>();
+        try (Stream<Path> files = Files.list(snapshotDir)) {
+            for (Path refsFile : (Iterable<Path>) files::iterator) {
+                if (refsFile.getFileName().toString().endsWith(REFS_SUFFIX)) {
+                    for (String line : Files.readAllLines(refsFile, StandardCharsets.UTF_8)) {
+                        if (ChunkStore.isChunkId(line)) {
+                            live.add(line);
+                        }
+                    }
+                }
+            }
+        }
+
+        int removed = chunkStore.sweep(live);
+        if (removed > 0) {
+            System.out.println("🗑️ Removed " + removed + " unreferenced backup chunks");
+        }
+        return removed;
+    }
+
+    public int getChunkCount() {
+        return chunkStore.getChunkCount();
+    }
+
+    public long getStoredBytes() {
+        return chunkStore.getStoredBytes();
+    }
+
+    /**
+     * Entries of the newest snapshot, or none if it cannot be read (e.g. after a master password change)
+     */
+    private Map<String, SnapshotManifest.Entry> loadLatestEntries(SecretKey masterKey) throws IOException {
+        List<Path> manifests = new ArrayList<>();
+        try (Stream<Path> files = Files.list(snapshotDir)) {
+            files.filter(p -> p.getFileName().toString().endsWith(MANIFEST_SUFFIX)).forEach(manifests::add);
+        }
+        if (manifests.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        manifests.sort(Collections.reverseOrder());
+        Map<String, SnapshotManifest.Entry> entries = new HashMap<>();
+        try {
+            for (SnapshotManifest.Entry entry : readManifest(manifests.get(0), masterKey).getEntries()) {
+                entries.put(entry.getPath(), entry);
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Previous snapshot unreadable, all files will be chunked: " + e.getMessage());
+            return Collections.emptyMap();
+        }
+        return entries;
+    }
+
+    private boolean allStored(List<String> chunkIds) {
+        for (String chunkId : chunkIds) {
+            if (!chunkStore.contains(chunkId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Mac createChunkIdMac(SecretKey masterKey) throws Exception {
+        Mac kdf = Mac.getInstance(ALGORITHM);
+        kdf.init(new SecretKeySpec(masterKey.getEncoded(), ALGORITHM));
+        byte[] idKey = kdf.doFinal(CHUNK_ID_CONTEXT);
+
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(new SecretKeySpec(idKey, ALGORITHM));
+        Arrays.fill(idKey, (byte) 0);
+        return mac;
+    }
+
+    private static String chunkId(Mac mac, byte[] data, int offset, int length) {
+        mac.update(data, offset, length);
+        return HexFormat.of().formatHex(mac.doFinal());
+    }
+
+    private byte[] encryptChunk(byte[] data, int offset, int length, Deflater deflater, SecretKey masterKey)
+            throws IOException {
+        deflater.reset();
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+        byte[] buffer = new byte[16 * 1024];
+        while (!deflater.finished()) {
+            int count = deflater.deflate(buffer);
+            compressed.write(buffer, 0, count);
+        }
+
+        try {
+            return aesCipher.encryptBytes(compressed.toByteArray(), masterKey);
+        } catch (Exception e) {
+            throw new IOException("Failed to encrypt backup chunk", e);
+        }
+    }
+
+    private byte[] decryptChunk(byte[] stored, SecretKey masterKey) throws Exception {
+        byte[] compressed = aesCipher.decryptBytes(stored, masterKey);
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static void writeAtomically(Path target, byte[] data) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(temp, data);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,733 @@
+package com.passman.core.storage;
+
+import com.passman.core.db.DatabaseManager;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies stored file data in the background, so corruption is found before a download fails.
+ *
+ * A pass walks every blob (packed blobs are read from their segment) and every vault file and note attachment stored outside the blob
+ * store, and compares the SHA-256 of the encrypted file with the checksum recorded when it was
+ * written. No key is needed. Objects written before checksums were recorded get a baseline on
+ * their first check and are verified against it afterwards; until then only their size and
+ * cipher block layout are checked.
+ *
+ * Files are hashed by two low-priority workers sharing one IoThrottle, and a pass only runs
+ * while the user is idle. The position is saved after every batch, so a pass interrupted by
+ * activity or a restart resumes where it stopped. Results are kept in blob_health.
+ *
+ * A new pass first deletes blobs that nothing references (BlobStore.purgeUnreferenced), e.g.
+ * those left by a crash between storing a file and committing its row.
+ */
+public class IntegrityScrubber {
+
+    public static final String STATUS_OK = "OK";
+    public static final String STATUS_CORRUPT = "CORRUPT";
+    public static final String STATUS_MISSING = "MISSING";
+
+    public static final String TYPE_BLOB = "BLOB";
+    public static final String TYPE_VAULT_FILE = "VAULT_FILE";
+    public static final String TYPE_ATTACHMENT = "ATTACHMENT";
+    private static final String[] OBJECT_TYPES = {TYPE_BLOB, TYPE_VAULT_FILE, TYPE_ATTACHMENT};
+
+    private static final long TICK_SECONDS = 60;
+    private static final long IDLE_THRESHOLD_MS = 60_000;
+    private static final int BATCH_SIZE = 32;
+    private static final int WORKERS = 2;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int IV_LENGTH = 16;
+    private static final int BLOCK_SIZE = 16;
+
+    private static volatile IntegrityScrubber instance;
+
+    private final DatabaseManager dbManager;
+    private final Path storagePath;
+    private ScheduledExecutorService executor;
+
+    private volatile long lastActivityMillis = System.currentTimeMillis();
+    private volatile boolean cancelRequested;
+
+    // Written only by the scrubber thread
+    private volatile String currentTask = "Idle";
+    private volatile boolean running;
+    private volatile LocalDateTime passStartedAt;
+    private volatile LocalDateTime lastCompletedAt;
+    private volatile long objectsScanned;
+    private volatile long bytesScanned;
+    private volatile boolean lastPassCancelled;
+    private volatile String lastError;
+
+    IntegrityScrubber(DatabaseManager dbManager, Path storagePath) {
+        this.dbManager = dbManager;
+        this.storagePath = storagePath;
+    }
+
+    public static IntegrityScrubber getInstance() {
+        if (instance == null) {
+            synchronized (IntegrityScrubber.class) {
+                if (instance == null) {
+                    instance = new IntegrityScrubber(DatabaseManager.getInstance(),
+                            Paths.get(System.getProperty("user.home"), ".passman"));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start scrubbing during idle periods in the background
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = createExecutor();
+        executor.scheduleWithFixedDelay(this::idleTick, TICK_SECONDS, TICK_SECONDS, TimeUnit.SECONDS);
+        System.out.println("✅ Integrity scrubber started");
+    }
+
+    public synchronized boolean isStarted() {
+        return executor != null;
+    }
+
+    /**
+     * Stop the running pass after the files being checked and stop the scrubber
+     */
+    public void stop() {
+        ScheduledExecutorService toStop;
+        synchronized (this) {
+            toStop = executor;
+            executor = null;
+        }
+        if (toStop == null) {
+            return;
+        }
+
+        cancel();
+        toStop.shutdownNow();
+        try {
+            toStop.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("✅ Integrity scrubber stopped");
+    }
+
+    /**
+     * Continue the current pass, or start a new one, without waiting for the app to become idle.
+     * Reads are still rate-limited.
+     */
+    public CompletableFuture<ScrubStatus> runNow() {
+        ScheduledExecutorService target;
+        synchronized (this) {
+            if (executor == null) {
+                executor = createExecutor();
+            }
+            target = executor;
+        }
+
+        CompletableFuture<ScrubStatus> future = new CompletableFuture<>();
+        target.execute(() -> {
+            runPass(true);
+            if (lastError != null) {
+                future.completeExceptionally(new SQLException(lastError));
+            } else {
+                future.complete(getStatus());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Stop the running pass; its position is kept
+     */
+    public void cancel() {
+        cancelRequested = true;
+    }
+
+    /**
+     * Record user activity; idle-time scrubbing yields to the user
+     */
+    public void recordActivity() {
+        lastActivityMillis = System.currentTimeMillis();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public ScrubStatus getStatus() {
+        ScrubStatus status = new ScrubStatus();
+        status.running = running;
+        status.currentTask = currentTask;
+        status.passStartedAt = passStartedAt;
+        status.lastCompletedAt = lastCompletedAt;
+        status.objectsScanned = objectsScanned;
+        status.bytesScanned = bytesScanned;
+        status.lastPassCancelled = lastPassCancelled;
+        status.lastError = lastError;
+        return status;
+    }
+
+    /**
+     * Objects whose last check found them corrupt or missing, newest first, with the name
+     * of a file or attachment stored in them
+     */
+    public List<HealthRecord> getProblems() throws SQLException {
+        String sql = """
+            SELECT h.*, COALESCE(
+                (SELECT f.original_file_name FROM encrypted_files f
+                 WHERE (h.object_type = 'VAULT_FILE' AND f.id = h.object_id)
+                    OR (h.object_type = 'BLOB' AND f.content_id = b.content_id) LIMIT 1),
+                (SELECT a.original_file_name FROM note_attachments a
+                 WHERE (h.object_type = 'ATTACHMENT' AND a.id = h.object_id)
+                    OR (h.object_type = 'BLOB' AND a.content_id = b.content_id) LIMIT 1)) AS file_name
+            FROM blob_health h
+            LEFT JOIN file_blobs b ON h.object_type = 'BLOB' AND b.id = h.object_id
+            WHERE h.status <> 'OK'
+            ORDER BY h.checked_at DESC
+            """;
+
+        List<HealthRecord> problems = new ArrayList<>();
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                HealthRecord record = new HealthRecord();
+                record.objectType = rs.getString("object_type");
+                record.objectId = rs.getLong("object_id");
+                record.filePath = rs.getString("file_path");
+                record.status = rs.getString("status");
+                record.detail = rs.getString("detail");
+                record.fileName = rs.getString("file_name");
+                record.checkedAt = rs.getObject("checked_at", LocalDateTime.class);
+                problems.add(record);
+            }
+        }
+        return problems;
+    }
+
+    private ScheduledExecutorService createExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "passman-scrubber");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    private void idleTick() {
+        if (isIdle()) {
+            runPass(false);
+        }
+    }
+
+    private boolean isIdle() {
+        return System.currentTimeMillis() - lastActivityMillis >= IDLE_THRESHOLD_MS;
+    }
+
+    private boolean shouldContinue(boolean forced) {
+        return !cancelRequested && !Thread.currentThread().isInterrupted() && (forced || isIdle());
+    }
+
+    void runPass(boolean forced) {
+        cancelRequested = false;
+        lastError = null;
+
+        ExecutorService workers = null;
+        try (Connection conn = dbManager.openConnection()) {
+            ScrubState state = loadState(conn);
+            lastCompletedAt = state.passCompletedAt;
+            if (state.cursorType == null) {
+                if (!forced && !isDue(state)) {
+                    return;
+                }
+                running = true;
+                currentTask = "Deleting unreferenced blobs";
+                new BlobStore(storagePath.resolve(BlobStore.DIRECTORY), dbManager).purgeUnreferenced();
+
+                state.cursorType = OBJECT_TYPES[0];
+                state.cursorId = 0;
+                state.passStartedAt = LocalDateTime.now();
+                state.bytesScanned = 0;
+                state.objectsScanned = 0;
+                saveState(conn, state);
+                System.out.println("🔄 Integrity scrub started");
+            }
+
+            running = true;
+            passStartedAt = state.passStartedAt;
+            IoThrottle throttle = state.maxBytesPerSecond > 0 ? new IoThrottle(state.maxBytesPerSecond) : null;
+            workers = Executors.newFixedThreadPool(WORKERS, runnable -> {
+                Thread thread = new Thread(runnable, "passman-scrubber-worker");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+
+            int typeIndex = List.of(OBJECT_TYPES).indexOf(state.cursorType);
+            while (typeIndex < OBJECT_TYPES.length && shouldContinue(forced)) {
+                currentTask = "Checking " + describe(state.cursorType).toLowerCase() + "s";
+                List<ScrubTarget> batch = loadBatch(conn, state.cursorType, state.cursorId);
+                if (batch.isEmpty()) {
+                    typeIndex++;
+                    state.cursorType = typeIndex < OBJECT_TYPES.length ? OBJECT_TYPES[typeIndex] : null;
+                    state.cursorId = 0;
+                    if (state.cursorType != null) {
+                        saveState(conn, state);
+                    }
+                    continue;
+                }
+
+                List<Future<HealthRecord>> results = new ArrayList<>();
+                for (ScrubTarget target : batch) {
+                    results.add(workers.submit(verifier(target, throttle, forced)));
+                }
+
+                // Only the checked prefix of the batch moves the position, so nothing is skipped
+                List<HealthRecord> checked = new ArrayList<>();
+                for (Future<HealthRecord> result : results) {
+                    HealthRecord record = result.get();
+                    if (record == null) {
+                        break;
+                    }
+                    checked.add(record);
+                }
+                for (HealthRecord record : checked) {
+                    state.cursorId = record.objectId;
+                    state.objectsScanned++;
+                    state.bytesScanned += Math.max(0, record.actualSize);
+                }
+                saveResults(conn, checked);
+                saveState(conn, state);
+                objectsScanned = state.objectsScanned;
+                bytesScanned = state.bytesScanned;
+            }
+
+            if (state.cursorType == null) {
+                completePass(conn, state);
+            }
+            lastPassCancelled = state.cursorType != null;
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            if (cancelRequested || cause instanceof InterruptedIOException || cause instanceof InterruptedException) {
+                lastPassCancelled = true;
+                System.out.println("ℹ️ Integrity scrub paused");
+            } else {
+                lastError = cause.getMessage();
+                System.err.println("❌ Integrity scrub failed: " + cause.getMessage());
+            }
+        } finally {
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+            currentTask = "Idle";
+            running = false;
+        }
+    }
+
+    private boolean isDue(ScrubState state) {
+        return state.passCompletedAt == null
+                || state.passCompletedAt.plusDays(state.intervalDays).isBefore(LocalDateTime.now());
+    }
+
+    /**
+     * Drop results of objects that were not seen in this pass, i.e. no longer exist
+     */
+    private void completePass(Connection conn, ScrubState state) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM blob_health WHERE checked_at < ?")) {
+            stmt.setObject(1, state.passStartedAt);
+            stmt.executeUpdate();
+        }
+
+        state.passCompletedAt = LocalDateTime.now();
+        saveState(conn, state);
+        lastCompletedAt = state.passCompletedAt;
+
+        int problems;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM blob_health WHERE status <> 'OK'")) {
+            problems = rs.next() ? rs.getInt(1) : 0;
+        }
+        if (problems > 0) {
+            System.err.println("⚠️ Integrity scrub finished: " + problems + " damaged or missing files");
+        } else {
+            System.out.println("✅ Integrity scrub finished: " + state.objectsScanned + " files verified");
+        }
+    }
+
+    private Callable<HealthRecord> verifier(ScrubTarget target, IoThrottle throttle, boolean forced) {
+        return () -> shouldContinue(forced) ? verify(target, throttle, forced) : null;
+    }
+
+    /**
+     * Check one object; returns null if the pass was stopped while it was being read
+     */
+    private HealthRecord verify(ScrubTarget target, IoThrottle throttle, boolean forced) throws Exception {
+        HealthRecord record = check(target, throttle, forced);
+        // A packed blob may have been moved to another segment by compaction while it was read
+        if (record != null && target.packSegmentId != null && !STATUS_OK.equals(record.status) && relocate(target)) {
+            record = check(target, throttle, forced);
+        }
+        return record;
+    }
+
+    private HealthRecord check(ScrubTarget target, IoThrottle throttle, boolean forced) throws Exception {
+        HealthRecord record = new HealthRecord();
+        record.objectType = target.objectType;
+        record.objectId = target.objectId;
+        record.filePath = target.relativePath;
+        record.checkedAt = LocalDateTime.now();
+        record.expectedChecksum = target.expectedChecksum;
+
+        Path path = storagePath.resolve(target.relativePath);
+        if (!Files.isRegularFile(path)) {
+            record.status = STATUS_MISSING;
+            record.detail = "File not found";
+            record.actualSize = -1;
+            return record;
+        }
+
+        long fileSize = Files.size(path);
+        long offset = target.packSegmentId != null ? target.packOffset : 0;
+        if (target.packSegmentId != null) {
+            record.actualSize = Math.max(0, Math.min(target.expectedSize, fileSize - offset));
+            if (record.actualSize != target.expectedSize) {
+                record.status = STATUS_CORRUPT;
+                record.detail = "Pack segment ends before the blob at offset " + offset;
+                return record;
+            }
+        } else {
+            record.actualSize = fileSize;
+            if (target.expectedSize >= 0 && record.actualSize != target.expectedSize) {
+                record.status = STATUS_CORRUPT;
+                record.detail = "Size is " + record.actualSize + " bytes, expected " + target.expectedSize;
+                return record;
+            }
+        }
+        // IV followed by at least one padded AES block
+        if (record.actualSize < IV_LENGTH + BLOCK_SIZE || (record.actualSize - IV_LENGTH) % BLOCK_SIZE != 0) {
+            record.status = STATUS_CORRUPT;
+            record.detail = "Not a whole number of cipher blocks";
+            return record;
+        }
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.position(offset);
+            long remaining = record.actualSize;
+            while (remaining > 0) {
+                if (!shouldContinue(forced)) {
+                    return null;
+                }
+                buffer.clear().limit((int) Math.min(BUFFER_SIZE, remaining));
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+                if (throttle != null) {
+                    throttle.acquire(read);
+                }
+                digest.update(buffer.array(), 0, read);
+                remaining -= read;
+            }
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (IOException e) {
+            record.status = STATUS_CORRUPT;
+            record.detail = "Read error: " + e.getMessage();
+            return record;
+        }
+        String actual = Base64.getEncoder().encodeToString(digest.digest());
+
+        if (target.expectedChecksum == null) {
+            record.status = STATUS_OK;
+            record.expectedChecksum = actual;
+            record.detail = "Baseline checksum recorded";
+        } else if (!target.expectedChecksum.equals(actual)) {
+            record.status = STATUS_CORRUPT;
+            record.detail = "Checksum mismatch";
+        } else {
+            record.status = STATUS_OK;
+        }
+        return record;
+    }
+
+    /**
+     * Reload where a packed blob is stored; returns whether it has moved
+     */
+    private boolean relocate(ScrubTarget target) throws SQLException {
+        String sql = "SELECT pack_segment_id, pack_offset FROM file_blobs WHERE id = ?";
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, target.objectId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                long segmentId = rs.getLong("pack_segment_id");
+                if (rs.wasNull() || (segmentId == target.packSegmentId && rs.getLong("pack_offset") == target.packOffset)) {
+                    return false;
+                }
+                target.packSegmentId = segmentId;
+                target.packOffset = rs.getLong("pack_offset");
+                target.relativePath = packPath(segmentId);
+                return true;
+            }
+        }
+    }
+
+    private List<ScrubTarget> loadBatch(Connection conn, String objectType, long afterId) throws SQLException {
+        String sql = switch (objectType) {
+            case TYPE_BLOB -> """
+                SELECT b.id, b.content_id, b.stored_size AS expected_size, b.pack_segment_id, b.pack_offset,
+                       COALESCE(b.stored_checksum, h.expected_checksum) AS expected_checksum
+                FROM file_blobs b
+                LEFT JOIN blob_health h ON h.object_type = 'BLOB' AND h.object_id = b.id
+                WHERE b.id > ? ORDER BY b.id LIMIT ?
+                """;
+            case TYPE_VAULT_FILE -> """
+                SELECT f.id, f.vault_id AS owner_id, f.encrypted_file_name,
+                       f.encrypted_size AS expected_size, h.expected_checksum
+                FROM encrypted_files f
+                LEFT JOIN blob_health h ON h.object_type = 'VAULT_FILE' AND h.object_id = f.id
+                WHERE f.content_id IS NULL AND f.id > ? ORDER BY f.id LIMIT ?
+                """;
+            default -> """
+                SELECT a.id, a.note_id AS owner_id, a.encrypted_file_name,
+                       -1 AS expected_size, h.expected_checksum
+                FROM note_attachments a
+                LEFT JOIN blob_health h ON h.object_type = 'ATTACHMENT' AND h.object_id = a.id
+                WHERE a.content_id IS NULL AND a.id > ? ORDER BY a.id LIMIT ?
+                """;
+        };
+
+        List<ScrubTarget> targets = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, afterId);
+            stmt.setInt(2, BATCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ScrubTarget target = new ScrubTarget();
+                    target.objectType = objectType;
+                    target.objectId = rs.getLong("id");
+                    target.expectedSize = rs.getLong("expected_size");
+                    target.expectedChecksum = rs.getString("expected_checksum");
+                    if (TYPE_BLOB.equals(objectType)) {
+                        long segmentId = rs.getLong("pack_segment_id");
+                        if (!rs.wasNull()) {
+                            target.packSegmentId = segmentId;
+                            target.packOffset = rs.getLong("pack_offset");
+                        }
+                    }
+                    target.relativePath = relativePath(objectType, rs);
+                    targets.add(target);
+                }
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Where BlobStore, FileEncryptionService and SecureNotesService keep the object, relative to the storage path
+     */
+    private static String relativePath(String objectType, ResultSet rs) throws SQLException {
+        if (TYPE_BLOB.equals(objectType)) {
+            long segmentId = rs.getLong("pack_segment_id");
+            if (!rs.wasNull()) {
+                return packPath(segmentId);
+            }
+            String contentId = rs.getString("content_id");
+            return BlobStore.DIRECTORY + "/" + contentId.substring(0, 2) + "/" + contentId + ".enc";
+        }
+        String directory = TYPE_VAULT_FILE.equals(objectType) ? "encrypted_files" : "note_attachments";
+        return directory + "/" + rs.getLong("owner_id") + "/" + rs.getString("encrypted_file_name");
+    }
+
+    private static String packPath(long segmentId) {
+        return BlobStore.DIRECTORY + "/" + PackFileStore.DIRECTORY + "/" + PackFileStore.segmentFileName(segmentId);
+    }
+
+    private void saveResults(Connection conn, List<HealthRecord> records) throws SQLException {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        String sql = """
+            INSERT INTO blob_health (object_type, object_id, file_path, status, expected_checksum,
+                                     actual_size, detail, checked_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT(object_type, object_id) DO UPDATE SET
+                file_path = excluded.file_path,
+                status = excluded.status,
+                expected_checksum = excluded.expected_checksum,
+                actual_size = excluded.actual_size,
+                detail = excluded.detail,
+                checked_at = excluded.checked_at
+            """;
+
+        conn.setAutoCommit(false);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (HealthRecord record : records) {
+                stmt.setString(1, record.objectType);
+                stmt.setLong(2, record.objectId);
+                stmt.setString(3, record.filePath);
+                stmt.setString(4, record.status);
+                stmt.setString(5, record.expectedChecksum);
+                stmt.setLong(6, record.actualSize);
+                stmt.setString(7, record.detail);
+                stmt.setObject(8, record.checkedAt);
+                stmt.addBatch();
+
+                if (!STATUS_OK.equals(record.status)) {
+                    System.err.println("⚠️ Integrity scrub: " + record);
+                }
+            }
+            stmt.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private ScrubState loadState(Connection conn) throws SQLException {
+        ScrubState state = new ScrubState();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM scrub_state WHERE id = 1")) {
+            if (rs.next()) {
+                state.cursorType = rs.getString("cursor_type");
+                state.cursorId = rs.getLong("cursor_id");
+                state.passStartedAt = rs.getObject("pass_started_at", LocalDateTime.class);
+                state.passCompletedAt = rs.getObject("pass_completed_at", LocalDateTime.class);
+                state.bytesScanned = rs.getLong("bytes_scanned");
+                state.objectsScanned = rs.getLong("objects_scanned");
+                state.intervalDays = rs.getInt("interval_days");
+                state.maxBytesPerSecond = rs.getLong("max_bytes_per_second");
+            }
+        }
+        return state;
+    }
+
+    private void saveState(Connection conn, ScrubState state) throws SQLException {
+        String sql = """
+            UPDATE scrub_state SET cursor_type = ?, cursor_id = ?, pass_started_at = ?,
+                                   pass_completed_at = ?, bytes_scanned = ?, objects_scanned = ?
+            WHERE id = 1
+            """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, state.cursorType);
+            stmt.setLong(2, state.cursorId);
+            stmt.setObject(3, state.passStartedAt);
+            stmt.setObject(4, state.passCompletedAt);
+            stmt.setLong(5, state.bytesScanned);
+            stmt.setLong(6, state.objectsScanned);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static String describe(String objectType) {
+        return switch (objectType) {
+            case TYPE_BLOB -> "Stored file";
+            case TYPE_VAULT_FILE -> "Vault file";
+            default -> "Note attachment";
+        };
+    }
+
+    private static class ScrubState {
+        String cursorType;
+        long cursorId;
+        LocalDateTime passStartedAt;
+        LocalDateTime passCompletedAt;
+        long bytesScanned;
+        long objectsScanned;
+        int intervalDays = 7;
+        long maxBytesPerSecond;
+    }
+
+    private static class ScrubTarget {
+        String objectType;
+        long objectId;
+        String relativePath;
+        long expectedSize;
+        String expectedChecksum;
+        Long packSegmentId;
+        long packOffset;
+    }
+
+    /**
+     * Result of checking one stored object
+     */
+    public static class HealthRecord {
+        public String objectType;
+        public long objectId;
+        public String filePath;
+        public String fileName;
+        public String status;
+        public String detail;
+        public String expectedChecksum;
+        public long actualSize;
+        public LocalDateTime checkedAt;
+
+        @Override
+        public String toString() {
+            return String.format("%s %s %d%s: %s (%s)", status, describe(objectType).toLowerCase(), objectId,
+                    fileName != null ? " \"" + fileName + "\"" : "", filePath, detail);
+        }
+    }
+
+    public static class ScrubStatus {
+        public boolean running;
+        public String currentTask;
+        public LocalDateTime passStartedAt;
+        public LocalDateTime lastCompletedAt;
+        public long objectsScanned;
+        public long bytesScanned;
+        public boolean lastPassCancelled;
+        public String lastError;
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Scrub Status:\n" +
+                            "  Current Task: %s\n" +
+                            "  Current Pass: %s (%d files, %d MB)%s\n" +
+                            "  Last Completed: %s",
+                    currentTask,
+                    passStartedAt != null ? passStartedAt : "none",
+                    objectsScanned, bytesScanned / (1024 * 1024),
+                    lastPassCancelled ? " (paused)" : "",
+                    lastCompletedAt != null ? lastCompletedAt : "never"
+            );
+        }
+    }
+}
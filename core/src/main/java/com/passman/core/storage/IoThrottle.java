@@ -0,0 +1,77 @@
+package com.passman.core.storage;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Token bucket limiting how many bytes per second a background job reads or writes.
+ * Up to one second of bandwidth may be used in a burst; callers that go over it
+ * sleep until the bucket has refilled.
+ */
+public class IoThrottle {
+
+    private final long bytesPerSecond;
+    private long available;
+    private long lastRefillNanos;
+
+    public IoThrottle(long bytesPerSecond) {
+        if (bytesPerSecond <= 0) {
+            throw new IllegalArgumentException("bytesPerSecond must be positive");
+        }
+        this.bytesPerSecond = bytesPerSecond;
+        this.available = bytesPerSecond;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Account for bytes about to be transferred, blocking while over the limit
+     */
+    public void acquire(long bytes) throws InterruptedIOException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long refill = (now - lastRefillNanos) * bytesPerSecond / 1_000_000_000L;
+            if (refill > 0) {
+                available = Math.min(bytesPerSecond, available + refill);
+                lastRefillNanos = now;
+            }
+            // Going into debt lets a large write through once and makes later ones wait for it
+            available -= bytes;
+            waitNanos = available < 0 ? -available * 1_000_000_000L / bytesPerSecond : 0;
+        }
+
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Throttled transfer interrupted");
+            }
+        }
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * An output stream whose writes are paced by this throttle
+     */
+    public OutputStream wrap(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                acquire(1);
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                acquire(len);
+                out.write(b, off, len);
+            }
+        };
+    }
+}
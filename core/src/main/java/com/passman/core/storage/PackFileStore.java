@@ -0,0 +1,220 @@
+package com.passman.core.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only segment files holding many small blobs, so storing one costs a write to an
+ * open file instead of a new file, directory entry and inode.
+ *
+ * Segments are named segment-&lt;id&gt;.pack and only the newest one is appended to; it is
+ * sealed once it reaches the segment size. The index of which blob lives where is kept by the
+ * caller (file_blobs.pack_segment_id / pack_offset / stored_size). Deleting a blob only
+ * drops it from that index; its space is reclaimed when a mostly dead segment is compacted
+ * by copying its live blobs to the active segment and deleting it.
+ *
+ * One instance per directory, shared by every BlobStore on it.
+ */
+public class PackFileStore {
+
+    public static final String DIRECTORY = "packs";
+    public static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.pack");
+    private static final Map<Path, PackFileStore> STORES = new ConcurrentHashMap<>();
+
+    private final Path packDir;
+    private final long maxSegmentBytes;
+    private long activeSegmentId;
+    private FileChannel activeChannel;
+
+    private PackFileStore(Path packDir) {
+        this(packDir, SEGMENT_SIZE);
+    }
+
+    /**
+     * Unshared store with its own segment size, for tests
+     */
+    PackFileStore(Path packDir, long maxSegmentBytes) {
+        this.packDir = packDir;
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    public static PackFileStore forDirectory(Path packDir) {
+        return STORES.computeIfAbsent(packDir.toAbsolutePath().normalize(), PackFileStore::new);
+    }
+
+    /**
+     * Where a blob was written
+     */
+    public static class PackLocation {
+        public final long segmentId;
+        public final long offset;
+        public final int length;
+
+        public PackLocation(long segmentId, long offset, int length) {
+            this.segmentId = segmentId;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("segment %d @ %d (%d bytes)", segmentId, offset, length);
+        }
+    }
+
+    /**
+     * Append a blob to the active segment, starting a new segment when it is full.
+     * With force the data is synced to disk before returning.
+     */
+    public synchronized PackLocation append(byte[] data, boolean force) throws IOException {
+        FileChannel channel = activeChannel();
+        if (channel.size() > 0 && channel.size() + data.length > maxSegmentBytes) {
+            sealActiveSegment();
+            channel = activeChannel();
+        }
+
+        long offset = channel.size();
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+        if (force) {
+            channel.force(false);
+        }
+        return new PackLocation(activeSegmentId, offset, data.length);
+    }
+
+    /**
+     * Read a blob; packed blobs are small, so it is read whole
+     */
+    public synchronized byte[] read(long segmentId, long offset, int length) throws IOException {
+        Path segment = segmentPath(segmentId);
+        if (!Files.exists(segment)) {
+            throw new IOException("Pack segment not found: " + segment.getFileName());
+        }
+
+        byte[] data = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Pack segment " + segmentId + " ends before blob at " + offset);
+                }
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Ids of all segments, oldest first
+     */
+    public synchronized List<Long> listSegments() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        if (!Files.isDirectory(packDir)) {
+            return ids;
+        }
+        try (Stream<Path> files = Files.list(packDir)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    ids.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    /**
+     * The segment new blobs are appended to; it is never compacted
+     */
+    public synchronized long getActiveSegmentId() throws IOException {
+        activeChannel();
+        return activeSegmentId;
+    }
+
+    public synchronized long segmentSize(long segmentId) throws IOException {
+        Path segment = segmentPath(segmentId);
+        return Files.exists(segment) ? Files.size(segment) : 0;
+    }
+
+    /**
+     * Delete a sealed segment once none of its blobs are referenced any more
+     */
+    public synchronized void deleteSegment(long segmentId) throws IOException {
+        if (activeChannel != null && segmentId == activeSegmentId) {
+            throw new IllegalStateException("Cannot delete the active pack segment");
+        }
+        Files.deleteIfExists(segmentPath(segmentId));
+    }
+
+    /**
+     * Sync the active segment, e.g. before the index stops pointing at a blob's old copy
+     */
+    public synchronized void force() throws IOException {
+        if (activeChannel != null) {
+            activeChannel.force(false);
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        if (activeChannel != null) {
+            activeChannel.close();
+            activeChannel = null;
+        }
+    }
+
+    /**
+     * Close the active segments of all stores, e.g. before a restore replaces segment files;
+     * the next append reopens the newest segment
+     */
+    public static void closeAll() throws IOException {
+        for (PackFileStore store : STORES.values()) {
+            store.close();
+        }
+    }
+
+    public Path segmentPath(long segmentId) {
+        return packDir.resolve(segmentFileName(segmentId));
+    }
+
+    public static String segmentFileName(long segmentId) {
+        return String.format("segment-%06d.pack", segmentId);
+    }
+
+    private FileChannel activeChannel() throws IOException {
+        if (activeChannel == null || !activeChannel.isOpen()) {
+            Files.createDirectories(packDir);
+            List<Long> ids = listSegments();
+            activeSegmentId = ids.isEmpty() ? 1 : ids.get(ids.size() - 1);
+            if (Files.exists(segmentPath(activeSegmentId)) && Files.size(segmentPath(activeSegmentId)) >= maxSegmentBytes) {
+                activeSegmentId++;
+            }
+            activeChannel = FileChannel.open(segmentPath(activeSegmentId),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+        return activeChannel;
+    }
+
+    private void sealActiveSegment() throws IOException {
+        activeChannel.force(false);
+        activeChannel.close();
+        activeChannel = null;
+        // A new segment after the sealed one; activeChannel() picks up the highest id
+        activeSegmentId++;
+        Files.createFile(segmentPath(activeSegmentId));
+    }
+}
@@ -0,0 +1,50 @@
+package com.passman.core.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contents of one deduplicated backup snapshot: every file as a list of chunk ids.
+ * Stored encrypted, since paths and file names are sensitive.
+ */
+public class SnapshotManifest {
+    private String createdAt;
+    private String description;
+    private List<Entry> entries = new ArrayList<>();
+
+    public static class Entry {
+        private String path;
+        private long size;
+        private long lastModified;
+        private List<String> chunks = new ArrayList<>();
+
+        public Entry() {}
+
+        public Entry(String path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        public long getSize() { return size; }
+        public void setSize(long size) { this.size = size; }
+
+        public long getLastModified() { return lastModified; }
+        public void setLastModified(long lastModified) { this.lastModified = lastModified; }
+
+        public List<String> getChunks() { return chunks; }
+        public void setChunks(List<String> chunks) { this.chunks = chunks; }
+    }
+
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public List<Entry> getEntries() { return entries; }
+    public void setEntries(List<Entry> entries) { this.entries = entries; }
+}
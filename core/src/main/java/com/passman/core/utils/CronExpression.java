@@ -0,0 +1,152 @@
+package com.passman.core.utils;
+
+import java.time.LocalDateTime;
+import java.util.BitSet;
+
+/**
+ * Five-field cron expression: minute hour day-of-month month day-of-week.
+ *
+ * Each field is "*" or a comma separated list of values, ranges ("1-5") and steps
+ * ("*&#47;15", "0-30/10"). Day-of-week runs from 0 (Sunday) to 7 (Sunday again).
+ * As in cron, when both day fields are restricted a day matching either one matches.
+ */
+public class CronExpression {
+
+    // Far enough for any valid expression, e.g. "0 0 29 2 *" on the next leap day
+    private static final int MAX_YEARS_AHEAD = 8;
+
+    private final String expression;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+
+    private CronExpression(String expression, String[] fields) {
+        this.expression = expression;
+        this.minutes = parseField(fields[0], 0, 59, "minute");
+        this.hours = parseField(fields[1], 0, 23, "hour");
+        this.daysOfMonth = parseField(fields[2], 1, 31, "day of month");
+        this.months = parseField(fields[3], 1, 12, "month");
+        this.daysOfWeek = parseField(fields[4], 0, 7, "day of week");
+        if (daysOfWeek.get(7)) {
+            daysOfWeek.set(0);
+        }
+        this.dayOfMonthRestricted = !fields[2].equals("*");
+        this.dayOfWeekRestricted = !fields[4].equals("*");
+    }
+
+    /**
+     * Parse an expression such as "0 3 * * *" (daily at 03:00) or "30 22 * * 1-5"
+     *
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public static CronExpression parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Cron expression is empty");
+        }
+        String[] fields = expression.trim().split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException(
+                    "Cron expression needs 5 fields (minute hour day month weekday): " + expression);
+        }
+        return new CronExpression(expression.trim(), fields);
+    }
+
+    public static boolean isValid(String expression) {
+        try {
+            parse(expression);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The first matching minute strictly after the given time, or null if there is none
+     */
+    public LocalDateTime next(LocalDateTime after) {
+        LocalDateTime time = after.withSecond(0).withNano(0).plusMinutes(1);
+        LocalDateTime limit = after.plusYears(MAX_YEARS_AHEAD);
+
+        while (time.isBefore(limit)) {
+            if (!months.get(time.getMonthValue())) {
+                time = time.withDayOfMonth(1).withHour(0).withMinute(0).plusMonths(1);
+            } else if (!matchesDay(time)) {
+                time = time.withHour(0).withMinute(0).plusDays(1);
+            } else if (!hours.get(time.getHour())) {
+                time = time.withMinute(0).plusHours(1);
+            } else if (!minutes.get(time.getMinute())) {
+                time = time.plusMinutes(1);
+            } else {
+                return time;
+            }
+        }
+        return null;
+    }
+
+    private boolean matchesDay(LocalDateTime time) {
+        boolean dayOfMonth = daysOfMonth.get(time.getDayOfMonth());
+        boolean dayOfWeek = daysOfWeek.get(time.getDayOfWeek().getValue() % 7);
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {
+            return dayOfMonth || dayOfWeek;
+        }
+        return dayOfMonth && dayOfWeek;
+    }
+
+    private static BitSet parseField(String field, int min, int max, String name) {
+        BitSet values = new BitSet(max + 1);
+
+        for (String part : field.split(",")) {
+            int step = 1;
+            String range = part;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = parseNumber(part.substring(slash + 1), name);
+                range = part.substring(0, slash);
+                if (step < 1) {
+                    throw new IllegalArgumentException("Invalid step in " + name + " field: " + part);
+                }
+            }
+
+            int from;
+            int to;
+            if (range.equals("*")) {
+                from = min;
+                to = max;
+            } else if (range.contains("-")) {
+                String[] bounds = range.split("-", 2);
+                from = parseNumber(bounds[0], name);
+                to = parseNumber(bounds[1], name);
+            } else {
+                from = parseNumber(range, name);
+                // "5/15" means every 15 starting at 5
+                to = slash >= 0 ? max : from;
+            }
+
+            if (from < min || to > max || from > to) {
+                throw new IllegalArgumentException(
+                        "Value out of range (" + min + "-" + max + ") in " + name + " field: " + part);
+            }
+            for (int value = from; value <= to; value += step) {
+                values.set(value);
+            }
+        }
+        return values;
+    }
+
+    private static int parseNumber(String text, String name) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in " + name + " field: " + text);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
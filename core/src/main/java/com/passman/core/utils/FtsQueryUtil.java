@@ -0,0 +1,50 @@
+package com.passman.core.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for building SQLite FTS5 MATCH expressions from user input
+ */
+public class FtsQueryUtil {
+
+    /**
+     * Split user input into search tokens (letters and digits only, matching the unicode61 tokenizer)
+     */
+    public static List<String> tokenize(String input) {
+        List<String> tokens = new ArrayList<>();
+        if (input == null) {
+            return tokens;
+        }
+
+        StringBuilder current = new StringBuilder();
+        input.codePoints().forEach(cp -> {
+            if (Character.isLetterOrDigit(cp)) {
+                current.appendCodePoint(cp);
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        });
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Build an FTS5 prefix query where every token must match, e.g. "git hub" -> "git"* "hub"*
+     * Returns an empty string when the input contains no searchable tokens.
+     */
+    public static String toPrefixQuery(String input) {
+        StringBuilder query = new StringBuilder();
+        for (String token : tokenize(input)) {
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append('"').append(token).append("\"*");
+        }
+        return query.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package com.passman.core.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Public Suffix List matcher for finding the registrable domain (eTLD+1) of a host,
+ * e.g. "login.example.co.uk" -> "example.co.uk". Rules are loaded from an embedded,
+ * curated copy of the list; unlisted TLDs fall back to the implicit "*" rule.
+ */
+public class PublicSuffixList {
+    private static final String RESOURCE = "/psl/public_suffix_list.dat";
+    private static volatile PublicSuffixList defaultList;
+
+    private final Set<String> rules = new HashSet<>();
+    private final Set<String> wildcardRules = new HashSet<>();   // "*.ck" stored as "ck"
+    private final Set<String> exceptionRules = new HashSet<>();  // "!www.ck" stored as "www.ck"
+
+    public PublicSuffixList(List<String> lines) {
+        for (String line : lines) {
+            String rule = line.trim().toLowerCase(Locale.ROOT);
+            if (rule.isEmpty() || rule.startsWith("//")) {
+                continue;
+            }
+
+            if (rule.startsWith("!")) {
+                exceptionRules.add(rule.substring(1));
+            } else if (rule.startsWith("*.")) {
+                wildcardRules.add(rule.substring(2));
+            } else {
+                rules.add(rule);
+            }
+        }
+    }
+
+    public static PublicSuffixList getDefault() {
+        if (defaultList == null) {
+            synchronized (PublicSuffixList.class) {
+                if (defaultList == null) {
+                    defaultList = new PublicSuffixList(loadRules());
+                }
+            }
+        }
+        return defaultList;
+    }
+
+    private static List<String> loadRules() {
+        List<String> lines = new ArrayList<>();
+        try (InputStream in = PublicSuffixList.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Public suffix list not found: " + RESOURCE);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load public suffix list", e);
+        }
+        return lines;
+    }
+
+    /**
+     * Public suffix of a lower-case ASCII host, e.g. "a.b.co.uk" -> "co.uk"
+     */
+    public String getPublicSuffix(String host) {
+        String[] labels = host.split("\\.");
+
+        // Candidates are checked longest first, so the first match is the longest rule
+        for (int i = 0; i < labels.length; i++) {
+            String candidate = joinFrom(labels, i);
+
+            if (exceptionRules.contains(candidate)) {
+                return joinFrom(labels, i + 1);
+            }
+            if (rules.contains(candidate)) {
+                return candidate;
+            }
+            if (i + 1 < labels.length && wildcardRules.contains(joinFrom(labels, i + 1))) {
+                return candidate;
+            }
+        }
+
+        return labels[labels.length - 1];
+    }
+
+    /**
+     * Registrable domain (public suffix plus one label), or null when the host is itself a public suffix
+     */
+    public String getRegistrableDomain(String host) {
+        String suffix = getPublicSuffix(host);
+        if (host.length() <= suffix.length()) {
+            return null;
+        }
+
+        String prefix = host.substring(0, host.length() - suffix.length() - 1);
+        int dot = prefix.lastIndexOf('.');
+        return (dot < 0 ? prefix : prefix.substring(dot + 1)) + "." + suffix;
+    }
+
+    private static String joinFrom(String[] labels, int start) {
+        return String.join(".", Arrays.copyOfRange(labels, start, labels.length));
+    }
+}
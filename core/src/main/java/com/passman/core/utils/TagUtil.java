@@ -0,0 +1,58 @@
+package com.passman.core.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Utility class for parsing the comma separated tags strings entered by users
+ */
+public class TagUtil {
+
+    public static final String TAG_QUERY_PREFIX = "#";
+
+    /**
+     * Split a tags string into distinct tag names, e.g. "Work, #bank,work" -> [Work, bank].
+     * Tags are trimmed, a leading '#' is dropped and duplicates are compared case-insensitively.
+     */
+    public static List<String> parse(String tags) {
+        Map<String, String> distinct = new LinkedHashMap<>();
+        if (tags == null) {
+            return new ArrayList<>();
+        }
+
+        for (String part : tags.split(",")) {
+            String name = stripHash(part.trim()).trim();
+            if (!name.isEmpty()) {
+                distinct.putIfAbsent(name.toLowerCase(Locale.ROOT), name);
+            }
+        }
+
+        return new ArrayList<>(distinct.values());
+    }
+
+    /**
+     * Whether a search query is a tag filter such as "#work"
+     */
+    public static boolean isTagQuery(String query) {
+        return query != null && query.trim().startsWith(TAG_QUERY_PREFIX)
+                && !tagFromQuery(query).isEmpty();
+    }
+
+    /**
+     * Tag name from a tag filter query, e.g. "#work" -> "work"
+     */
+    public static String tagFromQuery(String query) {
+        return stripHash(query.trim()).trim();
+    }
+
+    private static String stripHash(String value) {
+        int start = 0;
+        while (start < value.length() && value.charAt(start) == '#') {
+            start++;
+        }
+        return value.substring(start);
+    }
+}
@@ -0,0 +1,78 @@
+package com.passman.core.utils;
+
+import java.net.IDN;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for normalizing credential URLs into host and registrable domain keys
+ */
+public class UrlUtil {
+
+    private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+
+    /**
+     * Lower-case ASCII host of a URL, ignoring scheme, credentials, port and path.
+     * Accepts scheme-less input such as "github.com/login". Returns null when no host is found.
+     */
+    public static String extractHost(String url) {
+        if (url == null) {
+            return null;
+        }
+
+        String authority = url.trim();
+        int scheme = authority.indexOf("://");
+        if (scheme >= 0) {
+            authority = authority.substring(scheme + 3);
+        }
+
+        int end = authority.length();
+        for (char delimiter : new char[]{'/', '?', '#'}) {
+            int index = authority.indexOf(delimiter);
+            if (index >= 0 && index < end) {
+                end = index;
+            }
+        }
+        authority = authority.substring(0, end);
+        authority = authority.substring(authority.lastIndexOf('@') + 1);
+
+        String host;
+        if (authority.startsWith("[")) {
+            // IPv6 literal, e.g. [::1]:8080
+            int close = authority.indexOf(']');
+            host = close > 0 ? authority.substring(1, close) : "";
+        } else {
+            int colon = authority.indexOf(':');
+            host = colon >= 0 ? authority.substring(0, colon) : authority;
+        }
+
+        while (host.endsWith(".")) {
+            host = host.substring(0, host.length() - 1);
+        }
+        if (host.isEmpty() || host.contains(" ")) {
+            return null;
+        }
+
+        try {
+            return IDN.toASCII(host, IDN.ALLOW_UNASSIGNED).toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Registrable domain (eTLD+1) of a host, e.g. "accounts.google.co.uk" -> "google.co.uk".
+     * IP addresses, single-label hosts and public suffixes map to themselves.
+     */
+    public static String registrableDomain(String host) {
+        if (host == null) {
+            return null;
+        }
+        if (host.indexOf('.') < 0 || host.indexOf(':') >= 0 || IPV4.matcher(host).matches()) {
+            return host;
+        }
+
+        String domain = PublicSuffixList.getDefault().getRegistrableDomain(host);
+        return domain != null ? domain : host;
+    }
+}
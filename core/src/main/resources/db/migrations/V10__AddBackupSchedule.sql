@@ -0,0 +1,26 @@
+-- Settings and state of the background backup scheduler (a single row).
+-- cron_expression: minute hour day-of-month month day-of-week, in local time.
+-- idle_minutes: also back up after this long without user activity (0 = off),
+-- but not more often than every min_interval_hours.
+-- max_bytes_per_second: write bandwidth for scheduled backups (0 = unlimited).
+-- keep_daily / keep_weekly / keep_monthly: grandfather-father-son retention of
+-- scheduled and automatic backups; manual backups are never deleted by the scheduler.
+-- last_run_at survives restarts, so a run missed while the app was closed is caught up.
+
+CREATE TABLE IF NOT EXISTS backup_schedule (
+    id INTEGER PRIMARY KEY CHECK (id = 1),
+    enabled BOOLEAN NOT NULL DEFAULT 0,
+    cron_expression TEXT NOT NULL DEFAULT '0 3 * * *',
+    idle_minutes INTEGER NOT NULL DEFAULT 0,
+    min_interval_hours INTEGER NOT NULL DEFAULT 4,
+    backup_kind TEXT NOT NULL DEFAULT 'DIFFERENTIAL',
+    max_bytes_per_second INTEGER NOT NULL DEFAULT 0,
+    keep_daily INTEGER NOT NULL DEFAULT 7,
+    keep_weekly INTEGER NOT NULL DEFAULT 4,
+    keep_monthly INTEGER NOT NULL DEFAULT 12,
+    last_run_at TIMESTAMP,
+    last_result TEXT,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT OR IGNORE INTO backup_schedule (id) VALUES (1);
@@ -0,0 +1,68 @@
+-- Content-addressed storage of encrypted file data (BlobStore).
+-- content_id: hex HMAC-SHA256 of the plaintext, keyed from the key the blob is encrypted with,
+-- so identical files under the same key share one blob in <storage>/file_blobs.
+-- ref_count: vault files and note attachments pointing at the blob, kept by the triggers below;
+-- a blob is deleted with its last reference. Rows without content_id use their own
+-- UUID-named .enc file as before.
+
+CREATE TABLE IF NOT EXISTS file_blobs (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    content_id TEXT NOT NULL UNIQUE,
+    original_size INTEGER NOT NULL,
+    stored_size INTEGER NOT NULL,
+    ref_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE encrypted_files ADD COLUMN content_id TEXT;
+
+ALTER TABLE note_attachments ADD COLUMN content_id TEXT;
+
+CREATE INDEX IF NOT EXISTS idx_encrypted_files_content ON encrypted_files(content_id);
+
+CREATE INDEX IF NOT EXISTS idx_note_attachments_content ON note_attachments(content_id);
+
+CREATE TRIGGER IF NOT EXISTS trg_encrypted_files_blob_ref_insert AFTER INSERT ON encrypted_files
+WHEN NEW.content_id IS NOT NULL BEGIN
+    UPDATE file_blobs SET ref_count = ref_count + 1 WHERE content_id = NEW.content_id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_encrypted_files_blob_ref_update AFTER UPDATE OF content_id ON encrypted_files
+WHEN OLD.content_id IS NOT NEW.content_id BEGIN
+    UPDATE file_blobs SET ref_count = ref_count - 1 WHERE content_id = OLD.content_id;
+    UPDATE file_blobs SET ref_count = ref_count + 1 WHERE content_id = NEW.content_id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_encrypted_files_blob_ref_delete AFTER DELETE ON encrypted_files
+WHEN OLD.content_id IS NOT NULL BEGIN
+    UPDATE file_blobs SET ref_count = ref_count - 1 WHERE content_id = OLD.content_id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_note_attachments_blob_ref_insert AFTER INSERT ON note_attachments
+WHEN NEW.content_id IS NOT NULL BEGIN
+    UPDATE file_blobs SET ref_count = ref_count + 1 WHERE content_id = NEW.content_id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_note_attachments_blob_ref_update AFTER UPDATE OF content_id ON note_attachments
+WHEN OLD.content_id IS NOT NEW.content_id BEGIN
+    UPDATE file_blobs SET ref_count = ref_count - 1 WHERE content_id = OLD.content_id;
+    UPDATE file_blobs SET ref_count = ref_count + 1 WHERE content_id = NEW.content_id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_note_attachments_blob_ref_delete AFTER DELETE ON note_attachments
+WHEN OLD.content_id IS NOT NULL BEGIN
+    UPDATE file_blobs SET ref_count = ref_count - 1 WHERE content_id = OLD.content_id;
+END;
+
+-- Journaled like the other tables, so differential backups carry new blobs
+CREATE TRIGGER IF NOT EXISTS trg_file_blobs_journal_insert AFTER INSERT ON file_blobs BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('file_blobs', NEW.id, 'INSERT');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_file_blobs_journal_update AFTER UPDATE ON file_blobs BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('file_blobs', NEW.id, 'UPDATE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_file_blobs_journal_delete AFTER DELETE ON file_blobs BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('file_blobs', OLD.id, 'DELETE');
+END;
@@ -0,0 +1,42 @@
+-- Background integrity scrubbing of stored file data (IntegrityScrubber).
+-- file_blobs.stored_checksum: base64 SHA-256 of the encrypted file as written, so the
+-- scrubber can verify blobs without any key. Blobs stored before V12 get a baseline
+-- in blob_health on their first scrub instead.
+
+ALTER TABLE file_blobs ADD COLUMN stored_checksum TEXT;
+
+-- Result of the last check of each stored object.
+-- object_type: BLOB (file_blobs.id), VAULT_FILE / ATTACHMENT (rows without a blob, by id).
+-- status: OK, CORRUPT or MISSING. Rows of objects that no longer exist are removed
+-- at the end of each full pass.
+CREATE TABLE IF NOT EXISTS blob_health (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    object_type TEXT NOT NULL,
+    object_id INTEGER NOT NULL,
+    file_path TEXT NOT NULL,
+    status TEXT NOT NULL,
+    expected_checksum TEXT,
+    actual_size INTEGER,
+    detail TEXT,
+    checked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (object_type, object_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_blob_health_status ON blob_health(status);
+
+-- Scrubber position and settings (a single row). A pass resumes after
+-- (cursor_type, cursor_id) after a restart; a new pass starts interval_days after
+-- the last one completed. max_bytes_per_second limits reads (0 = unlimited).
+CREATE TABLE IF NOT EXISTS scrub_state (
+    id INTEGER PRIMARY KEY CHECK (id = 1),
+    cursor_type TEXT,
+    cursor_id INTEGER NOT NULL DEFAULT 0,
+    pass_started_at TIMESTAMP,
+    pass_completed_at TIMESTAMP,
+    bytes_scanned INTEGER NOT NULL DEFAULT 0,
+    objects_scanned INTEGER NOT NULL DEFAULT 0,
+    interval_days INTEGER NOT NULL DEFAULT 7,
+    max_bytes_per_second INTEGER NOT NULL DEFAULT 33554432
+);
+
+INSERT OR IGNORE INTO scrub_state (id) VALUES (1);
@@ -0,0 +1,9 @@
+-- Small blobs packed into append-only segment files (PackFileStore) instead of one file each.
+-- pack_segment_id: the segment <storage>/file_blobs/packs/segment-<id>.pack holding the blob,
+-- NULL for blobs stored as their own file; pack_offset: where its stored_size bytes start.
+
+ALTER TABLE file_blobs ADD COLUMN pack_segment_id INTEGER;
+
+ALTER TABLE file_blobs ADD COLUMN pack_offset INTEGER;
+
+CREATE INDEX IF NOT EXISTS idx_file_blobs_pack_segment ON file_blobs(pack_segment_id);
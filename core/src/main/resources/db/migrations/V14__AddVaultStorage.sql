@@ -0,0 +1,60 @@
+-- Per-vault file count and byte totals, kept by the triggers below in the same transaction
+-- as each upload or delete, so vault headers and statistics do not scan encrypted_files.
+-- Derived data: not journaled, recounted after a change journal replay.
+-- file_vaults.quota_bytes: optional limit on a vault's original_bytes; NULL is unlimited.
+
+CREATE TABLE IF NOT EXISTS vault_storage (
+    vault_id INTEGER PRIMARY KEY,
+    file_count INTEGER NOT NULL DEFAULT 0,
+    original_bytes INTEGER NOT NULL DEFAULT 0,
+    encrypted_bytes INTEGER NOT NULL DEFAULT 0,
+    FOREIGN KEY (vault_id) REFERENCES file_vaults(id) ON DELETE CASCADE
+);
+
+ALTER TABLE file_vaults ADD COLUMN quota_bytes INTEGER;
+
+CREATE INDEX IF NOT EXISTS idx_encrypted_files_vault_uploaded ON encrypted_files(vault_id, uploaded_at DESC, id DESC);
+
+-- Totals for existing files; vaults that already have a row are kept by the triggers
+INSERT OR IGNORE INTO vault_storage (vault_id, file_count, original_bytes, encrypted_bytes)
+SELECT v.id, COUNT(f.id), COALESCE(SUM(f.original_size), 0), COALESCE(SUM(f.encrypted_size), 0)
+FROM file_vaults v LEFT JOIN encrypted_files f ON f.vault_id = v.id
+GROUP BY v.id;
+
+CREATE TRIGGER IF NOT EXISTS trg_file_vaults_storage_insert AFTER INSERT ON file_vaults BEGIN
+    INSERT OR IGNORE INTO vault_storage (vault_id) VALUES (NEW.id);
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_encrypted_files_quota_insert BEFORE INSERT ON encrypted_files
+WHEN (SELECT quota_bytes FROM file_vaults WHERE id = NEW.vault_id) <
+     COALESCE((SELECT original_bytes FROM vault_storage WHERE vault_id = NEW.vault_id), 0) + NEW.original_size
+BEGIN
+    SELECT RAISE(ABORT, 'Vault storage quota exceeded');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_encrypted_files_storage_insert AFTER INSERT ON encrypted_files BEGIN
+    INSERT OR IGNORE INTO vault_storage (vault_id) VALUES (NEW.vault_id);
+    UPDATE vault_storage SET file_count = file_count + 1,
+                             original_bytes = original_bytes + NEW.original_size,
+                             encrypted_bytes = encrypted_bytes + NEW.encrypted_size
+    WHERE vault_id = NEW.vault_id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_encrypted_files_storage_update AFTER UPDATE OF vault_id, original_size, encrypted_size ON encrypted_files BEGIN
+    UPDATE vault_storage SET file_count = file_count - 1,
+                             original_bytes = original_bytes - OLD.original_size,
+                             encrypted_bytes = encrypted_bytes - OLD.encrypted_size
+    WHERE vault_id = OLD.vault_id;
+    INSERT OR IGNORE INTO vault_storage (vault_id) VALUES (NEW.vault_id);
+    UPDATE vault_storage SET file_count = file_count + 1,
+                             original_bytes = original_bytes + NEW.original_size,
+                             encrypted_bytes = encrypted_bytes + NEW.encrypted_size
+    WHERE vault_id = NEW.vault_id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_encrypted_files_storage_delete AFTER DELETE ON encrypted_files BEGIN
+    UPDATE vault_storage SET file_count = file_count - 1,
+                             original_bytes = original_bytes - OLD.original_size,
+                             encrypted_bytes = encrypted_bytes - OLD.encrypted_size
+    WHERE vault_id = OLD.vault_id;
+END;
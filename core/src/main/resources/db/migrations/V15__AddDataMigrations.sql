@@ -0,0 +1,8 @@
+-- One-time data migrations that run in Java after the SQL migrations (for example the
+-- credential URL key backfill). A row is written when a migration has completed, in the
+-- same transaction as its updates, so it is never run again on later opens.
+
+CREATE TABLE IF NOT EXISTS data_migrations (
+    name TEXT PRIMARY KEY,
+    completed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
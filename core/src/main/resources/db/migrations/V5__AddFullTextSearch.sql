@@ -0,0 +1,90 @@
+-- Full-text search indexes (FTS5) for credential, note and identity card metadata.
+-- Standalone tables keyed by the entity id (rowid), kept in sync by triggers.
+
+CREATE VIRTUAL TABLE IF NOT EXISTS credentials_fts USING fts5(
+    title, username, url, tags,
+    tokenize = 'unicode61 remove_diacritics 2',
+    prefix = '2 3'
+);
+
+CREATE VIRTUAL TABLE IF NOT EXISTS secure_notes_fts USING fts5(
+    title, tags,
+    tokenize = 'unicode61 remove_diacritics 2',
+    prefix = '2 3'
+);
+
+CREATE VIRTUAL TABLE IF NOT EXISTS identity_cards_fts USING fts5(
+    card_name, card_number_last4, issuing_country, tags,
+    tokenize = 'unicode61 remove_diacritics 2',
+    prefix = '2 3'
+);
+
+-- Credentials sync triggers
+CREATE TRIGGER IF NOT EXISTS trg_credentials_fts_insert AFTER INSERT ON credentials
+BEGIN
+    INSERT INTO credentials_fts (rowid, title, username, url, tags)
+    VALUES (new.id, new.title, new.username, new.url, new.tags);
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_credentials_fts_update AFTER UPDATE OF title, username, url, tags ON credentials
+BEGIN
+    DELETE FROM credentials_fts WHERE rowid = old.id;
+    INSERT INTO credentials_fts (rowid, title, username, url, tags)
+    VALUES (new.id, new.title, new.username, new.url, new.tags);
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_credentials_fts_delete AFTER DELETE ON credentials
+BEGIN
+    DELETE FROM credentials_fts WHERE rowid = old.id;
+END;
+
+-- Secure notes sync triggers
+CREATE TRIGGER IF NOT EXISTS trg_secure_notes_fts_insert AFTER INSERT ON secure_notes
+BEGIN
+    INSERT INTO secure_notes_fts (rowid, title, tags)
+    VALUES (new.id, new.title, new.tags);
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_secure_notes_fts_update AFTER UPDATE OF title, tags ON secure_notes
+BEGIN
+    DELETE FROM secure_notes_fts WHERE rowid = old.id;
+    INSERT INTO secure_notes_fts (rowid, title, tags)
+    VALUES (new.id, new.title, new.tags);
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_secure_notes_fts_delete AFTER DELETE ON secure_notes
+BEGIN
+    DELETE FROM secure_notes_fts WHERE rowid = old.id;
+END;
+
+-- Identity cards sync triggers
+CREATE TRIGGER IF NOT EXISTS trg_identity_cards_fts_insert AFTER INSERT ON identity_cards
+BEGIN
+    INSERT INTO identity_cards_fts (rowid, card_name, card_number_last4, issuing_country, tags)
+    VALUES (new.id, new.card_name, new.card_number_last4, new.issuing_country, new.tags);
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_identity_cards_fts_update AFTER UPDATE OF card_name, card_number_last4, issuing_country, tags ON identity_cards
+BEGIN
+    DELETE FROM identity_cards_fts WHERE rowid = old.id;
+    INSERT INTO identity_cards_fts (rowid, card_name, card_number_last4, issuing_country, tags)
+    VALUES (new.id, new.card_name, new.card_number_last4, new.issuing_country, new.tags);
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_identity_cards_fts_delete AFTER DELETE ON identity_cards
+BEGIN
+    DELETE FROM identity_cards_fts WHERE rowid = old.id;
+END;
+
+-- Backfill rows that existed before the index (no-op on later runs)
+INSERT INTO credentials_fts (rowid, title, username, url, tags)
+SELECT id, title, username, url, tags FROM credentials
+WHERE id NOT IN (SELECT rowid FROM credentials_fts);
+
+INSERT INTO secure_notes_fts (rowid, title, tags)
+SELECT id, title, tags FROM secure_notes
+WHERE id NOT IN (SELECT rowid FROM secure_notes_fts);
+
+INSERT INTO identity_cards_fts (rowid, card_name, card_number_last4, issuing_country, tags)
+SELECT id, card_name, card_number_last4, issuing_country, tags FROM identity_cards
+WHERE id NOT IN (SELECT rowid FROM identity_cards_fts);
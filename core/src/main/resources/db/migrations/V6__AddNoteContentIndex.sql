@@ -0,0 +1,14 @@
+-- Blind index over encrypted note content.
+-- Stores keyed HMAC hashes of words and word prefixes, never the words themselves.
+
+CREATE TABLE IF NOT EXISTS note_search_tokens (
+    token_hash INTEGER NOT NULL,
+    note_id INTEGER NOT NULL,
+    PRIMARY KEY (token_hash, note_id),
+    FOREIGN KEY (note_id) REFERENCES secure_notes(id) ON DELETE CASCADE
+) WITHOUT ROWID;
+
+CREATE INDEX IF NOT EXISTS idx_note_search_tokens_note ON note_search_tokens(note_id);
+
+-- Notes saved before the index existed are indexed on the first content search
+ALTER TABLE secure_notes ADD COLUMN content_indexed INTEGER DEFAULT 0;
@@ -0,0 +1,79 @@
+-- Normalized tag store replacing LIKE scans over the free-text tags columns.
+-- entity_type holds the EntityType name: CREDENTIAL, NOTE or IDENTITY_CARD.
+-- Per-type usage counts on tags are maintained by triggers on entity_tags.
+
+CREATE TABLE IF NOT EXISTS tags (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    name TEXT NOT NULL UNIQUE COLLATE NOCASE,
+    credential_count INTEGER NOT NULL DEFAULT 0,
+    note_count INTEGER NOT NULL DEFAULT 0,
+    card_count INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS entity_tags (
+    tag_id INTEGER NOT NULL,
+    entity_type TEXT NOT NULL,
+    entity_id INTEGER NOT NULL,
+    PRIMARY KEY (tag_id, entity_type, entity_id),
+    FOREIGN KEY (tag_id) REFERENCES tags(id) ON DELETE CASCADE
+) WITHOUT ROWID;
+
+CREATE INDEX IF NOT EXISTS idx_entity_tags_entity ON entity_tags(entity_type, entity_id);
+
+CREATE TRIGGER IF NOT EXISTS trg_entity_tags_count_insert AFTER INSERT ON entity_tags BEGIN
+    UPDATE tags SET
+        credential_count = credential_count + (NEW.entity_type = 'CREDENTIAL'),
+        note_count = note_count + (NEW.entity_type = 'NOTE'),
+        card_count = card_count + (NEW.entity_type = 'IDENTITY_CARD')
+    WHERE id = NEW.tag_id;
+END;
+
+-- Tags are dropped once nothing uses them
+CREATE TRIGGER IF NOT EXISTS trg_entity_tags_count_delete AFTER DELETE ON entity_tags BEGIN
+    UPDATE tags SET
+        credential_count = credential_count - (OLD.entity_type = 'CREDENTIAL'),
+        note_count = note_count - (OLD.entity_type = 'NOTE'),
+        card_count = card_count - (OLD.entity_type = 'IDENTITY_CARD')
+    WHERE id = OLD.tag_id;
+    DELETE FROM tags
+    WHERE id = OLD.tag_id AND credential_count = 0 AND note_count = 0 AND card_count = 0;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_credentials_tags_delete AFTER DELETE ON credentials BEGIN
+    DELETE FROM entity_tags WHERE entity_type = 'CREDENTIAL' AND entity_id = OLD.id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_secure_notes_tags_delete AFTER DELETE ON secure_notes BEGIN
+    DELETE FROM entity_tags WHERE entity_type = 'NOTE' AND entity_id = OLD.id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_identity_cards_tags_delete AFTER DELETE ON identity_cards BEGIN
+    DELETE FROM entity_tags WHERE entity_type = 'IDENTITY_CARD' AND entity_id = OLD.id;
+END;
+
+-- One-time split of the existing comma separated tags strings (skipped once entity_tags has rows)
+CREATE TEMP TABLE IF NOT EXISTS tag_split AS
+WITH RECURSIVE split(entity_type, entity_id, tag, rest) AS (
+    SELECT 'CREDENTIAL', id, '', tags || ',' FROM credentials
+    WHERE tags IS NOT NULL AND trim(tags) <> '' AND NOT EXISTS (SELECT 1 FROM entity_tags)
+    UNION ALL
+    SELECT 'NOTE', id, '', tags || ',' FROM secure_notes
+    WHERE tags IS NOT NULL AND trim(tags) <> '' AND NOT EXISTS (SELECT 1 FROM entity_tags)
+    UNION ALL
+    SELECT 'IDENTITY_CARD', id, '', tags || ',' FROM identity_cards
+    WHERE tags IS NOT NULL AND trim(tags) <> '' AND NOT EXISTS (SELECT 1 FROM entity_tags)
+    UNION ALL
+    SELECT entity_type, entity_id,
+           trim(ltrim(trim(substr(rest, 1, instr(rest, ',') - 1)), '#')),
+           substr(rest, instr(rest, ',') + 1)
+    FROM split WHERE rest <> ''
+)
+SELECT DISTINCT entity_type, entity_id, tag FROM split WHERE tag <> '';
+
+INSERT OR IGNORE INTO tags (name) SELECT tag FROM tag_split ORDER BY rowid;
+
+INSERT OR IGNORE INTO entity_tags (tag_id, entity_type, entity_id)
+SELECT tags.id, tag_split.entity_type, tag_split.entity_id
+FROM tag_split JOIN tags ON tags.name = tag_split.tag;
+
+DROP TABLE IF EXISTS temp.tag_split;
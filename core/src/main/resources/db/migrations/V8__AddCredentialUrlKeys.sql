@@ -0,0 +1,12 @@
+-- Normalized URL keys for "credentials for this site" lookups.
+-- url_host: lower-case host ("login.github.com"); url_domain: registrable domain ("github.com").
+-- Both are computed in Java (public suffix rules); '' marks a credential without a usable URL.
+-- Existing rows keep NULL here and are backfilled by DatabaseManager after migrations.
+
+ALTER TABLE credentials ADD COLUMN url_host TEXT;
+
+ALTER TABLE credentials ADD COLUMN url_domain TEXT;
+
+CREATE INDEX IF NOT EXISTS idx_credentials_url_host ON credentials(url_host);
+
+CREATE INDEX IF NOT EXISTS idx_credentials_url_domain ON credentials(url_domain);
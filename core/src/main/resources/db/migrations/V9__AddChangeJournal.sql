@@ -0,0 +1,165 @@
+-- Row-level change journal for differential backups.
+-- Triggers record (table, row id) with an increasing version for every change to user data;
+-- a differential backup stores the current state of the rows changed since its parent backup.
+-- Derived tables (FTS, note_search_tokens, tags, entity_tags) and the backups catalog are not
+-- journaled; they are rebuilt or kept as-is on restore.
+-- epoch identifies this journal's history; it changes on restore so the next backup is full.
+-- pruned_version: entries up to this version were deleted after a full backup.
+
+CREATE TABLE IF NOT EXISTS change_journal (
+    version INTEGER PRIMARY KEY AUTOINCREMENT,
+    table_name TEXT NOT NULL,
+    row_id INTEGER NOT NULL,
+    operation TEXT NOT NULL,
+    changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_change_journal_row ON change_journal(table_name, row_id);
+
+CREATE TABLE IF NOT EXISTS change_journal_state (
+    id INTEGER PRIMARY KEY CHECK (id = 1),
+    epoch TEXT NOT NULL,
+    pruned_version INTEGER NOT NULL DEFAULT 0
+);
+
+INSERT OR IGNORE INTO change_journal_state (id, epoch) VALUES (1, lower(hex(randomblob(16))));
+
+ALTER TABLE backups ADD COLUMN backup_kind TEXT NOT NULL DEFAULT 'FULL';
+
+ALTER TABLE backups ADD COLUMN parent_backup_id INTEGER;
+
+ALTER TABLE backups ADD COLUMN journal_epoch TEXT;
+
+ALTER TABLE backups ADD COLUMN journal_version INTEGER NOT NULL DEFAULT 0;
+
+CREATE TRIGGER IF NOT EXISTS trg_users_journal_insert AFTER INSERT ON users BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('users', NEW.id, 'INSERT');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_users_journal_update AFTER UPDATE ON users BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('users', NEW.id, 'UPDATE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_users_journal_delete AFTER DELETE ON users BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('users', OLD.id, 'DELETE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_credentials_journal_insert AFTER INSERT ON credentials BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('credentials', NEW.id, 'INSERT');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_credentials_journal_update AFTER UPDATE ON credentials BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('credentials', NEW.id, 'UPDATE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_credentials_journal_delete AFTER DELETE ON credentials BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('credentials', OLD.id, 'DELETE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_file_vaults_journal_insert AFTER INSERT ON file_vaults BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('file_vaults', NEW.id, 'INSERT');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_file_vaults_journal_update AFTER UPDATE ON file_vaults BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('file_vaults', NEW.id, 'UPDATE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_file_vaults_journal_delete AFTER DELETE ON file_vaults BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('file_vaults', OLD.id, 'DELETE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_encrypted_files_journal_insert AFTER INSERT ON encrypted_files BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('encrypted_files', NEW.id, 'INSERT');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_encrypted_files_journal_update AFTER UPDATE ON encrypted_files BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('encrypted_files', NEW.id, 'UPDATE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_encrypted_files_journal_delete AFTER DELETE ON encrypted_files BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('encrypted_files', OLD.id, 'DELETE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_audit_log_journal_insert AFTER INSERT ON audit_log BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('audit_log', NEW.id, 'INSERT');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_audit_log_journal_update AFTER UPDATE ON audit_log BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('audit_log', NEW.id, 'UPDATE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_audit_log_journal_delete AFTER DELETE ON audit_log BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('audit_log', OLD.id, 'DELETE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_missions_journal_insert AFTER INSERT ON missions BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('missions', NEW.id, 'INSERT');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_missions_journal_update AFTER UPDATE ON missions BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('missions', NEW.id, 'UPDATE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_missions_journal_delete AFTER DELETE ON missions BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('missions', OLD.id, 'DELETE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_user_missions_journal_insert AFTER INSERT ON user_missions BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('user_missions', NEW.id, 'INSERT');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_user_missions_journal_update AFTER UPDATE ON user_missions BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('user_missions', NEW.id, 'UPDATE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_user_missions_journal_delete AFTER DELETE ON user_missions BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('user_missions', OLD.id, 'DELETE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_secure_notes_journal_insert AFTER INSERT ON secure_notes BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('secure_notes', NEW.id, 'INSERT');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_secure_notes_journal_update AFTER UPDATE ON secure_notes BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('secure_notes', NEW.id, 'UPDATE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_secure_notes_journal_delete AFTER DELETE ON secure_notes BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('secure_notes', OLD.id, 'DELETE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_note_attachments_journal_insert AFTER INSERT ON note_attachments BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('note_attachments', NEW.id, 'INSERT');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_note_attachments_journal_update AFTER UPDATE ON note_attachments BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('note_attachments', NEW.id, 'UPDATE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_note_attachments_journal_delete AFTER DELETE ON note_attachments BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('note_attachments', OLD.id, 'DELETE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_identity_cards_journal_insert AFTER INSERT ON identity_cards BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('identity_cards', NEW.id, 'INSERT');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_identity_cards_journal_update AFTER UPDATE ON identity_cards BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('identity_cards', NEW.id, 'UPDATE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_identity_cards_journal_delete AFTER DELETE ON identity_cards BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('identity_cards', OLD.id, 'DELETE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_expiry_alerts_journal_insert AFTER INSERT ON expiry_alerts BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('expiry_alerts', NEW.id, 'INSERT');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_expiry_alerts_journal_update AFTER UPDATE ON expiry_alerts BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('expiry_alerts', NEW.id, 'UPDATE');
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_expiry_alerts_journal_delete AFTER DELETE ON expiry_alerts BEGIN
+    INSERT INTO change_journal (table_name, row_id, operation) VALUES ('expiry_alerts', OLD.id, 'DELETE');
+END;
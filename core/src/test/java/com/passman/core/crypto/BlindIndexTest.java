@@ -0,0 +1,60 @@
+package com.passman.core.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for blind index token derivation
+ */
+public class BlindIndexTest {
+
+    private final SecretKey key = new SecretKeySpec(new byte[32], "AES");
+
+    @Test
+    public void testWordsAreIndexedWithPrefixes() throws Exception {
+        BlindIndex index = new BlindIndex(key);
+        Set<Long> tokens = index.indexTokens("Hello world, hello again");
+
+        // hel, hell, hello + wor, worl, world + aga, agai, again; repeated words count once
+        assertEquals(9, tokens.size());
+        assertTrue(tokens.containsAll(index.queryTokens("hello")));
+        assertTrue(tokens.containsAll(index.queryTokens("wor")), "Word beginnings should match");
+        assertTrue(tokens.containsAll(index.queryTokens("world hello")));
+        assertFalse(tokens.containsAll(index.queryTokens("orld")), "Only prefixes are indexed");
+
+        assertTrue(index.indexTokens("a b c").isEmpty(), "Single characters are not indexed");
+        assertEquals(index.queryTokens("id"), index.indexTokens("ID"), "Two-character words are indexed whole");
+
+        System.out.println("✅ Blind index derives word and prefix tokens");
+    }
+
+    @Test
+    public void testTokensAreNormalizedAndTruncated() throws Exception {
+        BlindIndex index = new BlindIndex(key);
+
+        assertEquals(index.queryTokens("cafe"), index.queryTokens("Café"), "Case and accents are folded");
+        assertEquals(10, index.indexTokens("internationalization").size(), "Prefixes stop at 12 characters");
+        assertTrue(index.indexTokens("internationalization")
+                .containsAll(index.queryTokens("internationalisation")), "Long terms match by their 12-character prefix");
+
+        System.out.println("✅ Blind index tokens are normalized and truncated");
+    }
+
+    @Test
+    public void testTokensDependOnKey() throws Exception {
+        byte[] otherKey = new byte[32];
+        otherKey[0] = 1;
+
+        Set<Long> tokens = new BlindIndex(key).indexTokens("secret");
+        assertEquals(tokens, new BlindIndex(key).indexTokens("secret"), "Same key gives the same tokens");
+        assertTrue(new BlindIndex(new SecretKeySpec(otherKey, "AES")).indexTokens("secret").stream()
+                .noneMatch(tokens::contains), "Another key gives unrelated tokens");
+
+        System.out.println("✅ Blind index tokens are keyed");
+    }
+}
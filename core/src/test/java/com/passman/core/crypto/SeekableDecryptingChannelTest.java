@@ -0,0 +1,91 @@
+package com.passman.core.crypto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for random-access decryption of AESCipher data
+ */
+public class SeekableDecryptingChannelTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SecretKey key = new SecretKeySpec(new byte[32], "AES");
+    private final AESCipher aesCipher = new AESCipher();
+
+    @Test
+    public void testReadsAnyRangeWithoutDecryptingTheRest() throws Exception {
+        byte[] plaintext = new byte[200_003];
+        new Random(42).nextBytes(plaintext);
+        Path encrypted = encrypt(plaintext, 7);
+
+        try (SeekableByteChannel channel = open(encrypted, 7, plaintext.length, 0, Long.MAX_VALUE)) {
+            assertEquals(plaintext.length, channel.size());
+
+            // Unaligned reads in the middle, backwards and up to the padded last block
+            assertArrayEquals(Arrays.copyOfRange(plaintext, 150_001, 150_101), read(channel, 150_001, 100));
+            assertArrayEquals(Arrays.copyOfRange(plaintext, 5, 21), read(channel, 5, 16));
+            assertArrayEquals(Arrays.copyOfRange(plaintext, 199_990, 200_003), read(channel, 199_990, 100));
+
+            channel.position(plaintext.length);
+            assertEquals(-1, channel.read(ByteBuffer.allocate(10)), "Reads past the end should return -1");
+        }
+
+        System.out.println("✅ Random-access reads decrypt the right bytes");
+    }
+
+    @Test
+    public void testRangeIsCutToThePlaintext() throws Exception {
+        byte[] plaintext = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes();
+        Path encrypted = encrypt(plaintext, 0);
+
+        try (SeekableByteChannel channel = open(encrypted, 0, plaintext.length, 30, 100)) {
+            assertEquals(6, channel.size());
+            assertArrayEquals("uvwxyz".getBytes(), read(channel, 0, 100));
+        }
+
+        System.out.println("✅ Ranges are limited to the plaintext");
+    }
+
+    /**
+     * Encrypt behind a prefix of other bytes, like a blob inside a pack segment
+     */
+    private Path encrypt(byte[] plaintext, int prefix) throws Exception {
+        Path file = tempDir.resolve("data.enc");
+        try (OutputStream raw = Files.newOutputStream(file)) {
+            raw.write(new byte[prefix]);
+            try (OutputStream out = aesCipher.encryptingStream(raw, key)) {
+                out.write(plaintext);
+            }
+        }
+        return file;
+    }
+
+    private SeekableByteChannel open(Path file, long offset, long size, long start, long length) throws Exception {
+        return aesCipher.decryptingChannel(FileChannel.open(file, StandardOpenOption.READ), offset, size, start, length, key);
+    }
+
+    private byte[] read(SeekableByteChannel channel, long position, int length) throws Exception {
+        channel.position(position);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+            // keep reading
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+}
@@ -1,12 +1,26 @@
 package com.passman.core.db;
 
+import com.passman.core.model.EncryptedFile;
+import com.passman.core.model.EntityType;
+import com.passman.core.model.Tag;
+import com.passman.core.model.VaultStorage;
+import com.passman.core.repository.EncryptedFileRepositoryImpl;
+import com.passman.core.repository.RepositoryException;
+import com.passman.core.repository.TagRepositoryImpl;
 import org.junit.jupiter.api.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.lang.reflect.Field;
 import java.sql. Connection;
+import java.sql.DriverManager;
 import java.sql. ResultSet;
 import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter. api.Assertions.*;
 
@@ -335,4 +349,302 @@ public class DatabaseManagerTest {
 
         System.out.println("✅ Migrations are idempotent");
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(14)
+    public void testFullTextSearchIndexSync() throws Exception {
+        Connection conn = dbManager.getConnection();
+
+        try (Statement stmt = conn.createStatement()) {
+            // Check V5 FTS tables
+            for (String table : new String[]{"credentials_fts", "secure_notes_fts", "identity_cards_fts"}) {
+                ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='" + table + "'");
+                assertTrue(rs.next(), table + " table should exist");
+            }
+
+            // Triggers should keep the index in sync with the base table
+            stmt.execute("INSERT INTO credentials (title, username, encrypted_password, encryption_iv) VALUES ('FtsGithub', 'octocat', X'1234', X'5678')");
+            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM credentials_fts WHERE credentials_fts MATCH '\"octo\"*'");
+            rs.next();
+            assertEquals(1, rs.getInt(1), "Inserted credential should be indexed");
+
+            stmt.execute("UPDATE credentials SET username = 'hubber' WHERE title = 'FtsGithub'");
+            rs = stmt.executeQuery("SELECT COUNT(*) FROM credentials_fts WHERE credentials_fts MATCH '\"octo\"*'");
+            rs.next();
+            assertEquals(0, rs.getInt(1), "Updated credential should be re-indexed");
+
+            stmt.execute("DELETE FROM credentials WHERE title = 'FtsGithub'");
+            rs = stmt.executeQuery("SELECT COUNT(*) FROM credentials_fts WHERE credentials_fts MATCH '\"hubber\"*'");
+            rs.next();
+            assertEquals(0, rs.getInt(1), "Deleted credential should be removed from index");
+        }
+
+        System.out.println("✅ V5 full-text search index verified");
+    }
+
+    @Test
+    @Order(15)
+    public void testTagStoreCounts() throws Exception {
+        Connection conn = dbManager.getConnection();
+        TagRepositoryImpl tagRepository = new TagRepositoryImpl(dbManager);
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO credentials (title, encrypted_password, encryption_iv) VALUES ('TagTest', X'1234', X'5678')");
+            ResultSet rs = stmt.executeQuery("SELECT id FROM credentials WHERE title = 'TagTest'");
+            rs.next();
+            long id = rs.getLong(1);
+
+            // Duplicates and '#' prefixes collapse into one tag per name
+            tagRepository.setEntityTags(EntityType.CREDENTIAL, id, "TagWork, #tagwork, TagBank");
+            List<Tag> tags = tagRepository.findByPrefix("tag", 10);
+            assertEquals(2, tags.size(), "Both tags should be stored once");
+            assertEquals(1, tags.get(0).getCredentialCount(), "Usage count should be maintained");
+
+            tagRepository.setEntityTags(EntityType.CREDENTIAL, id, "TagWork");
+            assertEquals(1, tagRepository.findByPrefix("tag", 10).size(), "Unused tag should be removed");
+
+            // Deleting the entity clears its tag links and counts
+            stmt.execute("DELETE FROM credentials WHERE id = " + id);
+            assertTrue(tagRepository.findByPrefix("tag", 10).isEmpty(), "Tags should follow entity deletion");
+        }
+
+        System.out.println("✅ V7 tag store verified");
+    }
+
+    @Test
+    @Order(16)
+    public void testWriteQueueCoalescing() throws Exception {
+        WriteQueue queue = WriteQueue.getInstance();
+        long coalescedBefore = queue.getCoalescedCount();
+
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.execute("INSERT INTO credentials (title, encrypted_password, encryption_iv) VALUES ('QueueTest', X'1234', X'5678')");
+        }
+
+        // Three writes to the same key within the window: only the last one runs
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[3];
+        for (int i = 0; i < 3; i++) {
+            String username = "user" + i;
+            futures[i] = queue.submit("credential:QueueTest", () -> {
+                try (Statement stmt = dbManager.getConnection().createStatement()) {
+                    stmt.execute("UPDATE credentials SET username = '" + username + "' WHERE title = 'QueueTest'");
+                }
+            });
+        }
+        CompletableFuture.allOf(futures).get(5, TimeUnit.SECONDS);
+
+        assertTrue(queue.getCoalescedCount() - coalescedBefore >= 2, "Writes with the same key should be coalesced");
+
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            ResultSet rs = stmt.executeQuery("SELECT username FROM credentials WHERE title = 'QueueTest'");
+            rs.next();
+            assertEquals("user2", rs.getString(1), "Last write should win");
+            stmt.execute("DELETE FROM credentials WHERE title = 'QueueTest'");
+        }
+
+        queue.shutdown();
+        System.out.println("✅ Write queue coalescing verified");
+    }
+
+    @Test
+    @Order(17)
+    public void testMaintenanceReclaimsFreePages() throws Exception {
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE maintenance_test (data BLOB)");
+            stmt.execute("INSERT INTO maintenance_test SELECT randomblob(4000) FROM " +
+                    "(WITH RECURSIVE r(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM r WHERE i < 200) SELECT i FROM r)");
+            stmt.execute("DROP TABLE maintenance_test");
+        }
+
+        DatabaseMaintenanceScheduler.MaintenanceStatus status =
+                DatabaseMaintenanceScheduler.getInstance().runNow().get(30, TimeUnit.SECONDS);
+
+        assertEquals("INCREMENTAL", status.autoVacuumMode);
+        assertEquals(0, status.freePages, "Free pages should be reclaimed");
+        assertNotNull(status.lastOptimizeAt);
+
+        DatabaseMaintenanceScheduler.getInstance().stop();
+        System.out.println("✅ Database maintenance verified");
+    }
+
+    @Test
+    @Order(18)
+    public void testChangeJournalReplay() throws Exception {
+        ChangeJournal journal = new ChangeJournal(dbManager);
+        long since = journal.getState().version;
+
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.execute("INSERT INTO credentials (title, encrypted_password, encryption_iv) VALUES ('JournalTest', X'1234', X'5678')");
+        }
+
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        ChangeJournal.JournalState state = journal.exportChangesSince(since, delta);
+        assertTrue(state.version > since, "Insert should be journaled");
+
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM credentials WHERE title = 'JournalTest'");
+        }
+
+        ChangeJournal.ReplayResult result = journal.replayChanges(new ByteArrayInputStream(delta.toByteArray()));
+        assertEquals(1, result.getUpserted("credentials").size());
+
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            ResultSet rs = stmt.executeQuery("SELECT encrypted_password FROM credentials WHERE title = 'JournalTest'");
+            assertTrue(rs.next(), "Replay should restore the row");
+            assertArrayEquals(new byte[]{0x12, 0x34}, rs.getBytes(1));
+            stmt.execute("DELETE FROM credentials WHERE title = 'JournalTest'");
+        }
+
+        System.out.println("✅ Change journal replay verified");
+    }
+
+    @Test
+    @Order(19)
+    public void testChangeJournalCopyRows() throws Exception {
+        ChangeJournal journal = new ChangeJournal(dbManager);
+
+        // Stands in for a database extracted from a backup, with a column the live schema lacks
+        try (Connection source = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            try (Statement stmt = source.createStatement()) {
+                stmt.execute("CREATE TABLE credentials (id INTEGER PRIMARY KEY, title TEXT, " +
+                        "encrypted_password BLOB, encryption_iv BLOB, retired_column TEXT)");
+                stmt.execute("INSERT INTO credentials VALUES (990001, 'CopyTest', X'AB', X'CD', 'ignored')");
+            }
+
+            ChangeJournal.ReplayResult result = journal.copyRows(source, "credentials", "id", List.of(990001L));
+            assertEquals(1, result.getUpserted("credentials").size());
+        }
+
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            ResultSet rs = stmt.executeQuery("SELECT title, encrypted_password FROM credentials WHERE id = 990001");
+            assertTrue(rs.next(), "Row should be copied into the live database");
+            assertEquals("CopyTest", rs.getString("title"));
+            assertArrayEquals(new byte[]{(byte) 0xAB}, rs.getBytes("encrypted_password"));
+            stmt.execute("DELETE FROM credentials WHERE id = 990001");
+        }
+
+        System.out.println("✅ Selective row copy verified");
+    }
+
+    @Test
+    @Order(20)
+    public void testOpenFileQueryOnly() throws Exception {
+        // A copy of the live database stands in for a backup extracted to a temporary file
+        File copy = new File(new File(testDbPath).getParentFile(), "passman-mount-test.db");
+        copy.delete();
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.execute("VACUUM INTO '" + copy.getAbsolutePath().replace("'", "''") + "'");
+        }
+
+        DatabaseManager mounted = DatabaseManager.openFile(copy.toPath());
+        try {
+            mounted.setQueryOnly();
+            assertTrue(mounted.isQueryOnly());
+
+            try (Statement stmt = mounted.getConnection().createStatement()) {
+                ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM file_vaults");
+                assertTrue(rs.next(), "Mounted database should be readable");
+                assertThrows(Exception.class, () -> stmt.execute("DELETE FROM file_vaults"),
+                        "Mounted database must reject writes");
+            }
+            try (Connection extra = mounted.openConnection(); Statement stmt = extra.createStatement()) {
+                assertThrows(Exception.class, () -> stmt.execute("DELETE FROM file_vaults"),
+                        "Additional connections must reject writes too");
+            }
+        } finally {
+            mounted.close();
+            copy.delete();
+        }
+
+        assertThrows(Exception.class, mounted::getConnection, "A closed mount must not reopen the live database");
+
+        System.out.println("✅ Read-only database file verified");
+    }
+
+    @Test
+    @Order(21)
+    public void testVaultStorageTotals() throws Exception {
+        Connection conn = dbManager.getConnection();
+        EncryptedFileRepositoryImpl fileRepository = new EncryptedFileRepositoryImpl(dbManager);
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO file_vaults (vault_name, vault_type) VALUES ('StorageTest', 'OTHERS')");
+            ResultSet rs = stmt.executeQuery("SELECT id FROM file_vaults WHERE vault_name = 'StorageTest'");
+            rs.next();
+            long vaultId = rs.getLong(1);
+
+            for (int i = 0; i < 3; i++) {
+                EncryptedFile file = new EncryptedFile();
+                file.setVaultId(vaultId);
+                file.setOriginalFileName("file" + i + ".txt");
+                file.setEncryptedFileName("file" + i + ".enc");
+                file.setOriginalSize(100);
+                file.setEncryptedSize(128);
+                file.setChecksum("checksum");
+                fileRepository.save(file);
+            }
+
+            VaultStorage storage = fileRepository.getVaultStorage(vaultId);
+            assertEquals(3, storage.getFileCount(), "Inserts should be counted");
+            assertEquals(300, storage.getOriginalBytes());
+            assertEquals(2, fileRepository.findByVaultId(vaultId, 1, 10).size(), "Pages should skip the offset");
+
+            // Inserts past the quota are rejected inside their transaction
+            fileRepository.setQuota(vaultId, 350L);
+            EncryptedFile tooLarge = new EncryptedFile();
+            tooLarge.setVaultId(vaultId);
+            tooLarge.setOriginalFileName("large.bin");
+            tooLarge.setEncryptedFileName("large.enc");
+            tooLarge.setOriginalSize(100);
+            tooLarge.setEncryptedSize(128);
+            tooLarge.setChecksum("checksum");
+            assertThrows(RepositoryException.class, () -> fileRepository.save(tooLarge));
+
+            fileRepository.delete(fileRepository.findByVaultId(vaultId, 0, 1).get(0).getId());
+            storage = fileRepository.getVaultStorage(vaultId);
+            assertEquals(2, storage.getFileCount(), "Deletes should be counted");
+            assertEquals(150, storage.getRemainingBytes());
+
+            // A recount from the rows gives the same totals
+            EncryptedFileRepositoryImpl.recountVaultStorage(conn);
+            assertEquals(200, fileRepository.getVaultStorage(vaultId).getOriginalBytes());
+
+            stmt.execute("DELETE FROM file_vaults WHERE id = " + vaultId);
+        }
+
+        System.out.println("✅ V14 vault storage totals verified");
+    }
+
+    @Test
+    @Order(22)
+    public void testWriteQueueAfterCommitActions() throws Exception {
+        WriteQueue queue = WriteQueue.getInstance();
+        List<String> ran = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<Void> failed = queue.submit(() -> {
+            try (Statement stmt = dbManager.getConnection().createStatement()) {
+                stmt.execute("INSERT INTO credentials (title, encrypted_password, encryption_iv) VALUES ('Phantom', X'12', X'34')");
+            }
+            WriteQueue.afterCommit(() -> ran.add("failed"));
+            throw new IllegalStateException("forced failure");
+        });
+        CompletableFuture<Void> committed = queue.submit(() -> WriteQueue.afterCommit(() -> ran.add("committed")));
+
+        assertThrows(Exception.class, () -> failed.get(5, TimeUnit.SECONDS));
+        committed.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("committed"), ran, "Only committed writes should run their actions");
+
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM credentials WHERE title = 'Phantom'");
+            rs.next();
+            assertEquals(0, rs.getInt(1), "The failed write should be rolled back");
+        }
+
+        // Outside the queue writes are auto-committed, so actions run at once
+        WriteQueue.afterCommit(() -> ran.add("direct"));
+        assertEquals(List.of("committed", "direct"), ran);
+
+        queue.shutdown();
+        System.out.println("✅ Write queue after-commit actions verified");
+    }
+}
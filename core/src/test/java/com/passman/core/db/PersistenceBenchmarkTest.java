@@ -0,0 +1,142 @@
+package com.passman.core.db;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Persistence benchmarks run under each tuning profile.
+ * Excluded from the normal test run; use ./gradlew :core:benchmark
+ */
+@Tag("benchmark")
+public class PersistenceBenchmarkTest {
+
+    private static final int SINGLE_COMMITS = 200;
+    private static final int BATCH_ROWS = 5000;
+    private static final int POINT_READS = 5000;
+    private static final int PAYLOAD_BYTES = 256;
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(DatabaseTuningProfile.class)
+    public void benchmarkProfile(DatabaseTuningProfile profile) throws Exception {
+        Path dbPath = tempDir.resolve("benchmark-" + profile.getKey() + ".db");
+        byte[] payload = new byte[PAYLOAD_BYTES];
+        new SecureRandom().nextBytes(payload);
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbPath)) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA journal_mode = WAL;");
+            }
+            profile.apply(conn);
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE credentials (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "title TEXT NOT NULL, " +
+                        "encrypted_password BLOB NOT NULL, " +
+                        "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+                stmt.execute("CREATE INDEX idx_credentials_title ON credentials(title)");
+            }
+
+            String insertSql = "INSERT INTO credentials (title, encrypted_password) VALUES (?, ?)";
+
+            // One commit per row: dominated by the synchronous setting
+            long start = System.nanoTime();
+            try (PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
+                for (int i = 0; i < SINGLE_COMMITS; i++) {
+                    pstmt.setString(1, "single-" + i);
+                    pstmt.setBytes(2, payload);
+                    pstmt.executeUpdate();
+                }
+            }
+            long singleNanos = System.nanoTime() - start;
+
+            // Group commit, as done by the WriteQueue
+            start = System.nanoTime();
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
+                for (int i = 0; i < BATCH_ROWS; i++) {
+                    pstmt.setString(1, "batch-" + i);
+                    pstmt.setBytes(2, payload);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+            long batchNanos = System.nanoTime() - start;
+
+            // Updates in one transaction
+            start = System.nanoTime();
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "UPDATE credentials SET encrypted_password = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?")) {
+                for (int id = 1; id <= BATCH_ROWS; id += 2) {
+                    pstmt.setBytes(1, payload);
+                    pstmt.setLong(2, id);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+            long updateNanos = System.nanoTime() - start;
+
+            // Point reads by primary key: served from the page cache / mmap
+            int totalRows = SINGLE_COMMITS + BATCH_ROWS;
+            int found = 0;
+            start = System.nanoTime();
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT title, encrypted_password FROM credentials WHERE id = ?")) {
+                for (int i = 0; i < POINT_READS; i++) {
+                    pstmt.setLong(1, (i * 7919L) % totalRows + 1);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) found++;
+                    }
+                }
+            }
+            long readNanos = System.nanoTime() - start;
+
+            // Full scan sorted by title, which may spill to temp_store
+            int scanned = 0;
+            start = System.nanoTime();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(
+                         "SELECT id, title FROM credentials ORDER BY updated_at DESC, title")) {
+                while (rs.next()) scanned++;
+            }
+            long scanNanos = System.nanoTime() - start;
+
+            assertEquals(POINT_READS, found);
+            assertEquals(totalRows, scanned);
+
+            System.out.printf(
+                    "📊 %-24s single commits: %7.1f ops/s | batch insert: %9.0f rows/s | " +
+                            "update: %9.0f rows/s | point read: %9.0f ops/s | sorted scan: %6.1f ms%n",
+                    profile.getDisplayName(),
+                    SINGLE_COMMITS / seconds(singleNanos),
+                    BATCH_ROWS / seconds(batchNanos),
+                    (BATCH_ROWS / 2) / seconds(updateNanos),
+                    POINT_READS / seconds(readNanos),
+                    scanNanos / 1_000_000.0);
+        }
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,105 @@
+package com.passman.core.db;
+
+import com.passman.core.model.EntityType;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RecordDiff on two in-memory databases
+ */
+public class RecordDiffTest {
+
+    private Connection createDatabase() throws Exception {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE credentials (id INTEGER PRIMARY KEY, title TEXT, " +
+                    "encrypted_password BLOB, url TEXT)");
+            stmt.execute("CREATE TABLE secure_notes (id INTEGER PRIMARY KEY, title TEXT, content_indexed INTEGER)");
+        }
+        return conn;
+    }
+
+    private void insertCredential(Connection conn, long id, String title, byte[] password, String url)
+            throws Exception {
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO credentials VALUES (?, ?, ?, ?)")) {
+            stmt.setLong(1, id);
+            stmt.setString(2, title);
+            stmt.setBytes(3, password);
+            stmt.setString(4, url);
+            stmt.executeUpdate();
+        }
+    }
+
+    @Test
+    public void testAddedRemovedAndModified() throws Exception {
+        try (Connection before = createDatabase(); Connection after = createDatabase()) {
+            insertCredential(before, 1, "Unchanged", new byte[]{1}, "a.com");
+            insertCredential(after, 1, "Unchanged", new byte[]{1}, "a.com");
+            insertCredential(before, 2, "Removed", new byte[]{2}, null);
+            insertCredential(before, 3, "Password", new byte[]{3}, "c.com");
+            insertCredential(after, 3, "Password", new byte[]{4}, "c.com");
+            insertCredential(after, 4, "Added", new byte[]{5}, null);
+
+            // Only a bookkeeping column differs: not a change
+            try (Statement stmt = before.createStatement()) {
+                stmt.execute("INSERT INTO secure_notes VALUES (1, 'Note', 0)");
+            }
+            try (Statement stmt = after.createStatement()) {
+                stmt.execute("INSERT INTO secure_notes VALUES (1, 'Note', 1)");
+            }
+
+            RecordDiff.Result result = RecordDiff.compare(before, after);
+            List<RecordDiff.Change> changes = result.getChanges(EntityType.CREDENTIAL);
+
+            assertEquals(3, changes.size());
+            assertEquals(RecordDiff.ChangeType.REMOVED, changes.get(0).changeType);
+            assertEquals("Removed", changes.get(0).title);
+            assertEquals(RecordDiff.ChangeType.MODIFIED, changes.get(1).changeType);
+            assertEquals(List.of("encrypted_password"), changes.get(1).changedColumns);
+            assertEquals(RecordDiff.ChangeType.ADDED, changes.get(2).changeType);
+            assertEquals(4L, changes.get(2).id);
+
+            assertTrue(result.getChanges(EntityType.NOTE).isEmpty(), "content_indexed is ignored");
+            assertTrue(result.getChanges(EntityType.IDENTITY_CARD).isEmpty(), "Missing tables are skipped");
+            assertEquals(5, result.rowsCompared);
+        }
+
+        System.out.println("✅ Record diff detects added, removed and modified entries");
+    }
+
+    @Test
+    public void testLargeTableDiff() throws Exception {
+        int rows = 100_000;
+        try (Connection before = createDatabase(); Connection after = createDatabase()) {
+            for (Connection conn : List.of(before, after)) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO credentials VALUES (?, ?, ?, ?)")) {
+                    for (int i = 1; i <= rows; i++) {
+                        stmt.setLong(1, i);
+                        stmt.setString(2, "Entry " + i);
+                        stmt.setBytes(3, new byte[]{(byte) i, (byte) (i >> 8)});
+                        stmt.setString(4, conn == after && i % 1000 == 0 ? "changed.com" : "site.com");
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+                conn.commit();
+            }
+
+            long start = System.nanoTime();
+            RecordDiff.Result result = RecordDiff.compare(before, after);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(rows / 1000, result.count(RecordDiff.ChangeType.MODIFIED));
+            assertEquals(0, result.count(RecordDiff.ChangeType.ADDED));
+            System.out.println("✅ Compared " + rows + " rows in " + millis + " ms");
+        }
+    }
+}
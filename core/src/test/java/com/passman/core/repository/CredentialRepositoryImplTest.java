@@ -0,0 +1,119 @@
+package com.passman.core.repository;
+
+import com.passman.core.db.DatabaseManager;
+import com.passman.core.model.Credential;
+import com.passman.core.model.CredentialSummary;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for looking up credentials by the site they belong to
+ */
+public class CredentialRepositoryImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private DatabaseManager dbManager;
+    private CredentialRepositoryImpl repository;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dbManager = DatabaseManager.openFile(tempDir.resolve("credentials.db"));
+        repository = new CredentialRepositoryImpl(dbManager);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        dbManager.close();
+    }
+
+    @Test
+    public void testLookupByHostAndUrl() throws Exception {
+        save("GitHub login", "https://github.com/login");
+        save("GitHub bare", "GitHub.com");
+        save("GitHub www", "http://www.github.com:8080/settings?tab=keys");
+        save("Gist", "https://user:pw@gist.github.com/");
+        save("Example", "https://example.com");
+        save("No URL", null);
+
+        // Scheme, case, port and path do not matter; www. is a host of its own
+        assertEquals(List.of("GitHub bare", "GitHub login"), titles(repository.findSummariesByHost("https://github.com:443/x")));
+        assertEquals(List.of("GitHub bare", "GitHub login"), titles(repository.findSummariesByHost("GITHUB.COM")));
+        assertEquals(List.of("GitHub www"), titles(repository.findSummariesByHost("www.github.com")));
+        assertTrue(repository.findSummariesByHost("github.io").isEmpty());
+        assertTrue(repository.findSummariesByHost("").isEmpty());
+
+        // The whole site matches, the exact host first
+        assertEquals(List.of("Gist", "GitHub bare", "GitHub login", "GitHub www"),
+                titles(repository.findSummariesForUrl("https://gist.github.com/alice/1")));
+        assertEquals(List.of("GitHub www", "Gist", "GitHub bare", "GitHub login"),
+                titles(repository.findSummariesForUrl("www.github.com:8080")));
+        assertEquals(List.of("Example"), titles(repository.findSummariesForUrl("http://EXAMPLE.com/login")));
+        assertTrue(repository.findSummariesForUrl("https://example.org").isEmpty());
+        assertTrue(repository.findSummariesForUrl(null).isEmpty());
+
+        System.out.println("✅ Credentials found by host and by site");
+    }
+
+    @Test
+    public void testUrlKeysAreBackfilledOnce() throws Exception {
+        // A row as saved before V8: no URL keys
+        insertWithoutUrlKeys("Old mail", "https://mail.example.com/inbox");
+        dbManager.close();
+
+        // Databases already backfilled are not scanned again
+        dbManager = DatabaseManager.openFile(tempDir.resolve("credentials.db"));
+        assertEquals(1, count("SELECT COUNT(*) FROM data_migrations WHERE name = 'credential_url_keys'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM credentials WHERE url_host IS NULL"));
+
+        // Without the record, the next open fills in the keys and records it
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.executeUpdate("DELETE FROM data_migrations");
+        }
+        dbManager.close();
+        dbManager = DatabaseManager.openFile(tempDir.resolve("credentials.db"));
+        repository = new CredentialRepositoryImpl(dbManager);
+
+        assertEquals(0, count("SELECT COUNT(*) FROM credentials WHERE url_host IS NULL"));
+        assertEquals(List.of("Old mail"), titles(repository.findSummariesForUrl("https://example.com")));
+        assertEquals(1, count("SELECT COUNT(*) FROM data_migrations WHERE name = 'credential_url_keys'"));
+
+        System.out.println("✅ URL keys backfilled once per database");
+    }
+
+    private void save(String title, String url) throws Exception {
+        Credential credential = new Credential();
+        credential.setTitle(title);
+        credential.setUsername("alice");
+        credential.setUrl(url);
+        credential.setEncryptedPassword(new byte[]{1});
+        credential.setEncryptionIV(new byte[16]);
+        repository.save(credential);
+    }
+
+    private void insertWithoutUrlKeys(String title, String url) throws Exception {
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.executeUpdate("INSERT INTO credentials (title, username, url, encrypted_password, encryption_iv) "
+                    + "VALUES ('" + title + "', 'alice', '" + url + "', X'01', X'00')");
+        }
+    }
+
+    private List<String> titles(List<CredentialSummary> summaries) {
+        return summaries.stream().map(CredentialSummary::getTitle).toList();
+    }
+
+    private long count(String sql) throws Exception {
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
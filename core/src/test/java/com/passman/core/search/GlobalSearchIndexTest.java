@@ -0,0 +1,131 @@
+package com.passman.core.search;
+
+import com.passman.core.db.DatabaseManager;
+import com.passman.core.model.Credential;
+import com.passman.core.model.EntityType;
+import com.passman.core.repository.CredentialRepositoryImpl;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for fuzzy scoring, trigram candidates and ranking of the global search index
+ */
+public class GlobalSearchIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private DatabaseManager dbManager;
+    private CredentialRepositoryImpl credentialRepository;
+    private final GlobalSearchIndex index = GlobalSearchIndex.getInstance();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dbManager = DatabaseManager.openFile(tempDir.resolve("search.db"));
+        credentialRepository = new CredentialRepositoryImpl(dbManager);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        index.clear();
+        dbManager.close();
+    }
+
+    @Test
+    public void testFuzzyScore() {
+        assertEquals(0, GlobalSearchIndex.fuzzyScore("github", "xyz"), "Not a subsequence");
+        assertEquals(0, GlobalSearchIndex.fuzzyScore("git", "github"));
+        assertTrue(GlobalSearchIndex.fuzzyScore("github", "gthb") > 0, "Gaps are allowed");
+
+        assertTrue(GlobalSearchIndex.fuzzyScore("github", "git") > GlobalSearchIndex.fuzzyScore("legit", "git"),
+                "A match at the start should score higher");
+        assertTrue(GlobalSearchIndex.fuzzyScore("my git", "git") > GlobalSearchIndex.fuzzyScore("legit", "git"),
+                "A match at a word start should score higher");
+        assertTrue(GlobalSearchIndex.fuzzyScore("github", "git") > GlobalSearchIndex.fuzzyScore("github", "gth"),
+                "Consecutive matches should score higher than gapped ones");
+
+        System.out.println("✅ Fuzzy scores favour word starts and consecutive runs");
+    }
+
+    @Test
+    public void testTrigrams() {
+        assertEquals(1, GlobalSearchIndex.trigrams("ab").length, "Padded with a leading space");
+        assertEquals(0, GlobalSearchIndex.trigrams("a").length);
+        assertEquals(2, GlobalSearchIndex.trigrams("aaaa").length, "Repeated trigrams are counted once");
+        assertArrayEquals(GlobalSearchIndex.trigrams("github"), GlobalSearchIndex.trigrams("github"));
+        assertEquals("cafe", GlobalSearchIndex.normalize("  Café "), "Accents and case are folded");
+
+        System.out.println("✅ Trigrams are distinct and padded");
+    }
+
+    @Test
+    public void testTypoFallsBackToTrigramOverlap() throws Exception {
+        saveCredential("Facebook", "alice", null);
+        saveCredential("Bank", "bob", null);
+        index.rebuild(dbManager);
+
+        // "fasebook" is not a subsequence of anything, but shares most trigrams with "facebook"
+        List<SearchHit> hits = index.search("fasebook", 10);
+        assertEquals(1, hits.size());
+        assertEquals("Facebook", hits.get(0).getTitle());
+        assertTrue(hits.get(0).getScore() < 500, "Typo matches rank below all subsequence matches");
+
+        assertTrue(index.search("zzzzzz", 10).isEmpty());
+
+        System.out.println("✅ Typos are found through trigram overlap");
+    }
+
+    @Test
+    public void testRankingOrder() throws Exception {
+        saveCredential("Work mail", "github-bot", null);
+        saveCredential("My GitHub Enterprise Account", "carol", null);
+        saveCredential("GitHub", "dave", null);
+        saveCredential("Gitter", "erin", null);
+        index.rebuild(dbManager);
+
+        List<SearchHit> hits = index.search("github", 10);
+        assertEquals(List.of("GitHub", "My GitHub Enterprise Account", "Work mail", "Gitter"),
+                hits.stream().map(SearchHit::getTitle).toList(),
+                "Title matches, then username matches, then trigram-only matches");
+        assertTrue(hits.get(1).getScore() >= 1000 && hits.get(2).getScore() < 1000);
+        assertTrue(hits.get(3).getScore() < 500);
+
+        assertEquals(2, index.search("github", 2).size(), "The limit keeps the best hits");
+        assertTrue(index.search("github", EnumSet.of(EntityType.NOTE), 10).isEmpty());
+
+        System.out.println("✅ Search hits are ranked by match quality");
+    }
+
+    @Test
+    public void testUpdatesFollowRepositoryWrites() throws Exception {
+        index.rebuild(dbManager);
+        Credential credential = saveCredential("Dropbox", "frank", null);
+        assertEquals(1, index.search("dropbox", 10).size());
+
+        credential.setTitle("Box");
+        credentialRepository.update(credential);
+        assertTrue(index.search("dropbox", 10).isEmpty(), "Renamed entries should not keep their old title");
+        assertEquals(1, index.search("box", 10).size());
+
+        credentialRepository.delete(credential.getId());
+        assertTrue(index.search("box", 10).isEmpty());
+
+        System.out.println("✅ Index follows saves, updates and deletes");
+    }
+
+    private Credential saveCredential(String title, String username, String url) throws Exception {
+        Credential credential = new Credential();
+        credential.setTitle(title);
+        credential.setUsername(username);
+        credential.setUrl(url);
+        credential.setEncryptedPassword(new byte[]{1});
+        credential.setEncryptionIV(new byte[16]);
+        return credentialRepository.save(credential);
+    }
+}
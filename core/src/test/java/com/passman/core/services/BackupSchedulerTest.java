@@ -0,0 +1,133 @@
+package com.passman.core.services;
+
+import com.passman.core.db.DatabaseManager;
+import com.passman.core.model.Backup;
+import com.passman.core.model.BackupSchedule;
+import com.passman.core.model.Credential;
+import com.passman.core.repository.BackupRepositoryImpl;
+import com.passman.core.repository.CredentialRepositoryImpl;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scheduled backup runs and their retention
+ */
+public class BackupSchedulerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SecretKey key = new SecretKeySpec(new byte[32], "AES");
+
+    private DatabaseManager dbManager;
+    private BackupRepositoryImpl backupRepository;
+    private CredentialRepositoryImpl credentialRepository;
+    private BackupScheduler scheduler;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dbManager = DatabaseManager.openFile(tempDir.resolve("passman.db"));
+        backupRepository = new BackupRepositoryImpl(dbManager);
+        credentialRepository = new CredentialRepositoryImpl(dbManager);
+        BackupServiceImpl backupService = new BackupServiceImpl(dbManager, backupRepository,
+                tempDir.resolve("storage").toString());
+        scheduler = new BackupScheduler(dbManager, backupService, () -> key);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        dbManager.close();
+    }
+
+    @Test
+    public void testRetentionRemovesOldBackupsAcrossBaseChanges() throws Exception {
+        BackupSchedule schedule = backupRepository.loadSchedule();
+        assertEquals(Backup.BackupKind.DIFFERENTIAL, schedule.getBackupKind());
+        schedule.setKeepDaily(1);
+        schedule.setKeepWeekly(0);
+        schedule.setKeepMonthly(0);
+
+        runCycle(schedule, "Cycle 1");
+        Backup base = backupRepository.findAll().get(0);
+        assertEquals(Backup.BackupKind.FULL, base.getBackupKind(), "The first run has no base to build on");
+
+        Backup previous = null;
+        for (int cycle = 2; cycle <= 4; cycle++) {
+            runCycle(schedule, "Cycle " + cycle);
+            List<Backup> backups = backupRepository.findAll();
+            assertEquals(2, backups.size(), "Only the newest differential and its base are kept");
+            assertEquals(Backup.BackupKind.DIFFERENTIAL, backups.get(0).getBackupKind());
+            assertEquals(base.getId(), backups.get(0).getParentBackupId());
+            if (previous != null) {
+                assertFalse(Files.exists(Paths.get(previous.getBackupPath())), "Replaced differentials are deleted");
+            }
+            previous = backups.get(0);
+        }
+        assertTrue(count("SELECT COUNT(*) FROM change_journal") > 0);
+
+        // A week later the differentials start over from a new full backup
+        try (PreparedStatement stmt = dbManager.getConnection().prepareStatement(
+                "UPDATE backups SET created_at = ? WHERE id = ?")) {
+            for (Backup backup : backupRepository.findAll()) {
+                stmt.setObject(1, backup.getCreatedAt().minusDays(8));
+                stmt.setLong(2, backup.getId());
+                stmt.executeUpdate();
+            }
+        }
+        runCycle(schedule, "Cycle 5");
+
+        List<Backup> backups = backupRepository.findAll();
+        assertEquals(1, backups.size(), "The old base and its differential are removed");
+        assertEquals(Backup.BackupKind.FULL, backups.get(0).getBackupKind());
+        assertFalse(Files.exists(Paths.get(base.getBackupPath())));
+        assertFalse(Files.exists(Paths.get(previous.getBackupPath())));
+        assertEquals(0, count("SELECT COUNT(*) FROM change_journal"), "Journal is pruned at the new base");
+
+        System.out.println("✅ Scheduled backups rotate their base and retention removes old ones");
+    }
+
+    @Test
+    public void testUnchangedDataIsNotBackedUpAgain() throws Exception {
+        BackupSchedule schedule = backupRepository.loadSchedule();
+
+        runCycle(schedule, "First");
+        scheduler.runBackup(schedule, Backup.BackupType.SCHEDULED);
+
+        assertEquals(1, backupRepository.findAll().size());
+        assertTrue(backupRepository.loadSchedule().getLastResult().startsWith("Skipped"));
+
+        System.out.println("✅ Runs without changes are skipped");
+    }
+
+    private void runCycle(BackupSchedule schedule, String title) throws Exception {
+        Credential credential = new Credential();
+        credential.setTitle(title);
+        credential.setUsername("alice");
+        credential.setEncryptedPassword(new byte[]{1});
+        credential.setEncryptionIV(new byte[16]);
+        credentialRepository.save(credential);
+
+        scheduler.runBackup(schedule, Backup.BackupType.SCHEDULED);
+        assertTrue(backupRepository.loadSchedule().getLastResult().startsWith("Created"),
+                backupRepository.loadSchedule().getLastResult());
+    }
+
+    private long count(String sql) throws Exception {
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
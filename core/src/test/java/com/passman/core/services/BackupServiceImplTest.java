@@ -0,0 +1,279 @@
+package com.passman.core.services;
+
+import com.passman.core.db.DatabaseMaintenanceScheduler;
+import com.passman.core.db.DatabaseManager;
+import com.passman.core.db.WriteQueue;
+import com.passman.core.model.Backup;
+import com.passman.core.model.Credential;
+import com.passman.core.model.EncryptedFile;
+import com.passman.core.model.EntityType;
+import com.passman.core.repository.BackupRepositoryImpl;
+import com.passman.core.repository.CredentialRepositoryImpl;
+import com.passman.core.repository.EncryptedFileRepositoryImpl;
+import com.passman.core.search.GlobalSearchIndex;
+import com.passman.core.search.SearchHit;
+import com.passman.core.storage.BlobStore;
+import com.passman.core.storage.IntegrityScrubber;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for creating backups and restoring them into the live database
+ */
+public class BackupServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SecretKey key = new SecretKeySpec(new byte[32], "AES");
+
+    private DatabaseManager dbManager;
+    private CredentialRepositoryImpl credentialRepository;
+    private BackupServiceImpl backupService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dbManager = DatabaseManager.openFile(tempDir.resolve("passman.db"));
+        // Restores stop and restart the write queue and background passes of the live database
+        setSingleton(DatabaseManager.class, dbManager);
+        resetBackgroundSingletons();
+
+        credentialRepository = new CredentialRepositoryImpl(dbManager);
+        backupService = new BackupServiceImpl(dbManager, new BackupRepositoryImpl(dbManager),
+                tempDir.resolve("storage").toString());
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        WriteQueue.getInstance().shutdown();
+        GlobalSearchIndex.getInstance().clear();
+        resetBackgroundSingletons();
+        setSingleton(DatabaseManager.class, null);
+        dbManager.close();
+    }
+
+    @Test
+    public void testFullBackupRestore() throws Exception {
+        Credential mail = saveCredential("Mail", "alice");
+        Credential bank = saveCredential("Bank", "bob");
+        Backup backup = backupService.createBackup(key, "Before changes");
+
+        mail.setTitle("Mail (old)");
+        mail.setEncryptedPassword(new byte[]{9, 9});
+        credentialRepository.update(mail);
+        credentialRepository.delete(bank.getId());
+        saveCredential("Shop", "carol");
+
+        backupService.restoreBackup(new File(backup.getBackupPath()), key);
+
+        assertEquals(List.of("Bank", "Mail"), titles());
+        Credential restored = credentialRepository.findById(mail.getId()).orElseThrow();
+        assertEquals("alice", restored.getUsername());
+        assertArrayEquals(new byte[]{1, 2, 3}, restored.getEncryptedPassword());
+        assertEquals(bank.getId(), credentialRepository.findById(bank.getId()).orElseThrow().getId());
+
+        System.out.println("✅ Full backup restores the rows as they were");
+    }
+
+    @Test
+    public void testDifferentialBackupRestore() throws Exception {
+        Credential mail = saveCredential("Mail", "alice");
+        Backup base = backupService.createBackup(key, "Base");
+
+        mail.setTitle("Mail 2");
+        credentialRepository.update(mail);
+        Credential bank = saveCredential("Bank", "bob");
+        Backup first = backupService.createDifferentialBackup(key, "First changes");
+        assertEquals(Backup.BackupKind.DIFFERENTIAL, first.getBackupKind());
+
+        mail.setTitle("Mail 3");
+        credentialRepository.update(mail);
+        credentialRepository.delete(bank.getId());
+        saveCredential("Shop", "carol");
+        Backup second = backupService.createDifferentialBackup(key, "Second changes");
+        assertNotEquals(first.getBackupFileName(), second.getBackupFileName());
+        assertEquals(base.getId(), first.getParentBackupId());
+        assertEquals(base.getId(), second.getParentBackupId(), "Each differential is based on the full backup");
+
+        saveCredential("Later", "dave");
+
+        backupService.restoreBackup(new File(first.getBackupPath()), key);
+        assertEquals(List.of("Bank", "Mail 2"), titles());
+
+        backupService.restoreBackup(new File(second.getBackupPath()), key);
+        assertEquals(List.of("Mail 3", "Shop"), titles());
+
+        System.out.println("✅ Differential backups restore on top of their base");
+    }
+
+    @Test
+    public void testJournalIsKeptUntilTheBaseChanges() throws Exception {
+        Credential mail = saveCredential("Mail", "alice");
+        Backup base = backupService.createBackup(key, "Base");
+        assertEquals(0, count("SELECT COUNT(*) FROM change_journal"));
+
+        mail.setTitle("Mail 2");
+        credentialRepository.update(mail);
+        Backup first = backupService.createDifferentialBackup(key, "First changes");
+        saveCredential("Bank", "bob");
+        Backup second = backupService.createDifferentialBackup(key, "Second changes");
+        assertTrue(count("SELECT COUNT(*) FROM change_journal") > 0, "Later differentials need the changes since the base");
+
+        // Losing the first differential does not affect the second
+        backupService.deleteBackup(first.getId());
+        backupService.restoreBackup(new File(second.getBackupPath()), key);
+        assertEquals(List.of("Bank", "Mail 2"), titles());
+
+        BackupException refused = assertThrows(BackupException.class, () -> backupService.deleteBackup(base.getId()));
+        assertTrue(refused.getMessage().contains("delete those first"));
+        assertTrue(new File(base.getBackupPath()).exists());
+
+        backupService.deleteBackup(second.getId());
+        saveCredential("Shop", "carol");
+        backupService.deleteBackup(base.getId());
+        assertEquals(0, count("SELECT COUNT(*) FROM change_journal"), "Without a base no differential can use the journal");
+        assertEquals(Backup.BackupKind.FULL, backupService.createDifferentialBackup(key, "No base").getBackupKind());
+
+        System.out.println("✅ Journal is kept until the base changes and bases are not deleted from under differentials");
+    }
+
+    @Test
+    public void testSnapshotRestoresFiles() throws Exception {
+        Path storage = tempDir.resolve("storage");
+        FileEncryptionService fileService = new FileEncryptionService(storage.toString(), dbManager);
+        EncryptedFileRepositoryImpl fileRepository = new EncryptedFileRepositoryImpl(dbManager);
+        BlobStore blobStore = new BlobStore(storage.resolve(BlobStore.DIRECTORY), dbManager);
+
+        // Above the pack threshold, so the data is a blob file of its own
+        byte[] content = new byte[(int) BlobStore.DEFAULT_PACK_THRESHOLD * 2];
+        new Random(7).nextBytes(content);
+        Path source = Files.write(tempDir.resolve("scan.bin"), content);
+        EncryptedFile file = fileService.encryptFile(source.toFile(), 1L, key);
+        fileRepository.save(file);
+        fileService.finishStore(file);
+        Backup snapshot = backupService.createSnapshotBackup(key, "With files");
+
+        fileRepository.delete(file.getId());
+        fileService.deleteEncryptedFile(file);
+        Path blobPath = blobStore.pathFor(file.getContentId());
+        assertFalse(Files.exists(blobPath));
+
+        // In WAL mode like the live database, a reader behind the latest write keeps it from
+        // being swapped: the files must not be restored either
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+        }
+        try (Connection reader = dbManager.openConnection()) {
+            reader.setAutoCommit(false);
+            try (Statement stmt = reader.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM credentials")) {
+                rs.next();
+                saveCredential("Written during the read", "dave");
+                assertThrows(BackupException.class,
+                        () -> backupService.restoreBackup(new File(snapshot.getBackupPath()), key));
+            }
+            reader.rollback();
+        }
+        assertFalse(Files.exists(blobPath), "Files stay as they were when the database is not replaced");
+        try (Stream<Path> entries = Files.list(storage)) {
+            assertTrue(entries.noneMatch(path -> path.getFileName().toString().startsWith(".restore-")),
+                    "Staged files are cleaned up");
+        }
+
+        backupService.restoreBackup(new File(snapshot.getBackupPath()), key);
+        assertTrue(Files.exists(blobPath));
+        EncryptedFile restored = fileRepository.findById(file.getId()).orElseThrow();
+        File decrypted = fileService.decryptFile(restored, tempDir.resolve("scan.out").toFile(), key);
+        assertArrayEquals(content, Files.readAllBytes(decrypted.toPath()));
+
+        System.out.println("✅ Snapshot restores files together with the database");
+    }
+
+    @Test
+    public void testRestoreSelectedItems() throws Exception {
+        Credential mail = saveCredential("Mail", "alice");
+        Credential bank = saveCredential("Bank", "bob");
+        Credential shop = saveCredential("Shop", "carol");
+        Backup backup = backupService.createBackup(key, "Before changes");
+        GlobalSearchIndex index = GlobalSearchIndex.getInstance();
+        index.rebuild(dbManager);
+
+        mail.setTitle("Mail (edited)");
+        credentialRepository.update(mail);
+        credentialRepository.delete(bank.getId());
+        shop.setTitle("Shop (edited)");
+        credentialRepository.update(shop);
+        saveCredential("Later", "dave");
+
+        File backupFile = new File(backup.getBackupPath());
+        List<BackupService.RestorableItem> items = backupService.listRestorableItems(backupFile, key, EntityType.CREDENTIAL);
+        assertEquals(3, items.size());
+        assertFalse(items.stream().filter(item -> item.id.equals(bank.getId())).findFirst().orElseThrow().inVault);
+
+        int restored = backupService.restoreItems(backupFile, key, EntityType.CREDENTIAL, List.of(mail.getId(), bank.getId()));
+        assertEquals(2, restored);
+        assertEquals(List.of("Bank", "Later", "Mail", "Shop (edited)"), titles(), "Only the selected entries are restored");
+        assertEquals("bob", credentialRepository.findById(bank.getId()).orElseThrow().getUsername());
+
+        // The search index follows the restored rows
+        assertEquals(List.of(bank.getId()), index.search("bob", 10).stream().map(SearchHit::getId).toList());
+        assertEquals(List.of("Mail"), index.search("mail", 10).stream().map(SearchHit::getTitle).toList());
+
+        System.out.println("✅ Selected entries are restored from a backup");
+    }
+
+    private Credential saveCredential(String title, String username) throws Exception {
+        Credential credential = new Credential();
+        credential.setTitle(title);
+        credential.setUsername(username);
+        credential.setEncryptedPassword(new byte[]{1, 2, 3});
+        credential.setEncryptionIV(new byte[16]);
+        return credentialRepository.save(credential);
+    }
+
+    private long count(String sql) throws Exception {
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private List<String> titles() throws Exception {
+        List<String> titles = new ArrayList<>();
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT title FROM credentials ORDER BY title")) {
+            while (rs.next()) {
+                titles.add(rs.getString(1));
+            }
+        }
+        return titles;
+    }
+
+    private static void resetBackgroundSingletons() throws Exception {
+        setSingleton(WriteQueue.class, null);
+        setSingleton(DatabaseMaintenanceScheduler.class, null);
+        setSingleton(IntegrityScrubber.class, null);
+    }
+
+    private static void setSingleton(Class<?> type, Object value) throws Exception {
+        Field instanceField = type.getDeclaredField("instance");
+        instanceField.setAccessible(true);
+        instanceField.set(null, value);
+    }
+}
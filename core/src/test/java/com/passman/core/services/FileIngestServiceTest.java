@@ -0,0 +1,298 @@
+package com.passman.core.services;
+
+import com.passman.core.db.DatabaseManager;
+import com.passman.core.db.WriteQueue;
+import com.passman.core.model.EncryptedFile;
+import com.passman.core.repository.EncryptedFileRepositoryImpl;
+import com.passman.core.repository.RepositoryException;
+import com.passman.core.search.GlobalSearchIndex;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for adding many files to a vault at once
+ */
+public class FileIngestServiceTest {
+
+    private static final long VAULT_ID = 1L;
+
+    @TempDir
+    Path tempDir;
+
+    private final SecretKey key = new SecretKeySpec(new byte[32], "AES");
+
+    private DatabaseManager dbManager;
+    private FileEncryptionService fileEncryptionService;
+    private EncryptedFileRepositoryImpl repository;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dbManager = DatabaseManager.openFile(tempDir.resolve("ingest.db"));
+        // The write queue commits on the application database; point it at this one
+        setSingleton(DatabaseManager.class, dbManager);
+        setSingleton(WriteQueue.class, null);
+
+        fileEncryptionService = new FileEncryptionService(tempDir.resolve("storage").toString(), dbManager);
+        repository = new EncryptedFileRepositoryImpl(dbManager);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        WriteQueue.getInstance().shutdown();
+        GlobalSearchIndex.getInstance().clear();
+        setSingleton(WriteQueue.class, null);
+        setSingleton(DatabaseManager.class, null);
+        dbManager.close();
+    }
+
+    @Test
+    public void testIngestDirectoryWithDuplicates() throws Exception {
+        Path source = Files.createDirectories(tempDir.resolve("source/nested"));
+        Files.writeString(source.getParent().resolve("a.txt"), "first file");
+        Files.writeString(source.getParent().resolve("copy-of-a.txt"), "first file");
+        Files.writeString(source.getParent().resolve(".hidden"), "skipped");
+        Files.writeString(source.resolve("b.txt"), "second file");
+
+        List<File> files = FileIngestService.collectFiles(List.of(source.getParent().toFile()));
+        assertEquals(3, files.size(), "Hidden files are skipped, directories are walked");
+
+        List<FileIngestService.IngestProgress> reports = new ArrayList<>();
+        FileIngestService.IngestResult result = newService(2).ingest(files, VAULT_ID, key, reports::add, () -> false);
+
+        assertEquals(3, result.files.size());
+        assertTrue(result.failures.isEmpty());
+        assertFalse(result.cancelled);
+        assertTrue(result.files.stream().allMatch(file -> file.getId() != null));
+        assertEquals(3, count("SELECT COUNT(*) FROM encrypted_files"));
+        assertEquals(2, count("SELECT COUNT(*) FROM file_blobs"), "Identical files share one blob");
+        assertEquals(2, count("SELECT MAX(ref_count) FROM file_blobs"));
+
+        FileIngestService.IngestProgress last = reports.get(reports.size() - 1);
+        assertEquals(3, last.completedFiles);
+        assertEquals(last.totalBytes, last.processedBytes);
+
+        EncryptedFile stored = result.files.stream()
+                .filter(file -> file.getOriginalFileName().equals("b.txt")).findFirst().orElseThrow();
+        File decrypted = fileEncryptionService.decryptFile(stored, tempDir.resolve("b.out").toFile(), key);
+        assertEquals("second file", Files.readString(decrypted.toPath()));
+
+        System.out.println("✅ Directory ingested with duplicates stored once");
+    }
+
+    @Test
+    public void testMetadataIsCommittedInBatches() throws Exception {
+        List<File> files = writeFiles(450);
+        long commitsBefore = WriteQueue.getInstance().getCommitCount();
+
+        FileIngestService.IngestResult result = newService(4).ingest(files, VAULT_ID, key, progress -> {}, () -> false);
+
+        assertEquals(450, result.files.size());
+        assertEquals(450, count("SELECT COUNT(*) FROM encrypted_files"));
+        assertEquals(3, WriteQueue.getInstance().getCommitCount() - commitsBefore, "200 + 200 + 50 rows");
+
+        System.out.println("✅ Metadata committed in batches");
+    }
+
+    @Test
+    public void testFailedBatchIsDiscarded() throws Exception {
+        List<File> files = writeFiles(5);
+        EncryptedFileRepositoryImpl failing = new EncryptedFileRepositoryImpl(dbManager) {
+            @Override
+            public List<EncryptedFile> saveAll(List<EncryptedFile> batch) throws RepositoryException {
+                super.saveAll(batch.subList(0, 1));
+                throw new RepositoryException("Forced failure");
+            }
+        };
+
+        FileIngestService.IngestResult result = new FileIngestService(fileEncryptionService, null, failing, 2)
+                .ingest(files, VAULT_ID, key, progress -> {}, () -> false);
+
+        assertTrue(result.files.isEmpty());
+        assertEquals(5, result.failures.size());
+        assertTrue(result.failures.get(0).contains("Forced failure"));
+        assertEquals(5, result.progress.failedFiles);
+        assertEquals(0, result.progress.completedFiles);
+        assertEquals(0, count("SELECT COUNT(*) FROM encrypted_files"), "The partial batch is rolled back");
+        assertEquals(0, count("SELECT COUNT(*) FROM file_blobs"), "Blobs of the failed batch are released");
+
+        System.out.println("✅ Failed batch rolled back and its data released");
+    }
+
+    @Test
+    public void testInFlightWorkIsBounded() throws Exception {
+        int parallelism = 2;
+        List<File> files = writeFiles(12);
+        CountDownLatch boundReached = new CountDownLatch(1);
+        AtomicInteger finished = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+
+        // Polled once before each file is submitted: records how far submissions run ahead of finished files
+        AtomicInteger submitted = new AtomicInteger();
+        BooleanSupplier notCancelled = () -> {
+            int count = submitted.incrementAndGet();
+            maxAhead.accumulateAndGet(count - finished.get(), Math::max);
+            if (count == parallelism * 2) {
+                boundReached.countDown();
+            }
+            return false;
+        };
+        FileEncryptionService blocking = new FileEncryptionService(tempDir.resolve("storage").toString(), dbManager) {
+            @Override
+            public EncryptedFile encryptFile(File sourceFile, Long vaultId, SecretKey key) throws Exception {
+                // Nothing finishes until the ingest has filled its window
+                boundReached.await(10, TimeUnit.SECONDS);
+                try {
+                    return super.encryptFile(sourceFile, vaultId, key);
+                } finally {
+                    finished.incrementAndGet();
+                }
+            }
+        };
+
+        FileIngestService.IngestResult result = new FileIngestService(blocking, null, repository, parallelism)
+                .ingest(files, VAULT_ID, key, progress -> {}, notCancelled);
+
+        assertEquals(12, result.files.size());
+        assertEquals(parallelism * 2, maxAhead.get(), "At most twice the pool size is in flight");
+
+        System.out.println("✅ In-flight work bounded to twice the pool size");
+    }
+
+    @Test
+    public void testCancellationKeepsStoredFiles() throws Exception {
+        List<File> files = writeFiles(10);
+        // Polled once before each file is submitted; cancels after the third
+        AtomicInteger polls = new AtomicInteger();
+
+        FileIngestService.IngestResult result = newService(2)
+                .ingest(files, VAULT_ID, key, progress -> {}, () -> polls.incrementAndGet() > 3);
+
+        assertTrue(result.cancelled);
+        assertEquals(3, result.files.size(), "Files started before cancelling are stored");
+        assertEquals(3, count("SELECT COUNT(*) FROM encrypted_files"));
+
+        System.out.println("✅ Cancelled ingest keeps the files already started");
+    }
+
+    @Test
+    public void testQuotaIsCheckedBeforeEncrypting() throws Exception {
+        List<File> files = writeFiles(3);
+        repository.setQuota(VAULT_ID, 10L);
+
+        RepositoryException error = assertThrows(RepositoryException.class,
+                () -> newService(2).ingest(files, VAULT_ID, key, progress -> {}, () -> false));
+        assertTrue(error.getMessage().contains("quota"));
+        assertEquals(0, count("SELECT COUNT(*) FROM file_blobs"), "Nothing is encrypted");
+
+        System.out.println("✅ Quota checked before encrypting");
+    }
+
+    @Test
+    public void testSaveAllIsAllOrNothing() throws Exception {
+        List<EncryptedFile> files = new ArrayList<>();
+        for (File source : writeFiles(2)) {
+            EncryptedFile file = fileEncryptionService.encryptFile(source, VAULT_ID, key);
+            fileEncryptionService.finishStore(file);
+            files.add(file);
+        }
+
+        repository.saveAll(files);
+        assertNotNull(files.get(0).getId());
+        assertNotEquals(files.get(0).getId(), files.get(1).getId());
+        assertEquals(2, count("SELECT COUNT(*) FROM encrypted_files"));
+
+        // The second row references a vault that does not exist
+        EncryptedFile valid = copyOf(files.get(0));
+        EncryptedFile invalid = copyOf(files.get(1));
+        invalid.setVaultId(999L);
+        assertThrows(RepositoryException.class, () -> repository.saveAll(List.of(valid, invalid)));
+        assertEquals(2, count("SELECT COUNT(*) FROM encrypted_files"), "The valid row is rolled back too");
+        assertNull(valid.getId());
+
+        System.out.println("✅ saveAll inserts all rows or none");
+    }
+
+    @Test
+    public void testDeleteUpdatesSearchIndexOnCommit() throws Exception {
+        EncryptedFile file = fileEncryptionService.encryptFile(writeFiles(1).get(0), VAULT_ID, key);
+        fileEncryptionService.finishStore(file);
+        repository.save(file);
+        GlobalSearchIndex index = GlobalSearchIndex.getInstance();
+        index.rebuild(dbManager);
+        assertEquals(1, index.search("file0", 10).size());
+
+        // A delete that is rolled back leaves the file searchable
+        CompletableFuture<Void> failed = WriteQueue.getInstance().submit(() -> {
+            repository.delete(file.getId());
+            throw new RepositoryException("Forced failure");
+        });
+        assertThrows(ExecutionException.class, failed::get);
+        assertEquals(1, count("SELECT COUNT(*) FROM encrypted_files"));
+        assertEquals(1, index.search("file0", 10).size());
+
+        WriteQueue.getInstance().submit(() -> repository.delete(file.getId())).get();
+        assertTrue(index.search("file0", 10).isEmpty());
+
+        System.out.println("✅ Deleted files leave the search index once committed");
+    }
+
+    private FileIngestService newService(int parallelism) {
+        return new FileIngestService(fileEncryptionService, null, repository, parallelism);
+    }
+
+    private List<File> writeFiles(int count) throws Exception {
+        Path dir = Files.createDirectories(tempDir.resolve("files"));
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            files.add(Files.writeString(dir.resolve("file" + i + ".txt"), "content of file " + i).toFile());
+        }
+        return files;
+    }
+
+    private EncryptedFile copyOf(EncryptedFile file) {
+        EncryptedFile copy = new EncryptedFile();
+        copy.setVaultId(file.getVaultId());
+        copy.setOriginalFileName(file.getOriginalFileName());
+        copy.setEncryptedFileName(file.getEncryptedFileName() + ".copy");
+        copy.setOriginalSize(file.getOriginalSize());
+        copy.setEncryptedSize(file.getEncryptedSize());
+        copy.setMimeType(file.getMimeType());
+        copy.setEncryptionIV(file.getEncryptionIV());
+        copy.setChecksum(file.getChecksum());
+        copy.setContentId(file.getContentId());
+        copy.setUploadedAt(file.getUploadedAt());
+        return copy;
+    }
+
+    private long count(String sql) throws Exception {
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static void setSingleton(Class<?> type, Object value) throws Exception {
+        Field instanceField = type.getDeclaredField("instance");
+        instanceField.setAccessible(true);
+        instanceField.set(null, value);
+    }
+}
@@ -0,0 +1,97 @@
+package com.passman.core.services;
+
+import com.passman.core.db.DatabaseManager;
+import com.passman.core.model.NoteSummary;
+import com.passman.core.model.SecureNote;
+import com.passman.core.repository.SecureNotesRepositoryImpl;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for searching note content through the blind index
+ */
+public class SecureNotesServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SecretKey masterKey = new SecretKeySpec(new byte[32], "AES");
+
+    private DatabaseManager dbManager;
+    private SecureNotesRepositoryImpl repository;
+    private SecureNotesService service;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dbManager = DatabaseManager.openFile(tempDir.resolve("notes.db"));
+        repository = new SecureNotesRepositoryImpl(dbManager);
+        service = new SecureNotesService(repository, tempDir.toString(), dbManager);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        SecureNotesService.clearSessionIndex();
+        dbManager.close();
+    }
+
+    @Test
+    public void testContentSearchDoesNotDecrypt() throws Exception {
+        SecureNote note = new SecureNote();
+        note.setTitle("Plans");
+        note.setContent("The quarterly budget spreadsheet");
+        service.saveNote(note, masterKey);
+
+        // Ciphertext that no longer decrypts: any search that decrypts the note would fail
+        breakCiphertext(note.getId());
+
+        List<NoteSummary> found = service.searchNoteContentSummaries("budget", masterKey);
+        assertEquals(1, found.size());
+        assertEquals(note.getId(), found.get(0).getId());
+        assertEquals(1, service.searchNoteContentSummaries("quarter spread", masterKey).size(), "Word prefixes should match");
+        assertTrue(service.searchNoteContentSummaries("invoice", masterKey).isEmpty());
+        assertEquals(List.of(note.getId()),
+                service.searchNoteSummaries("plans", masterKey).stream().map(NoteSummary::getId).toList(),
+                "A title match should not be listed twice");
+
+        System.out.println("✅ Note content is found without decrypting it");
+    }
+
+    @Test
+    public void testOlderNotesAreIndexedOncePerSession() throws Exception {
+        // Saved with the content encrypted but without content tokens, as before the index existed
+        SecureNote older = new SecureNote();
+        older.setTitle("Older");
+        older.setContent("Garage door code");
+        service.saveNote(older, masterKey);
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM note_search_tokens");
+            stmt.execute("UPDATE secure_notes SET content_indexed = 0");
+        }
+
+        assertEquals(1, service.searchNoteContentSummaries("garage", masterKey).size(), "First search indexes older notes");
+
+        // Later searches in the session, by any service instance, read only the index
+        breakCiphertext(older.getId());
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.execute("UPDATE secure_notes SET content_indexed = 0");
+        }
+        SecureNotesService other = new SecureNotesService(repository, tempDir.toString(), dbManager);
+        assertEquals(1, other.searchNoteContentSummaries("door", masterKey).size());
+
+        System.out.println("✅ Older notes are indexed once per session");
+    }
+
+    private void breakCiphertext(Long noteId) throws Exception {
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.execute("UPDATE secure_notes SET encrypted_content = X'00', encryption_iv = X'00' WHERE id = " + noteId);
+        }
+    }
+}
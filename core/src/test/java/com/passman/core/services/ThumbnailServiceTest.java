@@ -0,0 +1,139 @@
+package com.passman.core.services;
+
+import com.passman.core.model.EncryptedFile;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for encrypted thumbnails and their in-memory cache
+ */
+public class ThumbnailServiceTest {
+
+    private static final long VAULT_ID = 1L;
+
+    @TempDir
+    Path tempDir;
+
+    private final SecretKey key = new SecretKeySpec(new byte[32], "AES");
+
+    private ThumbnailService service;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Files.createDirectories(tempDir.resolve("encrypted_files").resolve(String.valueOf(VAULT_ID)));
+        service = new ThumbnailService(tempDir.toString());
+    }
+
+    @Test
+    public void testCreateLoadAndDeleteThumbnail() throws Exception {
+        File image = writeImage("photo.png", 800, 400);
+        EncryptedFile file = fileNamed("photo.enc");
+
+        assertTrue(service.createThumbnail(image, file, key));
+        Path thumbnailPath = service.getThumbnailPath(file);
+        assertEquals("photo.thumb", thumbnailPath.getFileName().toString());
+
+        byte[] stored = Files.readAllBytes(thumbnailPath);
+        assertFalse(stored.length >= 3 && (stored[0] & 0xFF) == 0xFF && (stored[1] & 0xFF) == 0xD8
+                && (stored[2] & 0xFF) == 0xFF, "Thumbnails are not stored as plaintext JPEG");
+
+        // Loaded from disk once the cache is gone
+        service.clearCache();
+        assertNull(service.getCachedThumbnail(file));
+        Optional<byte[]> loaded = service.loadThumbnail(file, key);
+        assertTrue(loaded.isPresent());
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(loaded.get()));
+        assertEquals(ThumbnailService.THUMBNAIL_SIZE, thumbnail.getWidth());
+        assertEquals(ThumbnailService.THUMBNAIL_SIZE / 2, thumbnail.getHeight(), "Aspect ratio is kept");
+        assertSame(loaded.get(), service.getCachedThumbnail(file));
+
+        service.deleteThumbnail(file);
+        assertFalse(Files.exists(thumbnailPath));
+        assertNull(service.getCachedThumbnail(file));
+        assertEquals(0, service.getCacheBytes());
+        assertTrue(service.loadThumbnail(file, key).isEmpty());
+
+        File text = Files.writeString(tempDir.resolve("notes.txt"), "not an image").toFile();
+        EncryptedFile textFile = fileNamed("notes.enc");
+        assertFalse(service.createThumbnail(text, textFile, key));
+        assertFalse(Files.exists(service.getThumbnailPath(textFile)));
+
+        System.out.println("✅ Thumbnails are created encrypted, loaded and deleted");
+    }
+
+    @Test
+    public void testLargeImagesAreDecodedSubsampled() throws Exception {
+        BufferedImage large = service.readSubsampled(writeImage("large.png", 4000, 2000));
+        assertTrue(large.getWidth() < 4000, "Large images are not decoded at full size");
+        assertTrue(large.getWidth() >= ThumbnailService.THUMBNAIL_SIZE * 2, "Enough pixels are kept to scale down smoothly");
+        assertEquals(large.getWidth() / 2, large.getHeight(), 1);
+
+        BufferedImage small = service.readSubsampled(writeImage("small.png", 100, 50));
+        assertEquals(100, small.getWidth(), "Small images are decoded whole");
+
+        System.out.println("✅ Large images are decoded subsampled");
+    }
+
+    @Test
+    public void testCacheEvictsLeastRecentlyUsed() throws Exception {
+        ThumbnailService bounded = new ThumbnailService(tempDir.toString(), 100);
+
+        bounded.cachePut("a.enc", new byte[40]);
+        bounded.cachePut("b.enc", new byte[40]);
+        assertEquals(80, bounded.getCacheBytes());
+
+        // Reading a keeps it; b is now the least recently used
+        assertNotNull(bounded.getCachedThumbnail(fileNamed("a.enc")));
+        bounded.cachePut("c.enc", new byte[40]);
+        assertNull(bounded.getCachedThumbnail(fileNamed("b.enc")));
+        assertNotNull(bounded.getCachedThumbnail(fileNamed("a.enc")));
+        assertNotNull(bounded.getCachedThumbnail(fileNamed("c.enc")));
+        assertEquals(80, bounded.getCacheBytes());
+
+        bounded.cachePut("a.enc", new byte[10]);
+        assertEquals(50, bounded.getCacheBytes(), "Replacing an entry counts only its new size");
+
+        bounded.cachePut("huge.enc", new byte[200]);
+        assertEquals(0, bounded.getCacheBytes(), "An entry over the bound is not kept");
+        assertNull(bounded.getCachedThumbnail(fileNamed("huge.enc")));
+
+        System.out.println("✅ Thumbnail cache is bounded by bytes and evicts in LRU order");
+    }
+
+    private File writeImage(String name, int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.BLUE);
+            g.fillRect(0, 0, width, height);
+            g.setColor(Color.ORANGE);
+            g.fillOval(width / 4, height / 4, width / 2, height / 2);
+        } finally {
+            g.dispose();
+        }
+        File file = tempDir.resolve(name).toFile();
+        ImageIO.write(image, "png", file);
+        return file;
+    }
+
+    private EncryptedFile fileNamed(String encryptedFileName) {
+        EncryptedFile file = new EncryptedFile();
+        file.setVaultId(VAULT_ID);
+        file.setEncryptedFileName(encryptedFileName);
+        return file;
+    }
+}
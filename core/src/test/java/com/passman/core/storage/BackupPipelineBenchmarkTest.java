@@ -0,0 +1,138 @@
+package com.passman.core.storage;
+
+import com.passman.core.crypto.AESCipher;
+import com.passman.core.crypto.CipherFactory;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the backup container against the earlier zip formats.
+ * Excluded from the normal test run; use ./gradlew :core:benchmark
+ */
+@Tag("benchmark")
+public class BackupPipelineBenchmarkTest {
+
+    private static final int PAYLOAD_BYTES = 64 * 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private SecretKey key;
+    private AESCipher aesCipher;
+    private byte[] payload;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        key = generator.generateKey();
+        aesCipher = CipherFactory.createAESCipher();
+        payload = databaseLikePayload();
+    }
+
+    @Test
+    public void benchmarkBackupFormats() throws Exception {
+        // 1.0: the database encrypted first, then deflated by the zip entry
+        Path encryptThenZip = tempDir.resolve("encrypt-then-zip.pmbak");
+        long start = System.nanoTime();
+        try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(encryptThenZip)))) {
+            zos.putNextEntry(new ZipEntry("passman.db"));
+            zos.write(aesCipher.encryptBytes(payload, key));
+            zos.closeEntry();
+        }
+        long encryptThenZipNanos = System.nanoTime() - start;
+
+        // 1.1: one deflate stream, then AES, stored in the zip
+        Path deflateThenEncrypt = tempDir.resolve("deflate-then-encrypt.pmbak");
+        start = System.nanoTime();
+        try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(deflateThenEncrypt)))) {
+            zos.setLevel(Deflater.NO_COMPRESSION);
+            zos.putNextEntry(new ZipEntry("passman.db.deflate"));
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            OutputStream encrypted = aesCipher.encryptingStream(zos, key);
+            try (DeflaterOutputStream deflated = new DeflaterOutputStream(encrypted, deflater, 64 * 1024)) {
+                deflated.write(payload);
+            } finally {
+                deflater.end();
+            }
+        }
+        long deflateThenEncryptNanos = System.nanoTime() - start;
+
+        // 2.0: independent blocks deflated and encrypted in parallel
+        Path container = tempDir.resolve("container.pmbak");
+        start = System.nanoTime();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(container));
+             BackupContainerWriter writer = new BackupContainerWriter(out, key)) {
+            writer.write(payload);
+            writer.finish("{}".getBytes(StandardCharsets.UTF_8));
+        }
+        long containerNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        byte[] restored;
+        try (BackupContainerReader reader = new BackupContainerReader(container);
+             InputStream in = reader.openData(key)) {
+            restored = in.readAllBytes();
+        }
+        long containerReadNanos = System.nanoTime() - start;
+
+        assertArrayEquals(payload, restored, "Container should restore the payload");
+        assertTrue(Files.size(container) < Files.size(encryptThenZip),
+                "Compressing before encrypting should make the backup smaller");
+
+        System.out.printf("📊 %d MB payload, %d cores%n", PAYLOAD_BYTES / (1024 * 1024),
+                Runtime.getRuntime().availableProcessors());
+        report("encrypt-then-zip (1.0)", encryptThenZip, encryptThenZipNanos);
+        report("deflate-then-encrypt (1.1)", deflateThenEncrypt, deflateThenEncryptNanos);
+        report("parallel container (2.0)", container, containerNanos);
+        System.out.printf("   container restore: %.1f ms%n", containerReadNanos / 1_000_000.0);
+    }
+
+    private void report(String name, Path file, long nanos) throws Exception {
+        System.out.printf("   %-28s %8.1f ms %12d bytes%n", name, nanos / 1_000_000.0, Files.size(file));
+    }
+
+    /**
+     * Text-heavy rows with repetition, closer to a vault database than random bytes
+     */
+    private static byte[] databaseLikePayload() {
+        Random random = new Random(7);
+        byte[] data = new byte[PAYLOAD_BYTES];
+        StringBuilder row = new StringBuilder();
+        int position = 0;
+        while (position < data.length) {
+            row.setLength(0);
+            row.append("credential|").append(random.nextInt(100_000))
+                    .append("|user").append(random.nextInt(500)).append("@example.com")
+                    .append("|https://site").append(random.nextInt(2_000)).append(".example.org/login|");
+            byte[] bytes = row.toString().getBytes(StandardCharsets.UTF_8);
+            int count = Math.min(bytes.length, data.length - position);
+            System.arraycopy(bytes, 0, data, position, count);
+            position += count;
+
+            // Encrypted columns look random
+            int blob = Math.min(48, data.length - position);
+            byte[] noise = new byte[blob];
+            random.nextBytes(noise);
+            System.arraycopy(noise, 0, data, position, blob);
+            position += blob;
+        }
+        return data;
+    }
+}
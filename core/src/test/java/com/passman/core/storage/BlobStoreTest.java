@@ -0,0 +1,183 @@
+package com.passman.core.storage;
+
+import com.passman.core.db.DatabaseManager;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for content-addressed file storage and its reference counts
+ */
+public class BlobStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    // One of the default vaults created with the database
+    private static final long VAULT_ID = 1;
+
+    private final SecretKey key = new SecretKeySpec(new byte[32], "AES");
+
+    private DatabaseManager dbManager;
+    private BlobStore blobStore;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dbManager = DatabaseManager.openFile(tempDir.resolve("blobs.db"));
+        // No packing, so every blob is a file of its own
+        blobStore = new BlobStore(tempDir.resolve(BlobStore.DIRECTORY), dbManager, 0);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        dbManager.close();
+    }
+
+    @Test
+    public void testDuplicateIsStoredOnce() throws Exception {
+        Path first = Files.writeString(tempDir.resolve("a.txt"), "same content");
+        Path second = Files.writeString(tempDir.resolve("b.txt"), "same content");
+
+        BlobStore.StoredBlob stored = blobStore.store(first, key);
+        addReference(stored.contentId);
+        blobStore.unpin(stored.contentId);
+        BlobStore.StoredBlob duplicate = blobStore.store(second, key);
+        addReference(duplicate.contentId);
+        blobStore.unpin(duplicate.contentId);
+
+        assertFalse(stored.deduplicated);
+        assertTrue(duplicate.deduplicated, "Second copy should reuse the blob");
+        assertEquals(stored.contentId, duplicate.contentId);
+        assertEquals(2, refCount(stored.contentId));
+
+        Path copy = tempDir.resolve("copy.txt");
+        blobStore.extract(stored.contentId, key, copy, stored.checksum);
+        assertEquals("same content", Files.readString(copy, StandardCharsets.UTF_8));
+
+        byte[] otherKeyBytes = new byte[32];
+        otherKeyBytes[0] = 1;
+        BlobStore.StoredBlob otherKey = blobStore.store(first, new SecretKeySpec(otherKeyBytes, "AES"));
+        assertNotEquals(stored.contentId, otherKey.contentId, "Content ids must depend on the key");
+        blobStore.unpin(otherKey.contentId);
+
+        System.out.println("✅ Duplicate files share one blob");
+    }
+
+    @Test
+    public void testBlobDeletedWithLastReference() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("a.txt"), "shared");
+        BlobStore.StoredBlob blob = blobStore.store(file, key);
+        addReference(blob.contentId);
+        addReference(blob.contentId);
+        blobStore.unpin(blob.contentId);
+
+        deleteReference(blob.contentId);
+        assertFalse(blobStore.release(blob.contentId), "Blob with a reference left must stay");
+        assertTrue(Files.exists(blobStore.pathFor(blob.contentId)));
+
+        deleteReference(blob.contentId);
+        assertTrue(blobStore.release(blob.contentId));
+        assertFalse(Files.exists(blobStore.pathFor(blob.contentId)), "Last reference should remove the blob");
+
+        System.out.println("✅ Blobs are deleted with their last reference");
+    }
+
+    @Test
+    public void testSmallBlobsArePackedAndCompacted() throws Exception {
+        BlobStore packing = new BlobStore(tempDir.resolve(BlobStore.DIRECTORY), dbManager);
+        Path packDir = tempDir.resolve(BlobStore.DIRECTORY).resolve(PackFileStore.DIRECTORY);
+
+        BlobStore.StoredBlob kept = packing.store(Files.writeString(tempDir.resolve("a.txt"), "kept"), key);
+        BlobStore.StoredBlob first = packing.store(Files.writeString(tempDir.resolve("b.txt"), "dropped 1"), key);
+        BlobStore.StoredBlob second = packing.store(Files.writeString(tempDir.resolve("c.txt"), "dropped 2"), key);
+        addReference(kept.contentId);
+        for (BlobStore.StoredBlob blob : new BlobStore.StoredBlob[]{kept, first, second}) {
+            packing.unpin(blob.contentId);
+        }
+
+        assertTrue(kept.packed, "Small files should go into a pack");
+        assertFalse(Files.exists(packing.pathFor(kept.contentId)));
+        assertTrue(Files.exists(packDir.resolve(PackFileStore.segmentFileName(1))));
+
+        // Seal segment 1, so it can be compacted
+        PackFileStore.closeAll();
+        Files.createFile(packDir.resolve(PackFileStore.segmentFileName(2)));
+
+        assertTrue(packing.release(first.contentId));
+        assertTrue(packing.release(second.contentId));
+        packing.compactPacks();
+
+        assertFalse(Files.exists(packDir.resolve(PackFileStore.segmentFileName(1))),
+                "Mostly dead segment should be deleted");
+        Path copy = tempDir.resolve("copy.txt");
+        packing.extract(kept.contentId, key, copy, kept.checksum);
+        assertEquals("kept", Files.readString(copy, StandardCharsets.UTF_8));
+
+        System.out.println("✅ Small blobs are packed and dead space is compacted");
+    }
+
+    @Test
+    public void testPendingBlobIsNotReleased() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("a.txt"), "pending");
+        BlobStore.StoredBlob blob = blobStore.store(file, key);
+        addReference(blob.contentId);
+        blobStore.unpin(blob.contentId);
+
+        // A second copy is stored while the first one's row is deleted
+        BlobStore.StoredBlob duplicate = blobStore.store(Files.writeString(tempDir.resolve("b.txt"), "pending"), key);
+        assertTrue(duplicate.deduplicated);
+        deleteReference(blob.contentId);
+        assertFalse(blobStore.release(blob.contentId), "Blob with an uncommitted reference must stay");
+        assertEquals(0, blobStore.purgeUnreferenced());
+        assertTrue(Files.exists(blobStore.pathFor(blob.contentId)));
+
+        addReference(duplicate.contentId);
+        blobStore.unpin(duplicate.contentId);
+        assertFalse(blobStore.release(duplicate.contentId));
+        assertEquals(1, refCount(duplicate.contentId));
+
+        // Stored, but its row was never written (e.g. the app stopped in between)
+        BlobStore.StoredBlob orphan = blobStore.store(Files.writeString(tempDir.resolve("c.txt"), "orphan"), key);
+        blobStore.unpin(orphan.contentId);
+        assertEquals(1, blobStore.purgeUnreferenced());
+        assertFalse(Files.exists(blobStore.pathFor(orphan.contentId)));
+        assertTrue(Files.exists(blobStore.pathFor(duplicate.contentId)));
+
+        System.out.println("✅ Blobs are kept until their new references are committed");
+    }
+
+    private void addReference(String contentId) throws Exception {
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.execute("""
+                INSERT INTO encrypted_files (vault_id, original_file_name, encrypted_file_name,
+                                             original_size, encrypted_size, checksum, content_id)
+                VALUES (%d, 'file', 'file.enc', 0, 0, 'x', '%s')
+                """.formatted(VAULT_ID, contentId));
+        }
+    }
+
+    private void deleteReference(String contentId) throws Exception {
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM encrypted_files WHERE id = (SELECT MIN(id) FROM encrypted_files WHERE content_id = '"
+                    + contentId + "')");
+        }
+    }
+
+    private int refCount(String contentId) throws Exception {
+        Connection conn = dbManager.getConnection();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT ref_count FROM file_blobs WHERE content_id = '" + contentId + "'")) {
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.passman.core.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ContentDefinedChunker
+ */
+public class ContentDefinedChunkerTest {
+
+    private final ContentDefinedChunker chunker = new ContentDefinedChunker();
+
+    @Test
+    public void testChunksCoverInputWithinSizeLimits() throws IOException {
+        byte[] data = randomBytes(4 * 1024 * 1024);
+        List<byte[]> chunks = split(data);
+
+        int total = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            byte[] chunk = chunks.get(i);
+            assertTrue(chunk.length <= chunker.getMaxSize(), "Chunk exceeds maximum size");
+            if (i < chunks.size() - 1) {
+                assertTrue(chunk.length >= chunker.getMinSize(), "Chunk below minimum size");
+            }
+            assertArrayEquals(Arrays.copyOfRange(data, total, total + chunk.length), chunk);
+            total += chunk.length;
+        }
+        assertEquals(data.length, total, "Chunks should cover the whole input");
+
+        System.out.println("✅ Chunking covers the input with " + chunks.size() + " chunks!");
+    }
+
+    @Test
+    public void testInsertOnlyChangesNearbyChunks() throws IOException {
+        byte[] original = randomBytes(4 * 1024 * 1024);
+        byte[] edited = new byte[original.length + 10];
+        int insertAt = original.length / 2;
+        System.arraycopy(original, 0, edited, 0, insertAt);
+        System.arraycopy(original, insertAt, edited, insertAt + 10, original.length - insertAt);
+
+        Set<String> before = new HashSet<>();
+        for (byte[] chunk : split(original)) {
+            before.add(Arrays.toString(chunk));
+        }
+        List<byte[]> after = split(edited);
+        long reused = after.stream().filter(chunk -> before.contains(Arrays.toString(chunk))).count();
+
+        assertTrue(after.size() - reused <= 2, "An insert should only change the chunks around it");
+
+        System.out.println("✅ " + reused + " of " + after.size() + " chunks reused after an insert!");
+    }
+
+    private List<byte[]> split(byte[] data) throws IOException {
+        List<byte[]> chunks = new ArrayList<>();
+        chunker.split(new ByteArrayInputStream(data),
+                (buffer, offset, length) -> chunks.add(Arrays.copyOfRange(buffer, offset, offset + length)));
+        return chunks;
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+}
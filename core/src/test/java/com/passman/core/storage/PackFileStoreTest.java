@@ -0,0 +1,82 @@
+package com.passman.core.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for append-only pack segments
+ */
+public class PackFileStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testFullSegmentsAreSealed() throws Exception {
+        PackFileStore store = new PackFileStore(tempDir, 100);
+        List<PackFileStore.PackLocation> locations = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            locations.add(store.append(blob(i, 40), false));
+        }
+
+        // Two 40-byte blobs fit in a 100-byte segment, the third starts a new one
+        assertEquals(List.of(1L, 2L, 3L), store.listSegments());
+        assertEquals(3, store.getActiveSegmentId());
+        assertEquals(2, locations.get(2).segmentId);
+        assertEquals(0, locations.get(2).offset);
+        assertEquals(40, locations.get(3).offset);
+        assertEquals(80, store.segmentSize(1));
+
+        for (int i = 0; i < locations.size(); i++) {
+            PackFileStore.PackLocation location = locations.get(i);
+            assertArrayEquals(blob(i, 40), store.read(location.segmentId, location.offset, location.length));
+        }
+
+        assertThrows(IllegalStateException.class, () -> store.deleteSegment(3), "The active segment must stay");
+        store.deleteSegment(1);
+        assertEquals(List.of(2L, 3L), store.listSegments());
+        store.close();
+
+        System.out.println("✅ Full pack segments are sealed and stay readable");
+    }
+
+    @Test
+    public void testReopenContinuesNewestSegment() throws Exception {
+        PackFileStore store = new PackFileStore(tempDir, 100);
+        store.append(blob(1, 60), true);
+        store.append(blob(2, 30), true);
+        store.close();
+
+        PackFileStore reopened = new PackFileStore(tempDir, 100);
+        PackFileStore.PackLocation next = reopened.append(blob(3, 5), false);
+        assertEquals(1, next.segmentId, "A segment with room left is appended to after a restart");
+        assertEquals(90, next.offset);
+
+        PackFileStore.PackLocation sealed = reopened.append(blob(4, 20), false);
+        assertEquals(2, sealed.segmentId);
+        reopened.close();
+
+        // A segment filled to the limit is not appended to again
+        Files.write(tempDir.resolve(PackFileStore.segmentFileName(2)), new byte[100]);
+        PackFileStore full = new PackFileStore(tempDir, 100);
+        assertEquals(3, full.getActiveSegmentId());
+        full.close();
+
+        System.out.println("✅ Pack segments are picked up again after a restart");
+    }
+
+    private byte[] blob(int seed, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (seed * 31 + i);
+        }
+        return data;
+    }
+}
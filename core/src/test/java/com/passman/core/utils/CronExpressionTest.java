@@ -0,0 +1,68 @@
+package com.passman.core.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CronExpression
+ */
+public class CronExpressionTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 15, 10, 30, 45); // a Monday
+
+    @Test
+    public void testDailyAndHourly() {
+        CronExpression daily = CronExpression.parse("0 3 * * *");
+        assertEquals(LocalDateTime.of(2024, 1, 16, 3, 0), daily.next(START));
+        assertEquals(LocalDateTime.of(2024, 1, 17, 3, 0), daily.next(LocalDateTime.of(2024, 1, 16, 3, 0)));
+
+        CronExpression quarterHour = CronExpression.parse("*/15 * * * *");
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 45), quarterHour.next(START));
+
+        CronExpression list = CronExpression.parse("5,50 9-17/4 * * *");
+        assertEquals(LocalDateTime.of(2024, 1, 15, 13, 5), list.next(START));
+
+        System.out.println("✅ Daily and hourly schedules work correctly!");
+    }
+
+    @Test
+    public void testDayFields() {
+        // Weekdays at 22:30; Saturday 20th and Sunday 21st are skipped
+        CronExpression weekdays = CronExpression.parse("30 22 * * 1-5");
+        assertEquals(LocalDateTime.of(2024, 1, 22, 22, 30),
+                weekdays.next(LocalDateTime.of(2024, 1, 19, 23, 0)));
+
+        // 7 is Sunday as well
+        assertEquals(LocalDateTime.of(2024, 1, 21, 0, 0), CronExpression.parse("0 0 * * 7").next(START));
+
+        // Both day fields restricted: either one matches (the 1st or any Friday)
+        CronExpression either = CronExpression.parse("0 0 1 * 5");
+        assertEquals(LocalDateTime.of(2024, 1, 19, 0, 0), either.next(START));
+        assertEquals(LocalDateTime.of(2024, 2, 1, 0, 0), either.next(LocalDateTime.of(2024, 1, 31, 12, 0)));
+
+        // Leap day
+        assertEquals(LocalDateTime.of(2028, 2, 29, 0, 0),
+                CronExpression.parse("0 0 29 2 *").next(LocalDateTime.of(2024, 3, 1, 0, 0)));
+
+        // A day that never exists
+        assertNull(CronExpression.parse("0 0 31 2 *").next(START));
+
+        System.out.println("✅ Day-of-month and day-of-week fields work correctly!");
+    }
+
+    @Test
+    public void testInvalidExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 3 * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("60 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 5-2 * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("*/0 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("a * * * *"));
+        assertFalse(CronExpression.isValid(""));
+        assertTrue(CronExpression.isValid(" 0  3 * * 0 "));
+
+        System.out.println("✅ Invalid expressions are rejected!");
+    }
+}
@@ -0,0 +1,44 @@
+package com.passman.core.utils;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UrlUtil and the embedded public suffix list
+ */
+public class UrlUtilTest {
+
+    @Test
+    public void testExtractHost() {
+        assertEquals("login.github.com", UrlUtil.extractHost("https://login.github.com/session?x=1"));
+        assertEquals("github.com", UrlUtil.extractHost("GitHub.com/login"));
+        assertEquals("example.com", UrlUtil.extractHost("http://user:pw@example.com:8080/#top"));
+        assertEquals("::1", UrlUtil.extractHost("http://[::1]:3000/"));
+        assertEquals("xn--bcher-kva.de", UrlUtil.extractHost("https://bücher.de"));
+        assertNull(UrlUtil.extractHost("   "));
+        assertNull(UrlUtil.extractHost(null));
+
+        System.out.println("✅ Host extraction works correctly!");
+    }
+
+    @Test
+    public void testRegistrableDomain() {
+        assertEquals("github.com", UrlUtil.registrableDomain("login.github.com"));
+        assertEquals("bbc.co.uk", UrlUtil.registrableDomain("www.news.bbc.co.uk"));
+        assertEquals("example.unlisted", UrlUtil.registrableDomain("a.example.unlisted"));
+
+        // Private suffixes keep different owners apart
+        assertEquals("alice.github.io", UrlUtil.registrableDomain("docs.alice.github.io"));
+
+        // Wildcard and exception rules
+        assertEquals("shop.example.bd", UrlUtil.registrableDomain("www.shop.example.bd"));
+        assertEquals("www.ck", UrlUtil.registrableDomain("www.ck"));
+
+        // IP addresses, single labels and bare suffixes map to themselves
+        assertEquals("192.168.1.1", UrlUtil.registrableDomain("192.168.1.1"));
+        assertEquals("localhost", UrlUtil.registrableDomain("localhost"));
+        assertEquals("co.uk", UrlUtil.registrableDomain("co.uk"));
+
+        System.out.println("✅ Registrable domain lookup works correctly!");
+    }
+}
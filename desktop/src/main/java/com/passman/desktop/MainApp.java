@@ -1,6 +1,13 @@
 package com.passman.desktop;
 
+import com.passman.core.db.DatabaseMaintenanceScheduler;
 import com.passman.core.db.DatabaseManager;
+import com.passman.core.db.WriteQueue;
+import com.passman.core.repository.BackupRepositoryImpl;
+import com.passman.core.services.BackupScheduler;
+import com.passman.core.services.BackupServiceImpl;
+import com.passman.core.storage.IntegrityScrubber;
+import com.passman.desktop.ui.admin.AdminPanelController;
 import com.passman.desktop.utils.SessionTimeoutMonitor;
 import javafx.application.Application;
 import javafx.stage.Stage;
@@ -16,8 +23,12 @@ public class MainApp extends Application {
     public void start(Stage primaryStage) throws Exception {
         // Initialize database
         try {
+            DatabaseManager.getInstance().setTuningProfile(AdminPanelController.loadSavedTuningProfile());
             DatabaseManager.getInstance().initialize();
             System.out.println("✅ Database initialized successfully");
+            DatabaseMaintenanceScheduler.getInstance().start();
+            IntegrityScrubber.getInstance().start();
+            startBackupScheduler();
         } catch (Exception e) {
             System.err.println("❌ Failed to initialize database: " + e. getMessage());
             e.printStackTrace();
@@ -49,12 +60,29 @@ public class MainApp extends Application {
         });
     }
 
+    /**
+     * Scheduled backups need the master key, so they only run while a session is active
+     */
+    private void startBackupScheduler() {
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        String storagePath = System.getProperty("user.home") + "/.passman";
+        BackupScheduler.getInstance().start(
+                new BackupServiceImpl(dbManager, new BackupRepositoryImpl(dbManager), storagePath),
+                () -> SessionManager.getInstance().getMasterKeyForBackground());
+    }
+
     private void cleanup() {
         try {
+            // Stop a running backup before its key is cleared
+            BackupScheduler.getInstance().stop();
+
             // Clear session
             SessionManager.getInstance().clearSession();
 
-            // Close database connection
+            // Stop maintenance, commit queued writes, then close database connection
+            DatabaseMaintenanceScheduler.getInstance().stop();
+            IntegrityScrubber.getInstance().stop();
+            WriteQueue.getInstance().shutdown();
             DatabaseManager.getInstance().close();
 
             System.out.println("✅ Application shutdown complete");
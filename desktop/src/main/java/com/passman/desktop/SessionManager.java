@@ -1,6 +1,8 @@
 package com.passman.desktop;
 
 import com.passman. core.model.User;
+import com.passman.core.search.GlobalSearchIndex;
+import com.passman.core.services.SecureNotesService;
 
 import javax.crypto.SecretKey;
 import java.time.LocalDateTime;
@@ -104,6 +106,14 @@ public class SessionManager {
         return masterKey;
     }
 
+    /**
+     * Master key for background work such as scheduled backups, or null when logged out
+     * or expired; unlike getMasterKey it does not count as activity
+     */
+    public SecretKey getMasterKeyForBackground() {
+        return currentUser != null && !isSessionExpired() ? masterKey : null;
+    }
+
     /**
      * Set master encryption key
      */
@@ -152,6 +162,9 @@ public class SessionManager {
         this.loginTime = null;
         this.lastActivityTime = null;
 
+        GlobalSearchIndex.getInstance().clear();
+        SecureNotesService.clearSessionIndex();
+
         System.out.println("✅ Session cleared");
     }
 }
\ No newline at end of file
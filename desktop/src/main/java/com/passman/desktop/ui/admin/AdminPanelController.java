@@ -1,12 +1,16 @@
 package com.passman.desktop.ui.admin;
 
 import com.passman.core.crypto. PBKDF2KeyDerivation;
+import com.passman.core.db.DatabaseMaintenanceScheduler;
 import com.passman.core.db.DatabaseManager;
+import com.passman.core.db.DatabaseTuningProfile;
 import com. passman.core.db.dao.UserDAO;
 import com.passman.core.model.User;
+import com.passman.core.storage.IntegrityScrubber;
 import com.passman.desktop.DialogUtils;
 import com.passman.desktop.MainApp;
 import com.passman.desktop.SessionManager;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
@@ -47,7 +51,18 @@ public class AdminPanelController {
     @FXML private Label notesCountLabel;
     @FXML private Label identityCardsCountLabel;
     @FXML private Label encryptedFilesCountLabel;
+    @FXML private ComboBox<DatabaseTuningProfile> tuningProfileComboBox;
+    @FXML private Label tuningProfileDescriptionLabel;
+    @FXML private Label pageCacheLabel;
+    @FXML private Label walStatusLabel;
+    @FXML private Label writeQueueLabel;
     @FXML private Button compactDatabaseButton;
+    @FXML private Button cancelMaintenanceButton;
+    @FXML private Label maintenanceStatusLabel;
+    @FXML private Button scrubNowButton;
+    @FXML private Button cancelScrubButton;
+    @FXML private Label scrubStatusLabel;
+    @FXML private ListView<String> storageProblemsListView;
     @FXML private Button exportDatabaseButton;
 
     // Audit Log
@@ -63,6 +78,16 @@ public class AdminPanelController {
     private PBKDF2KeyDerivation keyDerivation;
     private Preferences preferences;
 
+    private static final String TUNING_PROFILE_KEY = "db_tuning_profile";
+
+    /**
+     * Tuning profile saved in the Admin Panel; applied by MainApp before the database opens
+     */
+    public static DatabaseTuningProfile loadSavedTuningProfile() {
+        Preferences prefs = Preferences.userNodeForPackage(AdminPanelController.class);
+        return DatabaseTuningProfile.fromKey(prefs.get(TUNING_PROFILE_KEY, DatabaseTuningProfile.DEFAULT.getKey()));
+    }
+
     @FXML
     public void initialize() {
         try {
@@ -78,6 +103,13 @@ public class AdminPanelController {
                 );
             }
 
+            // Tuning profiles
+            if (tuningProfileComboBox != null) {
+                tuningProfileComboBox.getItems().setAll(DatabaseTuningProfile.values());
+                tuningProfileComboBox.setValue(dbManager.getTuningProfile());
+                updateTuningProfileDescription(dbManager.getTuningProfile());
+            }
+
             // Password strength indicator
             if (newPasswordField != null) {
                 newPasswordField.textProperty().addListener((obs, old, newVal) -> {
@@ -88,6 +120,8 @@ public class AdminPanelController {
             // Load data
             loadUserSettings();
             loadDatabaseStatistics();
+            loadMaintenanceStatus();
+            loadScrubStatus();
             loadAuditLog();
             loadAboutInfo();
         } catch (Exception e) {
@@ -160,7 +194,23 @@ public class AdminPanelController {
             }
 
             if (encryptedFilesCountLabel != null) {
-                encryptedFilesCountLabel.setText(String.valueOf(stats.encryptedFilesCount));
+                encryptedFilesCountLabel.setText(String.format("%d (%.1f MB)",
+                        stats.encryptedFilesCount, stats.encryptedFilesMB));
+            }
+
+            if (pageCacheLabel != null) {
+                pageCacheLabel.setText(String.format("%d KB (%.0f%% of database), mmap %.0f MB",
+                        stats.cacheSizeKB, stats.cacheCoveragePercent, stats.mmapSizeMB));
+            }
+
+            if (walStatusLabel != null) {
+                walStatusLabel.setText(String.format("%.2f MB, checkpoint every %d pages, synchronous=%s",
+                        stats.walSizeMB, stats.walAutocheckpointPages, stats.synchronous));
+            }
+
+            if (writeQueueLabel != null) {
+                writeQueueLabel.setText(String.format("%d commits, %d writes coalesced",
+                        stats.writeQueueCommits, stats.writeQueueCoalesced));
             }
 
         } catch (Exception e) {
@@ -362,33 +412,176 @@ public class AdminPanelController {
 
     @FXML
     private void handleCompactDatabase() {
-        boolean confirm = DialogUtils.showConfirmation(
-                "Compact Database",
-                "Optimize database storage",
-                "This will compact the database and reclaim unused space.\n" +
-                        "The application will be briefly paused during this operation.\n\n" +
-                        "Continue?"
-        );
+        DatabaseMaintenanceScheduler scheduler = DatabaseMaintenanceScheduler.getInstance();
 
-        if (confirm) {
-            try {
-                // Run VACUUM command
-                try (Connection conn = dbManager.getConnection();
-                     Statement stmt = conn.createStatement()) {
-                    stmt.execute("VACUUM");
-                }
+        // Runs in the background in small steps, so the app stays responsive
+        setMaintenanceRunning(true);
+        scheduler.runNow().whenComplete((status, error) -> Platform.runLater(() -> {
+            setMaintenanceRunning(false);
+            loadDatabaseStatistics();
+            loadMaintenanceStatus();
 
-                loadDatabaseStatistics();
+            if (error != null) {
+                DialogUtils.showError("Error", "Failed to compact database", error.getMessage());
+            } else if (status.lastPassCancelled) {
+                DialogUtils.showInfo("Cancelled", "Database Maintenance Cancelled",
+                        "Maintenance was cancelled; free pages reclaimed so far are kept.");
+            } else {
                 DialogUtils.showInfo("Success", "Database Compacted",
-                        "Database has been compacted successfully.");
+                        String.format("Database maintenance finished. %d pages reclaimed in total.",
+                                status.pagesReclaimed));
+            }
+        }));
+    }
+
+    @FXML
+    private void handleCancelMaintenance() {
+        DatabaseMaintenanceScheduler.getInstance().cancel();
+    }
+
+    private void setMaintenanceRunning(boolean running) {
+        if (compactDatabaseButton != null) {
+            compactDatabaseButton.setDisable(running);
+        }
+        if (cancelMaintenanceButton != null) {
+            cancelMaintenanceButton.setDisable(!running);
+        }
+        if (running && maintenanceStatusLabel != null) {
+            maintenanceStatusLabel.setText("Running in background...");
+        }
+    }
+
+    private void loadMaintenanceStatus() {
+        if (maintenanceStatusLabel == null) {
+            return;
+        }
+
+        DatabaseMaintenanceScheduler.MaintenanceStatus status =
+                DatabaseMaintenanceScheduler.getInstance().getStatus();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+        if (status.running) {
+            maintenanceStatusLabel.setText(status.currentTask + "...");
+        } else if (status.lastError != null) {
+            maintenanceStatusLabel.setText("Last run failed: " + status.lastError);
+        } else if (status.lastRunAt != null) {
+            maintenanceStatusLabel.setText(String.format("Last run %s%s, auto-vacuum %s, %d free pages",
+                    status.lastRunAt.format(formatter),
+                    status.lastPassCancelled ? " (cancelled)" : "",
+                    status.autoVacuumMode, status.freePages));
+        } else {
+            maintenanceStatusLabel.setText("Runs automatically while PassMan is idle");
+        }
+
+        if (cancelMaintenanceButton != null) {
+            cancelMaintenanceButton.setDisable(!status.running);
+        }
+    }
 
+    @FXML
+    private void handleScrubNow() {
+        // Rate-limited like the idle-time scrub, so the app stays responsive
+        setScrubRunning(true);
+        IntegrityScrubber.getInstance().runNow().whenComplete((status, error) -> Platform.runLater(() -> {
+            setScrubRunning(false);
+            loadScrubStatus();
+
+            if (error != null) {
+                DialogUtils.showError("Error", "Failed to verify files", error.getMessage());
+            } else if (status.lastPassCancelled) {
+                DialogUtils.showInfo("Cancelled", "File Verification Paused",
+                        "Verification will continue where it stopped the next time PassMan is idle.");
+            } else if (!storageProblemsListView.getItems().isEmpty()) {
+                DialogUtils.showWarning("Storage Integrity", "Damaged Files Found",
+                        storageProblemsListView.getItems().size() + " stored files are damaged or missing. " +
+                                "Restore them from a backup.");
+            } else {
+                DialogUtils.showInfo("Success", "Files Verified",
+                        String.format("%d stored files verified, no problems found.", status.objectsScanned));
+            }
+        }));
+    }
+
+    @FXML
+    private void handleCancelScrub() {
+        IntegrityScrubber.getInstance().cancel();
+    }
+
+    private void setScrubRunning(boolean running) {
+        if (scrubNowButton != null) {
+            scrubNowButton.setDisable(running);
+        }
+        if (cancelScrubButton != null) {
+            cancelScrubButton.setDisable(!running);
+        }
+        if (running && scrubStatusLabel != null) {
+            scrubStatusLabel.setText("Verifying in background...");
+        }
+    }
+
+    private void loadScrubStatus() {
+        if (scrubStatusLabel == null) {
+            return;
+        }
+
+        IntegrityScrubber scrubber = IntegrityScrubber.getInstance();
+        IntegrityScrubber.ScrubStatus status = scrubber.getStatus();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+        if (status.running) {
+            scrubStatusLabel.setText(String.format("%s... %d files checked", status.currentTask, status.objectsScanned));
+        } else if (status.lastError != null) {
+            scrubStatusLabel.setText("Last run failed: " + status.lastError);
+        } else if (status.lastCompletedAt != null) {
+            scrubStatusLabel.setText("Last full check " + status.lastCompletedAt.format(formatter));
+        } else {
+            scrubStatusLabel.setText("Checks encrypted files while PassMan is idle");
+        }
+
+        if (cancelScrubButton != null) {
+            cancelScrubButton.setDisable(!status.running);
+        }
+
+        if (storageProblemsListView != null) {
+            try {
+                storageProblemsListView.getItems().clear();
+                for (IntegrityScrubber.HealthRecord problem : scrubber.getProblems()) {
+                    storageProblemsListView.getItems().add(problem.toString());
+                }
+                storageProblemsListView.setPlaceholder(new Label("No damaged files found"));
             } catch (Exception e) {
-                DialogUtils.showError("Error", "Failed to compact database", e.getMessage());
-                e. printStackTrace();
+                System.err.println("⚠️ Failed to load storage problems: " + e.getMessage());
             }
         }
     }
 
+    @FXML
+    private void handleTuningProfileChanged() {
+        DatabaseTuningProfile profile = tuningProfileComboBox.getValue();
+        if (profile == null || profile == dbManager.getTuningProfile()) {
+            return;
+        }
+
+        try {
+            dbManager.setTuningProfile(profile);
+            preferences.put(TUNING_PROFILE_KEY, profile.getKey());
+            preferences.flush();
+
+            updateTuningProfileDescription(profile);
+            loadDatabaseStatistics();
+        } catch (Exception e) {
+            tuningProfileComboBox.setValue(dbManager.getTuningProfile());
+            DialogUtils.showError("Error", "Failed to apply tuning profile", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void updateTuningProfileDescription(DatabaseTuningProfile profile) {
+        if (tuningProfileDescriptionLabel != null) {
+            tuningProfileDescriptionLabel.setText(profile.getDescription());
+        }
+    }
+
     @FXML
     private void handleExportDatabase() {
         // Redirect to backup feature
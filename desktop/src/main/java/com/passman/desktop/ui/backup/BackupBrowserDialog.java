@@ -0,0 +1,259 @@
+package com.passman.desktop.ui.backup;
+
+import com.passman.core.model.CardSummary;
+import com.passman.core.model.Credential;
+import com.passman.core.model.CredentialSummary;
+import com.passman.core.model.EntityType;
+import com.passman.core.model.NoteSummary;
+import com.passman.core.services.BackupMount;
+import com.passman.core.services.BackupScheduler;
+import com.passman.core.services.BackupService;
+import com.passman.core.services.EncryptionServiceImpl;
+import com.passman.desktop.DialogUtils;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+import javax.crypto.SecretKey;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Browse and search a backup opened read-only, copy passwords out of it or
+ * restore single entries, without replacing the live vault
+ */
+public class BackupBrowserDialog {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final BackupMount mount;
+    private final BackupService backupService;
+    private final SecretKey masterKey;
+
+    private final Dialog<Void> dialog = new Dialog<>();
+    private final ChoiceBox<EntityType> typeChoice = new ChoiceBox<>(FXCollections.observableArrayList(
+            EntityType.CREDENTIAL, EntityType.NOTE, EntityType.IDENTITY_CARD));
+    private final TextField searchField = new TextField();
+    private final ListView<Entry> entriesView = new ListView<>();
+    private final TextArea detailsArea = new TextArea();
+    private final Button copyPasswordButton = new Button("📋 Copy Password");
+    private final Button restoreButton = new Button("↩️ Restore to Vault");
+    private final Label statusLabel = new Label();
+
+    /**
+     * One row of the list; details are the summary fields shown below it
+     */
+    private static class Entry {
+        final EntityType type;
+        final Long id;
+        final String title;
+        final String details;
+
+        Entry(EntityType type, Long id, String title, String details) {
+            this.type = type;
+            this.id = id;
+            this.title = title;
+            this.details = details;
+        }
+
+        @Override
+        public String toString() {
+            return type.getIcon() + " " + title;
+        }
+    }
+
+    public BackupBrowserDialog(BackupMount mount, BackupService backupService, SecretKey masterKey) {
+        this.mount = mount;
+        this.backupService = backupService;
+        this.masterKey = masterKey;
+
+        dialog.setTitle("Browse Backup");
+        dialog.setHeaderText(mount.getBackupFile().getName() + " (read-only)");
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+        dialog.setResultConverter(button -> null);
+
+        typeChoice.setValue(EntityType.CREDENTIAL);
+        searchField.setPromptText("Search this backup...");
+        HBox.setHgrow(searchField, Priority.ALWAYS);
+        entriesView.setPrefSize(520, 300);
+        entriesView.setPlaceholder(new Label("No entries"));
+        detailsArea.setEditable(false);
+        detailsArea.setPrefRowCount(6);
+        copyPasswordButton.setDisable(true);
+        restoreButton.setDisable(true);
+
+        typeChoice.valueProperty().addListener((obs, oldVal, newVal) -> refresh());
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> refresh());
+        entriesView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
+            detailsArea.setText(newVal != null ? newVal.details : "");
+            copyPasswordButton.setDisable(newVal == null || newVal.type != EntityType.CREDENTIAL);
+            restoreButton.setDisable(newVal == null);
+        });
+        copyPasswordButton.setOnAction(event -> copyPassword(entriesView.getSelectionModel().getSelectedItem()));
+        restoreButton.setOnAction(event -> restore(entriesView.getSelectionModel().getSelectedItem()));
+
+        HBox filters = new HBox(10, typeChoice, searchField);
+        HBox actions = new HBox(10, copyPasswordButton, restoreButton);
+        VBox content = new VBox(10, filters, entriesView, detailsArea, actions, statusLabel);
+        content.setPadding(new Insets(15));
+        dialog.getDialogPane().setContent(content);
+        dialog.setOnShown(event -> searchField.requestFocus());
+
+        refresh();
+    }
+
+    /**
+     * Show the dialog; the mount is closed when it is dismissed
+     */
+    public void showAndWait() {
+        try {
+            dialog.showAndWait();
+        } finally {
+            mount.close();
+        }
+    }
+
+    private void refresh() {
+        try {
+            List<Entry> entries = loadEntries(typeChoice.getValue(), searchField.getText().trim());
+            entriesView.getItems().setAll(entries);
+            statusLabel.setText(entries.size() + " " + typeChoice.getValue().getDisplayName() + " entries");
+        } catch (Exception e) {
+            entriesView.getItems().clear();
+            statusLabel.setText("Failed to read backup: " + e.getMessage());
+        }
+    }
+
+    private List<Entry> loadEntries(EntityType type, String query) throws Exception {
+        List<Entry> entries = new ArrayList<>();
+        switch (type) {
+            case CREDENTIAL -> {
+                List<CredentialSummary> summaries = query.isEmpty()
+                        ? mount.getCredentialRepository().findAllSummaries()
+                        : mount.getCredentialRepository().searchSummaries(query);
+                for (CredentialSummary summary : summaries) {
+                    entries.add(new Entry(type, summary.getId(), summary.getTitle(),
+                            "Username: " + orDash(summary.getUsername()) + "\n" +
+                                    "URL: " + orDash(summary.getUrl()) + "\n" +
+                                    "Tags: " + orDash(summary.getTags()) + "\n" +
+                                    "Last modified: " + formatDate(summary.getLastModified())));
+                }
+            }
+            case NOTE -> {
+                List<NoteSummary> summaries = query.isEmpty()
+                        ? mount.getSecureNotesRepository().findAllSummaries()
+                        : mount.getSecureNotesRepository().searchSummaries(query);
+                for (NoteSummary summary : summaries) {
+                    entries.add(new Entry(type, summary.getId(), summary.getTitle(),
+                            "Category: " + summary.getCategory() + "\n" +
+                                    "Tags: " + orDash(summary.getTags()) + "\n" +
+                                    "Attachments: " + (summary.isHasAttachments() ? "yes" : "no") + "\n" +
+                                    "Last modified: " + formatDate(summary.getLastModified())));
+                }
+            }
+            case IDENTITY_CARD -> {
+                List<CardSummary> summaries = query.isEmpty()
+                        ? mount.getIdentityCardsRepository().findAllSummaries()
+                        : mount.getIdentityCardsRepository().searchSummaries(query);
+                for (CardSummary summary : summaries) {
+                    entries.add(new Entry(type, summary.getId(), summary.getCardName(),
+                            "Type: " + summary.getCardType() + "\n" +
+                                    "Number: •••• " + orDash(summary.getCardNumberLast4()) + "\n" +
+                                    "Expires: " + (summary.getExpiryDate() != null ? summary.getExpiryDate() : "-") + "\n" +
+                                    "Last modified: " + formatDate(summary.getLastModified())));
+                }
+            }
+            default -> { }
+        }
+        return entries;
+    }
+
+    private void copyPassword(Entry entry) {
+        if (entry == null || entry.type != EntityType.CREDENTIAL) {
+            return;
+        }
+
+        try {
+            Optional<Credential> credentialOpt = mount.getCredentialRepository().findById(entry.id);
+            if (credentialOpt.isEmpty()) {
+                return;
+            }
+            Credential credential = credentialOpt.get();
+
+            // Same layout as the dashboard: Base64 of IV followed by the ciphertext
+            byte[] iv = credential.getEncryptionIV();
+            byte[] encrypted = credential.getEncryptedPassword();
+            byte[] combined = new byte[iv.length + encrypted.length];
+            System.arraycopy(iv, 0, combined, 0, iv.length);
+            System.arraycopy(encrypted, 0, combined, iv.length, encrypted.length);
+
+            String decrypted = new EncryptionServiceImpl().decryptPassword(
+                    Base64.getEncoder().encodeToString(combined), masterKey);
+
+            ClipboardContent content = new ClipboardContent();
+            content.putString(decrypted);
+            Clipboard.getSystemClipboard().setContent(content);
+            statusLabel.setText("Password of \"" + entry.title + "\" copied to clipboard");
+        } catch (Exception e) {
+            DialogUtils.showError("Error", "Failed to copy password", e.getMessage());
+        }
+    }
+
+    private void restore(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+
+        boolean confirm = DialogUtils.showConfirmation(
+                "Restore Entry",
+                "Restore \"" + entry.title + "\"?",
+                "The version in this backup replaces the current one in your vault."
+        );
+        if (!confirm) {
+            return;
+        }
+
+        Task<Integer> restoreTask = new Task<>() {
+            @Override
+            protected Integer call() throws Exception {
+                return backupService.restoreItems(mount, entry.type, List.of(entry.id));
+            }
+        };
+
+        restoreTask.setOnRunning(event -> {
+            restoreButton.setDisable(true);
+            statusLabel.setText("Restoring \"" + entry.title + "\"...");
+        });
+
+        restoreTask.setOnSucceeded(event -> {
+            restoreButton.setDisable(false);
+            statusLabel.setText("\"" + entry.title + "\" restored to your vault");
+        });
+
+        restoreTask.setOnFailed(event -> {
+            restoreButton.setDisable(false);
+            DialogUtils.showError("Error", "Restore Failed", restoreTask.getException().getMessage());
+            statusLabel.setText("Restore failed");
+        });
+
+        BackupScheduler.getInstance().execute(restoreTask);
+    }
+
+    private static String orDash(String value) {
+        return value == null || value.isBlank() ? "-" : value;
+    }
+
+    private static String formatDate(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.format(DATE_FORMAT) : "-";
+    }
+}
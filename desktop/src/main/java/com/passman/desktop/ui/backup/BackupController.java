@@ -1,8 +1,13 @@
 package com.passman.desktop.ui.backup;
 
 import com.passman.core. db.DatabaseManager;
+import com.passman.core.db.RecordDiff;
 import com.passman.core.model. Backup;
+import com.passman.core.model.BackupSchedule;
+import com.passman.core.model.EntityType;
 import com.passman.core.repository.BackupRepositoryImpl;
+import com.passman.core.services.BackupMount;
+import com.passman.core.services.BackupScheduler;
 import com. passman.core.services.BackupService;
 import com.passman.core.services.BackupServiceImpl;
 import com. passman.desktop.DialogUtils;
@@ -13,12 +18,16 @@ import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
 import javafx. fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import javax.crypto.SecretKey;
 import java.io.File;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller for Backup and Restore
@@ -29,21 +38,31 @@ public class BackupController {
     @FXML private TextArea descriptionArea;
     @FXML private Label statsLabel;
     @FXML private Button createBackupButton;
+    @FXML private Button createDifferentialButton;
+    @FXML private Button createSnapshotButton;
     @FXML private Button restoreButton;
+    @FXML private Button restoreItemsButton;
+    @FXML private Button browseButton;
+    @FXML private Button compareButton;
     @FXML private Button deleteButton;
     @FXML private ProgressIndicator progressIndicator;
     @FXML private Label statusLabel;
+    @FXML private Label scheduleLabel;
 
     private BackupService backupService;
     private Backup selectedBackup;
 
     @FXML
     public void initialize() {
-        DatabaseManager dbManager = DatabaseManager.getInstance();
-        BackupRepositoryImpl repository = new BackupRepositoryImpl(dbManager);
-
-        String storagePath = System.getProperty("user.home") + "/.passman";
-        backupService = new BackupServiceImpl(dbManager, repository, storagePath);
+        // Share the scheduler's service so manual and scheduled backups use the same chunk store
+        backupService = BackupScheduler.getInstance().getBackupService();
+        if (backupService == null) {
+            DatabaseManager dbManager = DatabaseManager.getInstance();
+            BackupRepositoryImpl repository = new BackupRepositoryImpl(dbManager);
+
+            String storagePath = System.getProperty("user.home") + "/.passman";
+            backupService = new BackupServiceImpl(dbManager, repository, storagePath);
+        }
 
         progressIndicator.setVisible(false);
 
@@ -57,7 +76,9 @@ public class BackupController {
                     DateTimeFormatter formatter = DateTimeFormatter. ofPattern("yyyy-MM-dd HH:mm");
                     setText(backup.getBackupFileName() + " - " +
                             backup.getCreatedAt().format(formatter) + " - " +
-                            formatFileSize(backup.getFileSize()));
+                            formatFileSize(backup.getFileSize()) +
+                            (backup.isDifferential() ? " (changes only)" : "") +
+                            (backup.getBackupKind() == Backup.BackupKind.SNAPSHOT ? " (snapshot)" : ""));
                 }
             }
         });
@@ -67,16 +88,23 @@ public class BackupController {
             if (newVal != null) {
                 descriptionArea.setText(newVal.getDescription());
                 restoreButton.setDisable(false);
+                restoreItemsButton.setDisable(false);
+                browseButton.setDisable(false);
+                compareButton.setDisable(false);
                 deleteButton.setDisable(false);
             } else {
                 descriptionArea.clear();
                 restoreButton.setDisable(true);
+                restoreItemsButton.setDisable(true);
+                browseButton.setDisable(true);
+                compareButton.setDisable(true);
                 deleteButton.setDisable(true);
             }
         });
 
         loadBackups();
         updateStatistics();
+        updateScheduleLabel();
     }
 
     private void loadBackups() {
@@ -103,8 +131,39 @@ public class BackupController {
         }
     }
 
+    private void updateScheduleLabel() {
+        BackupScheduler.ScheduleStatus status = BackupScheduler.getInstance().getStatus();
+        if (!status.enabled) {
+            scheduleLabel.setText("Automatic backups: off");
+            return;
+        }
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        scheduleLabel.setText("Next scheduled backup: " +
+                (status.nextRunAt != null ? status.nextRunAt.format(formatter) : "-") +
+                (status.lastResult != null ? " | Last: " + status.lastResult : ""));
+    }
+
     @FXML
     private void handleCreateBackup() {
+        startBackup(Backup.BackupKind.FULL);
+    }
+
+    @FXML
+    private void handleCreateDifferentialBackup() {
+        startBackup(Backup.BackupKind.DIFFERENTIAL);
+    }
+
+    @FXML
+    private void handleCreateSnapshotBackup() {
+        startBackup(Backup.BackupKind.SNAPSHOT);
+    }
+
+    /**
+     * A differential backup stores only the rows changed since the newest full or snapshot backup;
+     * a snapshot also covers vault files and stores unchanged data only once
+     */
+    private void startBackup(Backup.BackupKind kind) {
         TextInputDialog dialog = new TextInputDialog();
         dialog.setTitle("Create Backup");
         dialog.setHeaderText("Backup Description");
@@ -114,41 +173,50 @@ public class BackupController {
             Task<Backup> backupTask = new Task<>() {
                 @Override
                 protected Backup call() throws Exception {
-                    return backupService.createBackup(
-                            SessionManager.getInstance().getMasterKey(),
-                            description
-                    );
+                    SecretKey masterKey = SessionManager.getInstance().getMasterKey();
+                    return switch (kind) {
+                        case DIFFERENTIAL -> backupService.createDifferentialBackup(masterKey, description);
+                        case SNAPSHOT -> backupService.createSnapshotBackup(masterKey, description);
+                        default -> backupService.createBackup(masterKey, description);
+                    };
                 }
             };
 
             backupTask.setOnRunning(event -> {
                 progressIndicator. setVisible(true);
                 createBackupButton.setDisable(true);
+                createDifferentialButton.setDisable(true);
+                createSnapshotButton.setDisable(true);
                 statusLabel.setText("Creating backup...");
             });
 
             backupTask.setOnSucceeded(event -> {
                 progressIndicator.setVisible(false);
                 createBackupButton.setDisable(false);
+                createDifferentialButton.setDisable(false);
+                createSnapshotButton.setDisable(false);
 
                 DialogUtils.showInfo("Success", "Backup Created",
                         "Your backup has been created successfully.");
 
                 loadBackups();
                 updateStatistics();
+                updateScheduleLabel();
                 statusLabel.setText("Backup completed");
             });
 
             backupTask.setOnFailed(event -> {
                 progressIndicator.setVisible(false);
                 createBackupButton.setDisable(false);
+                createDifferentialButton.setDisable(false);
+                createSnapshotButton.setDisable(false);
 
                 DialogUtils.showError("Error", "Backup Failed",
                         backupTask.getException().getMessage());
                 statusLabel.setText("Backup failed");
             });
 
-            new Thread(backupTask).start();
+            BackupScheduler.getInstance().execute(backupTask);
         });
     }
 
@@ -209,10 +277,330 @@ public class BackupController {
                 statusLabel.setText("Restore failed");
             });
 
-            new Thread(restoreTask).start();
+            BackupScheduler.getInstance().execute(restoreTask);
         }
     }
 
+    /**
+     * Bring back individual credentials, notes or cards from the selected backup
+     * without replacing the rest of the vault
+     */
+    @FXML
+    private void handleRestoreItems() {
+        if (selectedBackup == null) {
+            DialogUtils.showWarning("No Selection", "Select Backup",
+                    "Please select a backup to restore from.");
+            return;
+        }
+
+        ChoiceDialog<EntityType> typeDialog = new ChoiceDialog<>(EntityType.CREDENTIAL,
+                EntityType.CREDENTIAL, EntityType.NOTE, EntityType.IDENTITY_CARD);
+        typeDialog.setTitle("Restore Items");
+        typeDialog.setHeaderText("What would you like to restore?");
+        typeDialog.setContentText("Item type:");
+
+        typeDialog.showAndWait().ifPresent(type -> {
+            File backupFile = new File(selectedBackup.getBackupPath());
+            SecretKey masterKey = SessionManager.getInstance().getMasterKey();
+
+            Task<List<BackupService.RestorableItem>> listTask = new Task<>() {
+                @Override
+                protected List<BackupService.RestorableItem> call() throws Exception {
+                    return backupService.listRestorableItems(backupFile, masterKey, type);
+                }
+            };
+
+            listTask.setOnRunning(event -> {
+                progressIndicator.setVisible(true);
+                statusLabel.setText("Reading backup...");
+            });
+
+            listTask.setOnSucceeded(event -> {
+                progressIndicator.setVisible(false);
+                statusLabel.setText("");
+                chooseItemsToRestore(backupFile, masterKey, type, listTask.getValue());
+            });
+
+            listTask.setOnFailed(event -> {
+                progressIndicator.setVisible(false);
+                DialogUtils.showError("Error", "Failed to read backup",
+                        listTask.getException().getMessage());
+                statusLabel.setText("Restore failed");
+            });
+
+            BackupScheduler.getInstance().execute(listTask);
+        });
+    }
+
+    private void chooseItemsToRestore(File backupFile, SecretKey masterKey, EntityType type,
+                                      List<BackupService.RestorableItem> items) {
+        if (items.isEmpty()) {
+            DialogUtils.showInfo("Restore Items", "Nothing to restore",
+                    "This backup contains no " + type.getDisplayName() + " entries.");
+            return;
+        }
+
+        ListView<BackupService.RestorableItem> itemList = new ListView<>(FXCollections.observableArrayList(items));
+        itemList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        itemList.setPrefSize(420, 360);
+
+        Dialog<List<Long>> dialog = new Dialog<>();
+        dialog.setTitle("Restore Items");
+        dialog.setHeaderText("Select the " + type.getDisplayName() + " entries to restore.\n" +
+                "Selected entries replace their current version.");
+        ButtonType restoreButtonType = new ButtonType("Restore", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(restoreButtonType, ButtonType.CANCEL);
+        dialog.getDialogPane().setContent(itemList);
+
+        dialog.setResultConverter(buttonType -> buttonType == restoreButtonType
+                ? itemList.getSelectionModel().getSelectedItems().stream().map(item -> item.id).toList()
+                : null);
+
+        dialog.showAndWait().filter(ids -> !ids.isEmpty()).ifPresent(ids -> {
+            Task<Integer> restoreTask = new Task<>() {
+                @Override
+                protected Integer call() throws Exception {
+                    return backupService.restoreItems(backupFile, masterKey, type, ids);
+                }
+            };
+
+            restoreTask.setOnRunning(event -> {
+                progressIndicator.setVisible(true);
+                statusLabel.setText("Restoring items...");
+            });
+
+            restoreTask.setOnSucceeded(event -> {
+                progressIndicator.setVisible(false);
+                DialogUtils.showInfo("Success", "Items Restored",
+                        restoreTask.getValue() + " " + type.getDisplayName() + " entries were restored.");
+                statusLabel.setText("Items restored");
+            });
+
+            restoreTask.setOnFailed(event -> {
+                progressIndicator.setVisible(false);
+                DialogUtils.showError("Error", "Restore Failed",
+                        restoreTask.getException().getMessage());
+                statusLabel.setText("Restore failed");
+            });
+
+            BackupScheduler.getInstance().execute(restoreTask);
+        });
+    }
+
+    /**
+     * Open the selected backup read-only to look up or copy out old entries
+     */
+    @FXML
+    private void handleBrowse() {
+        if (selectedBackup == null) {
+            DialogUtils.showWarning("No Selection", "Select Backup",
+                    "Please select a backup to browse.");
+            return;
+        }
+
+        File backupFile = new File(selectedBackup.getBackupPath());
+        SecretKey masterKey = SessionManager.getInstance().getMasterKey();
+
+        Task<BackupMount> mountTask = new Task<>() {
+            @Override
+            protected BackupMount call() throws Exception {
+                return backupService.mountBackup(backupFile, masterKey);
+            }
+        };
+
+        mountTask.setOnRunning(event -> {
+            progressIndicator.setVisible(true);
+            browseButton.setDisable(true);
+            statusLabel.setText("Opening backup...");
+        });
+
+        mountTask.setOnSucceeded(event -> {
+            progressIndicator.setVisible(false);
+            browseButton.setDisable(selectedBackup == null);
+            statusLabel.setText("Backup opened read-only");
+            new BackupBrowserDialog(mountTask.getValue(), backupService, masterKey).showAndWait();
+        });
+
+        mountTask.setOnFailed(event -> {
+            progressIndicator.setVisible(false);
+            browseButton.setDisable(selectedBackup == null);
+            DialogUtils.showError("Error", "Failed to open backup",
+                    mountTask.getException().getMessage());
+            statusLabel.setText("Failed to open backup");
+        });
+
+        BackupScheduler.getInstance().execute(mountTask);
+    }
+
+    /**
+     * Show which entries differ between the selected backup and the vault or another backup
+     */
+    @FXML
+    private void handleCompare() {
+        if (selectedBackup == null) {
+            DialogUtils.showWarning("No Selection", "Select Backup",
+                    "Please select a backup to compare.");
+            return;
+        }
+
+        String currentVault = "Current vault";
+        Map<String, Backup> targets = new LinkedHashMap<>();
+        targets.put(currentVault, null);
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        for (Backup backup : backupsListView.getItems()) {
+            if (!backup.getId().equals(selectedBackup.getId())) {
+                targets.put(backup.getBackupFileName() + " - " + backup.getCreatedAt().format(formatter), backup);
+            }
+        }
+
+        ChoiceDialog<String> choice = new ChoiceDialog<>(currentVault, targets.keySet());
+        choice.setTitle("Compare Backup");
+        choice.setHeaderText("Compare " + selectedBackup.getBackupFileName() + " with:");
+        choice.setContentText("Compare with:");
+
+        choice.showAndWait().ifPresent(targetName -> {
+            Backup other = targets.get(targetName);
+            SecretKey masterKey = SessionManager.getInstance().getMasterKey();
+
+            // Changes are always shown from the older side to the newer one
+            Backup older = other == null || selectedBackup.getCreatedAt().isBefore(other.getCreatedAt())
+                    ? selectedBackup : other;
+            Backup newer = older == selectedBackup ? other : selectedBackup;
+            String title = older.getBackupFileName() + " → " + (newer == null ? currentVault : newer.getBackupFileName());
+
+            Task<RecordDiff.Result> compareTask = new Task<>() {
+                @Override
+                protected RecordDiff.Result call() throws Exception {
+                    File olderFile = new File(older.getBackupPath());
+                    return newer == null
+                            ? backupService.compareWithLive(olderFile, masterKey)
+                            : backupService.compareBackups(olderFile, new File(newer.getBackupPath()), masterKey);
+                }
+            };
+
+            compareTask.setOnRunning(event -> {
+                progressIndicator.setVisible(true);
+                statusLabel.setText("Comparing...");
+            });
+
+            compareTask.setOnSucceeded(event -> {
+                progressIndicator.setVisible(false);
+                statusLabel.setText("Comparison complete");
+                showDifferences(title, compareTask.getValue());
+            });
+
+            compareTask.setOnFailed(event -> {
+                progressIndicator.setVisible(false);
+                DialogUtils.showError("Error", "Comparison Failed",
+                        compareTask.getException().getMessage());
+                statusLabel.setText("Comparison failed");
+            });
+
+            BackupScheduler.getInstance().execute(compareTask);
+        });
+    }
+
+    private void showDifferences(String title, RecordDiff.Result result) {
+        ListView<String> changesView = new ListView<>();
+        changesView.setPrefSize(560, 420);
+        changesView.setPlaceholder(new Label("No differences"));
+
+        for (EntityType type : EntityType.values()) {
+            List<RecordDiff.Change> changes = result.getChanges(type);
+            if (changes.isEmpty()) {
+                continue;
+            }
+            changesView.getItems().add(type.getIcon() + " " + type.getDisplayName() + " (" + changes.size() + ")");
+            for (RecordDiff.Change change : changes) {
+                changesView.getItems().add("    " + change);
+            }
+        }
+
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle("Backup Differences");
+        dialog.setHeaderText(title + "\n" + result + "\n+ added   - removed   ~ modified (changed fields)");
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+        dialog.getDialogPane().setContent(changesView);
+        dialog.showAndWait();
+    }
+
+    /**
+     * Edit when backups are created automatically and how many of them are kept
+     */
+    @FXML
+    private void handleBackupSchedule() {
+        BackupScheduler scheduler = BackupScheduler.getInstance();
+        BackupSchedule schedule;
+        try {
+            schedule = scheduler.getSchedule();
+        } catch (Exception e) {
+            DialogUtils.showError("Error", "Failed to load backup schedule", e.getMessage());
+            return;
+        }
+
+        CheckBox enabledCheck = new CheckBox("Create backups automatically");
+        enabledCheck.setSelected(schedule.isEnabled());
+        TextField cronField = new TextField(schedule.getCronExpression());
+        cronField.setPromptText("minute hour day month weekday, e.g. 0 3 * * *");
+        Spinner<Integer> idleSpinner = new Spinner<>(0, 24 * 60, schedule.getIdleMinutes());
+        Spinner<Integer> intervalSpinner = new Spinner<>(0, 7 * 24, schedule.getMinIntervalHours());
+        ChoiceBox<Backup.BackupKind> kindChoice = new ChoiceBox<>(
+                FXCollections.observableArrayList(Backup.BackupKind.values()));
+        kindChoice.setValue(schedule.getBackupKind());
+        Spinner<Integer> bandwidthSpinner = new Spinner<>(0, 1000,
+                (int) (schedule.getMaxBytesPerSecond() / (1024 * 1024)));
+        Spinner<Integer> dailySpinner = new Spinner<>(0, 365, schedule.getKeepDaily());
+        Spinner<Integer> weeklySpinner = new Spinner<>(0, 520, schedule.getKeepWeekly());
+        Spinner<Integer> monthlySpinner = new Spinner<>(0, 240, schedule.getKeepMonthly());
+        for (Spinner<Integer> spinner : List.of(idleSpinner, intervalSpinner, bandwidthSpinner,
+                dailySpinner, weeklySpinner, monthlySpinner)) {
+            spinner.setEditable(true);
+        }
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(8);
+        grid.add(enabledCheck, 0, 0, 2, 1);
+        grid.addRow(1, new Label("Schedule (cron):"), cronField);
+        grid.addRow(2, new Label("Also after idle (minutes, 0 = off):"), idleSpinner);
+        grid.addRow(3, new Label("At most every (hours) when idle:"), intervalSpinner);
+        grid.addRow(4, new Label("Backup type:"), kindChoice);
+        grid.addRow(5, new Label("Max disk speed (MB/s, 0 = unlimited):"), bandwidthSpinner);
+        grid.addRow(6, new Label("Keep daily backups:"), dailySpinner);
+        grid.addRow(7, new Label("Keep weekly backups:"), weeklySpinner);
+        grid.addRow(8, new Label("Keep monthly backups:"), monthlySpinner);
+        grid.add(new Label(scheduler.getStatus().toString()), 0, 9, 2, 1);
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Backup Schedule");
+        dialog.setHeaderText("Automatic backups run in the background while PassMan is unlocked.\n" +
+                "Manual backups are never deleted by the retention policy.");
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        dialog.getDialogPane().setContent(grid);
+
+        dialog.showAndWait().filter(button -> button == ButtonType.OK).ifPresent(button -> {
+            schedule.setEnabled(enabledCheck.isSelected());
+            schedule.setCronExpression(cronField.getText().trim());
+            schedule.setIdleMinutes(idleSpinner.getValue());
+            schedule.setMinIntervalHours(intervalSpinner.getValue());
+            schedule.setBackupKind(kindChoice.getValue());
+            schedule.setMaxBytesPerSecond(bandwidthSpinner.getValue() * 1024L * 1024L);
+            schedule.setKeepDaily(dailySpinner.getValue());
+            schedule.setKeepWeekly(weeklySpinner.getValue());
+            schedule.setKeepMonthly(monthlySpinner.getValue());
+
+            try {
+                scheduler.saveSchedule(schedule);
+                updateScheduleLabel();
+                statusLabel.setText("Backup schedule saved");
+            } catch (IllegalArgumentException e) {
+                DialogUtils.showError("Invalid Schedule", "Please check the schedule", e.getMessage());
+            } catch (Exception e) {
+                DialogUtils.showError("Error", "Failed to save backup schedule", e.getMessage());
+            }
+        });
+    }
+
     @FXML
     private void handleDelete() {
         if (selectedBackup == null) {
@@ -252,6 +640,12 @@ public class BackupController {
             return;
         }
 
+        if (selectedBackup.getBackupKind() == Backup.BackupKind.SNAPSHOT) {
+            DialogUtils.showWarning("Not Supported", "Snapshot Backup",
+                    "Snapshots share their data with other snapshots and cannot be exported as a single file.");
+            return;
+        }
+
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Export Backup");
         fileChooser.setInitialFileName(selectedBackup.getBackupFileName());
@@ -319,7 +713,7 @@ public class BackupController {
                             restoreTask.getException().getMessage());
                 });
 
-                new Thread(restoreTask).start();
+                BackupScheduler.getInstance().execute(restoreTask);
             }
         }
     }
@@ -1,12 +1,15 @@
 package com.passman.desktop.ui.credential;
 
 import com.passman.core.db.DatabaseManager;
+import com.passman.core.db.WriteQueue;
+import com.passman.core.model.EntityType;
 import com.passman.core.model.Credential;
 import com.passman.core.repository.CredentialRepositoryImpl;
 import com.passman.core.services.EncryptionServiceImpl;
 import com.passman.desktop.DialogUtils;
 import com.passman.desktop.SessionManager;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
@@ -200,13 +203,22 @@ public class CredentialEditorController {
             credential.setEncryptionIV(iv);
             credential.setEncryptedPassword(encryptedPassword);
 
-            if (credential.getId() == null) {
-                // System.out.println("DEBUG - About to save credential: title=" + credential.getTitle() + " score=" + credential.getPasswordStrengthScore());
-                repository.save(credential);
-            } else {
-                // System.out.println("DEBUG - About to update credential: title=" + credential.getTitle() + " score=" + credential.getPasswordStrengthScore());
-                repository.update(credential);
-            }
+            // Persist a copy on the write queue so the dialog closes without waiting on disk
+            Credential edited = credential;
+            Credential toSave = new Credential(edited);
+            WriteQueue.getInstance().submit(WriteQueue.keyFor(EntityType.CREDENTIAL, edited.getId(), edited), () -> {
+                if (toSave.getId() == null) {
+                    repository.save(toSave);
+                } else {
+                    repository.update(toSave);
+                }
+            }).whenComplete((result, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    DialogUtils.showError("Error", "Failed to save credential", error.getMessage());
+                } else {
+                    edited.setId(toSave.getId());
+                }
+            }));
 
             handleCancel();
 
@@ -1,11 +1,15 @@
 package com.passman.desktop.ui.dashboard;
 
 import com.passman.core.db.DatabaseManager;
+import com.passman.core.db.WriteQueue;
 import com.passman.core.model.Credential;
+import com.passman.core.search.SearchHit;
 import com.passman.desktop.DialogUtils;
 import com.passman.desktop.MainApp;
 import com.passman.desktop.SessionManager;
 import com.passman.desktop.ui.credential.CredentialEditorController;
+import com.passman.desktop.ui.search.CommandPaletteDialog;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene. control.Button;
 import javafx.scene. control.Label;
@@ -16,6 +20,9 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx. scene.Scene;
@@ -77,6 +84,16 @@ public class DashboardController {
         // Bind search field
         searchField.textProperty().bindBidirectional(viewModel. searchQueryProperty());
 
+        // Ctrl+K (Cmd+K on macOS) opens the global command palette
+        searchField.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene != null) {
+                newScene.getAccelerators().put(
+                        new KeyCodeCombination(KeyCode.K, KeyCombination.SHORTCUT_DOWN),
+                        this::openCommandPalette
+                );
+            }
+        });
+
         // Load credentials
         viewModel.loadCredentials();
     }
@@ -86,7 +103,7 @@ public class DashboardController {
         try {
             Stage modal = DialogUtils.openModal("/fxml/CredentialEditorDialog.fxml", "Add Credential");
             modal.showAndWait();
-            viewModel.loadCredentials();
+            reloadAfterPendingWrites();
         } catch (Exception e) {
             DialogUtils.showError("Error", "Failed to open editor", e.getMessage());
         }
@@ -157,6 +174,25 @@ public class DashboardController {
         MainApp.getSceneManager().switchScene("FileVaultBrowser");
     }
 
+    // Editor saves go through the write queue; reload once they are committed
+    private void reloadAfterPendingWrites() {
+        WriteQueue.getInstance().flush()
+                .whenComplete((ignored, error) -> Platform.runLater(viewModel::loadCredentials));
+    }
+
+    private void openCommandPalette() {
+        new CommandPaletteDialog().showAndWait().ifPresent(this::openSearchHit);
+    }
+
+    private void openSearchHit(SearchHit hit) {
+        switch (hit.getType()) {
+            case CREDENTIAL -> openCredentialEditor(hit.getId());
+            case NOTE -> MainApp.getSceneManager().switchScene("SecureNotes");
+            case IDENTITY_CARD -> MainApp.getSceneManager().switchScene("IdentityCards");
+            case VAULT_FILE -> MainApp.getSceneManager().switchScene("FileVaultBrowser");
+        }
+    }
+
     // ✅ ADD THIS METHOD
     private void setupTableColumns() {
         // Get columns (they're defined in FXML)
@@ -264,10 +300,14 @@ public class DashboardController {
 
     // ✅ ADD THIS METHOD
     private void handleEditCredential(DashboardViewModel.CredentialItem item) {
+        openCredentialEditor(item.getId());
+    }
+
+    private void openCredentialEditor(Long credentialId) {
         try {
             // Load credential from repository
             CredentialRepositoryImpl repository = new CredentialRepositoryImpl(DatabaseManager.getInstance());
-            Optional<Credential> credentialOpt = repository.findById(item.getId());
+            Optional<Credential> credentialOpt = repository.findById(credentialId);
 
             if (credentialOpt. isPresent()) {
                 // Open editor dialog
@@ -284,7 +324,7 @@ public class DashboardController {
                 stage.showAndWait();
 
                 // Reload data
-                viewModel.loadCredentials();
+                reloadAfterPendingWrites();
             }
         } catch (Exception e) {
             DialogUtils.showError("Error", "Failed to edit credential", e. getMessage());
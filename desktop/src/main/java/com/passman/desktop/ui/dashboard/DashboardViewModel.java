@@ -1,9 +1,13 @@
 package com.passman.desktop.ui.dashboard;
 
 import com.passman.core.db.DatabaseManager;
-import com.passman.core.model.Credential;
+import com.passman.core.model.CredentialSummary;
+import com.passman.core.model.EntityType;
 import com.passman.core.repository.CredentialRepository;
 import com.passman.core.repository.CredentialRepositoryImpl;
+import com.passman.core.search.GlobalSearchIndex;
+import com.passman.core.search.SearchHit;
+import com.passman.core.utils.TagUtil;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
@@ -12,16 +16,24 @@ import javafx.collections.ObservableList;
 import javax.crypto.SecretKey;
 import java.time.LocalDateTime;
 import java. time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * ViewModel for Dashboard with credential management
  */
 public class DashboardViewModel {
 
+    private static final int SEARCH_LIMIT = 200;
+
     private final StringProperty searchQuery = new SimpleStringProperty("");
     private final ObservableList<CredentialItem> credentials = FXCollections.observableArrayList();
 
+    // Loaded summaries by id, used to render search hits from the in-memory index
+    private final Map<Long, CredentialSummary> summaryById = new LinkedHashMap<>();
+
     private final CredentialRepository credentialRepository;
     private SecretKey masterKey;
 
@@ -45,9 +57,11 @@ public class DashboardViewModel {
     public void loadCredentials() {
         try {
             credentials.clear();
-            List<Credential> allCreds = credentialRepository.findAll();
+            summaryById.clear();
+            List<CredentialSummary> allCreds = credentialRepository.findAllSummaries();
 
-            for (Credential cred : allCreds) {
+            for (CredentialSummary cred : allCreds) {
+                summaryById.put(cred.getId(), cred);
                 credentials.add(mapToCredentialItem(cred));
             }
         } catch (Exception e) {
@@ -64,16 +78,44 @@ public class DashboardViewModel {
                 return;
             }
 
-            List<Credential> results = credentialRepository.searchByTitle(query);
-            for (Credential cred : results) {
-                credentials.add(mapToCredentialItem(cred));
+            // "#tag" filters by tag through the indexed tag store
+            if (TagUtil.isTagQuery(query)) {
+                for (CredentialSummary cred : credentialRepository.findSummariesByTag(TagUtil.tagFromQuery(query))) {
+                    credentials.add(mapToCredentialItem(cred));
+                }
+                return;
+            }
+
+            // A pasted URL lists the credentials for that site (subdomains included)
+            if (query.contains("://")) {
+                for (CredentialSummary cred : credentialRepository.findSummariesForUrl(query)) {
+                    credentials.add(mapToCredentialItem(cred));
+                }
+                return;
+            }
+
+            GlobalSearchIndex index = GlobalSearchIndex.getInstance();
+            if (!index.isLoaded()) {
+                // Index not built yet: fall back to the FTS query
+                for (CredentialSummary cred : credentialRepository.searchSummaries(query)) {
+                    credentials.add(mapToCredentialItem(cred));
+                }
+                return;
+            }
+
+            List<SearchHit> hits = index.search(query, EnumSet.of(EntityType.CREDENTIAL), SEARCH_LIMIT);
+            for (SearchHit hit : hits) {
+                CredentialSummary cred = summaryById.get(hit.getId());
+                if (cred != null) {
+                    credentials.add(mapToCredentialItem(cred));
+                }
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private CredentialItem mapToCredentialItem(Credential cred) {
+    private CredentialItem mapToCredentialItem(CredentialSummary cred) {
         CredentialItem item = new CredentialItem();
         item.setId(cred.getId());
         item.setTitle(cred.getTitle());
@@ -92,7 +134,7 @@ public class DashboardViewModel {
         return "Very Old";
     }
 
-    private String calculateStrength(Credential cred) {
+    private String calculateStrength(CredentialSummary cred) {
         int score = cred.getPasswordStrengthScore();
         if (score >= 75) return "Strong";
         else if (score >= 50) return "Medium";
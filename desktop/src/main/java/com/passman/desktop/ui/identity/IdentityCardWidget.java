@@ -1,6 +1,6 @@
 package com.passman.desktop. ui.identity;
 
-import com. passman.core.model. IdentityCard;
+import com.passman.core.model.CardSummary;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
@@ -12,11 +12,11 @@ import javafx.scene.paint.Color;
  */
 public class IdentityCardWidget {
 
-    private final IdentityCard card;
+    private final CardSummary card;
     private final VBox node;
     private Runnable onClickHandler;
 
-    public IdentityCardWidget(IdentityCard card) {
+    public IdentityCardWidget(CardSummary card) {
         this.card = card;
         this.node = createNode();
     }
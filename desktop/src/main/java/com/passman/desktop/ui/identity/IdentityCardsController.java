@@ -1,13 +1,18 @@
 package com.passman.desktop.ui.identity;
 
 import com.passman.core.db. DatabaseManager;
+import com.passman.core.db.WriteQueue;
+import com.passman.core.model.EntityType;
+import com.passman.core.model.CardSummary;
 import com.passman.core.model.IdentityCard;
 import com.passman.core.repository.IdentityCardsRepositoryImpl;
 import com.passman.core. services.IdentityCardsService;
 import com.passman. desktop.DialogUtils;
 import com.passman.desktop.MainApp;
 import com.passman. desktop.SessionManager;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections. ObservableList;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
@@ -15,9 +20,9 @@ import javafx.scene.control.*;
 import javafx. scene.layout.FlowPane;
 import javafx. scene.layout.VBox;
 
+import javax.crypto.SecretKey;
 import java.time.LocalDate;
 import java. util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -42,6 +47,8 @@ public class IdentityCardsController {
 
         cardTypeComboBox.setItems(FXCollections.observableArrayList(IdentityCard.CardType.values()));
 
+        viewModel.getCards().addListener((ListChangeListener<CardSummary>) change -> displayCards());
+
         searchField.textProperty().addListener((obs, oldVal, newVal) -> {
             performSearch(newVal);
         });
@@ -52,19 +59,18 @@ public class IdentityCardsController {
 
     private void loadAllCards() {
         try {
-            List<IdentityCard> cards = cardsService.getAllCards();
-            displayCards(cards);
+            viewModel.loadCards();
         } catch (Exception e) {
             DialogUtils.showError("Error", "Failed to load cards", e.getMessage());
         }
     }
 
-    private void displayCards(List<IdentityCard> cards) {
+    private void displayCards() {
         cardsFlowPane.getChildren().clear();
 
-        for (IdentityCard card : cards) {
+        for (CardSummary card : viewModel.getCards()) {
             IdentityCardWidget widget = new IdentityCardWidget(card);
-            widget.setOnClick(() -> openCardEditor(card));
+            widget.setOnClick(() -> openCard(card.getId()));
             cardsFlowPane.getChildren().add(widget. getNode());
         }
     }
@@ -76,8 +82,7 @@ public class IdentityCardsController {
         }
 
         try {
-            List<IdentityCard> results = cardsService.searchCards(query);
-            displayCards(results);
+            viewModel.searchCards(query);
         } catch (Exception e) {
             DialogUtils.showError("Error", "Search failed", e.getMessage());
         }
@@ -100,6 +105,16 @@ public class IdentityCardsController {
         openCardEditor(null);
     }
 
+    private void openCard(Long cardId) {
+        try {
+            // Full card (encrypted data + photo) is only loaded when opened
+            cardsService.getCard(cardId, SessionManager.getInstance().getMasterKey())
+                    .ifPresent(this::openCardEditor);
+        } catch (Exception e) {
+            DialogUtils.showError("Error", "Failed to load card", e.getMessage());
+        }
+    }
+
     private void openCardEditor(IdentityCard card) {
         Dialog<IdentityCard> dialog = new Dialog<>();
         dialog.setTitle(card == null ? "Add Identity Card" : "Edit Identity Card");
@@ -157,8 +172,6 @@ public class IdentityCardsController {
                     cardData.put("cardName", nameField.getText());
                     cardData.put("country", countryField.getText());
                     newCard.setCardData(cardData);
-
-                    cardsService.saveCard(newCard, SessionManager.getInstance().getMasterKey());
                     return newCard;
                 } catch (Exception e) {
                     DialogUtils.showError("Error", "Failed to save card", e.getMessage());
@@ -168,10 +181,26 @@ public class IdentityCardsController {
             return null;
         });
 
-        dialog.showAndWait().ifPresent(result -> {
+        dialog.showAndWait().ifPresent(this::saveCard);
+    }
+
+    /**
+     * Queue a copy of the card for saving and refresh once it is committed
+     */
+    private void saveCard(IdentityCard edited) {
+        IdentityCard toSave = new IdentityCard(edited);
+        SecretKey masterKey = SessionManager.getInstance().getMasterKey();
+        WriteQueue.getInstance().submit(WriteQueue.keyFor(EntityType.IDENTITY_CARD, edited.getId(), edited),
+                () -> cardsService.saveCard(toSave, masterKey)
+        ).whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                DialogUtils.showError("Error", "Failed to save card", error.getMessage());
+                return;
+            }
+            edited.setId(toSave.getId());
             loadAllCards();
             updateStatistics();
-        });
+        }));
     }
 
     @FXML
@@ -179,8 +208,7 @@ public class IdentityCardsController {
         IdentityCard.CardType selectedType = cardTypeComboBox. getValue();
         if (selectedType != null) {
             try {
-                List<IdentityCard> filtered = cardsService.getCardsByType(selectedType);
-                displayCards(filtered);
+                viewModel.filterByType(selectedType);
             } catch (Exception e) {
                 DialogUtils.showError("Error", "Failed to filter cards", e.getMessage());
             }
@@ -190,10 +218,9 @@ public class IdentityCardsController {
     @FXML
     private void handleShowExpiring() {
         try {
-            List<IdentityCard> expiring = cardsService.getExpiringCards(30);
-            displayCards(expiring);
+            viewModel.loadExpiring(30);
             DialogUtils.showInfo("Expiring Cards", "Cards Expiring Soon",
-                    expiring.size() + " cards expire within 30 days");
+                    viewModel.getCards().size() + " cards expire within 30 days");
         } catch (Exception e) {
             DialogUtils.showError("Error", "Failed to load expiring cards", e.getMessage());
         }
@@ -202,10 +229,9 @@ public class IdentityCardsController {
     @FXML
     private void handleShowExpired() {
         try {
-            List<IdentityCard> expired = cardsService.getExpiredCards();
-            displayCards(expired);
+            viewModel.loadExpired();
             DialogUtils.showInfo("Expired Cards", "Expired Cards",
-                    expired. size() + " cards have expired");
+                    viewModel.getCards().size() + " cards have expired");
         } catch (Exception e) {
             DialogUtils. showError("Error", "Failed to load expired cards", e.getMessage());
         }
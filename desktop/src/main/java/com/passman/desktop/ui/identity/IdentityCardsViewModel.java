@@ -1,38 +1,91 @@
 package com.passman.desktop.ui.identity;
 
-import com.passman.core.model. IdentityCard;
-import com.passman.core.services. IdentityCardsService;
-import javafx.beans.property. ObjectProperty;
+import com.passman.core.model.CardSummary;
+import com.passman.core.model.EntityType;
+import com.passman.core.model.IdentityCard;
+import com.passman.core.search.GlobalSearchIndex;
+import com.passman.core.search.SearchHit;
+import com.passman.core.services.IdentityCardsService;
+import com.passman.core.utils.TagUtil;
+import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
-import javafx.beans.property. SimpleStringProperty;
-import javafx. beans.property.StringProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
-import javafx. collections.ObservableList;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * ViewModel for Identity Cards
  */
 public class IdentityCardsViewModel {
 
+    private static final int SEARCH_LIMIT = 200;
+
     private final IdentityCardsService cardsService;
-    private final ObservableList<IdentityCard> cards = FXCollections.observableArrayList();
+    private final Map<Long, CardSummary> summaryById = new LinkedHashMap<>();
+    private final ObservableList<CardSummary> cards = FXCollections.observableArrayList();
     private final StringProperty searchQuery = new SimpleStringProperty("");
-    private final ObjectProperty<IdentityCard> selectedCard = new SimpleObjectProperty<>();
+    private final ObjectProperty<CardSummary> selectedCard = new SimpleObjectProperty<>();
 
     public IdentityCardsViewModel(IdentityCardsService cardsService) {
         this.cardsService = cardsService;
     }
 
-    public void loadCards() {
-        try {
-            cards.clear();
-            cards. addAll(cardsService.getAllCards());
-        } catch (Exception e) {
-            e.printStackTrace();
+    public void loadCards() throws Exception {
+        List<CardSummary> all = cardsService.getAllCardSummaries();
+        summaryById.clear();
+        for (CardSummary summary : all) {
+            summaryById.put(summary.getId(), summary);
+        }
+        cards.setAll(all);
+    }
+
+    public void searchCards(String query) throws Exception {
+        if (query == null || query.trim().isEmpty()) {
+            loadCards();
+            return;
+        }
+
+        if (TagUtil.isTagQuery(query)) {
+            cards.setAll(cardsService.getCardSummariesByTag(TagUtil.tagFromQuery(query)));
+            return;
+        }
+
+        GlobalSearchIndex index = GlobalSearchIndex.getInstance();
+        if (!index.isLoaded()) {
+            cards.setAll(cardsService.searchCardSummaries(query));
+            return;
         }
+
+        List<CardSummary> results = new ArrayList<>();
+        for (SearchHit hit : index.search(query, EnumSet.of(EntityType.IDENTITY_CARD), SEARCH_LIMIT)) {
+            CardSummary summary = summaryById.get(hit.getId());
+            if (summary != null) {
+                results.add(summary);
+            }
+        }
+        cards.setAll(results);
+    }
+
+    public void filterByType(IdentityCard.CardType type) throws Exception {
+        cards.setAll(cardsService.getCardSummariesByType(type));
+    }
+
+    public void loadExpiring(int daysThreshold) throws Exception {
+        cards.setAll(cardsService.getExpiringCardSummaries(daysThreshold));
+    }
+
+    public void loadExpired() throws Exception {
+        cards.setAll(cardsService.getExpiredCardSummaries());
     }
 
-    public ObservableList<IdentityCard> getCards() {
+    public ObservableList<CardSummary> getCards() {
         return cards;
     }
 
@@ -40,7 +93,7 @@ public class IdentityCardsViewModel {
         return searchQuery;
     }
 
-    public ObjectProperty<IdentityCard> selectedCardProperty() {
+    public ObjectProperty<CardSummary> selectedCardProperty() {
         return selectedCard;
     }
-}
\ No newline at end of file
+}
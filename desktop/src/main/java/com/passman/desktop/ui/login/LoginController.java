@@ -4,6 +4,7 @@ import com.passman.core.crypto. PBKDF2KeyDerivation;
 import com.passman. core.db.DatabaseManager;
 import com. passman.core.db.dao.UserDAO;
 import com.passman. core.model.User;
+import com.passman.core.search.GlobalSearchIndex;
 import com.passman.desktop.DialogUtils;
 import com.passman.desktop.MainApp;
 import com.passman.desktop.SessionManager;
@@ -98,6 +99,7 @@ public class LoginController {
                     SecretKey masterKey = keyDerivation.deriveKey(passwordChars, user.getSalt());
                     SessionManager.getInstance().initSession(user, masterKey);
                     userDAO.updateLastLogin(user. getId(), LocalDateTime.now());
+                    buildSearchIndex();
                 }
 
                 Arrays.fill(passwordChars, '\0');
@@ -161,6 +163,7 @@ public class LoginController {
 
                 SecretKey masterKey = keyDerivation.deriveKey(passwordChars, salt);
                 SessionManager.getInstance().initSession(newUser, masterKey);
+                buildSearchIndex();
 
                 Arrays.fill(passwordChars, '\0');
                 Arrays.fill(hashedPassword, (byte) 0);
@@ -200,6 +203,15 @@ public class LoginController {
         new Thread(createTask).start();
     }
 
+    private void buildSearchIndex() {
+        try {
+            GlobalSearchIndex.getInstance().rebuild(dbManager);
+        } catch (Exception e) {
+            // Search falls back to SQL queries when the index is unavailable
+            System.err.println("⚠️ Failed to build search index: " + e.getMessage());
+        }
+    }
+
     @FXML
     private void handleForgotPassword() {
         DialogUtils.showWarning(
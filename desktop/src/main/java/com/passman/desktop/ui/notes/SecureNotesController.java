@@ -1,12 +1,16 @@
 package com.passman.desktop.ui.notes;
 
 import com.passman.core.db.DatabaseManager;
+import com.passman.core.db.WriteQueue;
+import com.passman.core.model.EntityType;
+import com.passman.core.model.NoteSummary;
 import com. passman.core.model.SecureNote;
 import com.passman. core.repository.SecureNotesRepositoryImpl;
 import com.passman.core.services.SecureNotesService;
 import com.passman. desktop.DialogUtils;
 import com.passman.desktop.MainApp;
 import com.passman.desktop.SessionManager;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -14,16 +18,16 @@ import javafx.scene.control.*;
 import javafx. stage.FileChooser;
 import javafx.stage.Stage;
 
+import javax.crypto.SecretKey;
 import java.io.File;
 import java.time.LocalDateTime;
-import java. util.List;
 
 /**
  * Controller for Secure Notes
  */
 public class SecureNotesController {
 
-    @FXML private ListView<SecureNote> notesListView;
+    @FXML private ListView<NoteSummary> notesListView;
     @FXML private TextField searchField;
     @FXML private TextField titleField;
     @FXML private TextArea contentArea;
@@ -44,16 +48,17 @@ public class SecureNotesController {
         SecureNotesRepositoryImpl repository = new SecureNotesRepositoryImpl(dbManager);
 
         String storagePath = System.getProperty("user.home") + "/.passman";
-        notesService = new SecureNotesService(repository, storagePath);
+        notesService = new SecureNotesService(repository, storagePath, dbManager);
 
         viewModel = new SecureNotesViewModel(notesService);
 
         categoryComboBox.setItems(FXCollections.observableArrayList(SecureNote.NoteCategory.values()));
         categoryComboBox. setValue(SecureNote.NoteCategory.PERSONAL);
 
+        notesListView.setItems(viewModel.getNotes());
         notesListView.setCellFactory(param -> new ListCell<>() {
             @Override
-            protected void updateItem(SecureNote note, boolean empty) {
+            protected void updateItem(NoteSummary note, boolean empty) {
                 super.updateItem(note, empty);
                 if (empty || note == null) {
                     setText(null);
@@ -65,7 +70,7 @@ public class SecureNotesController {
 
         notesListView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal != null) {
-                loadNote(newVal);
+                loadNote(newVal.getId());
             }
         });
 
@@ -78,10 +83,8 @@ public class SecureNotesController {
 
     private void loadAllNotes() {
         try {
-            List<SecureNote> notes = notesService.getAllNotes();
-            ObservableList<SecureNote> observableNotes = FXCollections.observableArrayList(notes);
-            notesListView.setItems(observableNotes);
-            statusLabel.setText(notes.size() + " notes loaded");
+            viewModel.loadNotes();
+            statusLabel.setText(viewModel.getNotes().size() + " notes loaded");
         } catch (Exception e) {
             DialogUtils.showError("Error", "Failed to load notes", e.getMessage());
         }
@@ -94,18 +97,17 @@ public class SecureNotesController {
         }
 
         try {
-            List<SecureNote> results = notesService.searchNotes(query);
-            ObservableList<SecureNote> observableResults = FXCollections.observableArrayList(results);
-            notesListView.setItems(observableResults);
-            statusLabel.setText(results.size() + " notes found");
+            viewModel.searchNotes(query, SessionManager.getInstance().getMasterKey());
+            statusLabel.setText(viewModel.getNotes().size() + " notes found");
         } catch (Exception e) {
             DialogUtils.showError("Error", "Search failed", e.getMessage());
         }
     }
 
-    private void loadNote(SecureNote note) {
+    private void loadNote(Long noteId) {
         try {
-            var fullNote = notesService.getNote(note.getId(), SessionManager.getInstance().getMasterKey());
+            // Full note (encrypted content + attachments) is only loaded when opened
+            var fullNote = notesService.getNote(noteId, SessionManager.getInstance().getMasterKey());
             if (fullNote. isPresent()) {
                 currentNote = fullNote.get();
                 titleField.setText(currentNote. getTitle());
@@ -168,10 +170,23 @@ public class SecureNotesController {
             currentNote.setColorCode(colorPicker.getValue().toString());
             currentNote.setLastModified(LocalDateTime.now());
 
-            notesService.saveNote(currentNote, SessionManager.getInstance().getMasterKey());
-
-            DialogUtils.showInfo("Success", "Note Saved", "Your note has been saved successfully");
-            loadAllNotes();
+            // The writer thread gets a copy, so editing can go on while the save is queued.
+            // Saves of a new note are coalesced on the note itself and insert it once.
+            SecureNote edited = currentNote;
+            SecureNote toSave = new SecureNote(edited);
+            SecretKey masterKey = SessionManager.getInstance().getMasterKey();
+            WriteQueue.getInstance().submit(WriteQueue.keyFor(EntityType.NOTE, edited.getId(), edited),
+                    () -> notesService.saveNote(toSave, masterKey)
+            ).whenComplete((result, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    DialogUtils.showError("Error", "Failed to save note", error.getMessage());
+                } else {
+                    // A new note has its id once the insert is committed
+                    edited.setId(toSave.getId());
+                    DialogUtils.showInfo("Success", "Note Saved", "Your note has been saved successfully");
+                    loadAllNotes();
+                }
+            }));
 
         } catch (Exception e) {
             DialogUtils.showError("Error", "Failed to save note", e.getMessage());
@@ -222,7 +237,7 @@ public class SecureNotesController {
                         file,
                         SessionManager.getInstance().getMasterKey()
                 );
-                loadNote(currentNote);
+                loadNote(currentNote.getId());
                 DialogUtils.showInfo("Success", "Attachment Added", "File attached successfully");
             } catch (Exception e) {
                 DialogUtils.showError("Error", "Failed to add attachment", e.getMessage());
@@ -269,10 +284,8 @@ public class SecureNotesController {
         SecureNote.NoteCategory category = categoryComboBox.getValue();
         if (category != null) {
             try {
-                List<SecureNote> filtered = notesService.getNotesByCategory(category);
-                ObservableList<SecureNote> observableFiltered = FXCollections.observableArrayList(filtered);
-                notesListView.setItems(observableFiltered);
-                statusLabel.setText(filtered.size() + " notes in " + category.getDisplayName());
+                viewModel.filterByCategory(category);
+                statusLabel.setText(viewModel.getNotes().size() + " notes in " + category.getDisplayName());
             } catch (Exception e) {
                 DialogUtils.showError("Error", "Failed to filter notes", e.getMessage());
             }
@@ -282,10 +295,8 @@ public class SecureNotesController {
     @FXML
     private void handleShowFavorites() {
         try {
-            List<SecureNote> favorites = notesService.getFavoriteNotes();
-            ObservableList<SecureNote> observableFavorites = FXCollections.observableArrayList(favorites);
-            notesListView.setItems(observableFavorites);
-            statusLabel.setText(favorites.size() + " favorite notes");
+            viewModel.loadFavorites();
+            statusLabel.setText(viewModel.getNotes().size() + " favorite notes");
         } catch (Exception e) {
             DialogUtils.showError("Error", "Failed to load favorites", e.getMessage());
         }
@@ -1,35 +1,88 @@
 package com.passman.desktop.ui.notes;
 
-import com.passman.core. model.SecureNote;
-import com.passman.core.services. SecureNotesService;
+import com.passman.core.model.EntityType;
+import com.passman.core.model.NoteSummary;
+import com.passman.core.model.SecureNote;
+import com.passman.core.search.GlobalSearchIndex;
+import com.passman.core.search.SearchHit;
+import com.passman.core.services.SecureNotesService;
+import com.passman.core.utils.TagUtil;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import javax.crypto.SecretKey;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * ViewModel for Secure Notes
  */
 public class SecureNotesViewModel {
 
+    private static final int SEARCH_LIMIT = 200;
+
     private final SecureNotesService notesService;
-    private final ObservableList<SecureNote> notes = FXCollections.observableArrayList();
+    private final Map<Long, NoteSummary> summaryById = new LinkedHashMap<>();
+    private final ObservableList<NoteSummary> notes = FXCollections.observableArrayList();
     private final StringProperty searchQuery = new SimpleStringProperty("");
-    private final ObjectProperty<SecureNote> selectedNote = new SimpleObjectProperty<>();
+    private final ObjectProperty<NoteSummary> selectedNote = new SimpleObjectProperty<>();
 
     public SecureNotesViewModel(SecureNotesService notesService) {
         this.notesService = notesService;
     }
 
-    public void loadNotes() {
-        try {
-            notes.clear();
-            notes.addAll(notesService.getAllNotes());
-        } catch (Exception e) {
-            e.printStackTrace();
+    public void loadNotes() throws Exception {
+        List<NoteSummary> all = notesService.getAllNoteSummaries();
+        summaryById.clear();
+        for (NoteSummary summary : all) {
+            summaryById.put(summary.getId(), summary);
+        }
+        notes.setAll(all);
+    }
+
+    public void searchNotes(String query, SecretKey masterKey) throws Exception {
+        if (query == null || query.trim().isEmpty()) {
+            loadNotes();
+            return;
+        }
+
+        if (TagUtil.isTagQuery(query)) {
+            notes.setAll(notesService.getNoteSummariesByTag(TagUtil.tagFromQuery(query)));
+            return;
+        }
+
+        GlobalSearchIndex index = GlobalSearchIndex.getInstance();
+        if (!index.isLoaded()) {
+            notes.setAll(notesService.searchNoteSummaries(query, masterKey));
+            return;
+        }
+
+        // Title and tag matches first, then notes that only match by content
+        Map<Long, NoteSummary> results = new LinkedHashMap<>();
+        for (SearchHit hit : index.search(query, EnumSet.of(EntityType.NOTE), SEARCH_LIMIT)) {
+            NoteSummary summary = summaryById.get(hit.getId());
+            if (summary != null) {
+                results.put(summary.getId(), summary);
+            }
+        }
+        for (NoteSummary summary : notesService.searchNoteContentSummaries(query, masterKey)) {
+            results.putIfAbsent(summary.getId(), summary);
         }
+        notes.setAll(results.values());
+    }
+
+    public void filterByCategory(SecureNote.NoteCategory category) throws Exception {
+        notes.setAll(notesService.getNoteSummariesByCategory(category));
+    }
+
+    public void loadFavorites() throws Exception {
+        notes.setAll(notesService.getFavoriteNoteSummaries());
     }
 
-    public ObservableList<SecureNote> getNotes() {
+    public ObservableList<NoteSummary> getNotes() {
         return notes;
     }
 
@@ -37,7 +90,7 @@ public class SecureNotesViewModel {
         return searchQuery;
     }
 
-    public ObjectProperty<SecureNote> selectedNoteProperty() {
+    public ObjectProperty<NoteSummary> selectedNoteProperty() {
         return selectedNote;
     }
-}
\ No newline at end of file
+}
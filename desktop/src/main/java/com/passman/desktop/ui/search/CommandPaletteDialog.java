@@ -0,0 +1,75 @@
+package com.passman.desktop.ui.search;
+
+import com.passman.core.search.GlobalSearchIndex;
+import com.passman.core.search.SearchHit;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.VBox;
+
+import java.util.Optional;
+
+/**
+ * Command palette (Ctrl+K) with fuzzy search across credentials, notes, cards and vault files
+ */
+public class CommandPaletteDialog {
+
+    private static final int MAX_RESULTS = 50;
+
+    private final Dialog<SearchHit> dialog = new Dialog<>();
+    private final TextField queryField = new TextField();
+    private final ListView<SearchHit> resultsView = new ListView<>();
+
+    public CommandPaletteDialog() {
+        dialog.setTitle("Search Everything");
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+        dialog.setResultConverter(button -> null);
+
+        queryField.setPromptText("Search credentials, notes, cards and files...");
+        resultsView.setPrefSize(520, 360);
+        resultsView.setPlaceholder(new Label(GlobalSearchIndex.getInstance().isLoaded()
+                ? "Type to search"
+                : "Search index is not available"));
+
+        queryField.textProperty().addListener((obs, oldVal, newVal) -> {
+            resultsView.getItems().setAll(GlobalSearchIndex.getInstance().search(newVal, MAX_RESULTS));
+            resultsView.getSelectionModel().selectFirst();
+        });
+
+        queryField.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.ENTER) {
+                choose(resultsView.getSelectionModel().getSelectedItem());
+            } else if (event.getCode() == KeyCode.DOWN) {
+                resultsView.requestFocus();
+            }
+        });
+
+        resultsView.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.ENTER) {
+                choose(resultsView.getSelectionModel().getSelectedItem());
+            }
+        });
+
+        resultsView.setOnMouseClicked(event -> {
+            if (event.getClickCount() == 2) {
+                choose(resultsView.getSelectionModel().getSelectedItem());
+            }
+        });
+
+        VBox content = new VBox(10, queryField, resultsView);
+        content.setPadding(new Insets(15));
+        dialog.getDialogPane().setContent(content);
+        dialog.setOnShown(event -> queryField.requestFocus());
+    }
+
+    private void choose(SearchHit hit) {
+        if (hit != null) {
+            dialog.setResult(hit);
+            dialog.close();
+        }
+    }
+
+    public Optional<SearchHit> showAndWait() {
+        return dialog.showAndWait();
+    }
+}
@@ -3,9 +3,14 @@ package com.passman.desktop.ui.vault;
 import com.passman.core.db.DatabaseManager;
 import com. passman.core.model. EncryptedFile;
 import com.passman.core.model.FileVault;
+import com.passman.core.model.VaultStorage;
+import com.passman.core.repository.EncryptedFileRepository;
+import com.passman.core.repository.EncryptedFileRepositoryImpl;
 import com.passman.core.repository.FileVaultRepositoryImpl;
 import com. passman.core.services.FileEncryptionService;
+import com.passman.core.services.FileIngestService;
 import com.passman.core.services.FileVaultService;
+import com.passman.core.services.ThumbnailService;
 import com.passman.desktop.DialogUtils;
 import com.passman.desktop.MainApp;
 import com.passman.desktop.SessionManager;
@@ -13,15 +18,13 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.layout.StackPane;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import javax.crypto.SecretKey;
 import java.io.File;
-import java.sql.*;
-import java.time.LocalDateTime;
 import java. time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -29,14 +32,21 @@ import java.util.List;
  */
 public class FileVaultBrowserController {
 
+    private static final int PAGE_SIZE = 500;
+
     @FXML private ComboBox<FileVault> vaultSelector;
     @FXML private Label vaultStatusLabel;
     @FXML private Button unlockButton;
     @FXML private Button lockButton;
     @FXML private ListView<EncryptedFile> filesListView;
+    @FXML private StackPane filesPane;
+    @FXML private ToggleButton galleryToggle;
     @FXML private Label fileCountLabel;
     @FXML private Label totalSizeLabel;
     @FXML private Button addFileButton;
+    @FXML private Button addFolderButton;
+    @FXML private Button cancelButton;
+    @FXML private Button loadMoreButton;
     @FXML private Button downloadButton;
     @FXML private Button deleteButton;
     @FXML private ProgressIndicator progressIndicator;
@@ -44,8 +54,15 @@ public class FileVaultBrowserController {
 
     private FileVaultService vaultService;
     private FileEncryptionService fileEncryptionService;
+    private ThumbnailService thumbnailService;
+    private EncryptedFileRepository fileRepository;
+    private FileIngestService ingestService;
+    private javafx.concurrent.Task<FileIngestService.IngestResult> ingestTask;
+    private volatile boolean ingestCancelled;
+    private ThumbnailGallery gallery;
     private FileVault currentVault;
     private SecretKey currentVaultKey;
+    private VaultStorage currentStorage;
 
     @FXML
     public void initialize() {
@@ -54,9 +71,19 @@ public class FileVaultBrowserController {
         vaultService = new FileVaultService(repository);
 
         String storagePath = System.getProperty("user.home") + "/.passman";
-        fileEncryptionService = new FileEncryptionService(storagePath);
+        fileEncryptionService = new FileEncryptionService(storagePath, dbManager);
+        thumbnailService = new ThumbnailService(storagePath);
+        fileRepository = new EncryptedFileRepositoryImpl(dbManager);
+        ingestService = new FileIngestService(fileEncryptionService, thumbnailService, fileRepository);
+
+        gallery = new ThumbnailGallery(thumbnailService);
+        gallery.getNode().setVisible(false);
+        filesPane.getChildren().add(gallery.getNode());
+        gallery.selectedFileProperty().addListener((obs, oldVal, newVal) -> updateFileButtons());
 
         progressIndicator.setVisible(false);
+        cancelButton.setVisible(false);
+        loadMoreButton.setVisible(false);
 
         // Setup vault selector
         vaultSelector.setCellFactory(param -> new ListCell<>() {
@@ -100,10 +127,7 @@ public class FileVaultBrowserController {
             }
         });
 
-        filesListView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
-            downloadButton.setDisable(newVal == null || currentVaultKey == null);
-            deleteButton.setDisable(newVal == null || currentVaultKey == null);
-        });
+        filesListView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> updateFileButtons());
 
         loadVaults();
         updateUI();
@@ -126,6 +150,8 @@ public class FileVaultBrowserController {
     @FXML
     private void handleVaultSelected() {
         currentVault = vaultSelector.getValue();
+        thumbnailService.clearCache();
+        gallery.clear();
         if (currentVault != null) {
             // If vault has no separate password, auto-unlock
             if (!currentVault.isHasSeparatePassword()) {
@@ -134,6 +160,7 @@ public class FileVaultBrowserController {
             } else {
                 currentVaultKey = null;
                 filesListView.getItems().clear();
+                loadMoreButton.setVisible(false);
             }
         }
         updateUI();
@@ -181,6 +208,9 @@ public class FileVaultBrowserController {
     private void handleLockVault() {
         currentVaultKey = null;
         filesListView.getItems().clear();
+        loadMoreButton.setVisible(false);
+        gallery.clear();
+        thumbnailService.clearCache();
         updateUI();
     }
 
@@ -188,47 +218,40 @@ public class FileVaultBrowserController {
         if (currentVault == null || currentVaultKey == null) return;
 
         try {
-            List<EncryptedFile> files = getEncryptedFiles(currentVault. getId());
+            List<EncryptedFile> files = fileRepository.findByVaultId(currentVault.getId(), 0, PAGE_SIZE);
             filesListView. setItems(FXCollections. observableArrayList(files));
+            gallery.setFiles(files, currentVaultKey);
 
-            long totalSize = files.stream().mapToLong(EncryptedFile::getOriginalSize).sum();
-            fileCountLabel. setText(files.size() + " files");
-            totalSizeLabel.setText(formatFileSize(totalSize));
+            // Totals come from the vault's storage summary, not from the loaded page
+            currentStorage = fileRepository.getVaultStorage(currentVault.getId());
+            fileCountLabel. setText(currentStorage.getFileCount() + " files");
+            totalSizeLabel.setText(formatFileSize(currentStorage.getOriginalBytes()) +
+                    (currentStorage.hasQuota() ? " of " + formatFileSize(currentStorage.getQuotaBytes()) : ""));
+            updateLoadMore();
 
         } catch (Exception e) {
             DialogUtils.showError("Error", "Failed to load files", e.getMessage());
         }
     }
 
-    private List<EncryptedFile> getEncryptedFiles(Long vaultId) throws SQLException {
-        List<EncryptedFile> files = new ArrayList<>();
-        String sql = "SELECT * FROM encrypted_files WHERE vault_id = ?  ORDER BY uploaded_at DESC";
-
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setLong(1, vaultId);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    EncryptedFile file = new EncryptedFile();
-                    file.setId(rs.getLong("id"));
-                    file.setVaultId(rs.getLong("vault_id"));
-                    file.setOriginalFileName(rs.getString("original_file_name"));
-                    file.setEncryptedFileName(rs.getString("encrypted_file_name"));
-                    file.setOriginalSize(rs.getLong("original_size"));
-                    file.setEncryptedSize(rs.getLong("encrypted_size"));
-                    file.setMimeType(rs.getString("mime_type"));
-                    file.setEncryptionIV(rs.getBytes("encryption_iv"));
-                    file.setChecksum(rs.getString("checksum"));
-                    file.setUploadedAt(rs.getObject("uploaded_at", LocalDateTime. class));
-                    file.setLastAccessed(rs.getObject("last_accessed", LocalDateTime. class));
-                    files.add(file);
-                }
-            }
+    @FXML
+    private void handleLoadMore() {
+        if (currentVault == null || currentVaultKey == null) return;
+
+        try {
+            List<EncryptedFile> loaded = filesListView.getItems();
+            loaded.addAll(fileRepository.findByVaultId(currentVault.getId(), loaded.size(), PAGE_SIZE));
+            gallery.setFiles(loaded, currentVaultKey);
+            updateLoadMore();
+        } catch (Exception e) {
+            DialogUtils.showError("Error", "Failed to load files", e.getMessage());
         }
+    }
 
-        return files;
+    private void updateLoadMore() {
+        int remaining = currentStorage.getFileCount() - filesListView.getItems().size();
+        loadMoreButton.setText("Load " + Math.min(remaining, PAGE_SIZE) + " more");
+        loadMoreButton.setVisible(remaining > 0);
     }
 
     @FXML
@@ -240,55 +263,109 @@ public class FileVaultBrowserController {
         }
 
         FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Select File to Encrypt");
+        fileChooser.setTitle("Select Files to Encrypt");
         Stage stage = (Stage) filesListView.getScene().getWindow();
-        File file = fileChooser.showOpenDialog(stage);
+        List<File> files = fileChooser.showOpenMultipleDialog(stage);
 
-        if (file != null) {
-            javafx.concurrent.Task<EncryptedFile> encryptTask = new javafx.concurrent.Task<>() {
-                @Override
-                protected EncryptedFile call() throws Exception {
-                    return fileEncryptionService.encryptFile(file, currentVault.getId(), currentVaultKey);
-                }
-            };
+        if (files != null && !files.isEmpty()) {
+            ingestFiles(files);
+        }
+    }
 
-            encryptTask.setOnRunning(e -> {
-                progressIndicator. setVisible(true);
-                addFileButton.setDisable(true);
-                statusLabel.setText("Encrypting " + file.getName() + "...");
-            });
+    @FXML
+    private void handleAddFolder() {
+        if (currentVault == null || currentVaultKey == null) {
+            DialogUtils.showWarning("Vault Locked", "Unlock Vault First",
+                    "Please unlock the vault before adding files.");
+            return;
+        }
 
-            encryptTask.setOnSucceeded(e -> {
-                progressIndicator.setVisible(false);
-                addFileButton.setDisable(false);
-
-                try {
-                    EncryptedFile encryptedFile = encryptTask. getValue();
-                    saveEncryptedFileMetadata(encryptedFile);
-                    loadVaultFiles();
-                    statusLabel.setText("File encrypted successfully");
-                    DialogUtils.showInfo("Success", "File Encrypted",
-                            "File has been encrypted and added to the vault.");
-                } catch (Exception ex) {
-                    DialogUtils.showError("Error", "Failed to save metadata", ex.getMessage());
-                }
-            });
+        Stage stage = (Stage) filesListView.getScene().getWindow();
+        File folder = DialogUtils.showDirectoryChooser("Select Folder to Encrypt", stage);
 
-            encryptTask.setOnFailed(e -> {
-                progressIndicator.setVisible(false);
-                addFileButton.setDisable(false);
-                statusLabel.setText("Encryption failed");
-                DialogUtils.showError("Error", "Encryption failed",
-                        encryptTask.getException().getMessage());
-            });
+        if (folder != null) {
+            ingestFiles(List.of(folder));
+        }
+    }
 
-            new Thread(encryptTask).start();
+    @FXML
+    private void handleCancelIngest() {
+        if (ingestTask != null) {
+            // Not Task.cancel: the task has to run on to report the files already stored
+            ingestCancelled = true;
+            cancelButton.setDisable(true);
+            statusLabel.textProperty().unbind();
+            statusLabel.setText("Cancelling...");
         }
     }
 
+    /**
+     * Encrypt files and folder trees into the current vault in the background
+     */
+    private void ingestFiles(List<File> sources) {
+        FileVault vault = currentVault;
+        SecretKey vaultKey = currentVaultKey;
+        ingestCancelled = false;
+
+        ingestTask = new javafx.concurrent.Task<>() {
+            @Override
+            protected FileIngestService.IngestResult call() throws Exception {
+                updateMessage("Scanning files...");
+                List<File> files = FileIngestService.collectFiles(sources);
+                return ingestService.ingest(files, vault.getId(), vaultKey, progress -> {
+                    updateProgress(progress.completedFiles + progress.failedFiles, progress.totalFiles);
+                    updateMessage("Encrypting " + progress);
+                }, () -> ingestCancelled);
+            }
+        };
+
+        progressIndicator.progressProperty().bind(ingestTask.progressProperty());
+        statusLabel.textProperty().bind(ingestTask.messageProperty());
+        progressIndicator.setVisible(true);
+        addFileButton.setDisable(true);
+        addFolderButton.setDisable(true);
+        cancelButton.setDisable(false);
+        cancelButton.setVisible(true);
+
+        ingestTask.setOnSucceeded(e -> {
+            FileIngestService.IngestResult result = ingestTask.getValue();
+            finishIngest();
+            statusLabel.setText(result.toString());
+            if (!result.failures.isEmpty()) {
+                DialogUtils.showWarning("Add Files", result.failures.size() + " files could not be added",
+                        String.join("\n", result.failures.subList(0, Math.min(10, result.failures.size()))));
+            }
+        });
+
+        ingestTask.setOnFailed(e -> {
+            Throwable error = ingestTask.getException();
+            finishIngest();
+            statusLabel.setText("Encryption failed");
+            DialogUtils.showError("Error", "Encryption failed", error.getMessage());
+        });
+
+        Thread thread = new Thread(ingestTask, "passman-ingest-driver");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void finishIngest() {
+        progressIndicator.progressProperty().unbind();
+        progressIndicator.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+        progressIndicator.setVisible(false);
+        statusLabel.textProperty().unbind();
+        cancelButton.setVisible(false);
+        ingestTask = null;
+
+        boolean vaultUnlocked = currentVault != null && currentVaultKey != null;
+        addFileButton.setDisable(!vaultUnlocked);
+        addFolderButton.setDisable(!vaultUnlocked);
+        loadVaultFiles();
+    }
+
     @FXML
     private void handleDownloadFile() {
-        EncryptedFile selectedFile = filesListView.getSelectionModel().getSelectedItem();
+        EncryptedFile selectedFile = getSelectedFile();
         if (selectedFile == null) return;
 
         FileChooser fileChooser = new FileChooser();
@@ -333,7 +410,7 @@ public class FileVaultBrowserController {
 
     @FXML
     private void handleDeleteFile() {
-        EncryptedFile selectedFile = filesListView.getSelectionModel().getSelectedItem();
+        EncryptedFile selectedFile = getSelectedFile();
         if (selectedFile == null) return;
 
         boolean confirm = DialogUtils.showConfirmation(
@@ -344,8 +421,10 @@ public class FileVaultBrowserController {
 
         if (confirm) {
             try {
+                // Metadata first: a shared blob is only deleted once no row references it
+                fileRepository.delete(selectedFile.getId());
                 fileEncryptionService.deleteEncryptedFile(selectedFile);
-                deleteEncryptedFileMetadata(selectedFile. getId());
+                thumbnailService.deleteThumbnail(selectedFile);
                 loadVaultFiles();
                 DialogUtils.showInfo("Success", "File Deleted", "File has been deleted.");
             } catch (Exception e) {
@@ -354,6 +433,29 @@ public class FileVaultBrowserController {
         }
     }
 
+    /**
+     * Switch between the file list and the thumbnail gallery
+     */
+    @FXML
+    private void handleToggleGallery() {
+        boolean showGallery = galleryToggle.isSelected();
+        gallery.getNode().setVisible(showGallery);
+        filesListView.setVisible(!showGallery);
+        updateFileButtons();
+    }
+
+    private EncryptedFile getSelectedFile() {
+        return galleryToggle.isSelected()
+                ? gallery.getSelectedFile()
+                : filesListView.getSelectionModel().getSelectedItem();
+    }
+
+    private void updateFileButtons() {
+        boolean noFile = getSelectedFile() == null || currentVaultKey == null;
+        downloadButton.setDisable(noFile);
+        deleteButton.setDisable(noFile);
+    }
+
     @FXML
     private void handleManageVaults() {
         try {
@@ -376,7 +478,8 @@ public class FileVaultBrowserController {
 
         unlockButton.setDisable(! vaultSelected || vaultUnlocked);
         lockButton.setDisable(!vaultUnlocked);
-        addFileButton.setDisable(!vaultUnlocked);
+        addFileButton.setDisable(!vaultUnlocked || ingestTask != null);
+        addFolderButton.setDisable(!vaultUnlocked || ingestTask != null);
 
         if (vaultUnlocked) {
             vaultStatusLabel.setText("🔓 Unlocked");
@@ -390,48 +493,6 @@ public class FileVaultBrowserController {
         }
     }
 
-    private void saveEncryptedFileMetadata(EncryptedFile file) throws SQLException {
-        String sql = """
-            INSERT INTO encrypted_files (vault_id, original_file_name, encrypted_file_name, 
-                                        original_size, encrypted_size, mime_type, encryption_iv, 
-                                        checksum, uploaded_at)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            stmt.setLong(1, file.getVaultId());
-            stmt.setString(2, file.getOriginalFileName());
-            stmt.setString(3, file.getEncryptedFileName());
-            stmt.setLong(4, file.getOriginalSize());
-            stmt.setLong(5, file.getEncryptedSize());
-            stmt.setString(6, file.getMimeType());
-            stmt.setBytes(7, file.getEncryptionIV());
-            stmt.setString(8, file.getChecksum());
-            stmt.setObject(9, file.getUploadedAt());
-
-            stmt.executeUpdate();
-
-            try (ResultSet rs = stmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    file.setId(rs.getLong(1));
-                }
-            }
-        }
-    }
-
-    private void deleteEncryptedFileMetadata(Long fileId) throws SQLException {
-        String sql = "DELETE FROM encrypted_files WHERE id = ?";
-
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setLong(1, fileId);
-            stmt.executeUpdate();
-        }
-    }
-
     private String formatFileSize(long bytes) {
         if (bytes < 1024) return bytes + " B";
         if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
@@ -0,0 +1,182 @@
+package com.passman.desktop.ui.vault;
+
+import com.passman.core.model.EncryptedFile;
+import com.passman.core.services.ThumbnailService;
+import javafx.application.Platform;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+
+import javax.crypto.SecretKey;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Grid of vault file thumbnails. Each row of the grid is a cell of a ListView, which only
+ * creates the rows on screen, so thumbnails are decrypted in the background as rows scroll
+ * into view and loads for rows scrolled past are skipped.
+ */
+public class ThumbnailGallery {
+
+    private static final double TILE_WIDTH = ThumbnailService.THUMBNAIL_SIZE + 24;
+    private static final String TILE_STYLE = "-fx-padding: 6; -fx-background-radius: 6;";
+    private static final String SELECTED_TILE_STYLE = TILE_STYLE + " -fx-background-color: rgba(52, 152, 219, 0.35);";
+
+    private final ThumbnailService thumbnailService;
+    private final ListView<List<EncryptedFile>> rowsView = new ListView<>();
+    private final ObjectProperty<EncryptedFile> selectedFile = new SimpleObjectProperty<>();
+    private final ExecutorService loader = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "passman-thumbnails");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private List<EncryptedFile> files = List.of();
+    private SecretKey vaultKey;
+    private int columns = 1;
+
+    public ThumbnailGallery(ThumbnailService thumbnailService) {
+        this.thumbnailService = thumbnailService;
+
+        rowsView.setPlaceholder(new Label("No files"));
+        rowsView.setFocusTraversable(false);
+        rowsView.setCellFactory(param -> new RowCell());
+        rowsView.widthProperty().addListener((obs, oldVal, newVal) -> {
+            int fitting = Math.max(1, (int) ((newVal.doubleValue() - 30) / TILE_WIDTH));
+            if (fitting != columns) {
+                columns = fitting;
+                layoutRows();
+            }
+        });
+        selectedFile.addListener((obs, oldVal, newVal) -> rowsView.refresh());
+    }
+
+    public Node getNode() {
+        return rowsView;
+    }
+
+    public ObjectProperty<EncryptedFile> selectedFileProperty() {
+        return selectedFile;
+    }
+
+    public EncryptedFile getSelectedFile() {
+        return selectedFile.get();
+    }
+
+    /**
+     * Show the files of an unlocked vault; the key decrypts their thumbnails
+     */
+    public void setFiles(List<EncryptedFile> files, SecretKey vaultKey) {
+        this.files = files;
+        this.vaultKey = vaultKey;
+        selectedFile.set(null);
+        layoutRows();
+    }
+
+    public void clear() {
+        setFiles(List.of(), null);
+    }
+
+    private void layoutRows() {
+        List<List<EncryptedFile>> rows = new ArrayList<>();
+        for (int i = 0; i < files.size(); i += columns) {
+            rows.add(files.subList(i, Math.min(i + columns, files.size())));
+        }
+        rowsView.getItems().setAll(rows);
+    }
+
+    private class RowCell extends ListCell<List<EncryptedFile>> {
+
+        // Bumped whenever the cell shows another row, so loads for the old one are dropped
+        private volatile int generation;
+
+        @Override
+        protected void updateItem(List<EncryptedFile> row, boolean empty) {
+            super.updateItem(row, empty);
+            int current = ++generation;
+
+            setText(null);
+            if (empty || row == null) {
+                setGraphic(null);
+                return;
+            }
+
+            HBox tiles = new HBox(8);
+            for (EncryptedFile file : row) {
+                tiles.getChildren().add(createTile(file, current));
+            }
+            setGraphic(tiles);
+        }
+
+        private Node createTile(EncryptedFile file, int current) {
+            ImageView imageView = new ImageView();
+            imageView.setFitWidth(ThumbnailService.THUMBNAIL_SIZE);
+            imageView.setFitHeight(ThumbnailService.THUMBNAIL_SIZE);
+            imageView.setPreserveRatio(true);
+
+            Label placeholder = new Label(fileIcon(file));
+            placeholder.setStyle("-fx-font-size: 48px;");
+            StackPane frame = new StackPane(placeholder, imageView);
+            frame.setPrefSize(ThumbnailService.THUMBNAIL_SIZE, ThumbnailService.THUMBNAIL_SIZE);
+
+            Label name = new Label(file.getOriginalFileName());
+            name.setMaxWidth(ThumbnailService.THUMBNAIL_SIZE);
+
+            VBox tile = new VBox(4, frame, name);
+            tile.setAlignment(Pos.CENTER);
+            tile.setStyle(file.equals(selectedFile.get()) ? SELECTED_TILE_STYLE : TILE_STYLE);
+            tile.setOnMouseClicked(event -> selectedFile.set(file));
+
+            byte[] cached = thumbnailService.getCachedThumbnail(file);
+            if (cached != null) {
+                show(imageView, placeholder, cached);
+            } else if (vaultKey != null) {
+                SecretKey key = vaultKey;
+                loader.execute(() -> {
+                    if (generation != current) {
+                        return;
+                    }
+                    try {
+                        Optional<byte[]> thumbnail = thumbnailService.loadThumbnail(file, key);
+                        thumbnail.ifPresent(bytes -> Platform.runLater(() -> {
+                            if (generation == current) {
+                                show(imageView, placeholder, bytes);
+                            }
+                        }));
+                    } catch (Exception e) {
+                        System.err.println("⚠️ Failed to load thumbnail of " + file.getOriginalFileName() +
+                                ": " + e.getMessage());
+                    }
+                });
+            }
+            return tile;
+        }
+
+        private void show(ImageView imageView, Label placeholder, byte[] thumbnail) {
+            imageView.setImage(new Image(new ByteArrayInputStream(thumbnail)));
+            placeholder.setVisible(false);
+        }
+    }
+
+    private static String fileIcon(EncryptedFile file) {
+        String mimeType = file.getMimeType() != null ? file.getMimeType() : "";
+        if (mimeType.startsWith("image/")) return "🖼️";
+        if (mimeType.equals("application/pdf")) return "📕";
+        if (mimeType.startsWith("video/")) return "🎞️";
+        if (mimeType.startsWith("audio/")) return "🎵";
+        return "📄";
+    }
+}
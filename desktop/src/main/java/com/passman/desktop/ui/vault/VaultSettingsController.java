@@ -2,6 +2,9 @@ package com.passman.desktop.ui.vault;
 
 import com.passman.core.db.DatabaseManager;
 import com.passman.core.model.FileVault;
+import com.passman.core.model.VaultStorage;
+import com.passman.core.repository.EncryptedFileRepository;
+import com.passman.core.repository.EncryptedFileRepositoryImpl;
 import com.passman.core.repository.FileVaultRepositoryImpl;
 import com. passman.core.services.FileVaultService;
 import com. passman.desktop.DialogUtils;
@@ -24,9 +27,12 @@ public class VaultSettingsController {
     @FXML private CheckBox separatePasswordCheck;
     @FXML private PasswordField newPasswordField;
     @FXML private PasswordField confirmPasswordField;
+    @FXML private TextField quotaField;
+    @FXML private Label usageLabel;
     @FXML private Label statusLabel;
 
     private FileVaultService vaultService;
+    private EncryptedFileRepository fileRepository;
     private FileVault selectedVault;
 
     @FXML
@@ -34,6 +40,7 @@ public class VaultSettingsController {
         DatabaseManager dbManager = DatabaseManager.getInstance();
         FileVaultRepositoryImpl repository = new FileVaultRepositoryImpl(dbManager);
         vaultService = new FileVaultService(repository);
+        fileRepository = new EncryptedFileRepositoryImpl(dbManager);
 
         vaultTypeCombo.setItems(FXCollections.observableArrayList(FileVault.VaultType.values()));
 
@@ -82,6 +89,15 @@ public class VaultSettingsController {
         separatePasswordCheck.setSelected(vault.isHasSeparatePassword());
         newPasswordField.clear();
         confirmPasswordField.clear();
+
+        try {
+            VaultStorage storage = fileRepository.getVaultStorage(vault.getId());
+            quotaField.setText(storage.hasQuota() ? String.valueOf(storage.getQuotaBytes() / (1024 * 1024)) : "");
+            usageLabel.setText(String.format("%d files, %.1f MB used",
+                    storage.getFileCount(), storage.getOriginalBytes() / (1024.0 * 1024.0)));
+        } catch (Exception e) {
+            usageLabel.setText("Usage unavailable");
+        }
     }
 
     @FXML
@@ -204,6 +220,35 @@ public class VaultSettingsController {
         }
     }
 
+    @FXML
+    private void handleSetQuota() {
+        if (selectedVault == null) {
+            DialogUtils.showWarning("No Selection", "Select Vault",
+                    "Please select a vault to modify.");
+            return;
+        }
+
+        String text = quotaField.getText() == null ? "" : quotaField.getText().trim();
+        Long quotaBytes = null;
+        if (!text.isEmpty()) {
+            if (!text.matches("\\d{1,9}")) {
+                DialogUtils.showWarning("Validation", "Invalid Quota",
+                        "Enter the quota in MB, or leave it empty for no limit.");
+                return;
+            }
+            quotaBytes = Long.parseLong(text) * 1024 * 1024;
+        }
+
+        try {
+            fileRepository.setQuota(selectedVault.getId(), quotaBytes);
+            DialogUtils.showInfo("Success", "Quota Updated",
+                    quotaBytes == null ? "The vault has no storage limit." : "The vault is limited to " + text + " MB.");
+            loadVaultDetails(selectedVault);
+        } catch (Exception e) {
+            DialogUtils.showError("Error", "Failed to set quota", e.getMessage());
+        }
+    }
+
     @FXML
     private void handleClear() {
         selectedVault = null;
@@ -213,6 +258,8 @@ public class VaultSettingsController {
         separatePasswordCheck.setSelected(false);
         newPasswordField.clear();
         confirmPasswordField.clear();
+        quotaField.clear();
+        usageLabel.setText("");
         vaultsListView.getSelectionModel().clearSelection();
     }
 
@@ -1,5 +1,8 @@
 package com.passman.desktop.utils;
 
+import com.passman.core.db.DatabaseMaintenanceScheduler;
+import com.passman.core.services.BackupScheduler;
+import com.passman.core.storage.IntegrityScrubber;
 import com.passman.desktop.SessionManager;
 import javafx.event.Event;
 import javafx.event.EventHandler;
@@ -25,6 +28,11 @@ public class ActivityTracker {
 
     public void attachToScene(Scene scene) {
         EventHandler<Event> activityHandler = event -> {
+            // Idle-time maintenance, integrity scrubbing and scheduled backups yield while the user is active
+            DatabaseMaintenanceScheduler.getInstance().recordActivity();
+            IntegrityScrubber.getInstance().recordActivity();
+            BackupScheduler.getInstance().recordActivity();
+
             if (SessionManager.getInstance().isLoggedIn()) {
                 SessionManager.getInstance().updateActivity();
             }